@@ -0,0 +1,104 @@
+const express = require('express');
+const request = require('supertest');
+
+// Runs the gateway against a stand-in question service, with real axios, so that the interceptors run
+describe('Gateway request log', () => {
+  let questionService;
+  let received;
+  let logged;
+
+  beforeAll(done => {
+    const stub = express();
+    stub.get('/question/:questionType', (req, res) => {
+      received.push(req.headers);
+      res.json({ question: 'Which flag is this?' });
+    });
+    questionService = stub.listen(0, done);
+  });
+
+  afterAll(() => {
+    questionService.close();
+    delete process.env.GATEWAY_PORT;
+    delete process.env.QUESTION_SERVICE_URL;
+  });
+
+  beforeEach(() => {
+    received = [];
+    logged = jest.spyOn(console, 'log').mockImplementation(() => {});
+  });
+
+  afterEach(() => {
+    logged.mockRestore();
+    delete process.env.REQUEST_LOG;
+  });
+
+  const startGateway = () => {
+    process.env.GATEWAY_PORT = '0';
+    process.env.QUESTION_SERVICE_URL = `http://localhost:${questionService.address().port}`;
+    let gateway;
+    jest.isolateModules(() => {
+      gateway = require('./gateway-service');
+    });
+    return gateway;
+  };
+
+  // The gateway logs once the response is sent, which the client may see first
+  const requestLines = async () => {
+    await new Promise(resolve => setImmediate(resolve));
+    return logged.mock.calls
+      .map(args => args[0])
+      .filter(line => typeof line === 'string' && line.startsWith('{"event":"request"'))
+      .map(line => JSON.parse(line));
+  };
+
+  const traceparent = '00-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-01';
+
+  it('should forward the request id downstream and log the request when REQUEST_LOG is true', async () => {
+    process.env.REQUEST_LOG = 'true';
+    const gateway = startGateway();
+    try {
+      const response = await request(gateway)
+        .get('/question/flags')
+        .set('X-Request-Id', '4bf92f3577b34da6a3ce929d0e0e4736')
+        .set('traceparent', traceparent);
+
+      expect(response.statusCode).toBe(200);
+      expect(response.headers['x-request-id']).toBe('4bf92f3577b34da6a3ce929d0e0e4736');
+      expect(received).toHaveLength(1);
+      expect(received[0]['x-request-id']).toBe('4bf92f3577b34da6a3ce929d0e0e4736');
+      expect(received[0]['traceparent']).toBe(traceparent);
+
+      const lines = await requestLines();
+      expect(lines).toHaveLength(1);
+      expect(lines[0]).toMatchObject({
+        service: 'gateway',
+        requestId: '4bf92f3577b34da6a3ce929d0e0e4736',
+        route: '/question/:questionType',
+        status: 200
+      });
+      expect(lines[0].downstream).toHaveLength(1);
+      expect(lines[0].downstream[0].service).toBe('question');
+    } finally {
+      gateway.close();
+    }
+  });
+
+  it('should neither forward nor log anything when REQUEST_LOG is not set', async () => {
+    const gateway = startGateway();
+    try {
+      const response = await request(gateway)
+        .get('/question/flags')
+        .set('X-Request-Id', '4bf92f3577b34da6a3ce929d0e0e4736')
+        .set('traceparent', traceparent);
+
+      expect(response.statusCode).toBe(200);
+      expect(response.headers['x-request-id']).toBeUndefined();
+      expect(received).toHaveLength(1);
+      expect(received[0]['x-request-id']).toBeUndefined();
+      expect(received[0]['traceparent']).toBeUndefined();
+      expect(await requestLines()).toHaveLength(0);
+    } finally {
+      gateway.close();
+    }
+  });
+});
@@ -8,11 +8,13 @@ const YAML = require('yaml')
 const jwt = require('jsonwebtoken');
 const multer = require('multer');
 const FormData = require('form-data');
+const crypto = require('crypto');
+const { AsyncLocalStorage } = require('async_hooks');
 
 require('dotenv').config();
 
 const app = express();
-const port = 8000;
+const port = process.env.GATEWAY_PORT || 8000;
 
 const statisticsServiceUrl = process.env.STATS_SERVICE_URL || 'http://localhost:8005';
 const questionServiceUrl = process.env.QUESTION_SERVICE_URL || 'http://localhost:8004';
@@ -20,11 +22,86 @@ const llmServiceUrl = process.env.LLM_SERVICE_URL || 'http://localhost:8003';
 const authServiceUrl = process.env.AUTH_SERVICE_URL || 'http://localhost:8002';
 const userServiceUrl = process.env.USER_SERVICE_URL || 'http://localhost:8001';
 
+// Request log, on with REQUEST_LOG=true: one JSON line per request, with the X-Request-Id the load tests send, the
+// time spent in the gateway and the time spent waiting on each downstream service. The ids and traceparent are
+// forwarded downstream. Off by default, the gateway neither logs nor forwards them.
+const requestLog = process.env.REQUEST_LOG === 'true';
+const requestContext = new AsyncLocalStorage();
+const downstreamServices = {
+  [statisticsServiceUrl]: 'statistics',
+  [questionServiceUrl]: 'question',
+  [llmServiceUrl]: 'llm',
+  [authServiceUrl]: 'auth',
+  [userServiceUrl]: 'user'
+};
+
+const logRequests = (req, res, next) => {
+  const context = {
+    requestId: req.headers['x-request-id'] || crypto.randomUUID(),
+    traceparent: req.headers['traceparent'],
+    receivedAt: Date.now(),
+    start: process.hrtime.bigint(),
+    downstream: []
+  };
+  res.setHeader('X-Request-Id', context.requestId);
+  res.on('finish', () => {
+    const downstreamMs = context.downstream.reduce((sum, call) => sum + call.ms, 0);
+    console.log(JSON.stringify({
+      event: 'request',
+      service: 'gateway',
+      requestId: context.requestId,
+      method: req.method,
+      route: req.route ? req.route.path : req.path,
+      path: req.path,
+      status: res.statusCode,
+      receivedAt: context.receivedAt,
+      totalMs: Number(process.hrtime.bigint() - context.start) / 1e6,
+      downstreamMs,
+      downstream: context.downstream
+    }));
+  });
+  requestContext.run(context, next);
+};
+
+const recordDownstream = (config) => {
+  const context = requestContext.getStore();
+  if (context && config && config.startedAt !== undefined) {
+    const base = Object.keys(downstreamServices).find(url => config.url && config.url.startsWith(url));
+    context.downstream.push({
+      service: base ? downstreamServices[base] : config.url,
+      ms: Number(process.hrtime.bigint() - config.startedAt) / 1e6
+    });
+  }
+};
+
+const forwardIds = (config) => {
+  const context = requestContext.getStore();
+  if (context) {
+    config.headers['X-Request-Id'] = context.requestId;
+    if (context.traceparent) config.headers['traceparent'] = context.traceparent;
+    config.startedAt = process.hrtime.bigint();
+  }
+  return config;
+};
+
+if (requestLog) {
+  app.use(logRequests);
+  axios.interceptors.request.use(forwardIds);
+  axios.interceptors.response.use(response => {
+    recordDownstream(response.config);
+    return response;
+  }, error => {
+    recordDownstream(error.config);
+    return Promise.reject(error);
+  });
+}
+
 app.use(cors());
 app.use(express.json());
 
 //Prometheus configuration
-const metricsMiddleware = promBundle({ includeMethod: true });
+// Default metrics add the process memory gauges the load tests sample during upload runs
+const metricsMiddleware = promBundle({ includeMethod: true, promClient: { collectDefaultMetrics: {} } });
 app.use(metricsMiddleware);
 
 // Configure multer for file uploads
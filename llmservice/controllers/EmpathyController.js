@@ -6,6 +6,8 @@ class EmpathyController {
 
     constructor() {
         this.apiKey = process.env.LLM_API_KEY;
+        // EMPATHY_API_URL lets load tests point the service at a local stand-in
+        this.apiUrl = process.env.EMPATHY_API_URL || 'https://empathyai.prod.empathy.co';
     }
 
     hasApiKey() {
@@ -14,7 +16,7 @@ class EmpathyController {
 
     async _sendRequest(messages) {
         try {
-            const response = await axios.post('https://empathyai.prod.empathy.co/v1/chat/completions', {
+            const response = await axios.post(`${this.apiUrl}/v1/chat/completions`, {
                 model: "mistralai/Mistral-7B-Instruct-v0.3",
                 messages: messages
             },
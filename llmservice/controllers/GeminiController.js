@@ -5,6 +5,8 @@ const getSystemPrompt = require('../utils/system-prompt');
 class GeminiController {
     constructor() {
         this.apiKey = process.env.GEMINI_API_KEY;
+        // GEMINI_API_URL lets load tests point the service at a local stand-in
+        this.apiUrl = process.env.GEMINI_API_URL || 'https://generativelanguage.googleapis.com';
     }
 
     hasApiKey() {
@@ -13,7 +15,7 @@ class GeminiController {
 
     async _sendRequest(contents) {
         try {
-            const response = await axios.post(`https://generativelanguage.googleapis.com/v1beta/models/gemini-2.0-flash:generateContent?key=${this.apiKey}`, {
+            const response = await axios.post(`${this.apiUrl}/v1beta/models/gemini-2.0-flash:generateContent?key=${this.apiKey}`, {
                 "contents": contents,
                 "generationConfig": {
                     "temperature": 0.5,
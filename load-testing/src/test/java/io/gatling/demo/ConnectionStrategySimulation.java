@@ -0,0 +1,89 @@
+package io.gatling.demo;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import io.gatling.demo.auth.Auth;
+import io.gatling.demo.connections.ConnectionReport;
+import io.gatling.demo.connections.Sockets;
+import io.gatling.demo.distributed.Injector;
+import io.gatling.demo.flows.Flows;
+import io.gatling.demo.http.ConnectionStrategy;
+import io.gatling.demo.http.Protocols;
+import io.gatling.demo.slo.Slo;
+import io.gatling.demo.users.Population;
+import static io.gatling.javaapi.core.CoreDsl.constantUsersPerSec;
+import static io.gatling.javaapi.core.CoreDsl.group;
+import static io.gatling.javaapi.core.CoreDsl.nothingFor;
+import static io.gatling.javaapi.core.CoreDsl.pause;
+import static io.gatling.javaapi.core.CoreDsl.scenario;
+import io.gatling.javaapi.core.PopulationBuilder;
+import io.gatling.javaapi.core.Simulation;
+
+/**
+ * The landing page, the profile page and its gallery of default images, loaded under each
+ * {@link ConnectionStrategy} in turn while {@link Sockets} counts the services' sockets. Each page is a group under
+ * the strategy's label, so its duration is the page-complete time; the users pause a second between pages. Analyse
+ * the run with {@link ConnectionReport}.
+ *
+ * <ul>
+ *   <li>{@code -Dconnections.strategies} — strategies, in order (default {@code per-user,shared,http2})</li>
+ *   <li>{@code -Dconnections.rate} — users per second (default 5)</li>
+ *   <li>{@code -Dconnections.stepSeconds} — time spent on each strategy (default 60)</li>
+ *   <li>{@code -Dconnections.gapSeconds} — pause between strategies, for the connections to close (default 15)</li>
+ * </ul>
+ */
+public class ConnectionStrategySimulation extends Simulation {
+
+  public static final String MAIN_PAGE = "main page";
+  public static final String PROFILE_PAGE = "profile page";
+  public static final String DEFAULT_IMAGES = "default images";
+
+  private final List<ConnectionStrategy> strategies =
+      ConnectionStrategy.parseAll(System.getProperty("connections.strategies", "per-user,shared,http2"));
+  private final double rate = Double.parseDouble(System.getProperty("connections.rate", "5"));
+  private final Duration step = Duration.ofSeconds(Long.getLong("connections.stepSeconds", 60));
+  private final Duration gap = Duration.ofSeconds(Long.getLong("connections.gapSeconds", 15));
+
+  private List<PopulationBuilder> populations() {
+    List<PopulationBuilder> populations = new ArrayList<>();
+    for (int i = 0; i < strategies.size(); i++) {
+      ConnectionStrategy strategy = strategies.get(i);
+      populations.add(scenario("pages " + strategy.label)
+          .feed(Population.feeder())
+          .exec(Auth.attachToken())
+          .group(strategy.label).on(
+              group(MAIN_PAGE).on(Flows.landingPage()),
+              pause(1),
+              group(PROFILE_PAGE).on(Flows.profilePage()),
+              pause(1),
+              group(DEFAULT_IMAGES).on(Flows.defaultImages()))
+          .injectOpen(nothingFor(step.plus(gap).multipliedBy(i)),
+              constantUsersPerSec(Load.rate(rate)).during(step))
+          .protocols(Protocols.browser(Targets.GATEWAY_URL, strategy)));
+    }
+    return populations;
+  }
+
+  @Override
+  public void before() {
+    Targets.before();
+    Population.provision();
+    Injector.awaitStart();
+    ConnectionReport.storeStrategies(strategies, ConnectionReport.defaultFile());
+    Sockets.start(Sockets.defaultFile());
+  }
+
+  @Override
+  public void after() {
+    Sockets.stop();
+    Auth.release();
+    Targets.after();
+  }
+
+  {
+    setUp(populations())
+        .assertions(Slo.assertions(getClass()));
+  }
+}
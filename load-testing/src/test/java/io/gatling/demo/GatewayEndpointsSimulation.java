@@ -0,0 +1,43 @@
+package io.gatling.demo;
+
+import io.gatling.demo.distributed.Injector;
+import io.gatling.demo.http.Protocols;
+import io.gatling.demo.overhead.GatewayOverheadReport;
+import io.gatling.demo.overhead.ServiceEndpoints;
+import io.gatling.demo.slo.Slo;
+import io.gatling.demo.users.Population;
+import static io.gatling.javaapi.core.CoreDsl.constantUsersPerSec;
+import static io.gatling.javaapi.core.CoreDsl.scenario;
+import io.gatling.javaapi.core.ScenarioBuilder;
+import io.gatling.javaapi.core.Simulation;
+import io.gatling.javaapi.http.HttpProtocolBuilder;
+
+/**
+ * The {@link ServiceEndpoints} workload through the gateway, paired with {@link DirectEndpointsSimulation}: run
+ * both with the same load and compare them with {@link GatewayOverheadReport}.
+ */
+public class GatewayEndpointsSimulation extends Simulation {
+
+  private HttpProtocolBuilder httpProtocol = Protocols.browser(Targets.GATEWAY_URL);
+
+  private ScenarioBuilder scn = scenario("GatewayEndpointsSimulation")
+      .feed(Population.feeder())
+      .exec(ServiceEndpoints.workload(ServiceEndpoints.Via.GATEWAY));
+
+  @Override
+  public void before() {
+    Targets.before();
+    Injector.awaitStart();
+  }
+
+  @Override
+  public void after() {
+    Targets.after();
+  }
+
+  {
+    setUp(scn.injectOpen(Load.open(constantUsersPerSec(Load.rate(5)).during(60).randomized())))
+        .protocols(httpProtocol)
+        .assertions(Slo.assertions(getClass()));
+  }
+}
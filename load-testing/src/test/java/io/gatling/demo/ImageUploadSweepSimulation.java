@@ -0,0 +1,80 @@
+package io.gatling.demo;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import io.gatling.demo.auth.Auth;
+import io.gatling.demo.distributed.Injector;
+import io.gatling.demo.flows.Flows;
+import io.gatling.demo.http.Protocols;
+import io.gatling.demo.slo.Slo;
+import io.gatling.demo.upload.GatewayMemory;
+import io.gatling.demo.upload.ImageSize;
+import io.gatling.demo.upload.UploadReport;
+import io.gatling.demo.users.Population;
+import static io.gatling.javaapi.core.CoreDsl.constantUsersPerSec;
+import static io.gatling.javaapi.core.CoreDsl.group;
+import static io.gatling.javaapi.core.CoreDsl.nothingFor;
+import static io.gatling.javaapi.core.CoreDsl.scenario;
+import io.gatling.javaapi.core.PopulationBuilder;
+import io.gatling.javaapi.core.Simulation;
+import io.gatling.javaapi.http.HttpProtocolBuilder;
+
+/**
+ * Multipart uploads of custom profile images of growing size, one size after the other, while the gateway's memory
+ * is sampled by {@link GatewayMemory}. Each upload is followed by the cache-busted fetch of the new image, and the
+ * requests of a size are grouped under its label. Analyse the run with {@link UploadReport}.
+ *
+ * <ul>
+ *   <li>{@code -Dupload.sizes} — image sizes, in order (default {@value ImageSize#DEFAULT_SIZES})</li>
+ *   <li>{@code -Dupload.rate} — uploads per second (default 2)</li>
+ *   <li>{@code -Dupload.stepSeconds} — time spent on each size (default 60)</li>
+ *   <li>{@code -Dupload.gapSeconds} — pause between sizes, for the gateway's memory to settle (default 10)</li>
+ * </ul>
+ */
+public class ImageUploadSweepSimulation extends Simulation {
+
+  private final List<ImageSize> sizes = ImageSize.fromSystemProperties();
+  private final double rate = Double.parseDouble(System.getProperty("upload.rate", "2"));
+  private final Duration step = Duration.ofSeconds(Long.getLong("upload.stepSeconds", 60));
+  private final Duration gap = Duration.ofSeconds(Long.getLong("upload.gapSeconds", 10));
+
+  private HttpProtocolBuilder httpProtocol = Protocols.browser(Targets.GATEWAY_URL);
+
+  private List<PopulationBuilder> populations() {
+    List<PopulationBuilder> populations = new ArrayList<>();
+    for (int i = 0; i < sizes.size(); i++) {
+      ImageSize size = sizes.get(i);
+      populations.add(scenario("upload " + size.label)
+          .feed(Population.feeder())
+          .exec(Auth.attachToken())
+          .exec(group(size.label).on(Flows.customImage(size)))
+          .injectOpen(nothingFor(step.plus(gap).multipliedBy(i)),
+              constantUsersPerSec(Load.rate(rate)).during(step)));
+    }
+    return populations;
+  }
+
+  @Override
+  public void before() {
+    Targets.before();
+    Population.provision();
+    Injector.awaitStart();
+    UploadReport.storeSizes(sizes, UploadReport.defaultFile());
+    GatewayMemory.start(GatewayMemory.defaultFile());
+  }
+
+  @Override
+  public void after() {
+    GatewayMemory.stop();
+    Auth.release();
+    Targets.after();
+  }
+
+  {
+    setUp(populations())
+        .protocols(httpProtocol)
+        .assertions(Slo.assertions(getClass()));
+  }
+}
@@ -0,0 +1,83 @@
+package io.gatling.demo;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import io.gatling.demo.auth.Auth;
+import io.gatling.demo.distributed.Injector;
+import io.gatling.demo.http.Headers;
+import io.gatling.demo.http.Protocols;
+import io.gatling.demo.leaderboard.LeaderboardMatrix;
+import io.gatling.demo.leaderboard.LeaderboardReport;
+import io.gatling.demo.leaderboard.LeaderboardSeed;
+import io.gatling.demo.slo.Slo;
+import io.gatling.demo.users.Population;
+import static io.gatling.javaapi.core.CoreDsl.constantUsersPerSec;
+import static io.gatling.javaapi.core.CoreDsl.jsonPath;
+import static io.gatling.javaapi.core.CoreDsl.listFeeder;
+import static io.gatling.javaapi.core.CoreDsl.scenario;
+import io.gatling.javaapi.core.ScenarioBuilder;
+import io.gatling.javaapi.core.Simulation;
+import static io.gatling.javaapi.http.HttpDsl.http;
+import io.gatling.javaapi.http.HttpProtocolBuilder;
+
+/**
+ * Every combination of {@link LeaderboardMatrix} parameters of {@code GET /statistics}, each requested
+ * {@code matrix.samples} times in a shuffled order, against a statisticservice holding a production-sized
+ * collection written by {@link LeaderboardSeed}. Each combination is its own request name. Analyse the run with
+ * {@link LeaderboardReport}.
+ *
+ * <ul>
+ *   <li>{@code -Dmatrix.rate} — requests per second, low enough not to queue (default 10)</li>
+ *   <li>{@code -Dmatrix.samples} — requests per combination (default 3)</li>
+ *   <li>{@code -Dmatrix.sorts}, {@code .orders}, {@code .gameTypes}, {@code .filters}, {@code .offsets},
+ *   {@code .limits} — the values of each dimension, see {@link LeaderboardMatrix}</li>
+ * </ul>
+ */
+public class LeaderboardMatrixSimulation extends Simulation {
+
+  private final double rate = Double.parseDouble(System.getProperty("matrix.rate", "10"));
+  private final List<String> schedule = LeaderboardMatrix.fromSystemProperties()
+      .schedule(Integer.getInteger("matrix.samples", 3), Long.getLong("seed.seed", 42));
+
+  private HttpProtocolBuilder httpProtocol = Protocols.browser(Targets.GATEWAY_URL);
+
+  private List<Map<String, Object>> records() {
+    List<Map<String, Object>> records = new ArrayList<>();
+    for (String query : schedule) {
+      records.add(Map.of("statsName", LeaderboardReport.PREFIX + query, "statsQuery", query));
+    }
+    return records;
+  }
+
+  private ScenarioBuilder matrix = scenario("statistics matrix")
+      .feed(Population.feeder())
+      .exec(Auth.attachToken())
+      .feed(listFeeder(records()).circular())
+      .exec(http("#{statsName}")
+          .get(Targets.GATEWAY_URL + "/statistics?#{statsQuery}")
+          .headers(Headers.AUTHORIZED_API)
+          .check(jsonPath("$.users").exists()));
+
+  @Override
+  public void before() {
+    Targets.before();
+    Population.provision();
+    Injector.awaitStart();
+  }
+
+  @Override
+  public void after() {
+    Auth.release();
+    Targets.after();
+  }
+
+  {
+    setUp(matrix.injectOpen(constantUsersPerSec(Load.rate(rate))
+            .during(Duration.ofMillis((long) Math.ceil(schedule.size() * 1000 / rate)))))
+        .protocols(httpProtocol)
+        .assertions(Slo.assertions(getClass()));
+  }
+}
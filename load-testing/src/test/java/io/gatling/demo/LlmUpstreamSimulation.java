@@ -0,0 +1,86 @@
+package io.gatling.demo;
+
+import java.time.Duration;
+
+import io.gatling.demo.distributed.Injector;
+import io.gatling.demo.http.Headers;
+import io.gatling.demo.http.Protocols;
+import io.gatling.demo.llm.LlmUpstreamReport;
+import io.gatling.demo.mock.MockLlm;
+import io.gatling.demo.slo.Slo;
+import io.gatling.demo.think.ThinkTimes;
+import io.gatling.demo.upload.GatewayMemory;
+import io.gatling.demo.users.Population;
+import static io.gatling.javaapi.core.CoreDsl.ElFileBody;
+import static io.gatling.javaapi.core.CoreDsl.StringBody;
+import static io.gatling.javaapi.core.CoreDsl.constantUsersPerSec;
+import static io.gatling.javaapi.core.CoreDsl.exec;
+import static io.gatling.javaapi.core.CoreDsl.jsonPath;
+import static io.gatling.javaapi.core.CoreDsl.scenario;
+import io.gatling.javaapi.core.ScenarioBuilder;
+import io.gatling.javaapi.core.Simulation;
+import static io.gatling.javaapi.http.HttpDsl.http;
+import io.gatling.javaapi.http.HttpProtocolBuilder;
+
+/**
+ * The LLM calls of the webapp, {@code /simplellm} for the greeting and {@code /askllm} for hints, against the
+ * {@link MockLlm} stand-in for the LLM APIs, to see how the gateway and the llmservice cope with a slow or throttled
+ * upstream. The stand-in runs in the injector: with {@code -Dmock.enabled=true} the mock gateway calls it the way
+ * the llmservice does, otherwise start the llmservice with {@code GEMINI_API_URL} and {@code EMPATHY_API_URL} on it.
+ * Its behaviour is set with the {@code mock.llm} keys, e.g. {@code -Dmock.llm.ttfb.median=8s},
+ * {@code -Dmock.llm.rateLimit.requestsPerMinute=60} or {@code -Dmock.llm.timeout.rate=0.1}.
+ *
+ * <p>Each user asks for the greeting, then for {@code -Dllm.hints} hints (default 3), each after the {@code hint}
+ * think time. A greeting without a {@code response} or a hint without an {@code answer} fails, as the llmservice
+ * answers a failed greeting with a 200 and an empty body. A request gets no answer after
+ * {@code -Dllm.requestTimeoutSeconds} (default 60). The stand-in's queue and the gateway's memory are sampled
+ * during the run; analyse it with {@link LlmUpstreamReport}.
+ */
+public class LlmUpstreamSimulation extends Simulation {
+
+  private static final String HINT = "{\"gameQuestion\":\"Which of the following images corresponds to the flag of "
+      + "Spain?\",\"userQuestion\":\"Can you give me a hint?\"}";
+
+  private final Duration requestTimeout = Duration.ofSeconds(Long.getLong("llm.requestTimeoutSeconds", 60));
+
+  private HttpProtocolBuilder httpProtocol = Protocols.browser(Targets.GATEWAY_URL);
+
+  private ScenarioBuilder scn = scenario("LlmUpstreamSimulation")
+      .feed(Population.feeder())
+      .exec(
+          http("post simplellm")
+              .post(Targets.GATEWAY_URL + "/simplellm")
+              .headers(Headers.API_JSON)
+              .body(ElFileBody("io/gatling/demo/loginsimulation/0020_request.json"))
+              .requestTimeout(requestTimeout)
+              .check(jsonPath("$.response").exists()))
+      .repeat(Integer.getInteger("llm.hints", 3)).on(
+          exec(
+              ThinkTimes.pause("hint"),
+              exec(http("post askllm")
+                  .post(Targets.GATEWAY_URL + "/askllm")
+                  .headers(Headers.API_JSON)
+                  .body(StringBody(HINT))
+                  .requestTimeout(requestTimeout)
+                  .check(jsonPath("$.answer").exists()))));
+
+  @Override
+  public void before() {
+    Targets.before();
+    Targets.startLlm(LlmUpstreamReport.samplesFile());
+    GatewayMemory.start(LlmUpstreamReport.memoryFile());
+    Injector.awaitStart();
+  }
+
+  @Override
+  public void after() {
+    GatewayMemory.stop();
+    Targets.after();
+  }
+
+  {
+    setUp(scn.injectOpen(Load.open(constantUsersPerSec(Load.rate(2)).during(60).randomized())))
+        .protocols(httpProtocol)
+        .assertions(Slo.assertions(getClass()));
+  }
+}
@@ -0,0 +1,49 @@
+package io.gatling.demo;
+
+import java.util.List;
+
+import io.gatling.demo.capacity.CapacityPlan;
+import io.gatling.demo.distributed.Injector;
+import io.gatling.javaapi.core.OpenInjectionStep;
+
+/**
+ * Injection profiles of the simulations.
+ *
+ * <p>Each simulation declares its usual open-model profile through {@link #open(OpenInjectionStep...)}. With
+ * {@code -Dcapacity.enabled=true} that profile is swapped for the stepped {@link CapacityPlan}, so any
+ * scenario can be run as a capacity search and analysed with
+ * {@link io.gatling.demo.capacity.CapacityReport}.
+ *
+ * <p>Rates go through {@link #rate(double)}, so that in a distributed run each {@link Injector} sends its share.
+ */
+public final class Load {
+
+  public static final boolean CAPACITY = Boolean.getBoolean("capacity.enabled");
+
+  private Load() {
+  }
+
+  /**
+   * This injector's part of a total arrival rate of {@code usersPerSec}.
+   */
+  public static double rate(double usersPerSec) {
+    return usersPerSec * Injector.share();
+  }
+
+  public static List<OpenInjectionStep> open(OpenInjectionStep... profile) {
+    return open(1, profile);
+  }
+
+  /**
+   * Profile of one of several scenarios that share the load, such as the flows of a mixed workload. In a capacity
+   * search the scenario gets {@code share} of each level's rate, so the levels count the arrivals of all of them.
+   */
+  public static List<OpenInjectionStep> open(double share, OpenInjectionStep... profile) {
+    if (!CAPACITY) {
+      return List.of(profile);
+    }
+    CapacityPlan plan = CapacityPlan.fromSystemProperties();
+    plan.store(CapacityPlan.defaultFile());
+    return plan.injectionProfile(share * Injector.share());
+  }
+}
@@ -0,0 +1,45 @@
+package io.gatling.demo;
+
+import java.time.Duration;
+
+import io.gatling.demo.auth.Auth;
+import io.gatling.demo.distributed.Injector;
+import io.gatling.demo.flows.Mix;
+import io.gatling.demo.http.Protocols;
+import io.gatling.demo.slo.Slo;
+import io.gatling.demo.users.Population;
+import io.gatling.javaapi.core.Simulation;
+import io.gatling.javaapi.http.HttpProtocolBuilder;
+
+/**
+ * All the flows at once, so they compete for the gateway and the database like they do in production.
+ *
+ * <p>{@code -Dmix.rate} users/s (10) arrive for {@code -Dmix.duration} seconds (300) and are split across the
+ * flows as described in {@link Mix}.
+ */
+public class MixedWorkloadSimulation extends Simulation {
+
+  private final double rate = Double.parseDouble(System.getProperty("mix.rate", "10"));
+  private final int duration = Integer.getInteger("mix.duration", 300);
+
+  private HttpProtocolBuilder httpProtocol = Protocols.browser(Targets.GATEWAY_URL);
+
+  @Override
+  public void before() {
+    Targets.before();
+    Population.provision();
+    Injector.awaitStart();
+  }
+
+  @Override
+  public void after() {
+    Auth.release();
+    Targets.after();
+  }
+
+  {
+    setUp(Mix.populations(rate, Duration.ofSeconds(duration)))
+        .protocols(httpProtocol)
+        .assertions(Slo.assertions(getClass()));
+  }
+}
@@ -0,0 +1,174 @@
+package io.gatling.demo;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.gatling.demo.auth.Auth;
+import io.gatling.demo.distributed.Injector;
+import io.gatling.demo.flows.Flows;
+import io.gatling.demo.game.GameBot;
+import io.gatling.demo.http.Headers;
+import io.gatling.demo.http.Protocols;
+import io.gatling.demo.rollover.Rollover;
+import io.gatling.demo.rollover.RolloverReport;
+import io.gatling.demo.slo.Slo;
+import io.gatling.demo.think.ThinkTimes;
+import io.gatling.demo.users.Population;
+import static io.gatling.javaapi.core.CoreDsl.StringBody;
+import static io.gatling.javaapi.core.CoreDsl.atOnceUsers;
+import static io.gatling.javaapi.core.CoreDsl.constantUsersPerSec;
+import static io.gatling.javaapi.core.CoreDsl.exec;
+import static io.gatling.javaapi.core.CoreDsl.jsonPath;
+import static io.gatling.javaapi.core.CoreDsl.nothingFor;
+import static io.gatling.javaapi.core.CoreDsl.pause;
+import static io.gatling.javaapi.core.CoreDsl.rampUsers;
+import static io.gatling.javaapi.core.CoreDsl.scenario;
+import io.gatling.javaapi.core.ChainBuilder;
+import io.gatling.javaapi.core.ScenarioBuilder;
+import io.gatling.javaapi.core.Simulation;
+import static io.gatling.javaapi.http.HttpDsl.http;
+import io.gatling.javaapi.http.HttpProtocolBuilder;
+import io.gatling.javaapi.http.HttpRequestActionBuilder;
+
+/**
+ * Thundering herd at the question of the day rollover: every client fetches and answers the new question at once,
+ * while {@code questionservice} serves each fetch with {@code getQuestionOfTheDay()} plus
+ * {@code answerRepository.findAnswer()}.
+ *
+ * <p>A watcher fetches the current question, has {@link Rollover} replace it {@code rollover.leadSeconds} into the
+ * run, and polls until the new one shows. The burst starts at the same moment. Burst users fail with a stale
+ * question when they get the old one after the watcher saw the new one, or with a missing one when there is no id.
+ * The usual {@link QODSimulation} traffic runs throughout as a baseline. Analyse the run with {@link RolloverReport}.
+ *
+ * <ul>
+ *   <li>{@code -Drollover.users} — burst users, fetching and answering once each (default 2000)</li>
+ *   <li>{@code -Drollover.burstSeconds} — how long the burst takes to arrive (default 10)</li>
+ *   <li>{@code -Drollover.leadSeconds} — baseline before the rollover (default 30)</li>
+ *   <li>{@code -Drollover.tailSeconds} — baseline after the burst, to see the recovery (default 60)</li>
+ *   <li>{@code -Drollover.baselineRate} — baseline users/s (default 25)</li>
+ *   <li>{@code -Drollover.pollMillis} — watcher's time between two fetches (default 250)</li>
+ *   <li>{@code -Drollover.timeoutSeconds} — how long the watcher waits for the new question (default 120)</li>
+ * </ul>
+ */
+public class QODRolloverSimulation extends Simulation {
+
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+
+  private final int users = Integer.getInteger("rollover.users", 2000);
+  private final Duration burst = Duration.ofSeconds(Long.getLong("rollover.burstSeconds", 10));
+  private final Duration lead = Duration.ofSeconds(Long.getLong("rollover.leadSeconds", 30));
+  private final Duration tail = Duration.ofSeconds(Long.getLong("rollover.tailSeconds", 60));
+  private final double baselineRate = Double.parseDouble(System.getProperty("rollover.baselineRate", "25"));
+  private final Duration poll = Duration.ofMillis(Long.getLong("rollover.pollMillis", 250));
+  private final Duration timeout = Duration.ofSeconds(Long.getLong("rollover.timeoutSeconds", 120));
+
+  private HttpProtocolBuilder httpProtocol = Protocols.browser(Targets.GATEWAY_URL);
+
+  private static HttpRequestActionBuilder watch() {
+    return http(RolloverReport.WATCH_REQUEST)
+        .get(Targets.GATEWAY_URL + "/question-of-the-day")
+        .headers(Headers.AUTHORIZED_API)
+        .check(jsonPath("$.id").saveAs("currentId"));
+  }
+
+  private ScenarioBuilder watcher = scenario("rollover watcher")
+      .feed(Population.feeder())
+      .exec(Auth.attachToken())
+      .exec(session -> session.set("watchStart", System.currentTimeMillis()))
+      .exec(watch())
+      .exitHereIfFailed()
+      .exec(session -> {
+        Rollover.previous(session.getString("currentId"));
+        return session;
+      })
+      .pause(session -> Duration.ofMillis(
+          Math.max(0, lead.toMillis() - (System.currentTimeMillis() - session.getLong("watchStart")))))
+      .exec(session -> {
+        Rollover.trigger();
+        return session.set("deadline", System.currentTimeMillis() + timeout.toMillis());
+      })
+      .asLongAs(session -> session.getString("currentId").equals(Rollover.previousId())
+          && System.currentTimeMillis() < session.getLong("deadline")).on(
+          pause(poll).exec(watch()))
+      .exec(session -> {
+        if (!session.getString("currentId").equals(Rollover.previousId())) {
+          Rollover.detected(session.getString("currentId"));
+        }
+        return session;
+      });
+
+  private static ChainBuilder fetchAndAnswer() {
+    return exec(session -> session.set("sentAt", System.currentTimeMillis()))
+        .exec(
+            http("options question-of-the-day")
+                .options(Targets.GATEWAY_URL + "/question-of-the-day")
+                .headers(Headers.preflight("GET", "authorization"))
+                .resources(
+                    http("get question-of-the-day")
+                        .get(Targets.GATEWAY_URL + "/question-of-the-day")
+                        .headers(Headers.AUTHORIZED_API)
+                        .check(
+                            jsonPath("$.id").validate("fresh", (id, session) -> {
+                              if (Rollover.stale(id, session.getLong("sentAt"))) {
+                                throw new IllegalStateException(RolloverReport.STALE + " question of the day " + id);
+                              }
+                              return id;
+                            }).saveAs("questionId"),
+                            jsonPath("$.topic").saveAs("topic"),
+                            jsonPath("$.images[*]").findAll().saveAs("images"))))
+        .exitHereIfFailed()
+        // Time spent looking at the images, as GameBot does
+        .exec(ThinkTimes.pause("answer"))
+        .exec(session -> session.set("answer", GameBot.pickAnswer(session.getString("topic"),
+            session.getList("images"), 0.6, ThreadLocalRandom.current())))
+        .exec(
+            http("options answer")
+                .options(Targets.GATEWAY_URL + "/answer")
+                .headers(Headers.preflight("POST", "authorization,content-type"))
+                .resources(
+                    http("post answer")
+                        .post(Targets.GATEWAY_URL + "/answer")
+                        .headers(Headers.AUTHORIZED_API_JSON)
+                        .body(StringBody(session -> MAPPER.createObjectNode()
+                            .put("questionId", session.getString("questionId"))
+                            .put("answer", session.getString("answer"))
+                            .toString()))
+                        .check(jsonPath("$.correct").ofBoolean())));
+  }
+
+  private ScenarioBuilder herd = scenario(RolloverReport.BURST_SCENARIO)
+      .feed(Population.feeder())
+      .exec(Auth.attachToken())
+      .exec(fetchAndAnswer());
+
+  private ScenarioBuilder baseline = scenario("rollover baseline")
+      .feed(Population.feeder())
+      .exec(Auth.attachToken())
+      .exec(Flows.questionOfTheDay());
+
+  @Override
+  public void before() {
+    Targets.before();
+    Population.provision();
+    Injector.awaitStart();
+    Rollover.EVENT.awaitCron(lead);
+  }
+
+  @Override
+  public void after() {
+    Rollover.store(Rollover.defaultFile());
+    Auth.release();
+    Targets.after();
+  }
+
+  {
+    setUp(
+        watcher.injectOpen(atOnceUsers(1)),
+        herd.injectOpen(nothingFor(lead), rampUsers((int) Math.round(users * Injector.share())).during(burst)),
+        baseline.injectOpen(constantUsersPerSec(Load.rate(baselineRate)).during(lead.plus(burst).plus(tail))
+            .randomized()))
+        .protocols(httpProtocol)
+        .assertions(Slo.assertions(getClass()));
+  }
+}
@@ -0,0 +1,93 @@
+package io.gatling.demo;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import io.gatling.demo.auth.Auth;
+import io.gatling.demo.distributed.Injector;
+import io.gatling.demo.http.Headers;
+import io.gatling.demo.http.Protocols;
+import io.gatling.demo.pool.PoolReport;
+import io.gatling.demo.pool.QuestionPool;
+import io.gatling.demo.slo.Slo;
+import io.gatling.demo.users.Population;
+import static io.gatling.javaapi.core.CoreDsl.atOnceUsers;
+import static io.gatling.javaapi.core.CoreDsl.constantUsersPerSec;
+import static io.gatling.javaapi.core.CoreDsl.jsonPath;
+import static io.gatling.javaapi.core.CoreDsl.nothingFor;
+import static io.gatling.javaapi.core.CoreDsl.scenario;
+import io.gatling.javaapi.core.PopulationBuilder;
+import io.gatling.javaapi.core.Simulation;
+import static io.gatling.javaapi.http.HttpDsl.http;
+import io.gatling.javaapi.http.HttpProtocolBuilder;
+
+/**
+ * Question serving while the questionservice refills its pool of pre-saved Wikidata items, every hour or on a cold
+ * start. Each question type and {@code random} are fetched at an even share of {@code pool.rate}, and
+ * {@link QuestionPool#EVENT} triggers the refill {@code pool.leadSeconds} into the run. Analyse the run with
+ * {@link PoolReport}.
+ *
+ * <ul>
+ *   <li>{@code -Dpool.rate} — total question fetches per second (default 50)</li>
+ *   <li>{@code -Dpool.leadSeconds} — fetching before the refill, the baseline (default 30)</li>
+ *   <li>{@code -Dpool.afterSeconds} — fetching after it (default 240)</li>
+ *   <li>{@code -Dpool.cold} — empty the mock's pool first, as on a fresh deployment (default false)</li>
+ * </ul>
+ */
+public class QuestionPoolSimulation extends Simulation {
+
+  private final double rate = Double.parseDouble(System.getProperty("pool.rate", "50"));
+  private final Duration lead = Duration.ofSeconds(Long.getLong("pool.leadSeconds", 30));
+  private final Duration after = Duration.ofSeconds(Long.getLong("pool.afterSeconds", 240));
+
+  private HttpProtocolBuilder httpProtocol = Protocols.browser(Targets.GATEWAY_URL);
+
+  private List<PopulationBuilder> populations() {
+    List<PopulationBuilder> populations = new ArrayList<>();
+    for (String type : QuestionPool.QUESTION_TYPES) {
+      populations.add(scenario("question " + type)
+          .feed(Population.feeder())
+          .exec(Auth.attachToken())
+          .exec(http("options question " + type)
+              .options(Targets.GATEWAY_URL + "/question/" + type)
+              .headers(Headers.preflight("GET", "authorization"))
+              .resources(
+                  http("get question " + type)
+                      .get(Targets.GATEWAY_URL + "/question/" + type)
+                      .headers(Headers.AUTHORIZED_API)
+                      .check(jsonPath("$.id").exists())))
+          .injectOpen(Load.open(1.0 / QuestionPool.QUESTION_TYPES.length,
+              constantUsersPerSec(Load.rate(rate / QuestionPool.QUESTION_TYPES.length)).during(lead.plus(after))
+                  .randomized())));
+    }
+    populations.add(scenario(PoolReport.REFILL_SCENARIO)
+        .exec(session -> {
+          QuestionPool.EVENT.fire();
+          return session;
+        })
+        .injectOpen(nothingFor(lead), atOnceUsers(1)));
+    return populations;
+  }
+
+  @Override
+  public void before() {
+    Targets.before();
+    Population.provision();
+    Injector.awaitStart();
+    QuestionPool.EVENT.awaitCron(lead);
+  }
+
+  @Override
+  public void after() {
+    QuestionPool.store(QuestionPool.defaultFile());
+    Auth.release();
+    Targets.after();
+  }
+
+  {
+    setUp(populations())
+        .protocols(httpProtocol)
+        .assertions(Slo.assertions(getClass()));
+  }
+}
@@ -0,0 +1,156 @@
+package io.gatling.demo;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.gatling.demo.auth.Auth;
+import io.gatling.demo.contention.ContentionReport;
+import io.gatling.demo.distributed.Injector;
+import io.gatling.demo.http.Headers;
+import io.gatling.demo.http.Protocols;
+import io.gatling.demo.leaderboard.SeedData;
+import io.gatling.demo.slo.Slo;
+import io.gatling.demo.users.Population;
+import static io.gatling.javaapi.core.CoreDsl.StringBody;
+import static io.gatling.javaapi.core.CoreDsl.constantUsersPerSec;
+import static io.gatling.javaapi.core.CoreDsl.exec;
+import static io.gatling.javaapi.core.CoreDsl.nothingFor;
+import static io.gatling.javaapi.core.CoreDsl.scenario;
+import io.gatling.javaapi.core.ChainBuilder;
+import io.gatling.javaapi.core.PopulationBuilder;
+import io.gatling.javaapi.core.Session;
+import io.gatling.javaapi.core.Simulation;
+import static io.gatling.javaapi.http.HttpDsl.http;
+import io.gatling.javaapi.http.HttpProtocolBuilder;
+
+/**
+ * Leaderboard and profile reads at a constant rate while the rate of finished games steps up, so that the read
+ * latency of each write rate can be compared with the first step's. Writers post a game to {@code /recordGame} and
+ * their counters to {@code /statistics}, as many players ending games at once would; readers load the top of the
+ * leaderboard and their own profile, whose statistics the gateway reads from {@code /statistics/:username}.
+ * Analyse the run with {@link ContentionReport}.
+ *
+ * <ul>
+ *   <li>{@code -Dcontention.readRate} — readers per second, each making both reads (default 10)</li>
+ *   <li>{@code -Dcontention.writeRates} — finished games per second of each step (default
+ *   {@value ContentionReport#DEFAULT_WRITE_RATES})</li>
+ *   <li>{@code -Dcontention.stepSeconds} — duration of each step (default 60)</li>
+ * </ul>
+ */
+public class ReadWriteContentionSimulation extends Simulation {
+
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+
+  private final double readRate = Double.parseDouble(System.getProperty("contention.readRate", "10"));
+  private final List<Double> writeRates = ContentionReport.parseRates(
+      System.getProperty("contention.writeRates", ContentionReport.DEFAULT_WRITE_RATES));
+  private final Duration step = Duration.ofSeconds(Long.getLong("contention.stepSeconds", 60));
+
+  private HttpProtocolBuilder httpProtocol = Protocols.browser(Targets.GATEWAY_URL);
+
+  private static ChainBuilder read() {
+    return exec(
+        http("options statistics")
+            .options(Targets.GATEWAY_URL + "/statistics?sort=totalScore&order=desc&limit=10&offset=0")
+            .headers(Headers.preflight("GET", "authorization"))
+            .resources(
+                http(ContentionReport.LEADERBOARD)
+                    .get(Targets.GATEWAY_URL + "/statistics?sort=totalScore&order=desc&limit=10&offset=0")
+                    .headers(Headers.AUTHORIZED_API)),
+        http("options profile")
+            .options(Targets.GATEWAY_URL + "/profile/#{username}")
+            .headers(Headers.preflight("GET", "authorization"))
+            .resources(
+                http(ContentionReport.PROFILE)
+                    .get(Targets.GATEWAY_URL + "/profile/#{username}")
+                    .headers(Headers.AUTHORIZED_API)));
+  }
+
+  private static ChainBuilder write() {
+    return exec(ReadWriteContentionSimulation::newGame)
+        .exec(
+            http("options recordGame")
+                .options(Targets.GATEWAY_URL + "/recordGame")
+                .headers(Headers.preflight("POST", "authorization,content-type"))
+                .resources(
+                    http(ContentionReport.RECORD_GAME)
+                        .post(Targets.GATEWAY_URL + "/recordGame")
+                        .headers(Headers.AUTHORIZED_API_JSON)
+                        .body(StringBody("#{game}"))),
+            http("options update statistics")
+                .options(Targets.GATEWAY_URL + "/statistics")
+                .headers(Headers.preflight("POST", "authorization,content-type"))
+                .resources(
+                    http(ContentionReport.UPDATE_STATISTICS)
+                        .post(Targets.GATEWAY_URL + "/statistics")
+                        .headers(Headers.AUTHORIZED_API_JSON)
+                        .body(StringBody("#{counters}"))));
+  }
+
+  private static Session newGame(Session session) {
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    long ended = System.currentTimeMillis();
+    SeedData.Game game = SeedData.game(0.3 + 0.6 * random.nextDouble(), ended, random);
+    int incorrect = game.questionsAnswered - game.correctAnswers;
+    return session
+        .set("game", MAPPER.createObjectNode()
+            .put("questionsAnswered", game.questionsAnswered)
+            .put("correctAnswers", game.correctAnswers)
+            .put("incorrectAnswers", incorrect)
+            .put("score", game.score)
+            .put("gameType", game.gameType)
+            .put("registrationDate", ended - game.questionsAnswered * 10_000L)
+            .put("endDate", ended)
+            .toString())
+        .set("counters", MAPPER.createObjectNode()
+            .put("gamesPlayed", 1)
+            .put("questionsAnswered", game.questionsAnswered)
+            .put("correctAnswers", game.correctAnswers)
+            .put("incorrectAnswers", incorrect)
+            .toString());
+  }
+
+  private List<PopulationBuilder> populations() {
+    List<PopulationBuilder> populations = new ArrayList<>();
+    populations.add(scenario("readers")
+        .feed(Population.feeder())
+        .exec(Auth.attachToken())
+        .exec(read())
+        .injectOpen(constantUsersPerSec(Load.rate(readRate)).during(step.multipliedBy(writeRates.size()))));
+    for (int i = 0; i < writeRates.size(); i++) {
+      double rate = writeRates.get(i);
+      if (rate <= 0) {
+        continue;
+      }
+      populations.add(scenario("writers " + ContentionReport.label(rate))
+          .feed(Population.feeder())
+          .exec(Auth.attachToken())
+          .exec(write())
+          .injectOpen(nothingFor(step.multipliedBy(i)), constantUsersPerSec(Load.rate(rate)).during(step)));
+    }
+    return populations;
+  }
+
+  @Override
+  public void before() {
+    Targets.before();
+    Population.provision();
+    Injector.awaitStart();
+    ContentionReport.storePlan(writeRates, step, ContentionReport.defaultFile());
+  }
+
+  @Override
+  public void after() {
+    Auth.release();
+    Targets.after();
+  }
+
+  {
+    setUp(populations())
+        .protocols(httpProtocol)
+        .assertions(Slo.assertions(getClass()));
+  }
+}
@@ -0,0 +1,47 @@
+package io.gatling.demo;
+
+import io.gatling.demo.auth.Auth;
+import io.gatling.demo.distributed.Injector;
+import io.gatling.demo.http.Protocols;
+import io.gatling.demo.replay.Replay;
+import io.gatling.demo.slo.Slo;
+import io.gatling.demo.users.Population;
+import static io.gatling.javaapi.core.CoreDsl.scenario;
+import io.gatling.javaapi.core.ScenarioBuilder;
+import io.gatling.javaapi.core.Simulation;
+import io.gatling.javaapi.http.HttpProtocolBuilder;
+
+/**
+ * Replays a gateway access log, e.g. the rush on the question of the day after the 02:00 rollover, at
+ * {@code -Dreplay.compression} times its logged speed. See {@link Replay} for the log format and options.
+ */
+public class ReplaySimulation extends Simulation {
+
+  private final Replay replay = Replay.fromSystemProperties();
+
+  private HttpProtocolBuilder httpProtocol = Protocols.browser(Targets.GATEWAY_URL);
+
+  private ScenarioBuilder scn = scenario("ReplaySimulation")
+      .feed(replay.feeder())
+      .exec(replay.chain());
+
+  @Override
+  public void before() {
+    Targets.before();
+    Population.provision();
+    Injector.awaitStart();
+  }
+
+  @Override
+  public void after() {
+    replay.close();
+    Auth.release();
+    Targets.after();
+  }
+
+  {
+    setUp(scn.injectOpen(replay.injectionProfile()))
+        .protocols(httpProtocol)
+        .assertions(Slo.assertions(getClass()));
+  }
+}
@@ -0,0 +1,78 @@
+package io.gatling.demo;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import io.gatling.demo.auth.Auth;
+import io.gatling.demo.distributed.Injector;
+import io.gatling.demo.flows.Mix;
+import io.gatling.demo.http.Protocols;
+import io.gatling.demo.slo.Slo;
+import io.gatling.demo.soak.SoakReport;
+import io.gatling.demo.users.Population;
+import static io.gatling.javaapi.core.CoreDsl.atOnceUsers;
+import static io.gatling.javaapi.core.CoreDsl.exec;
+import static io.gatling.javaapi.core.CoreDsl.jsonPath;
+import static io.gatling.javaapi.core.CoreDsl.scenario;
+import io.gatling.javaapi.core.PopulationBuilder;
+import io.gatling.javaapi.core.Simulation;
+import static io.gatling.javaapi.http.HttpDsl.http;
+import io.gatling.javaapi.http.HttpProtocolBuilder;
+
+/**
+ * Endurance run: the {@link Mix} held at a steady rate for hours, while a probe polls the gateway's
+ * {@code /health}. Slow leaks only show up this way. Analyse the run with {@link SoakReport}, which looks for
+ * latency and errors that drift over time.
+ *
+ * <ul>
+ *   <li>{@code -Dsoak.rate} — total arrival rate, users/s (default 5)</li>
+ *   <li>{@code -Dsoak.hours} — how long to hold it (default 4)</li>
+ *   <li>{@code -Dsoak.healthIntervalSeconds} — time between two health probes (default 30)</li>
+ * </ul>
+ */
+public class SoakSimulation extends Simulation {
+
+  public static final String HEALTH_REQUEST = "get health";
+
+  private final double rate = Double.parseDouble(System.getProperty("soak.rate", "5"));
+  private final Duration duration = Duration.ofSeconds(
+      Math.round(Double.parseDouble(System.getProperty("soak.hours", "4")) * 3600));
+  private final Duration healthInterval = Duration.ofSeconds(Long.getLong("soak.healthIntervalSeconds", 30));
+
+  private HttpProtocolBuilder httpProtocol = Protocols.browser(Targets.GATEWAY_URL);
+
+  // A single prober, on the first injector of a distributed run
+  private List<PopulationBuilder> populations() {
+    List<PopulationBuilder> populations = new ArrayList<>(Mix.populations(rate, duration));
+    if (Injector.INDEX == 0) {
+      populations.add(scenario("health")
+          .during(duration).on(
+              exec(http(HEALTH_REQUEST)
+                  .get(Targets.GATEWAY_URL + "/health")
+                  .check(jsonPath("$.status").is("OK")))
+                  .pause(healthInterval))
+          .injectOpen(atOnceUsers(1)));
+    }
+    return populations;
+  }
+
+  @Override
+  public void before() {
+    Targets.before();
+    Population.provision();
+    Injector.awaitStart();
+  }
+
+  @Override
+  public void after() {
+    Auth.release();
+    Targets.after();
+  }
+
+  {
+    setUp(populations())
+        .protocols(httpProtocol)
+        .assertions(Slo.assertions(getClass()));
+  }
+}
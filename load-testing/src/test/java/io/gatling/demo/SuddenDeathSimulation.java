@@ -0,0 +1,48 @@
+package io.gatling.demo;
+
+import io.gatling.demo.auth.Auth;
+import io.gatling.demo.distributed.Injector;
+import io.gatling.demo.flows.Flows;
+import io.gatling.demo.game.GameModeReport;
+import io.gatling.demo.http.Protocols;
+import io.gatling.demo.slo.Slo;
+import io.gatling.demo.users.Population;
+import static io.gatling.javaapi.core.CoreDsl.constantUsersPerSec;
+import static io.gatling.javaapi.core.CoreDsl.scenario;
+import io.gatling.javaapi.core.ScenarioBuilder;
+import io.gatling.javaapi.core.Simulation;
+import io.gatling.javaapi.http.HttpProtocolBuilder;
+
+/**
+ * Players logging in for {@code -Dgame.suddenDeath.games} sudden death games in a row: questions until the first
+ * wrong answer, so many short games and a {@code /recordGame} every few questions. Compare the game modes with
+ * {@link GameModeReport}.
+ */
+public class SuddenDeathSimulation extends Simulation {
+
+  private HttpProtocolBuilder httpProtocol = Protocols.browser(Targets.GATEWAY_URL);
+
+  private ScenarioBuilder scn = scenario("SuddenDeathSimulation")
+      .feed(Population.feeder())
+      .exec(Auth.attachToken())
+      .exec(Flows.suddenDeathGames());
+
+  @Override
+  public void before() {
+    Targets.before();
+    Population.provision();
+    Injector.awaitStart();
+  }
+
+  @Override
+  public void after() {
+    Auth.release();
+    Targets.after();
+  }
+
+  {
+    setUp(scn.injectOpen(Load.open(constantUsersPerSec(Load.rate(4)).during(30).randomized())))
+        .protocols(httpProtocol)
+        .assertions(Slo.assertions(getClass()));
+  }
+}
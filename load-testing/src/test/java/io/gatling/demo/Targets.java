@@ -0,0 +1,123 @@
+package io.gatling.demo;
+
+import java.nio.file.Path;
+import java.util.Map;
+
+import io.gatling.demo.baseline.RunSummary;
+import io.gatling.demo.hdr.HistogramRecorder;
+import io.gatling.demo.http.Tracing;
+import io.gatling.demo.live.LiveExporter;
+import io.gatling.demo.mock.MockLlm;
+import io.gatling.demo.mock.MockWiChat;
+
+/**
+ * Base URLs the simulations are run against.
+ *
+ * <p>By default the deployed Azure instance is targeted. Pass {@code -DwebappUrl=...} and
+ * {@code -DgatewayUrl=...} to point at another stack, or {@code -Dmock.enabled=true} to start the
+ * embedded {@link MockWiChat} and run fully offline.
+ *
+ * <p>The services behind the gateway are reached on their compose ports by {@link #serviceUrl(String)}, for
+ * the simulations that bypass the gateway.
+ */
+public final class Targets {
+
+  private static final String REMOTE_HOST = "wichat-en1b.francecentral.cloudapp.azure.com";
+
+  public static final boolean MOCK = MockWiChat.settings().enabled();
+
+  public static final String WEBAPP_URL = System.getProperty("webappUrl",
+      MOCK ? "http://localhost:" + MockWiChat.settings().webappPort() : "http://" + REMOTE_HOST + ":3000");
+
+  public static final String GATEWAY_URL = System.getProperty("gatewayUrl",
+      MOCK ? "http://localhost:" + MockWiChat.settings().gatewayPort() : "http://" + REMOTE_HOST + ":8000");
+
+  // Compose ports of the services behind the gateway
+  private static final Map<String, Integer> SERVICE_PORTS = Map.of(
+      "user", 8001, "auth", 8002, "llm", 8003, "question", 8004, "statistics", 8005);
+
+  private static long startedAt;
+
+  private Targets() {
+  }
+
+  /**
+   * Starts the embedded mock when {@code -Dmock.enabled=true}, the recording of the {@link Tracing} ids and of the
+   * latency histograms ({@link HistogramRecorder}), and the {@link LiveExporter} when it is configured. Meant to be
+   * called from {@code Simulation.before()}.
+   */
+  public static void before() {
+    startedAt = System.currentTimeMillis();
+    startMock();
+    Tracing.start(Tracing.defaultFile());
+    LiveExporter.start();
+    HistogramRecorder.start();
+  }
+
+  /**
+   * Base URL of a service behind the gateway: {@code user}, {@code auth}, {@code llm}, {@code question} or
+   * {@code statistics}. {@code -D<service>ServiceUrl=...} overrides it; by default it is the service's compose port
+   * on {@code -Dservices.host} (the Azure instance by default), or the mock's stand-in.
+   */
+  public static String serviceUrl(String service) {
+    Integer port = SERVICE_PORTS.get(service);
+    if (port == null) {
+      throw new IllegalArgumentException("Unknown service: " + service);
+    }
+    return System.getProperty(service + "ServiceUrl", MOCK
+        ? "http://localhost:" + MockWiChat.settings().servicePort(service)
+        : "http://" + System.getProperty("services.host", REMOTE_HOST) + ":" + port);
+  }
+
+  /**
+   * Starts the mock's service stand-ins when {@code -Dmock.enabled=true}, after {@link #before()}. Meant for the
+   * simulations that reach the services through {@link #serviceUrl(String)}.
+   */
+  public static void startServices() {
+    if (MOCK) {
+      MockWiChat.startServices();
+    }
+  }
+
+  /**
+   * Starts the LLM stand-in ({@link MockLlm}) in this JVM, sampling into {@code samples}, unless
+   * {@code -Dllm.standIn=false} because it runs elsewhere. With {@code -Dmock.enabled=true}, the mock gateway calls
+   * it; otherwise the llmservice under test must be pointed at it. {@link #after()} stops it.
+   */
+  public static void startLlm(Path samples) {
+    if (Boolean.parseBoolean(System.getProperty("llm.standIn", "true"))) {
+      MockWiChat.startLlm(samples);
+    }
+  }
+
+  /**
+   * Stops what {@link #before()} started and writes the run's {@link RunSummary}.
+   */
+  public static void after() {
+    LiveExporter.stop();
+    HistogramRecorder.stop();
+    Tracing.stop();
+    RunSummary.afterRun(startedAt);
+    MockWiChat.stopLlm();
+    stopMock();
+  }
+
+  /**
+   * Starts the embedded mock when {@code -Dmock.enabled=true}, and nothing else. Meant for the tools that send
+   * requests outside of a Gatling run, such as {@code UserRegistrar}, which must not leave a run summary behind.
+   */
+  public static void startMock() {
+    if (MOCK) {
+      MockWiChat.start();
+    }
+  }
+
+  /**
+   * Stops what {@link #startMock()} started.
+   */
+  public static void stopMock() {
+    if (MOCK) {
+      MockWiChat.stop();
+    }
+  }
+}
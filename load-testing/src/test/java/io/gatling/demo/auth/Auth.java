@@ -0,0 +1,80 @@
+package io.gatling.demo.auth;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static io.gatling.javaapi.core.CoreDsl.exec;
+import static io.gatling.javaapi.core.CoreDsl.exitHere;
+import io.gatling.demo.Targets;
+import io.gatling.javaapi.core.ChainBuilder;
+
+/**
+ * Token provisioning for the simulations.
+ *
+ * <p>Call {@link #provision(Map)} from {@code Simulation.before()} and start the scenario with
+ * {@link #attachToken()}: authenticated requests then send {@code "Bearer #{token}"} with a live token for
+ * the session's {@code #{username}} (the default user when the session has none).
+ */
+public final class Auth {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(Auth.class);
+
+  public static final String DEFAULT_USERNAME = "alberto";
+  public static final String DEFAULT_PASSWORD = "TestPassword123$";
+
+  /** Value for the {@code authorization} header of authenticated requests. */
+  public static final String BEARER = "Bearer #{token}";
+
+  private static final Duration RENEW_BEFORE = Duration.ofSeconds(Long.getLong("auth.renewBeforeSeconds", 300));
+  private static final int LOGIN_PARALLELISM = Integer.getInteger("auth.loginParallelism", 8);
+
+  private static final LongAdder WITHOUT_TOKEN = new LongAdder();
+
+  private static TokenPool pool;
+
+  private Auth() {
+  }
+
+  public static synchronized TokenPool provision(Map<String, String> credentials) {
+    if (pool == null) {
+      pool = new TokenPool(Targets.GATEWAY_URL, RENEW_BEFORE, LOGIN_PARALLELISM);
+    }
+    pool.fill(credentials);
+    return pool;
+  }
+
+  public static TokenPool provisionDefaultUser() {
+    return provision(Map.of(DEFAULT_USERNAME, DEFAULT_PASSWORD));
+  }
+
+  public static synchronized void release() {
+    if (WITHOUT_TOKEN.sum() > 0) {
+      LOGGER.warn("{} virtual users stopped early: their user had no live token", WITHOUT_TOKEN.sumThenReset());
+    }
+    if (pool != null) {
+      pool.close();
+      pool = null;
+    }
+  }
+
+  /**
+   * Stores a valid token for the session's user in {@code #{token}}. Repeat it inside long loops so the
+   * session picks up renewed tokens. A user without a live token, whose login failed, is stopped here rather
+   * than logged in on the spot.
+   */
+  public static ChainBuilder attachToken() {
+    return exec(session -> {
+      String username = session.contains("username") ? session.getString("username") : DEFAULT_USERNAME;
+      String token = pool.token(username);
+      if (token == null) {
+        WITHOUT_TOKEN.increment();
+        return session.set("username", username).remove("token").markAsFailed();
+      }
+      return session.set("username", username).set("token", token);
+    }).doIf(session -> !session.contains("token")).then(exitHere());
+  }
+}
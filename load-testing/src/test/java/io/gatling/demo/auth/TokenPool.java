@@ -0,0 +1,173 @@
+package io.gatling.demo.auth;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Shared, thread-safe pool of JWTs obtained through the gateway's {@code /login}.
+ *
+ * <p>Tokens are fetched once in a pre-phase ({@link #fill}) so the bcrypt cost of logging in is not paid on
+ * every iteration, and renewed in the background before their {@code exp} claim is reached. Virtual users
+ * read them through {@link #token(String)}, which never logs in itself: a login on Gatling's event loop would
+ * stall every virtual user sharing the thread and put the bcrypt cost back into the measured latencies.
+ */
+public final class TokenPool implements AutoCloseable {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(TokenPool.class);
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+
+  private static final class Entry {
+    final String token;
+    final long expiresAtMillis;
+
+    Entry(String token, long expiresAtMillis) {
+      this.token = token;
+      this.expiresAtMillis = expiresAtMillis;
+    }
+  }
+
+  private final String gatewayUrl;
+  private final Duration renewBefore;
+  private final int parallelism;
+  private final HttpClient client;
+  private final Map<String, String> passwords = new ConcurrentHashMap<>();
+  private final Map<String, Entry> tokens = new ConcurrentHashMap<>();
+  private final ScheduledExecutorService renewer;
+
+  /**
+   * @param gatewayUrl  base URL of the gateway that serves {@code /login}
+   * @param renewBefore how long before expiry a token is renewed
+   * @param parallelism number of logins in flight at once while filling or renewing
+   */
+  public TokenPool(String gatewayUrl, Duration renewBefore, int parallelism) {
+    this.gatewayUrl = gatewayUrl;
+    this.renewBefore = renewBefore;
+    this.parallelism = parallelism;
+    this.client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10)).build();
+    this.renewer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "token-pool-renewer");
+      thread.setDaemon(true);
+      return thread;
+    });
+    long period = Math.max(1, renewBefore.toSeconds() / 2);
+    renewer.scheduleAtFixedRate(this::renewExpiring, period, period, TimeUnit.SECONDS);
+  }
+
+  /**
+   * Adds the users to the pool and logs them in, with at most {@code parallelism} logins in flight. From then on
+   * the renewer started with the pool keeps their tokens fresh. Users whose login fails are logged and left out of
+   * the pool until the renewer gets them in.
+   */
+  public void fill(Map<String, String> credentials) {
+    // Handed to the renewer only once tried, so that it does not log them in a second time meanwhile
+    loginAll(credentials);
+    passwords.putAll(credentials);
+    LOGGER.info("Token pool filled with {}/{} tokens", tokens.size(), passwords.size());
+  }
+
+  /**
+   * Returns the pooled token of {@code username}, or null when its login failed or the token has expired before
+   * the renewer could replace it.
+   */
+  public String token(String username) {
+    Entry entry = tokens.get(username);
+    return entry == null || System.currentTimeMillis() >= entry.expiresAtMillis ? null : entry.token;
+  }
+
+  public int size() {
+    return tokens.size();
+  }
+
+  @Override
+  public void close() {
+    renewer.shutdownNow();
+  }
+
+  // Users whose last login failed are tried again along with the expiring ones
+  private void renewExpiring() {
+    Map<String, String> expiring = passwords.entrySet().stream()
+        .filter(user -> {
+          Entry entry = tokens.get(user.getKey());
+          return entry == null || needsRenewal(entry);
+        })
+        .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+    if (!expiring.isEmpty()) {
+      LOGGER.info("Renewing {} tokens", expiring.size());
+      loginAll(expiring);
+    }
+  }
+
+  private void loginAll(Map<String, String> credentials) {
+    ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+    try {
+      CompletableFuture.allOf(credentials.entrySet().stream()
+          .map(user -> CompletableFuture.runAsync(() -> {
+            String username = user.getKey();
+            try {
+              tokens.put(username, login(username, user.getValue()));
+            } catch (RuntimeException e) {
+              LOGGER.warn("Could not log in {}: {}", username, e.getMessage());
+            }
+          }, executor))
+          .toArray(CompletableFuture[]::new)).join();
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  private boolean needsRenewal(Entry entry) {
+    return System.currentTimeMillis() >= entry.expiresAtMillis - renewBefore.toMillis();
+  }
+
+  private Entry login(String username, String password) {
+    try {
+      String body = MAPPER.createObjectNode().put("username", username).put("password", password).toString();
+      HttpRequest request = HttpRequest.newBuilder(URI.create(gatewayUrl + "/login"))
+          .timeout(Duration.ofSeconds(30))
+          .header("Content-Type", "application/json")
+          .POST(HttpRequest.BodyPublishers.ofString(body))
+          .build();
+      HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+      if (response.statusCode() != 200) {
+        throw new IllegalStateException("login returned " + response.statusCode() + ": " + response.body());
+      }
+      String token = MAPPER.readTree(response.body()).path("token").asText();
+      return new Entry(token, expiresAtMillis(token));
+    } catch (IOException e) {
+      throw new IllegalStateException("login failed", e);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("login interrupted", e);
+    }
+  }
+
+  // Reads the exp claim; the signature is the gateway's business, not ours
+  private static long expiresAtMillis(String token) throws IOException {
+    String[] parts = token.split("\\.");
+    if (parts.length != 3) {
+      throw new IllegalStateException("login returned a malformed token");
+    }
+    JsonNode claims = MAPPER.readTree(new String(Base64.getUrlDecoder().decode(parts[1]), StandardCharsets.UTF_8));
+    return claims.path("exp").asLong() * 1000;
+  }
+}
@@ -0,0 +1,345 @@
+package io.gatling.demo.baseline;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.gatling.demo.stats.LatencyHistogram;
+import io.gatling.demo.stats.RequestStats;
+import io.gatling.demo.stats.SimulationLog;
+
+/**
+ * A run's {@link RunSummary} against a baseline's, request name by request name.
+ *
+ * <p>A percentile (p50, p95 and p99 by default, {@code -Dbaseline.percentiles}) regressed when it grew by more than
+ * {@code -Dbaseline.maxIncrease} (default 0.2, i.e. +20%) and {@code -Dbaseline.minDeltaMs} (default 10), and the
+ * growth is significant: the 95% confidence intervals of the two runs' percentiles, taken from the ranks around it in
+ * each histogram, do not overlap. The error rate regressed when it grew by more than
+ * {@code -Dbaseline.maxErrorIncrease} (default 0.01, one point) and a two-proportion z-test puts the growth beyond
+ * chance. Improvements are found the same way. Names with fewer than {@code -Dbaseline.minCount} (default 30)
+ * requests in either run are not judged.
+ *
+ * <p>The diff is printed with a one-line verdict and written to {@value #FILE_NAME} next to the run's log. A
+ * regression fails the command, so that a build can stop on it; {@code -Dbaseline.failOnRegression=false} only
+ * reports it.
+ *
+ * <pre>
+ * mvnw exec:java -Dexec.mainClass=io.gatling.demo.baseline.BaselineDiff -Dexec.classpathScope=test \
+ *     -Dbaseline.compare=&lt;name&gt; [-Dexec.args=target/gatling/&lt;run&gt;]
+ * </pre>
+ */
+public final class BaselineDiff {
+
+  public static final String FILE_NAME = "regressions.json";
+  public static final String DEFAULT_PERCENTILES = "50,95,99";
+
+  // Two-sided 95%
+  private static final double Z = 1.96;
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+
+  public enum Status {
+    REGRESSED, IMPROVED, UNCHANGED, TOO_FEW, NEW, MISSING;
+
+    String label() {
+      return name().toLowerCase(Locale.ROOT).replace('_', ' ');
+    }
+  }
+
+  /**
+   * One metric of one request name in both runs.
+   */
+  public static final class Change {
+    public final String metric;
+    public final double baseline;
+    public final double current;
+    // Confidence intervals, for the percentiles
+    final long[] baselineInterval;
+    final long[] currentInterval;
+    public final Status status;
+
+    Change(String metric, double baseline, double current, long[] baselineInterval, long[] currentInterval,
+        Status status) {
+      this.metric = metric;
+      this.baseline = baseline;
+      this.current = current;
+      this.baselineInterval = baselineInterval;
+      this.currentInterval = currentInterval;
+      this.status = status;
+    }
+
+    public double relative() {
+      return baseline == 0 ? 0 : current / baseline - 1;
+    }
+  }
+
+  private static final class Request {
+    final long baselineCount;
+    final long currentCount;
+    final List<Change> changes = new ArrayList<>();
+    Status status;
+
+    Request(long baselineCount, long currentCount) {
+      this.baselineCount = baselineCount;
+      this.currentCount = currentCount;
+    }
+  }
+
+  private final String baselineName;
+  private final RunSummary baseline;
+  private final RunSummary current;
+  private final double[] percentiles;
+  private final double maxIncrease;
+  private final long minDeltaMillis;
+  private final double maxErrorIncrease;
+  private final long minCount;
+  private final Map<String, Request> requests = new TreeMap<>();
+
+  public BaselineDiff(String baselineName, RunSummary baseline, RunSummary current, double[] percentiles,
+      double maxIncrease, long minDeltaMillis, double maxErrorIncrease, long minCount) {
+    this.baselineName = baselineName;
+    this.baseline = baseline;
+    this.current = current;
+    this.percentiles = percentiles.clone();
+    this.maxIncrease = maxIncrease;
+    this.minDeltaMillis = minDeltaMillis;
+    this.maxErrorIncrease = maxErrorIncrease;
+    this.minCount = minCount;
+    TreeSet<String> names = new TreeSet<>(baseline.requests.keySet());
+    names.addAll(current.requests.keySet());
+    for (String name : names) {
+      requests.put(name, compare(baseline.requests.get(name), current.requests.get(name)));
+    }
+  }
+
+  public static BaselineDiff fromProperties(String baselineName, RunSummary baseline, RunSummary current) {
+    List<Double> percentiles = new ArrayList<>();
+    for (String percentile : System.getProperty("baseline.percentiles", DEFAULT_PERCENTILES).split(",")) {
+      if (!percentile.isBlank()) {
+        percentiles.add(Double.parseDouble(percentile.trim()));
+      }
+    }
+    return new BaselineDiff(baselineName, baseline, current,
+        percentiles.stream().mapToDouble(Double::doubleValue).toArray(),
+        Double.parseDouble(System.getProperty("baseline.maxIncrease", "0.2")),
+        Long.getLong("baseline.minDeltaMs", 10),
+        Double.parseDouble(System.getProperty("baseline.maxErrorIncrease", "0.01")),
+        Long.getLong("baseline.minCount", 30));
+  }
+
+  private Request compare(RequestStats before, RequestStats after) {
+    Request request = new Request(before == null ? 0 : before.count(), after == null ? 0 : after.count());
+    if (before == null || after == null) {
+      request.status = before == null ? Status.NEW : Status.MISSING;
+      return request;
+    }
+    boolean enough = before.count() >= minCount && after.count() >= minCount;
+    for (double percentile : percentiles) {
+      request.changes.add(percentile(percentile, before.histogram, after.histogram, enough));
+    }
+    request.changes.add(errorRate(before, after, enough));
+    request.status = !enough ? Status.TOO_FEW
+        : request.changes.stream().anyMatch(change -> change.status == Status.REGRESSED) ? Status.REGRESSED
+        : request.changes.stream().anyMatch(change -> change.status == Status.IMPROVED) ? Status.IMPROVED
+        : Status.UNCHANGED;
+    return request;
+  }
+
+  private Change percentile(double percentile, LatencyHistogram before, LatencyHistogram after, boolean enough) {
+    long from = before.percentile(percentile);
+    long to = after.percentile(percentile);
+    long[] fromInterval = interval(before, percentile);
+    long[] toInterval = interval(after, percentile);
+    Status status = Status.UNCHANGED;
+    if (!enough) {
+      status = Status.TOO_FEW;
+    } else if (to > from * (1 + maxIncrease) && to - from > minDeltaMillis && toInterval[0] > fromInterval[1]) {
+      status = Status.REGRESSED;
+    } else if (from > to * (1 + maxIncrease) && from - to > minDeltaMillis && fromInterval[0] > toInterval[1]) {
+      status = Status.IMPROVED;
+    }
+    return new Change(label(percentile), from, to, fromInterval, toInterval, status);
+  }
+
+  /**
+   * Confidence interval of a percentile without assuming a distribution: the number of values below the true
+   * percentile is binomial, so its rank in the sample lies within {@link #Z} standard deviations of n.q.
+   */
+  public static long[] interval(LatencyHistogram histogram, double percentile) {
+    long n = histogram.count();
+    double q = percentile / 100;
+    double spread = Z * Math.sqrt(n * q * (1 - q));
+    return new long[] {
+        histogram.valueAtRank((long) Math.floor(n * q - spread)),
+        histogram.valueAtRank((long) Math.ceil(n * q + spread) + 1)
+    };
+  }
+
+  private Change errorRate(RequestStats before, RequestStats after, boolean enough) {
+    double from = before.errorRate();
+    double to = after.errorRate();
+    double pooled = (double) (before.ko() + after.ko()) / (before.count() + after.count());
+    double error = Math.sqrt(pooled * (1 - pooled) * (1.0 / before.count() + 1.0 / after.count()));
+    Status status = Status.UNCHANGED;
+    if (!enough) {
+      status = Status.TOO_FEW;
+    } else if (to - from > maxErrorIncrease && (error == 0 || (to - from) / error > Z)) {
+      status = Status.REGRESSED;
+    } else if (from - to > maxErrorIncrease && (error == 0 || (from - to) / error > Z)) {
+      status = Status.IMPROVED;
+    }
+    return new Change("errorRate", from, to, null, null, status);
+  }
+
+  private static String label(double percentile) {
+    return "p" + (percentile == Math.rint(percentile) ? Long.toString((long) percentile) : Double.toString(percentile));
+  }
+
+  public boolean regressed() {
+    return requests.values().stream().anyMatch(request -> request.status == Status.REGRESSED);
+  }
+
+  private List<String> names(Status status) {
+    List<String> names = new ArrayList<>();
+    requests.forEach((name, request) -> {
+      if (request.status == status) {
+        names.add(name);
+      }
+    });
+    return names;
+  }
+
+  private static String describe(Change change) {
+    return change.metric.equals("errorRate")
+        ? String.format(Locale.ROOT, "errors %.2f%% -> %.2f%%", change.baseline * 100, change.current * 100)
+        : String.format(Locale.ROOT, "%s %.0f -> %.0f ms (%+.0f%%)", change.metric, change.baseline,
+            change.current, change.relative() * 100);
+  }
+
+  public String verdict() {
+    List<String> regressed = new ArrayList<>();
+    requests.forEach((name, request) -> {
+      if (request.status == Status.REGRESSED) {
+        List<String> changes = new ArrayList<>();
+        for (Change change : request.changes) {
+          if (change.status == Status.REGRESSED) {
+            changes.add(describe(change));
+          }
+        }
+        regressed.add(name + " (" + String.join(", ", changes) + ")");
+      }
+    });
+    int judged = (int) requests.values().stream()
+        .filter(request -> request.status != Status.TOO_FEW && request.status != Status.NEW
+            && request.status != Status.MISSING)
+        .count();
+    if (!regressed.isEmpty()) {
+      return "REGRESSION against " + baselineName + ": " + String.join("; ", regressed);
+    }
+    int improved = names(Status.IMPROVED).size();
+    return "No significant regression against " + baselineName + " in " + judged + " request names"
+        + (improved == 0 ? "" : ", " + improved + " improved");
+  }
+
+  public String text() {
+    StringBuilder out = new StringBuilder();
+    out.append("Baseline diff of ").append(current.simulation()).append(" (").append(Instant.ofEpochMilli(
+        current.start())).append(") against ").append(baselineName).append(" (").append(baseline.simulation())
+        .append(", ").append(Instant.ofEpochMilli(baseline.start())).append(")\n");
+    if (!baseline.simulation().equals(current.simulation())) {
+      out.append("The baseline is of another simulation: only the request names they share are comparable\n");
+    }
+    int width = requests.keySet().stream().mapToInt(String::length).max().orElse(0);
+    String nameColumn = "  %-" + Math.max(7, width) + "s %14s";
+    out.append('\n').append(String.format(nameColumn, "request", "count"));
+    for (double percentile : percentiles) {
+      out.append(String.format(" %14s", label(percentile) + " ms"));
+    }
+    out.append(String.format(" %14s  %s%n", "errors", "status"));
+    requests.forEach((name, request) -> {
+      out.append(String.format(nameColumn, name, request.baselineCount + " -> " + request.currentCount));
+      for (Change change : request.changes) {
+        out.append(String.format(" %14s", change.metric.equals("errorRate")
+            ? String.format(Locale.ROOT, "%.1f%% -> %.1f%%", change.baseline * 100, change.current * 100)
+            : String.format(Locale.ROOT, "%.0f -> %.0f", change.baseline, change.current)));
+      }
+      for (int i = request.changes.size(); i < percentiles.length + 1; i++) {
+        out.append(String.format(" %14s", "-"));
+      }
+      out.append("  ").append(request.status.label()).append('\n');
+    });
+    out.append('\n').append(verdict()).append('\n');
+    return out.toString();
+  }
+
+  public ObjectNode json() {
+    ObjectNode root = MAPPER.createObjectNode();
+    ObjectNode base = root.putObject("baseline");
+    base.put("name", baselineName);
+    base.put("simulation", baseline.simulation());
+    base.put("start", baseline.start());
+    ObjectNode run = root.putObject("current");
+    run.put("simulation", current.simulation());
+    run.put("start", current.start());
+    ObjectNode thresholds = root.putObject("thresholds");
+    thresholds.put("maxIncrease", maxIncrease);
+    thresholds.put("minDeltaMs", minDeltaMillis);
+    thresholds.put("maxErrorIncrease", maxErrorIncrease);
+    thresholds.put("minCount", minCount);
+    thresholds.put("confidence", 0.95);
+    root.put("regressed", regressed());
+    root.put("verdict", verdict());
+    ArrayNode list = root.putArray("requests");
+    requests.forEach((name, request) -> {
+      ObjectNode node = list.addObject();
+      node.put("name", name);
+      node.put("status", request.status.name());
+      node.put("baselineCount", request.baselineCount);
+      node.put("currentCount", request.currentCount);
+      ObjectNode metrics = node.putObject("metrics");
+      for (Change change : request.changes) {
+        ObjectNode metric = metrics.putObject(change.metric);
+        metric.put("baseline", change.baseline);
+        metric.put("current", change.current);
+        metric.put("change", change.relative());
+        if (change.baselineInterval != null) {
+          metric.putArray("baselineInterval").add(change.baselineInterval[0]).add(change.baselineInterval[1]);
+          metric.putArray("currentInterval").add(change.currentInterval[0]).add(change.currentInterval[1]);
+        }
+        metric.put("status", change.status.name());
+      }
+    });
+    return root;
+  }
+
+  public void write(Path file) throws IOException {
+    MAPPER.writerWithDefaultPrettyPrinter().writeValue(file.toFile(), json());
+  }
+
+  public static void main(String[] args) throws IOException {
+    Path log = SimulationLog.fromArgs(args);
+    String name = System.getProperty("baseline.compare");
+    if (name == null) {
+      throw new IllegalArgumentException("Name the baseline to compare with: -Dbaseline.compare=<name>");
+    }
+    Path file = Files.exists(Paths.get(name)) ? Paths.get(name) : RunSummary.baselineFile(name);
+    BaselineDiff diff = fromProperties(name, RunSummary.load(file), RunSummary.ofRun(log));
+    System.out.println(diff.text());
+    Path json = log.resolveSibling(FILE_NAME);
+    diff.write(json);
+    System.out.println("Written to " + json.toAbsolutePath());
+    if (diff.regressed() && !"false".equals(System.getProperty("baseline.failOnRegression"))) {
+      throw new IllegalStateException(diff.verdict());
+    }
+  }
+}
@@ -0,0 +1,195 @@
+package io.gatling.demo.baseline;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.gatling.demo.distributed.Injector;
+import io.gatling.demo.stats.LatencyHistogram;
+import io.gatling.demo.stats.RequestStats;
+import io.gatling.demo.stats.SimulationLog;
+
+/**
+ * Compact summary of a run: per request name, named by its group path, the request and error counts, percentiles and
+ * the non-empty buckets of its {@link LatencyHistogram}, a few kilobytes where the log and report take megabytes.
+ *
+ * <p>The buckets let {@link BaselineDiff} compare two runs' distributions and not only their percentiles. Every run
+ * of a single injector writes its summary to {@value #FILE_NAME} in the run directory (see {@link #afterRun(long)});
+ * {@code -Dbaseline.save=<name>} also keeps it as the baseline {@code <name>} under {@code -Dbaseline.dir} (default
+ * {@code baselines}), which lives outside {@code target} so that it survives a clean and can be committed. A merged
+ * distributed run, or any older run, is summarized with:
+ *
+ * <pre>
+ * mvnw exec:java -Dexec.mainClass=io.gatling.demo.baseline.RunSummary -Dexec.classpathScope=test \
+ *     [-Dexec.args=target/gatling/&lt;run&gt;] [-Dbaseline.save=&lt;name&gt;]
+ * </pre>
+ */
+public final class RunSummary {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(RunSummary.class);
+
+  public static final String FILE_NAME = "summary.json";
+
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+  private static final double[] PERCENTILES = {50, 75, 95, 99};
+
+  public final Map<String, RequestStats> requests = new TreeMap<>();
+  private String simulation;
+  private long start;
+  private long end;
+
+  public String simulation() {
+    return simulation;
+  }
+
+  public long start() {
+    return start;
+  }
+
+  public double durationSeconds() {
+    return Math.max(0, end - start) / 1000.0;
+  }
+
+  public static RunSummary of(Path log) throws IOException {
+    RunSummary summary = new RunSummary();
+    SimulationLog.Run run = SimulationLog.read(log, new SimulationLog.Listener() {
+      @Override
+      public void request(List<String> groups, String name, long start, long end, boolean ok, String message) {
+        summary.requests.computeIfAbsent(SimulationLog.path(groups, name), key -> new RequestStats())
+            .record(end - start, ok);
+        summary.end = Math.max(summary.end, end);
+      }
+    });
+    summary.simulation = run.simulationClassName;
+    summary.start = run.start;
+    return summary;
+  }
+
+  public ObjectNode json() {
+    ObjectNode root = MAPPER.createObjectNode();
+    root.put("simulation", simulation);
+    root.put("start", start);
+    root.put("durationSeconds", durationSeconds());
+    ObjectNode list = root.putObject("requests");
+    requests.forEach((name, stats) -> {
+      ObjectNode request = list.putObject(name);
+      request.put("count", stats.count());
+      request.put("errors", stats.ko());
+      request.put("mean", stats.histogram.mean());
+      for (double percentile : PERCENTILES) {
+        request.put("p" + (int) percentile, stats.histogram.percentile(percentile));
+      }
+      request.put("max", stats.histogram.max());
+      // [highest value of the bucket in ms, count], independent of the histogram's layout
+      ArrayNode buckets = request.putArray("histogram");
+      for (int i = 0; i < LatencyHistogram.buckets(); i++) {
+        if (stats.histogram.countAt(i) > 0) {
+          buckets.addArray().add(LatencyHistogram.highestEquivalentValue(i)).add(stats.histogram.countAt(i));
+        }
+      }
+    });
+    return root;
+  }
+
+  public static RunSummary fromJson(JsonNode root) {
+    RunSummary summary = new RunSummary();
+    summary.simulation = root.path("simulation").asText();
+    summary.start = root.path("start").asLong();
+    summary.end = summary.start + Math.round(root.path("durationSeconds").asDouble() * 1000);
+    root.path("requests").fields().forEachRemaining(entry -> {
+      // At the top of its bucket, capped by the max, a value gives back the percentiles of the original histogram
+      LatencyHistogram histogram = new LatencyHistogram();
+      long max = entry.getValue().path("max").asLong();
+      for (JsonNode bucket : entry.getValue().path("histogram")) {
+        histogram.record(Math.min(bucket.get(0).asLong(), max), bucket.get(1).asLong());
+      }
+      summary.requests.put(entry.getKey(), RequestStats.of(histogram, entry.getValue().path("errors").asLong()));
+    });
+    return summary;
+  }
+
+  public static RunSummary load(Path file) throws IOException {
+    return fromJson(MAPPER.readTree(file.toFile()));
+  }
+
+  public void write(Path file) throws IOException {
+    if (file.getParent() != null) {
+      Files.createDirectories(file.getParent());
+    }
+    MAPPER.writerWithDefaultPrettyPrinter().writeValue(file.toFile(), json());
+  }
+
+  public static Path baselineDirectory() {
+    return Paths.get(System.getProperty("baseline.dir", "baselines"));
+  }
+
+  public static Path baselineFile(String name) {
+    return baselineDirectory().resolve(name + ".json");
+  }
+
+  /**
+   * The summary of a run directory or log, read from its {@value #FILE_NAME} if it has one.
+   */
+  public static RunSummary ofRun(Path log) throws IOException {
+    Path file = log.resolveSibling(FILE_NAME);
+    return Files.exists(file) ? load(file) : of(log);
+  }
+
+  /**
+   * Writes the summary of the run that started at {@code startedAt}, keeps it as a baseline with
+   * {@code -Dbaseline.save} and compares it with the one named by {@code -Dbaseline.compare}. Meant to be called from
+   * {@code Simulation.after()}, by which time Gatling has written the whole log. Skipped in a distributed run, as
+   * each injector only holds its own share: summarize the merged log instead.
+   */
+  public static void afterRun(long startedAt) {
+    if (Injector.distributed() || "false".equals(System.getProperty("baseline.summary"))) {
+      return;
+    }
+    try {
+      Path log = SimulationLog.logSince(startedAt);
+      if (log == null) {
+        return;
+      }
+      RunSummary summary = of(log);
+      summary.write(log.resolveSibling(FILE_NAME));
+      save(summary);
+      String compare = System.getProperty("baseline.compare");
+      if (compare != null) {
+        BaselineDiff diff = BaselineDiff.fromProperties(compare, load(baselineFile(compare)), summary);
+        LOGGER.info("\n{}", diff.text());
+        diff.write(log.resolveSibling(BaselineDiff.FILE_NAME));
+      }
+    } catch (IOException e) {
+      LOGGER.warn("Could not summarize the run", e);
+    }
+  }
+
+  private static void save(RunSummary summary) throws IOException {
+    String name = System.getProperty("baseline.save");
+    if (name != null) {
+      Path file = baselineFile(name);
+      summary.write(file);
+      LOGGER.info("Saved as the baseline {} in {}", name, file.toAbsolutePath());
+    }
+  }
+
+  public static void main(String[] args) throws IOException {
+    Path log = SimulationLog.fromArgs(args);
+    RunSummary summary = of(log);
+    Path file = log.resolveSibling(FILE_NAME);
+    summary.write(file);
+    System.out.println("Summary of " + summary.simulation + " written to " + file.toAbsolutePath());
+    save(summary);
+  }
+}
@@ -0,0 +1,148 @@
+package io.gatling.demo.capacity;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+import static io.gatling.javaapi.core.CoreDsl.constantUsersPerSec;
+import static io.gatling.javaapi.core.CoreDsl.rampUsersPerSec;
+import io.gatling.demo.stats.SimulationLog;
+import io.gatling.javaapi.core.OpenInjectionStep;
+
+/**
+ * Stepped arrival-rate profile used to search for a scenario's capacity.
+ *
+ * <p>The rate climbs from {@code startRate} by {@code increment} users/s for {@code steps} levels. Each level
+ * is held for {@code levelSeconds}, and consecutive levels are joined by linear ramps of {@code rampSeconds}.
+ * Only the plateaus are measured, minus their first {@code settleSeconds}.
+ */
+public final class CapacityPlan {
+
+  /** Where the running simulation leaves its plan for {@link CapacityReport}. */
+  public static Path defaultFile() {
+    return SimulationLog.resultsDirectory().resolve("capacity-plan.properties");
+  }
+
+  public final double startRate;
+  public final double increment;
+  public final int steps;
+  public final int levelSeconds;
+  public final int rampSeconds;
+  public final int settleSeconds;
+
+  public CapacityPlan(double startRate, double increment, int steps, int levelSeconds, int rampSeconds,
+      int settleSeconds) {
+    if (settleSeconds >= levelSeconds) {
+      throw new IllegalArgumentException("capacity.settleSeconds must be shorter than capacity.levelSeconds");
+    }
+    this.startRate = startRate;
+    this.increment = increment;
+    this.steps = steps;
+    this.levelSeconds = levelSeconds;
+    this.rampSeconds = rampSeconds;
+    this.settleSeconds = settleSeconds;
+  }
+
+  /**
+   * Plan from {@code -Dcapacity.startRate}, {@code .increment}, {@code .steps}, {@code .levelSeconds},
+   * {@code .rampSeconds} and {@code .settleSeconds}.
+   */
+  public static CapacityPlan fromSystemProperties() {
+    return fromProperties(System.getProperties());
+  }
+
+  public static CapacityPlan load(Path file) {
+    Properties properties = new Properties();
+    try (Reader reader = Files.newBufferedReader(file)) {
+      properties.load(reader);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Could not read capacity plan " + file, e);
+    }
+    return fromProperties(properties);
+  }
+
+  private static CapacityPlan fromProperties(Properties properties) {
+    return new CapacityPlan(
+        Double.parseDouble(properties.getProperty("capacity.startRate", "5")),
+        Double.parseDouble(properties.getProperty("capacity.increment", "5")),
+        Integer.parseInt(properties.getProperty("capacity.steps", "10")),
+        Integer.parseInt(properties.getProperty("capacity.levelSeconds", "60")),
+        Integer.parseInt(properties.getProperty("capacity.rampSeconds", "10")),
+        Integer.parseInt(properties.getProperty("capacity.settleSeconds", "5")));
+  }
+
+  public void store(Path file) {
+    Properties properties = new Properties();
+    properties.setProperty("capacity.startRate", Double.toString(startRate));
+    properties.setProperty("capacity.increment", Double.toString(increment));
+    properties.setProperty("capacity.steps", Integer.toString(steps));
+    properties.setProperty("capacity.levelSeconds", Integer.toString(levelSeconds));
+    properties.setProperty("capacity.rampSeconds", Integer.toString(rampSeconds));
+    properties.setProperty("capacity.settleSeconds", Integer.toString(settleSeconds));
+    try {
+      Files.createDirectories(file.getParent());
+      try (Writer writer = Files.newBufferedWriter(file)) {
+        properties.store(writer, "Capacity plan of the last stepped run");
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException("Could not write capacity plan " + file, e);
+    }
+  }
+
+  public double rate(int level) {
+    return startRate + level * increment;
+  }
+
+  /**
+   * Level whose measured window contains {@code millisSinceInjectionStart}, or -1 for ramps and settling time.
+   */
+  public int levelAt(long millisSinceInjectionStart) {
+    long period = (levelSeconds + rampSeconds) * 1000L;
+    int level = (int) (millisSinceInjectionStart / period);
+    long offset = millisSinceInjectionStart % period;
+    if (millisSinceInjectionStart < 0 || level >= steps || offset < settleSeconds * 1000L
+        || offset >= levelSeconds * 1000L) {
+      return -1;
+    }
+    return level;
+  }
+
+  public int measuredSeconds() {
+    return levelSeconds - settleSeconds;
+  }
+
+  public List<OpenInjectionStep> injectionProfile() {
+    return injectionProfile(1);
+  }
+
+  /**
+   * The profile of a scenario that takes {@code share} of each level's arrivals, next to others taking the rest.
+   */
+  public List<OpenInjectionStep> injectionProfile(double share) {
+    List<OpenInjectionStep> profile = new ArrayList<>();
+    for (int level = 0; level < steps; level++) {
+      if (level > 0 && rampSeconds > 0) {
+        profile.add(rampUsersPerSec(rate(level - 1) * share).to(rate(level) * share).during(rampSeconds)
+            .randomized());
+      }
+      profile.add(constantUsersPerSec(rate(level) * share).during(levelSeconds).randomized());
+    }
+    return profile;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("%d levels from %s to %s users/s, %ds each, %ds ramps", steps, format(rate(0)),
+        format(rate(steps - 1)), levelSeconds, rampSeconds);
+  }
+
+  static String format(double rate) {
+    return rate == Math.rint(rate) ? Long.toString((long) rate) : String.format("%.2f", rate);
+  }
+}
@@ -0,0 +1,275 @@
+package io.gatling.demo.capacity;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.gatling.demo.slo.Slo;
+import io.gatling.demo.stats.Reports;
+import io.gatling.demo.stats.RequestStats;
+import io.gatling.demo.stats.SimulationLog;
+
+/**
+ * Finds the maximum sustainable arrival rate of a stepped run ({@code -Dcapacity.enabled=true}).
+ *
+ * <p>Requests are bucketed into the plan's levels by start time. For each level, overall and per request name,
+ * it reports throughput, p50/p95/p99 and error rate. The sustainable rate is the last level before the first
+ * one that breaks the SLO. Each request is judged against its own targets in {@code slo.conf}; requests without an
+ * entry there, and the run as a whole, against the {@code capacity.slo.*} threshold. The verdict is printed and
+ * written to {@code capacity.json} in the run directory.
+ *
+ * <pre>
+ * mvnw exec:java -Dexec.mainClass=io.gatling.demo.capacity.CapacityReport -Dexec.classpathScope=test \
+ *     [-Dexec.args=target/gatling/&lt;run&gt;] [-Dcapacity.slo.p95Ms=1000 -Dcapacity.slo.p99Ms=2000 -Dcapacity.slo.errorRate=0.01]
+ * </pre>
+ */
+public final class CapacityReport {
+
+  public static final String ALL_REQUESTS = "All requests";
+
+  /**
+   * Latency and error targets a level must meet to count as sustainable. Null targets are not checked.
+   */
+  public static final class Threshold {
+    final Long p95Ms;
+    final Long p99Ms;
+    final Double errorRate;
+
+    public Threshold(Long p95Ms, Long p99Ms, Double errorRate) {
+      this.p95Ms = p95Ms;
+      this.p99Ms = p99Ms;
+      this.errorRate = errorRate;
+    }
+
+    /**
+     * The p95, p99 and error rate targets of an SLO entry.
+     */
+    static Threshold of(Slo.Target target) {
+      return new Threshold(target.percentilesMs().get(95.0), target.percentilesMs().get(99.0), target.errorRate());
+    }
+
+    static Threshold fromSystemProperties() {
+      return new Threshold(Long.getLong("capacity.slo.p95Ms", 1000), Long.getLong("capacity.slo.p99Ms", 2000),
+          Double.parseDouble(System.getProperty("capacity.slo.errorRate", "0.01")));
+    }
+
+    /**
+     * Why {@code level} breaks this threshold, or null if it does not.
+     */
+    String violation(RequestStats level) {
+      List<String> reasons = new ArrayList<>();
+      if (p95Ms != null && level.histogram.percentile(95) > p95Ms) {
+        reasons.add("p95 " + level.histogram.percentile(95) + " ms > " + p95Ms + " ms");
+      }
+      if (p99Ms != null && level.histogram.percentile(99) > p99Ms) {
+        reasons.add("p99 " + level.histogram.percentile(99) + " ms > " + p99Ms + " ms");
+      }
+      if (errorRate != null && level.errorRate() > errorRate) {
+        reasons.add(String.format("errors %.2f%% > %.2f%%", level.errorRate() * 100, errorRate * 100));
+      }
+      return reasons.isEmpty() ? null : String.join(", ", reasons);
+    }
+
+    void writeTo(ObjectNode node) {
+      node.put("p95Ms", p95Ms);
+      node.put("p99Ms", p99Ms);
+      node.put("errorRate", errorRate);
+    }
+
+    @Override
+    public String toString() {
+      List<String> targets = new ArrayList<>();
+      if (p95Ms != null) {
+        targets.add("p95 <= " + p95Ms + " ms");
+      }
+      if (p99Ms != null) {
+        targets.add("p99 <= " + p99Ms + " ms");
+      }
+      if (errorRate != null) {
+        targets.add(String.format("errors <= %.2f%%", errorRate * 100));
+      }
+      return targets.isEmpty() ? "none" : String.join(", ", targets);
+    }
+  }
+
+  /**
+   * Outcome for one request name.
+   */
+  static final class Verdict {
+    final String name;
+    final double sustainableRate;
+    final double brokenAtRate;
+    final String reason;
+
+    Verdict(String name, double sustainableRate, double brokenAtRate, String reason) {
+      this.name = name;
+      this.sustainableRate = sustainableRate;
+      this.brokenAtRate = brokenAtRate;
+      this.reason = reason;
+    }
+  }
+
+  private final CapacityPlan plan;
+  private final Threshold threshold;
+  private final Slo slo;
+  private final Map<String, RequestStats[]> levels = new LinkedHashMap<>();
+  private String simulation;
+  private long injectionStart = -1;
+
+  /**
+   * @param threshold targets of the whole run and of the requests {@code slo} has no entry for
+   */
+  public CapacityReport(CapacityPlan plan, Threshold threshold, Slo slo) {
+    this.plan = plan;
+    this.threshold = threshold;
+    this.slo = slo;
+    levels.put(ALL_REQUESTS, newLevels());
+  }
+
+  public void read(Path log) throws IOException {
+    SimulationLog.Run run = SimulationLog.read(log, new SimulationLog.Listener() {
+      @Override
+      public void user(String scenario, boolean start, long timestamp) {
+        if (start && injectionStart < 0) {
+          injectionStart = timestamp;
+        }
+      }
+
+      @Override
+      public void request(List<String> groups, String name, long start, long end, boolean ok, String message) {
+        int level = injectionStart < 0 ? -1 : plan.levelAt(start - injectionStart);
+        if (level >= 0) {
+          levels.get(ALL_REQUESTS)[level].record(end - start, ok);
+          levels.computeIfAbsent(name, key -> newLevels())[level].record(end - start, ok);
+        }
+      }
+    });
+    simulation = run.simulationClassName;
+  }
+
+  private RequestStats[] newLevels() {
+    RequestStats[] array = new RequestStats[plan.steps];
+    for (int i = 0; i < array.length; i++) {
+      array[i] = new RequestStats();
+    }
+    return array;
+  }
+
+  /**
+   * Targets request {@code name} is judged against: its own SLO entry, or the global threshold.
+   */
+  Threshold threshold(String name) {
+    Slo.Target target = name.equals(ALL_REQUESTS) ? null : slo.request(name);
+    return target == null ? threshold : Threshold.of(target);
+  }
+
+  Verdict verdict(String name) {
+    Threshold target = threshold(name);
+    double sustainable = Double.NaN;
+    for (int i = 0; i < plan.steps; i++) {
+      RequestStats level = levels.get(name)[i];
+      if (level.count() == 0) {
+        continue;
+      }
+      String violation = target.violation(level);
+      if (violation != null) {
+        return new Verdict(name, sustainable, plan.rate(i), violation);
+      }
+      sustainable = plan.rate(i);
+    }
+    return new Verdict(name, sustainable, Double.NaN, null);
+  }
+
+  public String text() {
+    StringBuilder out = new StringBuilder();
+    out.append("Capacity of ").append(simulation).append(": ").append(plan).append('\n');
+    out.append("SLO: ").append(threshold).append(", or the request's own targets in slo.conf\n\n");
+    out.append(ALL_REQUESTS).append('\n');
+    out.append(String.format("  %9s %10s %7s %7s %7s %8s%n", "users/s", "req/s", "p50", "p95", "p99", "errors"));
+    RequestStats[] all = levels.get(ALL_REQUESTS);
+    for (int i = 0; i < plan.steps; i++) {
+      RequestStats level = all[i];
+      out.append(String.format("  %9s %10.1f %7d %7d %7d %7.2f%%%s%n", CapacityPlan.format(plan.rate(i)),
+          (double) level.count() / plan.measuredSeconds(), level.histogram.percentile(50),
+          level.histogram.percentile(95), level.histogram.percentile(99), level.errorRate() * 100,
+          level.count() > 0 && threshold.violation(level) != null ? "  <- SLO broken" : ""));
+    }
+    out.append('\n').append(String.format("  %-45s %14s  %-45s %s%n", "endpoint", "max users/s", "SLO",
+        "broken by"));
+    for (String name : levels.keySet()) {
+      Verdict verdict = verdict(name);
+      out.append(String.format("  %-45s %14s  %-45s %s%n", name, describe(verdict.sustainableRate, verdict),
+          threshold(name),
+          verdict.reason == null
+              ? "-"
+              : verdict.reason + " at " + CapacityPlan.format(verdict.brokenAtRate) + " users/s"));
+    }
+    return out.toString();
+  }
+
+  private String describe(double sustainableRate, Verdict verdict) {
+    if (Double.isNaN(sustainableRate)) {
+      return verdict.reason == null ? "no data" : "< " + CapacityPlan.format(plan.rate(0));
+    }
+    return (verdict.reason == null ? ">= " : "") + CapacityPlan.format(sustainableRate);
+  }
+
+  public ObjectNode json() {
+    ObjectMapper mapper = new ObjectMapper();
+    ObjectNode root = mapper.createObjectNode();
+    root.put("simulation", simulation);
+    ObjectNode planNode = root.putObject("plan");
+    planNode.put("startRate", plan.startRate);
+    planNode.put("increment", plan.increment);
+    planNode.put("steps", plan.steps);
+    planNode.put("levelSeconds", plan.levelSeconds);
+    planNode.put("rampSeconds", plan.rampSeconds);
+    planNode.put("settleSeconds", plan.settleSeconds);
+    threshold.writeTo(root.putObject("slo"));
+    ObjectNode endpoints = root.putObject("endpoints");
+    levels.forEach((name, nameLevels) -> {
+      ObjectNode endpoint = endpoints.putObject(name);
+      Verdict verdict = verdict(name);
+      if (Double.isNaN(verdict.sustainableRate)) {
+        endpoint.putNull("maxSustainableRate");
+      } else {
+        endpoint.put("maxSustainableRate", verdict.sustainableRate);
+      }
+      threshold(name).writeTo(endpoint.putObject("slo"));
+      endpoint.put("saturated", verdict.reason != null);
+      if (verdict.reason != null) {
+        endpoint.put("brokenAtRate", verdict.brokenAtRate);
+        endpoint.put("brokenBy", verdict.reason);
+      }
+      ArrayNode steps = endpoint.putArray("steps");
+      for (int i = 0; i < plan.steps; i++) {
+        RequestStats level = nameLevels[i];
+        steps.addObject()
+            .put("usersPerSec", plan.rate(i))
+            .put("requests", level.count())
+            .put("throughput", (double) level.count() / plan.measuredSeconds())
+            .put("p50", level.histogram.percentile(50))
+            .put("p95", level.histogram.percentile(95))
+            .put("p99", level.histogram.percentile(99))
+            .put("errorRate", level.errorRate());
+      }
+    });
+    return root;
+  }
+
+  public static void main(String[] args) throws IOException {
+    Path log = SimulationLog.fromArgs(args);
+    Path planFile = Paths.get(System.getProperty("capacity.plan", CapacityPlan.defaultFile().toString()));
+    CapacityReport report = new CapacityReport(CapacityPlan.load(planFile), Threshold.fromSystemProperties(),
+        Slo.load());
+    report.read(log);
+    Reports.write(log, "capacity.json", report.text(), report.json());
+  }
+}
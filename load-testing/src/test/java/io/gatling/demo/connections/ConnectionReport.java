@@ -0,0 +1,216 @@
+package io.gatling.demo.connections;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.gatling.demo.ConnectionStrategySimulation;
+import io.gatling.demo.Targets;
+import io.gatling.demo.http.ConnectionStrategy;
+import io.gatling.demo.stats.Reports;
+import io.gatling.demo.stats.RequestStats;
+import io.gatling.demo.stats.SimulationLog;
+
+/**
+ * Page-complete times and socket counts for each {@link ConnectionStrategy} of a
+ * {@link ConnectionStrategySimulation} run.
+ *
+ * <p>A strategy's step lasts from its first page to its last. For each page the report gives the p50, p95 and p99
+ * of its group's duration and its errors, then the peak and mean sockets open on the services from {@link Sockets},
+ * and on the mock the connections opened during the step, per page load. An {@code http2} step against {@code http}
+ * targets could not negotiate HTTP/2 and is flagged. The result is printed and written to {@code connections.json}
+ * in the run directory.
+ *
+ * <pre>
+ * mvnw exec:java -Dexec.mainClass=io.gatling.demo.connections.ConnectionReport -Dexec.classpathScope=test \
+ *     [-Dexec.args=target/gatling/&lt;run&gt;] [-Dconnections.samples=target/gatling/connections.csv]
+ * </pre>
+ */
+public final class ConnectionReport {
+
+  static final List<String> PAGES = List.of(ConnectionStrategySimulation.MAIN_PAGE,
+      ConnectionStrategySimulation.PROFILE_PAGE, ConnectionStrategySimulation.DEFAULT_IMAGES);
+
+  private static final class Step {
+    final String strategy;
+    final Map<String, RequestStats> pages = new LinkedHashMap<>();
+    long from = Long.MAX_VALUE;
+    long to = Long.MIN_VALUE;
+    long peakOpen = -1;
+    long sumOpen;
+    int samples;
+    long openedBefore = -1;
+    long openedAfter = -1;
+
+    Step(String strategy) {
+      this.strategy = strategy;
+      for (String page : PAGES) {
+        pages.put(page, new RequestStats());
+      }
+    }
+
+    long pageLoads() {
+      return pages.values().stream().mapToLong(RequestStats::count).sum();
+    }
+
+    long opened() {
+      return openedBefore < 0 || openedAfter < 0 ? -1 : openedAfter - openedBefore;
+    }
+  }
+
+  private final Map<String, Step> steps = new LinkedHashMap<>();
+  private final List<Sockets.Sample> samples;
+  private final boolean tls;
+  private String simulation;
+
+  public ConnectionReport(Properties plan, List<Sockets.Sample> samples) {
+    for (String strategy : plan.getProperty("connections.strategies", "").split(",")) {
+      if (!strategy.isEmpty()) {
+        steps.put(strategy, new Step(strategy));
+      }
+    }
+    this.tls = Boolean.parseBoolean(plan.getProperty("connections.tls"));
+    this.samples = samples;
+  }
+
+  public static Path defaultFile() {
+    return SimulationLog.resultsDirectory().resolve("connections.properties");
+  }
+
+  /**
+   * Writes the strategies of the run, in order, and whether the targets use TLS. Meant to be called from
+   * {@code Simulation.before()}.
+   */
+  public static void storeStrategies(List<ConnectionStrategy> strategies, Path file) {
+    Properties properties = new Properties();
+    List<String> labels = new ArrayList<>();
+    for (ConnectionStrategy strategy : strategies) {
+      labels.add(strategy.label);
+    }
+    properties.setProperty("connections.strategies", String.join(",", labels));
+    properties.setProperty("connections.tls",
+        Boolean.toString(Targets.GATEWAY_URL.startsWith("https:") && Targets.WEBAPP_URL.startsWith("https:")));
+    try {
+      Files.createDirectories(file.getParent());
+      try (Writer writer = Files.newBufferedWriter(file)) {
+        properties.store(writer, "The connection strategies of the last run");
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException("Could not write " + file, e);
+    }
+  }
+
+  public static Properties loadStrategies(Path file) throws IOException {
+    Properties properties = new Properties();
+    try (Reader reader = Files.newBufferedReader(file)) {
+      properties.load(reader);
+    }
+    return properties;
+  }
+
+  public void read(Path log) throws IOException {
+    SimulationLog.Run run = SimulationLog.read(log, new SimulationLog.Listener() {
+      @Override
+      public void group(List<String> groups, long start, long end, int cumulatedResponseTime, boolean ok) {
+        Step step = groups.size() == 2 ? steps.get(groups.get(0)) : null;
+        RequestStats page = step == null ? null : step.pages.get(groups.get(1));
+        if (page == null) {
+          return;
+        }
+        page.record(end - start, ok);
+        step.from = Math.min(step.from, start);
+        step.to = Math.max(step.to, end);
+      }
+    });
+    simulation = run.simulationClassName;
+    // Samples left by an earlier run
+    if (samples.isEmpty() || samples.get(samples.size() - 1).timestamp < run.start) {
+      return;
+    }
+    for (Sockets.Sample sample : samples) {
+      for (Step step : steps.values()) {
+        if (sample.timestamp < step.from) {
+          step.openedBefore = sample.opened;
+        } else if (sample.timestamp <= step.to) {
+          step.peakOpen = Math.max(step.peakOpen, sample.open);
+          step.sumOpen += sample.open;
+          step.samples++;
+          step.openedAfter = sample.opened;
+        }
+      }
+    }
+  }
+
+  public String text() {
+    StringBuilder out = new StringBuilder();
+    out.append("Connection strategies of ").append(simulation).append("\n\n");
+    out.append(String.format("  %-10s %-15s %7s %7s %7s %7s %8s%n", "strategy", "page", "loads", "p50", "p95",
+        "p99", "errors"));
+    for (Step step : steps.values()) {
+      step.pages.forEach((page, stats) -> out.append(String.format("  %-10s %-15s %7d %7d %7d %7d %7.2f%%%n",
+          step.strategy, page, stats.count(), stats.histogram.percentile(50), stats.histogram.percentile(95),
+          stats.histogram.percentile(99), stats.errorRate() * 100)));
+    }
+    out.append(String.format("%n  %-10s %9s %9s %9s %14s%n", "strategy", "peak open", "mean open", "opened",
+        "opened / load"));
+    for (Step step : steps.values()) {
+      long opened = step.opened();
+      out.append(String.format("  %-10s %9s %9s %9s %14s%n", step.strategy,
+          step.peakOpen < 0 ? "-" : Long.toString(step.peakOpen),
+          step.samples == 0 ? "-" : String.format("%.1f", step.sumOpen / (double) step.samples),
+          opened < 0 ? "-" : Long.toString(opened),
+          opened < 0 || step.pageLoads() == 0 ? "-" : String.format("%.2f", opened / (double) step.pageLoads())));
+    }
+    if (steps.containsKey(ConnectionStrategy.HTTP2.label) && !tls) {
+      out.append("\nThe targets are not https: the http2 step fell back to HTTP/1.1 per user\n");
+    }
+    return out.toString();
+  }
+
+  public ObjectNode json() {
+    ObjectMapper mapper = new ObjectMapper();
+    ObjectNode root = mapper.createObjectNode();
+    root.put("simulation", simulation);
+    root.put("tls", tls);
+    ArrayNode strategies = root.putArray("strategies");
+    for (Step step : steps.values()) {
+      ObjectNode node = strategies.addObject();
+      node.put("strategy", step.strategy);
+      ObjectNode pages = node.putObject("pages");
+      step.pages.forEach((page, stats) -> {
+        ObjectNode pageNode = pages.putObject(page);
+        pageNode.put("loads", stats.count());
+        pageNode.put("errors", stats.ko());
+        pageNode.put("p50", stats.histogram.percentile(50));
+        pageNode.put("p95", stats.histogram.percentile(95));
+        pageNode.put("p99", stats.histogram.percentile(99));
+      });
+      node.put("peakOpenSockets", step.peakOpen);
+      node.put("meanOpenSockets", step.samples == 0 ? -1 : step.sumOpen / (double) step.samples);
+      node.put("connectionsOpened", step.opened());
+    }
+    return root;
+  }
+
+  public static void main(String[] args) throws IOException {
+    Path log = SimulationLog.fromArgs(args);
+    Path planFile = Paths.get(System.getProperty("connections.plan", defaultFile().toString()));
+    Path samplesFile = Paths.get(System.getProperty("connections.samples", Sockets.defaultFile().toString()));
+    ConnectionReport report = new ConnectionReport(loadStrategies(planFile),
+        Files.exists(samplesFile) ? Sockets.load(samplesFile) : List.of());
+    report.read(log);
+    Reports.write(log, "connections.json", report.text(), report.json());
+  }
+}
@@ -0,0 +1,155 @@
+package io.gatling.demo.connections;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.gatling.demo.Targets;
+import io.gatling.demo.distributed.Injector;
+import io.gatling.demo.mock.MockWiChat;
+import io.gatling.demo.stats.SimulationLog;
+
+/**
+ * Server-side socket counts during a run, sampled every {@code -Dconnections.sampleMillis} (default 1000) into
+ * {@link #defaultFile()}.
+ *
+ * <p>On the mock both the connections opened so far and the ones active over the last sample are read from the
+ * servers themselves. Against a real stack {@code -Dconnections.command} is run through {@code sh -c} and prints
+ * the sockets open on the services, e.g.
+ * {@code ss -Htn state established '( sport = :8000 or sport = :3000 )' | wc -l} on their host; the connections
+ * opened are then unknown (-1). Without a command nothing is sampled. Only the first {@link Injector} samples.
+ */
+public final class Sockets {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(Sockets.class);
+
+  static final String HEADER = "timestamp,open,opened";
+
+  private static ScheduledExecutorService sampler;
+  private static volatile BufferedWriter out;
+
+  private Sockets() {
+  }
+
+  public static Path defaultFile() {
+    return SimulationLog.resultsDirectory().resolve("connections.csv");
+  }
+
+  /**
+   * Starts sampling into {@code file}. Meant to be called from {@code Simulation.before()}.
+   */
+  public static synchronized void start(Path file) {
+    if (sampler != null || Injector.INDEX != 0) {
+      return;
+    }
+    long period = Long.getLong("connections.sampleMillis", 1000);
+    String command = System.getProperty("connections.command");
+    if (!Targets.MOCK && command == null) {
+      LOGGER.warn("No -Dconnections.command, the services' sockets will not be sampled");
+      return;
+    }
+    try {
+      Files.createDirectories(file.getParent());
+      out = Files.newBufferedWriter(file);
+      out.write(HEADER);
+      out.newLine();
+    } catch (IOException e) {
+      throw new UncheckedIOException("Could not write " + file, e);
+    }
+    sampler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "sockets");
+      thread.setDaemon(true);
+      return thread;
+    });
+    boolean[] warned = {false};
+    sampler.scheduleAtFixedRate(() -> {
+      try {
+        long[] counts = command == null ? MockWiChat.connections(period) : new long[] {-1, run(command)};
+        if (counts != null) {
+          write(System.currentTimeMillis(), counts[1], counts[0]);
+        }
+      } catch (IOException | NumberFormatException e) {
+        if (!warned[0]) {
+          warned[0] = true;
+          LOGGER.warn("Could not count the sockets with {}", command, e);
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }, 0, period, TimeUnit.MILLISECONDS);
+  }
+
+  private static long run(String command) throws IOException, InterruptedException {
+    Process process = new ProcessBuilder("sh", "-c", command).redirectErrorStream(true).start();
+    String output = new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8).trim();
+    process.waitFor();
+    return Long.parseLong(output);
+  }
+
+  /**
+   * Stops sampling. Meant to be called from {@code Simulation.after()}.
+   */
+  public static void stop() {
+    ScheduledExecutorService stopped;
+    synchronized (Sockets.class) {
+      stopped = sampler;
+      sampler = null;
+    }
+    if (stopped == null) {
+      return;
+    }
+    stopped.shutdownNow();
+    try {
+      stopped.awaitTermination(5, TimeUnit.SECONDS);
+      out.close();
+    } catch (IOException e) {
+      LOGGER.warn("Could not close the socket samples", e);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  // Only called from the sampler's single thread
+  private static void write(long timestamp, long open, long opened) throws IOException {
+    out.write(timestamp + "," + open + "," + opened);
+    out.newLine();
+  }
+
+  /**
+   * One sample of {@link #defaultFile()}.
+   */
+  public static final class Sample {
+    public final long timestamp;
+    public final long open;
+    public final long opened;
+
+    Sample(long timestamp, long open, long opened) {
+      this.timestamp = timestamp;
+      this.open = open;
+      this.opened = opened;
+    }
+  }
+
+  public static List<Sample> load(Path file) throws IOException {
+    List<Sample> samples = new ArrayList<>();
+    for (String line : Files.readAllLines(file)) {
+      if (line.isEmpty() || line.equals(HEADER)) {
+        continue;
+      }
+      String[] fields = line.split(",");
+      samples.add(new Sample(Long.parseLong(fields[0]), Long.parseLong(fields[1]), Long.parseLong(fields[2])));
+    }
+    return samples;
+  }
+}
@@ -0,0 +1,252 @@
+package io.gatling.demo.contention;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.gatling.demo.ReadWriteContentionSimulation;
+import io.gatling.demo.stats.Reports;
+import io.gatling.demo.stats.RequestStats;
+import io.gatling.demo.stats.SimulationLog;
+
+/**
+ * Read latency against write rate in a {@link ReadWriteContentionSimulation} run.
+ *
+ * <p>The steps are cut from the readers' first arrival, and the first {@code -Dcontention.settleSeconds} (default 5)
+ * of each are left out while the new writers ramp up. For each step the report gives the writes completed per
+ * second and their p95, then the p50, p95 and p99 and errors of each read, and each read's p95 relative to the first
+ * step's. The first step whose read p95 is over {@code -Dcontention.maxSlowdown} (default 1.5) times the first
+ * step's is the write rate the reads stop absorbing. If the leaderboard degrades before the profile, its aggregation
+ * over every player's games is what the writes slow down, and aggregates kept up to date on write would remove it;
+ * if both degrade together, the database itself is saturated and a read replica would take the reads off it. The
+ * result is printed and written to {@code contention.json} in the run directory.
+ *
+ * <pre>
+ * mvnw exec:java -Dexec.mainClass=io.gatling.demo.contention.ContentionReport -Dexec.classpathScope=test \
+ *     [-Dexec.args=target/gatling/&lt;run&gt;]
+ * </pre>
+ */
+public final class ContentionReport {
+
+  public static final String DEFAULT_WRITE_RATES = "0,5,10,20,40";
+  public static final String LEADERBOARD = "get statistics";
+  public static final String PROFILE = "get profile";
+  public static final String RECORD_GAME = "post recordGame";
+  public static final String UPDATE_STATISTICS = "post statistics";
+  static final List<String> READS = List.of(LEADERBOARD, PROFILE);
+  static final List<String> WRITES = List.of(RECORD_GAME, UPDATE_STATISTICS);
+
+  private static final class Step {
+    final double writeRate;
+    final Map<String, RequestStats> requests = new LinkedHashMap<>();
+
+    Step(double writeRate) {
+      this.writeRate = writeRate;
+      for (String name : READS) {
+        requests.put(name, new RequestStats());
+      }
+      for (String name : WRITES) {
+        requests.put(name, new RequestStats());
+      }
+    }
+
+    long p95(String name) {
+      return requests.get(name).histogram.percentile(95);
+    }
+  }
+
+  private final List<Step> steps = new ArrayList<>();
+  private final long stepMillis;
+  private final long settleMillis;
+  private final double maxSlowdown;
+  private String simulation;
+  private long origin = -1;
+
+  public ContentionReport(Properties plan, long settleMillis, double maxSlowdown) {
+    for (double rate : parseRates(plan.getProperty("contention.writeRates", ""))) {
+      steps.add(new Step(rate));
+    }
+    this.stepMillis = Long.parseLong(plan.getProperty("contention.stepMillis", "60000"));
+    this.settleMillis = settleMillis;
+    this.maxSlowdown = maxSlowdown;
+  }
+
+  public static List<Double> parseRates(String rates) {
+    List<Double> list = new ArrayList<>();
+    for (String rate : rates.split(",")) {
+      if (!rate.isBlank()) {
+        list.add(Double.parseDouble(rate.trim()));
+      }
+    }
+    return list;
+  }
+
+  public static String label(double rate) {
+    return (rate == Math.rint(rate) ? Long.toString((long) rate) : Double.toString(rate)) + "/s";
+  }
+
+  public static Path defaultFile() {
+    return SimulationLog.resultsDirectory().resolve("contention.properties");
+  }
+
+  /**
+   * Writes the write rates of the run's steps and their duration. Meant to be called from
+   * {@code Simulation.before()}.
+   */
+  public static void storePlan(List<Double> writeRates, Duration step, Path file) {
+    Properties properties = new Properties();
+    List<String> rates = new ArrayList<>();
+    for (double rate : writeRates) {
+      rates.add(Double.toString(rate));
+    }
+    properties.setProperty("contention.writeRates", String.join(",", rates));
+    properties.setProperty("contention.stepMillis", Long.toString(step.toMillis()));
+    try {
+      Files.createDirectories(file.getParent());
+      try (Writer writer = Files.newBufferedWriter(file)) {
+        properties.store(writer, "The write rates of the last contention run");
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException("Could not write " + file, e);
+    }
+  }
+
+  public static Properties loadPlan(Path file) throws IOException {
+    Properties properties = new Properties();
+    try (Reader reader = Files.newBufferedReader(file)) {
+      properties.load(reader);
+    }
+    return properties;
+  }
+
+  public void read(Path log) throws IOException {
+    SimulationLog.Run run = SimulationLog.read(log, new SimulationLog.Listener() {
+      @Override
+      public void user(String scenario, boolean start, long timestamp) {
+        if (start && origin < 0 && scenario.equals("readers")) {
+          origin = timestamp;
+        }
+      }
+
+      @Override
+      public void request(List<String> groups, String name, long start, long end, boolean ok, String message) {
+        if (origin < 0 || start < origin) {
+          return;
+        }
+        int index = (int) ((start - origin) / stepMillis);
+        if (index >= steps.size() || (start - origin) % stepMillis < settleMillis) {
+          return;
+        }
+        RequestStats stats = steps.get(index).requests.get(name);
+        if (stats != null) {
+          stats.record(end - start, ok);
+        }
+      }
+    });
+    simulation = run.simulationClassName;
+  }
+
+  private double slowdown(Step step, String read) {
+    long baseline = steps.get(0).p95(read);
+    return step.requests.get(read).count() == 0 ? 0 : step.p95(read) / (double) Math.max(1, baseline);
+  }
+
+  private Step firstDegraded(String read) {
+    return steps.stream().filter(step -> slowdown(step, read) > maxSlowdown).findFirst().orElse(null);
+  }
+
+  private double writesPerSecond(Step step) {
+    return step.requests.get(RECORD_GAME).count() / ((stepMillis - settleMillis) / 1000.0);
+  }
+
+  private String verdict() {
+    Step leaderboard = firstDegraded(LEADERBOARD);
+    Step profile = firstDegraded(PROFILE);
+    if (leaderboard == null && profile == null) {
+      return String.format("The reads stayed within %.1fx of the first step's p95 up to %s writes", maxSlowdown,
+          label(steps.get(steps.size() - 1).writeRate));
+    }
+    if (profile == null || (leaderboard != null && leaderboard.writeRate < profile.writeRate)) {
+      return String.format("The leaderboard's p95 passed %.1fx at %s writes, before the profile's: its aggregation "
+          + "is what the writes slow down, keep incremental aggregates on write", maxSlowdown,
+          label(leaderboard.writeRate));
+    }
+    if (leaderboard == null || profile.writeRate < leaderboard.writeRate) {
+      return String.format("The profile's p95 passed %.1fx at %s writes, before the leaderboard's: the writes contend "
+          + "on the players' documents themselves", maxSlowdown, label(profile.writeRate));
+    }
+    return String.format("Both reads passed %.1fx at %s writes: the database is saturated, move the reads to a "
+        + "replica", maxSlowdown, label(profile.writeRate));
+  }
+
+  public String text() {
+    StringBuilder out = new StringBuilder();
+    out.append("Read/write contention of ").append(simulation).append("\n\n");
+    out.append(String.format("  %8s %8s %10s  %-15s %7s %7s %7s %8s %9s%n", "writes", "games/s", "write p95",
+        "read", "p50", "p95", "p99", "errors", "p95 vs 1st"));
+    for (Step step : steps) {
+      long writeP95 = step.p95(RECORD_GAME);
+      for (int i = 0; i < READS.size(); i++) {
+        String read = READS.get(i);
+        RequestStats stats = step.requests.get(read);
+        out.append(String.format("  %8s %8s %10s  %-15s %7d %7d %7d %7.2f%% %8.2fx%n",
+            i == 0 ? label(step.writeRate) : "", i == 0 ? String.format("%.1f", writesPerSecond(step)) : "",
+            i == 0 ? (step.requests.get(RECORD_GAME).count() == 0 ? "-" : Long.toString(writeP95)) : "",
+            read, stats.histogram.percentile(50), stats.histogram.percentile(95), stats.histogram.percentile(99),
+            stats.errorRate() * 100, slowdown(step, read)));
+      }
+    }
+    out.append('\n').append(verdict()).append('\n');
+    return out.toString();
+  }
+
+  public ObjectNode json() {
+    ObjectMapper mapper = new ObjectMapper();
+    ObjectNode root = mapper.createObjectNode();
+    root.put("simulation", simulation);
+    root.put("maxSlowdown", maxSlowdown);
+    root.put("verdict", verdict());
+    ArrayNode list = root.putArray("steps");
+    for (Step step : steps) {
+      ObjectNode node = list.addObject();
+      node.put("writeRate", step.writeRate);
+      node.put("gamesPerSecond", writesPerSecond(step));
+      ObjectNode requests = node.putObject("requests");
+      step.requests.forEach((name, stats) -> {
+        ObjectNode request = requests.putObject(name);
+        request.put("count", stats.count());
+        request.put("errors", stats.ko());
+        request.put("p50", stats.histogram.percentile(50));
+        request.put("p95", stats.histogram.percentile(95));
+        request.put("p99", stats.histogram.percentile(99));
+        if (READS.contains(name)) {
+          request.put("p95VsFirstStep", slowdown(step, name));
+        }
+      });
+    }
+    return root;
+  }
+
+  public static void main(String[] args) throws IOException {
+    Path log = SimulationLog.fromArgs(args);
+    Path planFile = Paths.get(System.getProperty("contention.plan", defaultFile().toString()));
+    ContentionReport report = new ContentionReport(loadPlan(planFile),
+        Long.getLong("contention.settleSeconds", 5) * 1000,
+        Double.parseDouble(System.getProperty("contention.maxSlowdown", "1.5")));
+    report.read(log);
+    Reports.write(log, "contention.json", report.text(), report.json());
+  }
+}
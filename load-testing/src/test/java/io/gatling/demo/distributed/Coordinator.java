@@ -0,0 +1,278 @@
+package io.gatling.demo.distributed;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.gatling.demo.Targets;
+import io.gatling.demo.mock.MockWiChat;
+import io.gatling.demo.stats.SimulationLog;
+
+/**
+ * Runs one simulation on several injector JVMs at once and merges their results into a single report.
+ *
+ * <p>Each injector gets {@code -Dinjector.index}, {@code -Dinjector.count} and a common {@code -Dinjector.startAt},
+ * so it sends its {@link Injector#share()} of the load with its own slice of the users, and starts injecting at
+ * the same instant as the others. Injectors are local processes, or Maven runs on the hosts of
+ * {@code -Ddist.hosts} over SSH. Their {@code simulation.log}s are collected, merged by {@link LogMerge} and
+ * rendered by Gatling in reports-only mode.
+ *
+ * <pre>
+ * mvnw exec:java -Dexec.mainClass=io.gatling.demo.distributed.Coordinator -Dexec.classpathScope=test \
+ *     -Dexec.args=io.gatling.demo.QODSimulation -Ddist.injectors=4
+ * </pre>
+ *
+ * <ul>
+ *   <li>{@code -Ddist.injectors} — number of injectors (default 2, or one per host)</li>
+ *   <li>{@code -Ddist.hosts} — comma-separated SSH destinations; injectors are spread over them round-robin</li>
+ *   <li>{@code -Ddist.remoteDir} — the {@code load-testing} checkout on the hosts (default
+ *       {@value #DEFAULT_REMOTE_DIR})</li>
+ *   <li>{@code -Ddist.startDelaySeconds} — time given to the injectors to prepare before the common start
+ *       (default 60)</li>
+ *   <li>{@code -Ddist.jvmOptions} — extra options of local injector JVMs</li>
+ * </ul>
+ *
+ * <p>Settings of the simulations ({@code users.*}, {@code mix.*}, {@code slo.*}, ...) are passed on to every
+ * injector. With {@code -Dmock.enabled=true} the coordinator runs the one mock all local injectors share.
+ */
+public final class Coordinator {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(Coordinator.class);
+
+  static final String DEFAULT_REMOTE_DIR = "wichat_en1b/load-testing";
+
+  /** Property prefixes handed over to the injectors. */
+  private static final List<String> FORWARDED = List.of("webappUrl", "gatewayUrl", "users.", "auth.", "game.",
+      "mix.", "capacity.", "slo.", "replay.", "results.");
+
+  /** What the Gatling Maven plugin gives its forked JVM, minus the heap size. */
+  private static final List<String> GATLING_JVM_OPTIONS = List.of("--add-opens=java.base/java.lang=ALL-UNNAMED",
+      "-XX:+HeapDumpOnOutOfMemoryError", "-XX:+UseG1GC", "-XX:+ParallelRefProcEnabled");
+
+  private static final int ASSERTIONS_FAILED = 2;
+
+  private final String simulation;
+  private final int injectors;
+  private final List<String> hosts;
+  private final String remoteDir;
+  private final long startDelayMillis;
+  private final String jvmOptions;
+  private final Path results = SimulationLog.resultsDirectory().toAbsolutePath();
+  private final String runId;
+
+  Coordinator(String simulation) {
+    this.simulation = simulation;
+    String hostList = System.getProperty("dist.hosts", "").trim();
+    this.hosts = hostList.isEmpty() ? List.of() : List.of(hostList.split("\\s*,\\s*"));
+    this.injectors = Integer.getInteger("dist.injectors", hosts.isEmpty() ? 2 : hosts.size());
+    this.remoteDir = System.getProperty("dist.remoteDir", DEFAULT_REMOTE_DIR);
+    this.startDelayMillis = Long.getLong("dist.startDelaySeconds", 60) * 1000;
+    this.jvmOptions = System.getProperty("dist.jvmOptions", "").trim();
+    this.runId = simulation.substring(simulation.lastIndexOf('.') + 1).toLowerCase() + "-distributed-"
+        + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMddHHmmssSSS"));
+  }
+
+  /**
+   * Runs the injectors and the report, and returns Gatling's exit status for the merged run.
+   */
+  int run() throws IOException, InterruptedException {
+    if (Targets.MOCK && !hosts.isEmpty()) {
+      throw new IllegalArgumentException("The embedded mock is only reachable by local injectors");
+    }
+    Path runDirectory = results.resolve(runId);
+    Files.createDirectories(runDirectory);
+    if (Targets.MOCK) {
+      MockWiChat.start();
+    }
+    try {
+      long startAt = System.currentTimeMillis() + startDelayMillis;
+      LOGGER.info("Starting {} injectors of {}, injecting from {} ms from now", injectors, simulation,
+          startDelayMillis);
+      List<Process> processes = new ArrayList<>();
+      for (int i = 0; i < injectors; i++) {
+        processes.add(start(i, startAt, runDirectory.resolve("injector-" + i)));
+      }
+      boolean failed = false;
+      for (int i = 0; i < injectors; i++) {
+        int status = processes.get(i).waitFor();
+        if (status == ASSERTIONS_FAILED) {
+          LOGGER.info("Injector {} missed its assertions; they are checked again on the merged run", i);
+        } else if (status != 0) {
+          LOGGER.error("Injector {} exited with {}", i, status);
+          failed = true;
+        }
+      }
+      if (failed) {
+        return 1;
+      }
+    } finally {
+      if (Targets.MOCK) {
+        MockWiChat.stop();
+      }
+    }
+
+    List<Path> logs = new ArrayList<>();
+    for (int i = 0; i < injectors; i++) {
+      logs.add(collect(i, runDirectory.resolve("injector-" + i)));
+    }
+    LogMerge merge = new LogMerge(logs);
+    merge.mergeInto(runDirectory);
+    System.out.print(merge.summary());
+    return report();
+  }
+
+  private Process start(int index, long startAt, Path directory) throws IOException {
+    Files.createDirectories(directory);
+    List<String> properties = new ArrayList<>(forwardedProperties());
+    properties.add("-Dinjector.index=" + index);
+    properties.add("-Dinjector.count=" + injectors);
+    properties.add("-Dinjector.startAt=" + startAt);
+
+    List<String> command = new ArrayList<>();
+    if (hosts.isEmpty()) {
+      command.add(javaExecutable());
+      command.addAll(GATLING_JVM_OPTIONS);
+      if (!jvmOptions.isEmpty()) {
+        command.addAll(List.of(jvmOptions.split("\\s+")));
+      }
+      command.addAll(List.of("-cp", classpath()));
+      command.addAll(properties);
+      command.addAll(List.of("io.gatling.app.Gatling", "-s", simulation, "-rf", directory.toString(), "-nr",
+          "-rd", "injector " + index + " of " + injectors));
+    } else {
+      // Maven exits 1 on a missed assertion as on a crash; the merged run checks the assertions, and a crashed
+      // injector is caught when its log cannot be fetched
+      String remote = "cd " + quote(remoteDir) + " && ./mvnw -B -q gatling:test"
+          + " -Dgatling.simulationClass=" + quote(simulation)
+          + " -Dgatling.failOnError=false -Dgatling.noReports=true -Dgatling.resultsFolder="
+          + quote(remoteResults(index)) + " "
+          + properties.stream().map(Coordinator::quote).collect(Collectors.joining(" "));
+      command.addAll(List.of("ssh", "-o", "BatchMode=yes", host(index), remote));
+    }
+    Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+    relay(index, process);
+    return process;
+  }
+
+  // The remote run directory is the only one in its results folder, hence the glob
+  private Path collect(int index, Path directory) throws IOException, InterruptedException {
+    if (hosts.isEmpty()) {
+      try (Stream<Path> files = Files.walk(directory)) {
+        return files.filter(file -> file.getFileName().toString().equals(SimulationLog.FILE_NAME))
+            .findFirst()
+            .orElseThrow(() -> new IOException("Injector " + index + " left no " + SimulationLog.FILE_NAME));
+      }
+    }
+    Path log = directory.resolve(SimulationLog.FILE_NAME);
+    Process scp = new ProcessBuilder("scp", "-o", "BatchMode=yes",
+        host(index) + ":" + remoteDir + "/" + remoteResults(index) + "/*/" + SimulationLog.FILE_NAME,
+        log.toString()).inheritIO().start();
+    if (scp.waitFor() != 0) {
+      throw new IOException("Could not fetch the log of injector " + index + " from " + host(index));
+    }
+    return log;
+  }
+
+  private int report() throws IOException, InterruptedException {
+    List<String> command = new ArrayList<>();
+    command.add(javaExecutable());
+    command.addAll(GATLING_JVM_OPTIONS);
+    command.addAll(List.of("-cp", classpath(), "io.gatling.app.Gatling", "-ro", runId, "-rf", results.toString()));
+    return new ProcessBuilder(command).inheritIO().start().waitFor();
+  }
+
+  private String host(int index) {
+    return hosts.get(index % hosts.size());
+  }
+
+  private String remoteResults(int index) {
+    return "target/gatling-injectors/" + runId + "-" + index;
+  }
+
+  private List<String> forwardedProperties() {
+    List<String> properties = new ArrayList<>();
+    for (Map.Entry<Object, Object> property : System.getProperties().entrySet()) {
+      String key = property.getKey().toString();
+      if (FORWARDED.stream().anyMatch(key::startsWith)) {
+        properties.add("-D" + key + "=" + property.getValue());
+      }
+    }
+    if (Targets.MOCK) {
+      properties.add("-DwebappUrl=" + Targets.WEBAPP_URL);
+      properties.add("-DgatewayUrl=" + Targets.GATEWAY_URL);
+    }
+    return properties;
+  }
+
+  private static void relay(int index, Process process) {
+    Thread thread = new Thread(() -> {
+      try (BufferedReader output = new BufferedReader(
+          new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+        String line;
+        while ((line = output.readLine()) != null) {
+          System.out.println("[injector " + index + "] " + line);
+        }
+      } catch (IOException e) {
+        LOGGER.warn("Lost the output of injector {}: {}", index, e.getMessage());
+      }
+    }, "injector-" + index + "-output");
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  private static String javaExecutable() {
+    return Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+  }
+
+  // Under exec:java the test classpath lives in the context class loader, not in java.class.path
+  private static String classpath() {
+    ClassLoader loader = Thread.currentThread().getContextClassLoader();
+    if (loader instanceof URLClassLoader) {
+      List<String> entries = new ArrayList<>();
+      for (URL url : ((URLClassLoader) loader).getURLs()) {
+        try {
+          entries.add(Paths.get(url.toURI()).toString());
+        } catch (URISyntaxException e) {
+          throw new IllegalStateException("Unexpected classpath entry " + url, e);
+        }
+      }
+      if (!entries.isEmpty()) {
+        return String.join(File.pathSeparator, entries);
+      }
+    }
+    return System.getProperty("java.class.path");
+  }
+
+  private static String quote(String value) {
+    return "'" + value.replace("'", "'\\''") + "'";
+  }
+
+  public static void main(String[] args) throws Exception {
+    if (args.length != 1) {
+      System.err.println("Usage: Coordinator <simulation class>");
+      System.exit(1);
+    }
+    int status = new Coordinator(args[0]).run();
+    if (status != 0) {
+      System.exit(status);
+    }
+  }
+}
@@ -0,0 +1,73 @@
+package io.gatling.demo.distributed;
+
+import java.time.Instant;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Identity of this JVM among the injectors of a distributed run, as set by {@link Coordinator}.
+ *
+ * <p>Injector {@code injector.index} of {@code injector.count} sends its {@link #share()} of every arrival rate
+ * (see {@link io.gatling.demo.Load#rate(double)}) and only the users and logged requests it {@link #owns(long)}.
+ * {@link #awaitStart()} holds it until {@code injector.startAt}, so that all injectors start injecting together.
+ * Without these properties the JVM is the only injector and nothing changes.
+ */
+public final class Injector {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(Injector.class);
+
+  public static final int INDEX = Integer.getInteger("injector.index", 0);
+  public static final int COUNT = Integer.getInteger("injector.count", 1);
+  private static final long START_AT = Long.getLong("injector.startAt", 0);
+
+  static {
+    if (COUNT < 1 || INDEX < 0 || INDEX >= COUNT) {
+      throw new IllegalArgumentException("injector.index must be in [0, injector.count): " + INDEX + "/" + COUNT);
+    }
+  }
+
+  private Injector() {
+  }
+
+  public static boolean distributed() {
+    return COUNT > 1;
+  }
+
+  /**
+   * Fraction of the total load this injector sends.
+   */
+  public static double share() {
+    return 1.0 / COUNT;
+  }
+
+  /**
+   * Whether the item with {@code key} (a row number, a user's hash) falls to this injector.
+   */
+  public static boolean owns(long key) {
+    return Math.floorMod(key, COUNT) == INDEX;
+  }
+
+  /**
+   * Sleeps until the coordinated start time. Meant to be called last in {@code Simulation.before()}, once the
+   * slow preparations such as logging the users in are over.
+   */
+  public static void awaitStart() {
+    if (START_AT == 0) {
+      return;
+    }
+    long wait = START_AT - System.currentTimeMillis();
+    if (wait < 0) {
+      LOGGER.warn("Injector {} was ready {} ms after the coordinated start; raise dist.startDelaySeconds", INDEX,
+          -wait);
+      return;
+    }
+    LOGGER.info("Injector {}/{} waiting {} ms for the start at {}", INDEX, COUNT, wait, Instant.ofEpochMilli(START_AT));
+    try {
+      Thread.sleep(wait);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while waiting for the coordinated start", e);
+    }
+  }
+}
@@ -0,0 +1,159 @@
+package io.gatling.demo.distributed;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import io.gatling.demo.stats.LatencyHistogram;
+import io.gatling.demo.stats.SimulationLog;
+import io.gatling.demo.stats.SimulationLogWriter;
+
+/**
+ * Merges the {@code simulation.log}s of several injectors into one that Gatling renders as a single report.
+ *
+ * <p>Records keep their absolute timestamps and are rebased on the earliest run start, so the injectors' timelines
+ * line up as long as their clocks are synchronized. Gatling computes the report's percentiles from the merged
+ * records, not from each injector's percentiles. The merge also prints a per-request summary built from
+ * {@link LatencyHistogram}s that are merged the same way.
+ *
+ * <pre>
+ * mvnw exec:java -Dexec.mainClass=io.gatling.demo.distributed.LogMerge -Dexec.classpathScope=test \
+ *     -Dexec.args="target/gatling/merged injector-0/simulation.log injector-1/simulation.log"
+ * </pre>
+ */
+public final class LogMerge {
+
+  static final class Stats {
+    final LatencyHistogram histogram = new LatencyHistogram();
+    final long[] perInjector;
+    long ko;
+
+    Stats(int injectors) {
+      perInjector = new long[injectors];
+    }
+  }
+
+  private final Map<String, Stats> requests = new LinkedHashMap<>();
+  private final List<Path> logs;
+
+  public LogMerge(List<Path> logs) {
+    if (logs.isEmpty()) {
+      throw new IllegalArgumentException("Nothing to merge");
+    }
+    this.logs = logs;
+  }
+
+  /**
+   * Writes the merged log to {@code directory/simulation.log} and returns its path.
+   */
+  public Path mergeInto(Path directory) throws IOException {
+    List<SimulationLog.Run> runs = new ArrayList<>();
+    for (Path log : logs) {
+      runs.add(SimulationLog.readRun(log));
+    }
+    Files.createDirectories(directory);
+    Path merged = directory.resolve(SimulationLog.FILE_NAME);
+    try (SimulationLogWriter writer = new SimulationLogWriter(merged, mergedRun(runs))) {
+      for (int i = 0; i < logs.size(); i++) {
+        int injector = i;
+        SimulationLog.read(logs.get(i), new SimulationLog.Listener() {
+          @Override
+          public void user(String scenario, boolean start, long timestamp) {
+            writer.user(scenario, start, timestamp);
+          }
+
+          @Override
+          public void request(List<String> groups, String name, long start, long end, boolean ok, String message) {
+            writer.request(groups, name, start, end, ok, message);
+            String path = SimulationLog.path(groups, name);
+            Stats stats = requests.computeIfAbsent(path, key -> new Stats(logs.size()));
+            stats.histogram.record(end - start);
+            stats.perInjector[injector]++;
+            if (!ok) {
+              stats.ko++;
+            }
+          }
+
+          @Override
+          public void group(List<String> groups, long start, long end, int cumulatedResponseTime, boolean ok) {
+            writer.group(groups, start, end, cumulatedResponseTime, ok);
+          }
+
+          @Override
+          public void error(String message, long timestamp) {
+            writer.error(message, timestamp);
+          }
+        });
+      }
+    }
+    return merged;
+  }
+
+  /**
+   * Per-request count, errors and percentiles of the merged logs, with each injector's share of the requests.
+   */
+  public String summary() {
+    StringBuilder out = new StringBuilder();
+    out.append(String.format("%-50s %9s %7s %7s %7s %7s %7s  %s%n", "request", "count", "KO%", "p50", "p95", "p99",
+        "max", "per injector"));
+    LatencyHistogram all = new LatencyHistogram();
+    long allKo = 0;
+    for (Map.Entry<String, Stats> entry : requests.entrySet()) {
+      Stats stats = entry.getValue();
+      all.merge(stats.histogram);
+      allKo += stats.ko;
+      out.append(line(entry.getKey(), stats.histogram, stats.ko)).append("  ");
+      for (long count : stats.perInjector) {
+        out.append(count).append(' ');
+      }
+      out.append(System.lineSeparator());
+    }
+    out.append(line("All requests", all, allKo)).append(System.lineSeparator());
+    return out.toString();
+  }
+
+  private static String line(String name, LatencyHistogram histogram, long ko) {
+    return String.format("%-50s %9d %6.2f%% %7d %7d %7d %7d", name, histogram.count(),
+        histogram.count() == 0 ? 0 : 100.0 * ko / histogram.count(), histogram.percentile(50),
+        histogram.percentile(95), histogram.percentile(99), histogram.max());
+  }
+
+  private static SimulationLog.Run mergedRun(List<SimulationLog.Run> runs) {
+    SimulationLog.Run first = runs.get(0);
+    long start = Long.MAX_VALUE;
+    Set<String> scenarios = new LinkedHashSet<>();
+    for (SimulationLog.Run run : runs) {
+      if (!run.simulationClassName.equals(first.simulationClassName)) {
+        throw new IllegalArgumentException("Cannot merge runs of " + first.simulationClassName + " and "
+            + run.simulationClassName);
+      }
+      start = Math.min(start, run.start);
+      scenarios.addAll(run.scenarios);
+    }
+    return new SimulationLog.Run(first.gatlingVersion, first.simulationClassName, start,
+        "merged from " + runs.size() + " injectors", new ArrayList<>(scenarios), first.assertions);
+  }
+
+  public static void main(String[] args) throws IOException {
+    if (args.length < 2) {
+      System.err.println("Usage: LogMerge <output directory> <simulation.log or run directory>...");
+      System.exit(1);
+    }
+    List<Path> logs = new ArrayList<>();
+    for (int i = 1; i < args.length; i++) {
+      Path path = Paths.get(args[i]);
+      logs.add(Files.isDirectory(path) ? path.resolve(SimulationLog.FILE_NAME) : path);
+    }
+    LogMerge merge = new LogMerge(logs);
+    Path merged = merge.mergeInto(Paths.get(args[0]));
+    System.out.print(merge.summary());
+    System.out.println("Merged log written to " + merged.toAbsolutePath());
+  }
+}
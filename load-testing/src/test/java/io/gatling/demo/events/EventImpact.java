@@ -0,0 +1,194 @@
+package io.gatling.demo.events;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.gatling.demo.stats.RequestStats;
+import io.gatling.demo.stats.SimulationLog;
+
+/**
+ * Response times and errors of a few request series around a {@link ServiceEvent}: how bad they got after it and
+ * how long they took to come back.
+ *
+ * <p>Requests are bucketed into fixed windows by start time, counted from the event, so window 0 starts with it. The
+ * baseline of a series is all its requests before the event. A window breaks the baseline when its p95 is more than
+ * {@code recoveryFactor} times the baseline p95, or its error rate more than {@code maxErrorRise} above the
+ * baseline's. The series has recovered from the end of the last window after the event that breaks it. Windows
+ * with fewer than {@code minSamples} requests are too noisy to judge and are skipped.
+ */
+public final class EventImpact {
+
+  private final long eventAt;
+  private final long windowMillis;
+  private final double recoveryFactor;
+  private final double maxErrorRise;
+  private final int minSamples;
+  private final Map<String, TreeMap<Integer, RequestStats>> series = new LinkedHashMap<>();
+  private final Map<String, RequestStats> baselines = new HashMap<>();
+
+  public EventImpact(long eventAt, long windowMillis, double recoveryFactor, double maxErrorRise, int minSamples) {
+    this.eventAt = eventAt;
+    this.windowMillis = windowMillis;
+    this.recoveryFactor = recoveryFactor;
+    this.maxErrorRise = maxErrorRise;
+    this.minSamples = minSamples;
+  }
+
+  /**
+   * Start of the first user of {@code scenario} in {@code log}, for when the event is injected with it.
+   */
+  public static long firstUser(Path log, String scenario) throws IOException {
+    long[] first = {-1};
+    SimulationLog.read(log, new SimulationLog.Listener() {
+      @Override
+      public void user(String name, boolean start, long timestamp) {
+        if (start && first[0] < 0 && name.equals(scenario)) {
+          first[0] = timestamp;
+        }
+      }
+    });
+    if (first[0] < 0) {
+      throw new IOException(log + " has no " + scenario + " user");
+    }
+    return first[0];
+  }
+
+  public long eventAt() {
+    return eventAt;
+  }
+
+  /**
+   * Adds an empty series, so that series are listed in the order they were tracked rather than seen.
+   */
+  public EventImpact track(String name) {
+    series.computeIfAbsent(name, key -> new TreeMap<>());
+    baselines.computeIfAbsent(name, key -> new RequestStats());
+    return this;
+  }
+
+  public void record(String name, long start, long end, boolean ok) {
+    track(name);
+    int index = (int) Math.floorDiv(start - eventAt, windowMillis);
+    series.get(name).computeIfAbsent(index, key -> new RequestStats()).record(end - start, ok);
+    if (start < eventAt) {
+      baselines.get(name).record(end - start, ok);
+    }
+  }
+
+  public RequestStats baseline(String name) {
+    return baselines.get(name);
+  }
+
+  /**
+   * Worst p95 or p99 of a series over the windows from the event on.
+   */
+  public long peak(String name, int percentile) {
+    return judged(name).values().stream()
+        .mapToLong(window -> window.histogram.percentile(percentile))
+        .max().orElse(0);
+  }
+
+  public double peakErrorRate(String name) {
+    return judged(name).values().stream().mapToDouble(RequestStats::errorRate).max().orElse(0);
+  }
+
+  /**
+   * Highest p95 a window can have without breaking the baseline, or -1 when there is no baseline to compare with.
+   */
+  public long recoveryThreshold(String name) {
+    RequestStats baseline = baselines.get(name);
+    return baseline.count() == 0 ? -1 : Math.round(baseline.histogram.percentile(95) * recoveryFactor);
+  }
+
+  private boolean breaks(String name, RequestStats window) {
+    long threshold = recoveryThreshold(name);
+    return (threshold >= 0 && window.histogram.percentile(95) > threshold)
+        || window.errorRate() > baselines.get(name).errorRate() + maxErrorRise;
+  }
+
+  /**
+   * Milliseconds from the event to the end of the last window that breaks the baseline, 0 if none does, or -1 if
+   * the last window still does.
+   */
+  public long recoveryMillis(String name) {
+    long recovery = 0;
+    boolean recovered = true;
+    for (Map.Entry<Integer, RequestStats> window : judged(name).entrySet()) {
+      recovered = !breaks(name, window.getValue());
+      if (!recovered) {
+        recovery = (window.getKey() + 1) * windowMillis;
+      }
+    }
+    return recovered ? recovery : -1;
+  }
+
+  private Map<Integer, RequestStats> judged(String name) {
+    Map<Integer, RequestStats> judged = new TreeMap<>();
+    series.get(name).tailMap(0).forEach((index, window) -> {
+      if (window.count() >= minSamples) {
+        judged.put(index, window);
+      }
+    });
+    return judged;
+  }
+
+  /**
+   * The windows of every series, then one line of verdict per series.
+   */
+  public void appendText(StringBuilder out) {
+    series.forEach((name, windows) -> {
+      out.append(name).append('\n');
+      out.append(String.format("  %8s %9s %7s %7s %7s %8s%n", "from", "requests", "p50", "p95", "p99", "errors"));
+      windows.forEach((index, window) -> out.append(String.format("  %+7ds %9d %7d %7d %7d %7.2f%%%s%n",
+          index * windowMillis / 1000, window.count(), window.histogram.percentile(50),
+          window.histogram.percentile(95), window.histogram.percentile(99), window.errorRate() * 100,
+          index >= 0 && window.count() >= minSamples && breaks(name, window) ? "  *" : "")));
+      out.append('\n');
+    });
+    out.append(String.format("  %-40s %12s %9s %9s %9s %9s  %s%n", "series", "baseline p95", "errors", "peak p95",
+        "peak p99", "errors", "recovery"));
+    series.keySet().forEach(name -> {
+      RequestStats baseline = baselines.get(name);
+      long recovery = recoveryMillis(name);
+      out.append(String.format("  %-40s %12s %8.2f%% %9d %9d %8.2f%%  %s%n", name,
+          baseline.count() == 0 ? "-" : baseline.histogram.percentile(95), baseline.errorRate() * 100,
+          peak(name, 95), peak(name, 99), peakErrorRate(name) * 100,
+          recovery < 0 ? "NOT RECOVERED" : recovery / 1000 + " s"));
+    });
+  }
+
+  public void writeTo(ObjectNode node) {
+    node.put("eventAt", eventAt);
+    node.put("windowSeconds", windowMillis / 1000);
+    node.put("recoveryFactor", recoveryFactor);
+    node.put("maxErrorRise", maxErrorRise);
+    ObjectNode nodes = node.putObject("series");
+    series.forEach((name, windows) -> {
+      RequestStats baseline = baselines.get(name);
+      ObjectNode seriesNode = nodes.putObject(name);
+      seriesNode.putObject("baseline")
+          .put("requests", baseline.count())
+          .put("p95", baseline.histogram.percentile(95))
+          .put("errorRate", baseline.errorRate());
+      seriesNode.putObject("peak")
+          .put("p95", peak(name, 95))
+          .put("p99", peak(name, 99))
+          .put("errorRate", peakErrorRate(name));
+      seriesNode.put("recoveryMs", recoveryMillis(name));
+      ArrayNode windowNodes = seriesNode.putArray("windows");
+      windows.forEach((index, window) -> windowNodes.addObject()
+          .put("fromSeconds", index * windowMillis / 1000)
+          .put("requests", window.count())
+          .put("p50", window.histogram.percentile(50))
+          .put("p95", window.histogram.percentile(95))
+          .put("p99", window.histogram.percentile(99))
+          .put("errorRate", window.errorRate()));
+    });
+  }
+}
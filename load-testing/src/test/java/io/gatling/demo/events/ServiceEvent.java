@@ -0,0 +1,183 @@
+package io.gatling.demo.events;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Properties;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.gatling.demo.Targets;
+import io.gatling.demo.distributed.Injector;
+
+/**
+ * Something a service does on a schedule, such as a cron job, that a simulation needs to happen under load.
+ *
+ * <p>{@code -D<name>.trigger} says how it is made to happen:
+ * <ul>
+ *   <li>{@code mock} — a {@code POST} to the embedded mock (the default when it runs)</li>
+ *   <li>{@code command} — runs {@code -D<name>.command} through {@code sh -c}, e.g. a {@code docker exec} that calls
+ *   the job</li>
+ *   <li>{@code cron} — nothing is sent: the run is timed so that the service's own cron (or {@code -D<name>.at}, an
+ *   ISO instant) fires when the simulation expects it</li>
+ * </ul>
+ * Only the first {@link Injector} triggers it.
+ */
+public final class ServiceEvent {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ServiceEvent.class);
+
+  // The services' CronJobs are declared in this zone
+  private static final ZoneId CRON_ZONE = ZoneId.of("Europe/Madrid");
+
+  public enum Mode {
+    MOCK,
+    COMMAND,
+    CRON
+  }
+
+  private final String name;
+  private final String mockPath;
+  private final ChronoUnit period;
+  private final Duration offset;
+  private final Mode mode;
+  private volatile long firedAt;
+
+  /**
+   * @param name     prefix of the event's system properties
+   * @param mockPath path the mock gateway triggers the event on
+   * @param period   period of the cron, {@code DAYS} or {@code HOURS}
+   * @param offset   time into each period the cron fires at, e.g. 2 hours for {@code '0 2 * * *'}
+   */
+  public ServiceEvent(String name, String mockPath, ChronoUnit period, Duration offset) {
+    this.name = name;
+    this.mockPath = mockPath;
+    this.period = period;
+    this.offset = offset;
+    this.mode = Mode.valueOf(System.getProperty(name + ".trigger", Targets.MOCK ? "mock" : "cron").toUpperCase());
+  }
+
+  public Mode mode() {
+    return mode;
+  }
+
+  /**
+   * When {@link #fire()} was called, 0 if it was not.
+   */
+  public long firedAt() {
+    return firedAt;
+  }
+
+  /**
+   * In cron mode, sleeps until {@code lead} before the next firing so that the simulation meets it. Meant to be
+   * called last in {@code Simulation.before()}.
+   */
+  public void awaitCron(Duration lead) {
+    if (mode != Mode.CRON) {
+      return;
+    }
+    Instant at = cronInstant();
+    long wait = at.minus(lead).toEpochMilli() - System.currentTimeMillis();
+    if (wait < 0) {
+      throw new IllegalStateException("The " + name + " at " + at + " is less than " + lead.getSeconds()
+          + " s away; pass a later -D" + name + ".at");
+    }
+    LOGGER.info("Waiting {} s for the {} at {}", wait / 1000, name, at);
+    try {
+      Thread.sleep(wait);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while waiting for the " + name, e);
+    }
+  }
+
+  private Instant cronInstant() {
+    String at = System.getProperty(name + ".at");
+    if (at != null) {
+      return Instant.parse(at);
+    }
+    ZonedDateTime now = ZonedDateTime.now(CRON_ZONE);
+    ZonedDateTime next = now.truncatedTo(period).plus(offset);
+    return (next.isAfter(now) ? next : next.plus(1, period)).toInstant();
+  }
+
+  /**
+   * Makes the event happen, off the calling thread so that a slow command does not hold a Gatling event loop. In cron
+   * mode it only records the time.
+   */
+  public void fire() {
+    firedAt = System.currentTimeMillis();
+    if (mode == Mode.CRON || Injector.INDEX != 0) {
+      return;
+    }
+    Thread thread = new Thread(() -> {
+      try {
+        if (mode == Mode.MOCK) {
+          HttpResponse<String> response = HttpClient.newHttpClient().send(
+              HttpRequest.newBuilder(URI.create(Targets.GATEWAY_URL + mockPath))
+                  .POST(HttpRequest.BodyPublishers.noBody())
+                  .build(),
+              HttpResponse.BodyHandlers.ofString());
+          if (response.statusCode() != 200) {
+            LOGGER.error("Mock {} answered {}: {}", name, response.statusCode(), response.body());
+          }
+        } else {
+          String command = System.getProperty(name + ".command");
+          if (command == null) {
+            throw new IllegalStateException("-D" + name + ".trigger=command needs -D" + name + ".command");
+          }
+          int status = new ProcessBuilder("sh", "-c", command).inheritIO().start().waitFor();
+          if (status != 0) {
+            LOGGER.error("The {} command exited with {}: {}", name, status, command);
+          }
+        }
+      } catch (IOException e) {
+        LOGGER.error("Could not trigger the {}", name, e);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }, name + "-trigger");
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  /**
+   * Writes {@code properties}, plus how and when the event was triggered, to {@code file} for the run's report.
+   * Meant to be called from {@code Simulation.after()}.
+   */
+  public void store(Path file, Properties properties) {
+    properties.setProperty(name + ".trigger", mode.name().toLowerCase());
+    properties.setProperty(name + ".firedAt", Long.toString(firedAt));
+    try {
+      Files.createDirectories(file.getParent());
+      try (Writer writer = Files.newBufferedWriter(file)) {
+        properties.store(writer, "The " + name + " of the last run");
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException("Could not write " + file, e);
+    }
+  }
+
+  public static Properties load(Path file) {
+    Properties properties = new Properties();
+    try (Reader reader = Files.newBufferedReader(file)) {
+      properties.load(reader);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Could not read " + file, e);
+    }
+    return properties;
+  }
+}
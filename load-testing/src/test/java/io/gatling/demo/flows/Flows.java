@@ -0,0 +1,251 @@
+package io.gatling.demo.flows;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static io.gatling.javaapi.core.CoreDsl.ElFileBody;
+import static io.gatling.javaapi.core.CoreDsl.RawFileBody;
+import static io.gatling.javaapi.core.CoreDsl.exec;
+import static io.gatling.javaapi.core.CoreDsl.foreach;
+import static io.gatling.javaapi.core.CoreDsl.jsonPath;
+import io.gatling.demo.Targets;
+import io.gatling.demo.auth.Auth;
+import io.gatling.demo.game.GameBot;
+import io.gatling.demo.http.Headers;
+import io.gatling.demo.think.ThinkTimes;
+import io.gatling.demo.upload.ImageSize;
+import io.gatling.javaapi.core.ChainBuilder;
+import static io.gatling.javaapi.http.HttpDsl.ByteArrayBodyPart;
+import static io.gatling.javaapi.http.HttpDsl.http;
+import io.gatling.javaapi.http.HttpRequestActionBuilder;
+
+/**
+ * The user journeys of the simulations, as chains that can be run alone or mixed with each other.
+ *
+ * <p>URLs are absolute, so the chains work under any protocol base URL. Apart from {@link #login()}, which feeds
+ * on {@code #{username}} and {@code #{password}}, they expect an authenticated session: feed the
+ * {@code Population} and {@link Auth#attachToken()} first. The users think between the steps for the time
+ * {@link ThinkTimes} gives each of them.
+ */
+public final class Flows {
+
+  private static final String[] GAME_TYPES = {"classical", "suddenDeath", "timeTrial"};
+
+  // Gatling sets the multipart Content-Type with its own boundary
+  private static final Map<CharSequence, String> UPLOAD = Map.of(
+      "Accept", "application/json, text/plain, */*",
+      "Origin", Targets.WEBAPP_URL,
+      "authorization", Auth.BEARER);
+
+  // About the size of the recorded upload
+  private static final ImageSize PROFILE_IMAGE = ImageSize.parse(System.getProperty("upload.size", "17k"));
+
+  private Flows() {
+  }
+
+  /**
+   * Landing page, login page and sign in, ending on the home page.
+   */
+  public static ChainBuilder login() {
+    return exec(
+        page("initial load", "/",
+            http("options simplellm")
+                .options(Targets.GATEWAY_URL + "/simplellm")
+                .headers(Headers.preflight("POST", "content-type")),
+            http("post simplellm")
+                .post(Targets.GATEWAY_URL + "/simplellm")
+                .headers(Headers.API_JSON)
+                .body(RawFileBody("io/gatling/demo/loginsimulation/0006_request.json"))),
+        ThinkTimes.pause("landing"),
+        page("go to login", "/login"),
+        ThinkTimes.pause("credentials"),
+        http("options login")
+            .options(Targets.GATEWAY_URL + "/login")
+            .headers(Headers.preflight("POST", "content-type"))
+            .resources(
+                http("post login")
+                    .post(Targets.GATEWAY_URL + "/login")
+                    .headers(Headers.API_JSON)
+                    .body(ElFileBody("io/gatling/demo/loginsimulation/0013_request.json"))),
+        page("get home", "/home",
+            http("options simplellm")
+                .options(Targets.GATEWAY_URL + "/simplellm")
+                .headers(Headers.preflight("POST", "content-type")),
+            http("post simplellm")
+                .post(Targets.GATEWAY_URL + "/simplellm")
+                .headers(Headers.API_JSON)
+                .body(ElFileBody("io/gatling/demo/loginsimulation/0020_request.json"))));
+  }
+
+  /**
+   * Game modes page and the question of the day.
+   */
+  public static ChainBuilder questionOfTheDay() {
+    return exec(
+        page("get game-modes", "/game-modes"),
+        ThinkTimes.pause("gameModes"),
+        http("options question-of-the-day")
+            .options(Targets.GATEWAY_URL + "/question-of-the-day")
+            .headers(Headers.preflight("GET", "authorization"))
+            .resources(
+                http("get question-of-the-day")
+                    .get(Targets.GATEWAY_URL + "/question-of-the-day")
+                    .headers(Headers.AUTHORIZED_API)));
+  }
+
+  /**
+   * A full custom game played by {@link GameBot}, right after {@link #login()}.
+   */
+  public static ChainBuilder customGame() {
+    return exec(login(), ThinkTimes.pause("home"))
+        .exec(GameBot.custom().play());
+  }
+
+  /**
+   * A classical game played by {@link GameBot}, right after {@link #login()}.
+   */
+  public static ChainBuilder classicalGame() {
+    return exec(login(), ThinkTimes.pause("home"))
+        .exec(GameBot.classical().play());
+  }
+
+  /**
+   * {@code -Dgame.suddenDeath.games} (default 3) sudden death games in a row, right after {@link #login()}. Most
+   * end within a few questions, so each player records many short games.
+   */
+  public static ChainBuilder suddenDeathGames() {
+    ChainBuilder game = GameBot.suddenDeath().play();
+    return exec(login(), ThinkTimes.pause("home"), game)
+        .repeat(Integer.getInteger("game.suddenDeath.games", 3) - 1).on(
+            exec(ThinkTimes.pause("replay"), game));
+  }
+
+  /**
+   * A time trial played by {@link GameBot}, right after {@link #login()}.
+   */
+  public static ChainBuilder timeTrialGame() {
+    return exec(login(), ThinkTimes.pause("home"))
+        .exec(GameBot.timeTrial().play());
+  }
+
+  /**
+   * Profile page, the default image gallery, and the upload of a custom profile image.
+   */
+  public static ChainBuilder uploadProfileImage() {
+    return exec(
+        profilePage(),
+        ThinkTimes.pause("gallery"),
+        defaultImages(),
+        ThinkTimes.pause("upload"),
+        customImage(PROFILE_IMAGE));
+  }
+
+  /**
+   * Landing page alone: the document, its bundle and stylesheet, and the locale files.
+   */
+  public static ChainBuilder landingPage() {
+    return exec(page("initial load", "/"));
+  }
+
+  /**
+   * Profile page with the user's statistics and current image.
+   */
+  public static ChainBuilder profilePage() {
+    return exec(
+        page("go to profile", "/profile/#{username}",
+            http("options profile")
+                .options(Targets.GATEWAY_URL + "/profile/#{username}")
+                .headers(Headers.preflight("GET", "authorization")),
+            http("get profile")
+                .get(Targets.GATEWAY_URL + "/profile/#{username}")
+                .headers(Headers.AUTHORIZED_API),
+            http("get profile image")
+                .get(Targets.GATEWAY_URL + "/users/#{username}/image?timestamp=#{currentTimeMillis()}")
+                .headers(Headers.IMAGE)));
+  }
+
+  /**
+   * The 16 default images of the profile page's gallery, fetched in parallel.
+   */
+  public static ChainBuilder defaultImages() {
+    List<HttpRequestActionBuilder> gallery = new ArrayList<>();
+    for (int image = 2; image <= 16; image++) {
+      gallery.add(http("get default image " + image)
+          .get(Targets.GATEWAY_URL + "/default-images/image_" + image + ".png")
+          .headers(Headers.IMAGE));
+    }
+    return exec(
+        http("get default image 1")
+            .get(Targets.GATEWAY_URL + "/default-images/image_1.png")
+            .headers(Headers.IMAGE)
+            .resources(gallery));
+  }
+
+  /**
+   * Upload of a generated image of {@code size} as the custom profile image, then the fetch of the new image with the
+   * cache-busting timestamp the profile page takes once the upload is done.
+   */
+  public static ChainBuilder customImage(ImageSize size) {
+    return exec(
+        http("options custom image")
+            .options(Targets.GATEWAY_URL + "/users/#{username}/custom-image")
+            .headers(Headers.preflight("POST", "authorization")),
+        http("post custom image")
+            .post(Targets.GATEWAY_URL + "/users/#{username}/custom-image")
+            .headers(UPLOAD)
+            .bodyPart(ByteArrayBodyPart("image", size.png()).fileName(size.fileName()).contentType("image/png"))
+            .asMultipartForm(),
+        http("get new profile image")
+            .get(Targets.GATEWAY_URL + "/users/#{username}/image?timestamp=#{currentTimeMillis()}")
+            .headers(Headers.IMAGE));
+  }
+
+  /**
+   * Statistics page: the global leaderboard with its players' avatars, then one game type's tab.
+   */
+  public static ChainBuilder leaderboard() {
+    return exec(
+        page("go to statistics", "/statistics"),
+        http("options statistics")
+            .options(Targets.GATEWAY_URL + "/statistics?sort=totalScore&order=desc&limit=10&offset=0")
+            .headers(Headers.preflight("GET", "authorization"))
+            .resources(
+                http("get statistics")
+                    .get(Targets.GATEWAY_URL + "/statistics?sort=totalScore&order=desc&limit=10&offset=0")
+                    .headers(Headers.AUTHORIZED_API)
+                    .check(jsonPath("$.users[*].username").findAll().optional().saveAs("leaders"))))
+        .doIf("#{leaders.exists()}").then(
+            foreach("#{leaders}", "leader").on(
+                exec(http("get leader image")
+                    .get(Targets.GATEWAY_URL + "/users/#{leader}/image")
+                    .headers(Headers.IMAGE))))
+        .exec(ThinkTimes.pause("leaderboardTab"))
+        .exec(session -> session.set("gameType", GAME_TYPES[(int) (Math.random() * GAME_TYPES.length)]))
+        .exec(
+            http("options statistics by game type")
+                .options(Targets.GATEWAY_URL
+                    + "/statistics?sort=totalScore&order=desc&limit=10&offset=0&gameType=#{gameType}")
+                .headers(Headers.preflight("GET", "authorization"))
+                .resources(
+                    http("get statistics by game type")
+                        .get(Targets.GATEWAY_URL
+                            + "/statistics?sort=totalScore&order=desc&limit=10&offset=0&gameType=#{gameType}")
+                        .headers(Headers.AUTHORIZED_API)));
+  }
+
+  /**
+   * A full load of a webapp route, with the locale files the SPA fetches once it starts. The bundle and
+   * stylesheet are inferred from the page.
+   */
+  private static HttpRequestActionBuilder page(String name, String route, HttpRequestActionBuilder... calls) {
+    List<HttpRequestActionBuilder> resources = new ArrayList<>();
+    resources.add(http("get en.json").get(Targets.WEBAPP_URL + "/locales/en.json"));
+    resources.add(http("get en-US.json").get(Targets.WEBAPP_URL + "/locales/en-US.json"));
+    resources.addAll(List.of(calls));
+    return http(name)
+        .get(Targets.WEBAPP_URL + route)
+        .headers(Headers.NAVIGATION)
+        .resources(resources);
+  }
+}
@@ -0,0 +1,91 @@
+package io.gatling.demo.flows;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import io.gatling.demo.Load;
+import io.gatling.demo.auth.Auth;
+import io.gatling.demo.users.Population;
+import io.gatling.javaapi.core.ChainBuilder;
+import static io.gatling.javaapi.core.CoreDsl.constantUsersPerSec;
+import static io.gatling.javaapi.core.CoreDsl.group;
+import static io.gatling.javaapi.core.CoreDsl.scenario;
+import io.gatling.javaapi.core.PopulationBuilder;
+
+/**
+ * The {@link Flows} run side by side at a total arrival rate, split by weight.
+ *
+ * <p>Weights default to roughly the production mix and can be changed with {@code -Dmix.<flow>.weight}, e.g.
+ * {@code -Dmix.leaderboard.weight=30}. {@code -Dmix.<flow>.rate} pins a flow's arrival rate instead. Every flow
+ * runs as its own scenario inside a group named after it, so reports give each flow's response time next to the
+ * per-request ones.
+ */
+public final class Mix {
+
+  /** Flows and their default weights. */
+  private static final Map<String, Double> WEIGHTS = new LinkedHashMap<>();
+
+  static {
+    WEIGHTS.put("questionOfTheDay", 40.0);
+    WEIGHTS.put("login", 25.0);
+    WEIGHTS.put("leaderboard", 15.0);
+    WEIGHTS.put("customGame", 10.0);
+    WEIGHTS.put("uploadProfileImage", 10.0);
+  }
+
+  private Mix() {
+  }
+
+  public static ChainBuilder flow(String name) {
+    switch (name) {
+      case "questionOfTheDay":
+        return Flows.questionOfTheDay();
+      case "login":
+        return Flows.login();
+      case "leaderboard":
+        return Flows.leaderboard();
+      case "customGame":
+        return Flows.customGame();
+      case "uploadProfileImage":
+        return Flows.uploadProfileImage();
+      default:
+        throw new IllegalArgumentException("Unknown flow " + name);
+    }
+  }
+
+  /**
+   * One scenario per flow, together arriving at {@code rate} users/s for {@code duration}.
+   */
+  public static List<PopulationBuilder> populations(double rate, Duration duration) {
+    Map<String, Double> rates = new LinkedHashMap<>();
+    double totalWeight = 0;
+    for (String name : WEIGHTS.keySet()) {
+      totalWeight += weight(name);
+    }
+    for (String name : WEIGHTS.keySet()) {
+      String pinned = System.getProperty("mix." + name + ".rate");
+      rates.put(name, pinned != null ? Double.parseDouble(pinned) : rate * weight(name) / totalWeight);
+    }
+    double totalRate = rates.values().stream().mapToDouble(Double::doubleValue).sum();
+
+    List<PopulationBuilder> populations = new ArrayList<>();
+    rates.forEach((name, flowRate) -> {
+      if (flowRate > 0) {
+        populations.add(scenario(name)
+            .feed(Population.feeder())
+            .exec(Auth.attachToken())
+            .exec(group(name).on(flow(name)))
+            .injectOpen(Load.open(flowRate / totalRate,
+                constantUsersPerSec(Load.rate(flowRate)).during(duration).randomized())));
+      }
+    });
+    return populations;
+  }
+
+  private static double weight(String name) {
+    return Double.parseDouble(System.getProperty("mix." + name + ".weight", WEIGHTS.get(name).toString()));
+  }
+}
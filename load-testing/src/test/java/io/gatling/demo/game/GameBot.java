@@ -0,0 +1,389 @@
+package io.gatling.demo.game;
+
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.gatling.demo.Targets;
+import io.gatling.demo.auth.Auth;
+import io.gatling.demo.http.Headers;
+import io.gatling.demo.think.ThinkTime;
+import io.gatling.demo.think.ThinkTimes;
+import static io.gatling.javaapi.core.CoreDsl.StringBody;
+import static io.gatling.javaapi.core.CoreDsl.exec;
+import static io.gatling.javaapi.core.CoreDsl.jsonPath;
+import io.gatling.javaapi.core.ChainBuilder;
+import io.gatling.javaapi.core.Session;
+import static io.gatling.javaapi.http.HttpDsl.http;
+
+/**
+ * A virtual player for the image quiz that reacts to the questions it is actually served.
+ *
+ * <p>Each round it reads the question id, topic and images from {@code /question/random}, may ask
+ * {@code /askllm} for hints, answers one of the served images through {@code /answer} and scores the
+ * result as the webapp would. At the end it posts the real tally to {@code /recordGame}.
+ *
+ * <p>The game modes differ in their clocks and in how a game ends, as the webapp's strategies do. With a
+ * {@link #questionSeconds(int)} timer, a question not answered in time counts as wrong without an {@code /answer};
+ * with a {@link #gameSeconds(int)} one, the game ends when its clock runs out, the question in play counting as
+ * wrong. {@link #endOnWrongAnswer()} ends the game on the first wrong answer.
+ *
+ * <p>The correct option is never sent to the client, so the bot aims at its target accuracy by guessing the
+ * likely image from the words the topic shares with each image's file name, and deliberately picking another
+ * image otherwise. What counts is the verdict {@code /answer} returns, so the recorded game is always
+ * consistent even when the guess is off.
+ *
+ * <p>Expects {@code #{token}} in the session, see {@link Auth#attachToken()}.
+ */
+public final class GameBot {
+
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+
+  private static final String[] HINT_QUESTIONS = {
+      "give me a hint",
+      "Can you describe it without saying its name?",
+      "Which continent is it from?",
+      "What colours should I look for?"
+  };
+
+  private final String gameType;
+  private final Scoring scoring;
+  private String questionType = "random";
+  private int rounds = 10;
+  private double accuracy = 0.6;
+  private double hintProbability = 0.2;
+  private int maxHints = 3;
+  private ThinkTime answerTime;
+  private String answerStep = "answer";
+  private int questionSeconds;
+  private int gameSeconds;
+  private boolean endOnWrongAnswer;
+
+  private GameBot(String gameType, Scoring scoring) {
+    this.gameType = gameType;
+    this.scoring = scoring;
+  }
+
+  /**
+   * A bot playing the custom game mode, tuned by {@code -Dgame.rounds}, {@code -Dgame.accuracy} and
+   * {@code -Dgame.hintProbability}.
+   */
+  public static GameBot custom() {
+    return new GameBot("custom", Scoring.custom())
+        .rounds(Integer.getInteger("game.rounds", 10))
+        .tuned();
+  }
+
+  /**
+   * A bot playing the classical mode: 10 rounds, 60 seconds per question.
+   */
+  public static GameBot classical() {
+    return new GameBot("classical", Scoring.classical())
+        .rounds(10)
+        .questionSeconds(60)
+        .tuned();
+  }
+
+  /**
+   * A bot playing sudden death: questions of 30 seconds until the first wrong answer.
+   */
+  public static GameBot suddenDeath() {
+    return new GameBot("suddenDeath", Scoring.suddenDeath())
+        .rounds(Integer.MAX_VALUE)
+        .questionSeconds(30)
+        .endOnWrongAnswer()
+        .tuned();
+  }
+
+  /**
+   * A bot playing a time trial: as many questions as it can answer in 2 minutes, each thought over for the
+   * {@code quickAnswer} step of {@link ThinkTimes}.
+   */
+  public static GameBot timeTrial() {
+    return new GameBot("timeTrial", Scoring.timeTrial())
+        .rounds(Integer.MAX_VALUE)
+        .gameSeconds(120)
+        .answerStep("quickAnswer")
+        .tuned();
+  }
+
+  // -Dgame.accuracy and -Dgame.hintProbability apply to every mode
+  private GameBot tuned() {
+    return accuracy(Double.parseDouble(System.getProperty("game.accuracy", "0.6")))
+        .hintProbability(Double.parseDouble(System.getProperty("game.hintProbability", "0.2")));
+  }
+
+  /**
+   * Question type requested each round: {@code random} or one of the question service's types.
+   */
+  public GameBot questionType(String questionType) {
+    this.questionType = questionType;
+    return this;
+  }
+
+  public GameBot rounds(int rounds) {
+    this.rounds = rounds;
+    return this;
+  }
+
+  /**
+   * Share of questions the bot tries to get right, between 0 and 1.
+   */
+  public GameBot accuracy(double accuracy) {
+    this.accuracy = accuracy;
+    return this;
+  }
+
+  /**
+   * Probability of asking for a hint, checked again after each hint up to {@link #maxHints(int)}.
+   */
+  public GameBot hintProbability(double hintProbability) {
+    this.hintProbability = hintProbability;
+    return this;
+  }
+
+  public GameBot maxHints(int maxHints) {
+    this.maxHints = maxHints;
+    return this;
+  }
+
+  /**
+   * Time spent looking at a question before answering, instead of the {@code answer} step of {@link ThinkTimes}.
+   */
+  public GameBot answerTime(ThinkTime answerTime) {
+    this.answerTime = answerTime;
+    return this;
+  }
+
+  /**
+   * Step of {@link ThinkTimes} the time spent looking at a question is drawn from, {@code answer} by default.
+   */
+  public GameBot answerStep(String answerStep) {
+    this.answerStep = answerStep;
+    return this;
+  }
+
+  /**
+   * Time allowed per question, 0 for none.
+   */
+  public GameBot questionSeconds(int questionSeconds) {
+    this.questionSeconds = questionSeconds;
+    return this;
+  }
+
+  /**
+   * Time allowed for the whole game, 0 for none.
+   */
+  public GameBot gameSeconds(int gameSeconds) {
+    this.gameSeconds = gameSeconds;
+    return this;
+  }
+
+  public GameBot endOnWrongAnswer() {
+    this.endOnWrongAnswer = true;
+    return this;
+  }
+
+  /**
+   * One full game: up to {@link #rounds(int)} questions, until the game ends, followed by {@code /recordGame}.
+   */
+  public ChainBuilder play() {
+    return exec(this::newGame)
+        .asLongAs(session -> !gameOver(session), "round").on(ThinkTimes.paced("round", round()))
+        .exec(
+            http("options recordGame")
+                .options(Targets.GATEWAY_URL + "/recordGame")
+                .headers(Headers.preflight("POST", "authorization,content-type"))
+                .resources(
+                    http("post recordGame")
+                        .post(Targets.GATEWAY_URL + "/recordGame")
+                        .headers(Headers.AUTHORIZED_API_JSON)
+                        .body(StringBody(this::gameBody))));
+  }
+
+  /**
+   * One question: fetched, maybe hinted, thought over and answered unless the time is up, then the verdict.
+   */
+  private ChainBuilder round() {
+    return exec(
+        http("options question " + questionType)
+            .options(Targets.GATEWAY_URL + "/question/" + questionType)
+            .headers(Headers.preflight("GET", "authorization"))
+            .resources(
+                http("get question " + questionType)
+                    .get(Targets.GATEWAY_URL + "/question/" + questionType)
+                    .headers(Headers.AUTHORIZED_API)
+                    .check(
+                        jsonPath("$.id").saveAs("questionId"),
+                        jsonPath("$.topic").saveAs("topic"),
+                        jsonPath("$.images[*]").findAll().saveAs("images"))))
+        .exitHereIfFailed()
+        .exec(this::newQuestion)
+        .asLongAs(session -> session.getInt("hints") < maxHints
+            && ThreadLocalRandom.current().nextDouble() < hintProbability).on(
+            exec(
+                http("options askllm")
+                    .options(Targets.GATEWAY_URL + "/askllm")
+                    .headers(Headers.preflight("POST", "content-type"))
+                    .resources(
+                        http("post askllm")
+                            .post(Targets.GATEWAY_URL + "/askllm")
+                            .headers(Headers.API_JSON)
+                            .body(StringBody(this::hintBody))))
+                .exec(session -> session.set("hints", session.getInt("hints") + 1))
+                .exec(ThinkTimes.pause("hint")))
+        .pause(session -> Duration.ofMillis(session.getLong("thinkMillis")))
+        .doIfOrElse(session -> session.getBoolean("timeUp")).then(
+            exec(this::timeUp))
+        .orElse(
+            exec(session -> session.set("answer", pickAnswer(session.getString("topic"),
+                session.getList("images"), accuracy, ThreadLocalRandom.current())))
+                .exec(
+                    http("options answer")
+                        .options(Targets.GATEWAY_URL + "/answer")
+                        .headers(Headers.preflight("POST", "authorization,content-type"))
+                        .resources(
+                            http("post answer")
+                                .post(Targets.GATEWAY_URL + "/answer")
+                                .headers(Headers.AUTHORIZED_API_JSON)
+                                .body(StringBody(session -> MAPPER.createObjectNode()
+                                    .put("questionId", session.getString("questionId"))
+                                    .put("answer", session.getString("answer"))
+                                    .toString()))
+                                .check(jsonPath("$.correct").ofBoolean().saveAs("correct"))))
+                .exec(this::tally))
+        // The webapp shows the verdict for two seconds before asking for the next question, and records a game
+        // that is over right away
+        .doIf(session -> !gameOver(session)).then(
+            ThinkTimes.pause("verdict"));
+  }
+
+  private Session newGame(Session session) {
+    return session
+        .set("score", 0)
+        .set("correctAnswers", 0)
+        .set("incorrectAnswers", 0)
+        .set("streak", 0)
+        .set("ended", false)
+        .set("gameStart", System.currentTimeMillis());
+  }
+
+  private boolean gameOver(Session session) {
+    return session.getBoolean("ended")
+        || session.getInt("correctAnswers") + session.getInt("incorrectAnswers") >= rounds;
+  }
+
+  // Time left on the clock for this question, in ms
+  private long timeLeftMillis(Session session) {
+    if (questionSeconds > 0) {
+      return questionSeconds * 1000L;
+    }
+    if (gameSeconds > 0) {
+      return session.getLong("gameStart") + gameSeconds * 1000L - System.currentTimeMillis();
+    }
+    return Long.MAX_VALUE;
+  }
+
+  private Session newQuestion(Session session) {
+    long answerMillis = answerTime == null ? ThinkTimes.sampleMillis(answerStep) : ThinkTimes.sampleMillis(answerTime);
+    long timeLeft = timeLeftMillis(session);
+    boolean timeUp = answerMillis >= timeLeft;
+    return session
+        .set("hints", 0)
+        .set("timeUp", timeUp)
+        .set("thinkMillis", timeUp ? Math.max(0, timeLeft) : answerMillis)
+        .set("answerSeconds", (int) Math.round(answerMillis / 1000.0))
+        .remove("correct");
+  }
+
+  // Out of time: the webapp counts the question as wrong, and a game clock running out ends the game
+  private Session timeUp(Session session) {
+    return session
+        .set("streak", 0)
+        .set("incorrectAnswers", session.getInt("incorrectAnswers") + 1)
+        .set("ended", endOnWrongAnswer || gameSeconds > 0);
+  }
+
+  private Session tally(Session session) {
+    boolean correct = session.contains("correct") && session.getBoolean("correct");
+    int streak = session.getInt("streak");
+    long elapsedMillis = System.currentTimeMillis() - session.getLong("gameStart");
+    // A game clock scores the time since the game started, a question clock the time spent on the question
+    int secondsTaken = gameSeconds > 0 ? (int) (elapsedMillis / 1000) : session.getInt("answerSeconds");
+    int points = scoring.score(correct, secondsTaken, session.getInt("hints"), streak, session.getInt("round") + 1);
+    String counter = correct ? "correctAnswers" : "incorrectAnswers";
+    return session
+        .set("score", session.getInt("score") + points)
+        .set("streak", correct ? streak + 1 : 0)
+        .set(counter, session.getInt(counter) + 1)
+        .set("ended", (!correct && endOnWrongAnswer) || (gameSeconds > 0 && elapsedMillis >= gameSeconds * 1000L));
+  }
+
+  private String hintBody(Session session) {
+    return MAPPER.createObjectNode()
+        .put("gameQuestion", "Which of the following images corresponds to the " + session.getString("topic") + "?")
+        .put("userQuestion", HINT_QUESTIONS[ThreadLocalRandom.current().nextInt(HINT_QUESTIONS.length)])
+        .toString();
+  }
+
+  private String gameBody(Session session) {
+    int correct = session.getInt("correctAnswers");
+    int incorrect = session.getInt("incorrectAnswers");
+    return MAPPER.createObjectNode()
+        .put("questionsAnswered", correct + incorrect)
+        .put("correctAnswers", correct)
+        .put("incorrectAnswers", incorrect)
+        .put("score", session.getInt("score"))
+        .put("gameType", gameType)
+        .put("registrationDate", session.getLong("gameStart"))
+        .put("endDate", System.currentTimeMillis())
+        .toString();
+  }
+
+  /**
+   * Picks the image most likely to be right with probability {@code accuracy}, another one otherwise.
+   */
+  public static String pickAnswer(String topic, List<String> images, double accuracy, Random random) {
+    String likely = likelyCorrect(topic, images);
+    if (random.nextDouble() < accuracy) {
+      return likely;
+    }
+    List<String> others = new ArrayList<>(images);
+    others.remove(likely);
+    return others.isEmpty() ? likely : others.get(random.nextInt(others.size()));
+  }
+
+  // Images are Wikimedia FilePath URLs whose file name usually carries the topic ("Flag of Grenada.svg")
+  private static String likelyCorrect(String topic, List<String> images) {
+    Set<String> topicWords = words(topic);
+    String best = images.get(0);
+    int bestOverlap = -1;
+    for (String image : images) {
+      String fileName = URLDecoder.decode(image.substring(image.lastIndexOf('/') + 1), StandardCharsets.UTF_8);
+      Set<String> overlap = words(fileName);
+      overlap.retainAll(topicWords);
+      if (overlap.size() > bestOverlap) {
+        best = image;
+        bestOverlap = overlap.size();
+      }
+    }
+    return best;
+  }
+
+  private static Set<String> words(String text) {
+    Set<String> words = new HashSet<>();
+    for (String word : text.toLowerCase().split("[^\\p{L}\\p{N}]+")) {
+      if (!word.isEmpty()) {
+        words.add(word);
+      }
+    }
+    return words;
+  }
+}
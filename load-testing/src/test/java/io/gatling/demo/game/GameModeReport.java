@@ -0,0 +1,269 @@
+package io.gatling.demo.game;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.gatling.demo.capacity.CapacityReport;
+import io.gatling.demo.stats.Reports;
+import io.gatling.demo.stats.RequestStats;
+import io.gatling.demo.stats.SimulationLog;
+
+/**
+ * Compares the request rhythm of the game modes, one run of each mode's simulation, and what it means for capacity.
+ *
+ * <p>The arguments are run directories or logs; by default the latest run of each simulation of {@link #SIMULATIONS}
+ * that has one. For each mode it gives the players, their mean session and their games, then the requests each
+ * player sends per minute of play: all of them, the game calls ({@code /question}, {@code /answer}, {@code /askllm}
+ * and {@code /recordGame}, preflights included) and {@code /recordGame} alone, with the p95 of the game calls.
+ *
+ * <p>Players per minute of play is what sizes the stack: {@code -Dgamemodes.callsPerSecond} (default 100), the rate of
+ * game calls the stack sustains, is turned into the concurrent players of each mode it serves. When the run is a
+ * capacity search with a {@code capacity.json} from {@link CapacityReport}, its maximum sustainable arrival rate is
+ * also turned into concurrent players by Little's law, arrival rate times session length. The report is printed and
+ * written to {@value #FILE_NAME} in the results directory, or {@code -Dgamemodes.out}.
+ *
+ * <pre>
+ * mvnw exec:java -Dexec.mainClass=io.gatling.demo.game.GameModeReport -Dexec.classpathScope=test \
+ *     [-Dexec.args="target/gatling/&lt;run1&gt; target/gatling/&lt;run2&gt;"] [-Dgamemodes.callsPerSecond=250]
+ * </pre>
+ */
+public final class GameModeReport {
+
+  public static final String FILE_NAME = "game-modes.json";
+
+  /** Game mode each simulation plays. */
+  public static final Map<String, String> SIMULATIONS = new LinkedHashMap<>();
+
+  /** Game calls, by the path they are named after. */
+  static final String[] CALLS = {"question", "answer", "askllm", "recordGame"};
+
+  static {
+    SIMULATIONS.put("ClassicalGameSimulation", "classical");
+    SIMULATIONS.put("SuddenDeathSimulation", "suddenDeath");
+    SIMULATIONS.put("TimeTrialSimulation", "timeTrial");
+    SIMULATIONS.put("CustomGameSimulation", "custom");
+  }
+
+  /**
+   * The players and requests of one mode's run.
+   */
+  static final class Mode implements SimulationLog.Listener {
+    final Path log;
+    String mode;
+    long started;
+    long ended;
+    long playerMillis;
+    long last = Long.MIN_VALUE;
+    long requests;
+    long gameCalls;
+    final Map<String, RequestStats> calls = new LinkedHashMap<>();
+    Double sustainableRate;
+
+    Mode(Path log) {
+      this.log = log;
+      for (String call : CALLS) {
+        calls.put(call, new RequestStats());
+      }
+    }
+
+    @Override
+    public void user(String scenario, boolean start, long timestamp) {
+      if (start) {
+        started++;
+        playerMillis -= timestamp;
+      } else {
+        ended++;
+        playerMillis += timestamp;
+      }
+      last = Math.max(last, timestamp);
+    }
+
+    @Override
+    public void request(List<String> groups, String name, long start, long end, boolean ok, String message) {
+      requests++;
+      last = Math.max(last, end);
+      String call = call(name);
+      if (call == null) {
+        return;
+      }
+      gameCalls++;
+      if (!name.startsWith("options ")) {
+        calls.get(call).record(end - start, ok);
+      }
+    }
+
+    // Players still playing when the log ends count until then
+    double playerMinutes() {
+      return (playerMillis + (started - ended) * last) / 60_000.0;
+    }
+
+    double sessionSeconds() {
+      return started == 0 ? 0 : playerMinutes() * 60 / started;
+    }
+
+    double perPlayerMinute(long count) {
+      return playerMinutes() == 0 ? 0 : count / playerMinutes();
+    }
+
+    long games() {
+      return calls.get("recordGame").count();
+    }
+
+    long questions() {
+      return calls.get("question").count();
+    }
+
+    /** Concurrent players {@code callsPerSecond} game calls a second serve. */
+    double playersAt(double callsPerSecond) {
+      double perPlayerSecond = perPlayerMinute(gameCalls) / 60;
+      return perPlayerSecond == 0 ? 0 : callsPerSecond / perPlayerSecond;
+    }
+
+    /** Concurrent players at the capacity search's sustainable arrival rate, by Little's law. */
+    Double sustainablePlayers() {
+      return sustainableRate == null ? null : sustainableRate * sessionSeconds();
+    }
+  }
+
+  private final List<Mode> modes = new ArrayList<>();
+  private final double callsPerSecond;
+
+  public GameModeReport(double callsPerSecond) {
+    this.callsPerSecond = callsPerSecond;
+  }
+
+  /**
+   * The game call {@code name} is, such as {@code question} for {@code options question random}, or null.
+   */
+  static String call(String name) {
+    String path = name.substring(name.indexOf(' ') + 1);
+    for (String call : CALLS) {
+      if (path.equals(call) || path.startsWith(call + " ")) {
+        return call;
+      }
+    }
+    return null;
+  }
+
+  public void read(Path log) throws IOException {
+    Mode mode = new Mode(log);
+    SimulationLog.Run run = SimulationLog.read(log, mode);
+    String simulation = run.simulationClassName.substring(run.simulationClassName.lastIndexOf('.') + 1);
+    mode.mode = SIMULATIONS.getOrDefault(simulation, simulation);
+    Path capacity = log.resolveSibling("capacity.json");
+    if (Files.exists(capacity)) {
+      JsonNode rate = new ObjectMapper().readTree(capacity.toFile()).path("endpoints")
+          .path(CapacityReport.ALL_REQUESTS).path("maxSustainableRate");
+      mode.sustainableRate = rate.isNumber() ? rate.asDouble() : null;
+    }
+    modes.add(mode);
+  }
+
+  public String text() {
+    StringBuilder out = new StringBuilder();
+    out.append("Game modes, per player and minute of play\n\n");
+    out.append(String.format("  %-12s %8s %9s %7s %9s %9s %9s %9s %8s %8s %8s%n", "mode", "players", "session s",
+        "games", "questions", "requests", "calls", "records", "p95 q", "p95 a", "p95 rec"));
+    for (Mode mode : modes) {
+      out.append(String.format("  %-12s %8d %9.0f %7.2f %9.2f %9.1f %9.1f %9.2f %8d %8d %8d%n", mode.mode,
+          mode.started, mode.sessionSeconds(), ratio(mode.games(), mode.started), ratio(mode.questions(), mode.games()),
+          mode.perPlayerMinute(mode.requests), mode.perPlayerMinute(mode.gameCalls),
+          mode.perPlayerMinute(mode.games()), p95(mode, "question"), p95(mode, "answer"), p95(mode, "recordGame")));
+    }
+    out.append("\n  games: per player, questions: per game, records: /recordGame calls, p95 in ms\n\n");
+    out.append(String.format("Capacity, in concurrent players%n%n  %-12s %14s %18s %22s%n", "mode",
+        "at " + format(callsPerSecond) + " calls/s", "max arrivals/s", "at max arrivals"));
+    for (Mode mode : modes) {
+      Double players = mode.sustainablePlayers();
+      out.append(String.format("  %-12s %14.0f %18s %22s%n", mode.mode, mode.playersAt(callsPerSecond),
+          mode.sustainableRate == null ? "-" : format(mode.sustainableRate),
+          players == null ? "-" : String.format("%.0f", players)));
+    }
+    return out.toString();
+  }
+
+  private static double ratio(long count, long of) {
+    return of == 0 ? 0 : (double) count / of;
+  }
+
+  private static long p95(Mode mode, String call) {
+    return mode.calls.get(call).histogram.percentile(95);
+  }
+
+  private static String format(double value) {
+    return value == Math.rint(value) ? Long.toString((long) value) : String.format("%.1f", value);
+  }
+
+  public ObjectNode json() {
+    ObjectNode root = new ObjectMapper().createObjectNode();
+    root.put("callsPerSecond", callsPerSecond);
+    ArrayNode array = root.putArray("modes");
+    for (Mode mode : modes) {
+      ObjectNode node = array.addObject()
+          .put("mode", mode.mode)
+          .put("log", mode.log.toString())
+          .put("players", mode.started)
+          .put("sessionSeconds", mode.sessionSeconds())
+          .put("games", mode.games())
+          .put("questions", mode.questions())
+          .put("requestsPerPlayerMinute", mode.perPlayerMinute(mode.requests))
+          .put("gameCallsPerPlayerMinute", mode.perPlayerMinute(mode.gameCalls))
+          .put("recordGamesPerPlayerMinute", mode.perPlayerMinute(mode.games()))
+          .put("playersAtCallsPerSecond", mode.playersAt(callsPerSecond));
+      if (mode.sustainableRate != null) {
+        node.put("maxSustainableRate", mode.sustainableRate);
+        node.put("playersAtMaxSustainableRate", mode.sustainablePlayers());
+      }
+      ObjectNode calls = node.putObject("calls");
+      mode.calls.forEach((call, stats) -> calls.putObject(call)
+          .put("count", stats.count())
+          .put("p50", stats.histogram.percentile(50))
+          .put("p95", stats.histogram.percentile(95))
+          .put("p99", stats.histogram.percentile(99))
+          .put("errorRate", stats.errorRate()));
+    }
+    return root;
+  }
+
+  private static List<Path> inputs(String[] args) throws IOException {
+    List<Path> logs = new ArrayList<>();
+    if (args.length == 0) {
+      for (String simulation : SIMULATIONS.keySet()) {
+        Path run = SimulationLog.latestRun(simulation);
+        if (run != null) {
+          logs.add(run.resolve(SimulationLog.FILE_NAME));
+        }
+      }
+      if (logs.isEmpty()) {
+        throw new IOException("No run of " + SIMULATIONS.keySet() + " in "
+            + SimulationLog.resultsDirectory().toAbsolutePath());
+      }
+    }
+    for (String arg : args) {
+      Path path = Paths.get(arg);
+      logs.add(Files.isDirectory(path) ? path.resolve(SimulationLog.FILE_NAME) : path);
+    }
+    return logs;
+  }
+
+  public static void main(String[] args) throws IOException {
+    GameModeReport report = new GameModeReport(
+        Double.parseDouble(System.getProperty("gamemodes.callsPerSecond", "100")));
+    for (Path log : inputs(args)) {
+      report.read(log);
+    }
+    Path json = Paths.get(System.getProperty("gamemodes.out",
+        SimulationLog.resultsDirectory().resolve(FILE_NAME).toString()));
+    Reports.write(json, report.text(), report.json());
+  }
+}
@@ -0,0 +1,69 @@
+package io.gatling.demo.game;
+
+/**
+ * Points a game mode awards for one answered question, mirroring the {@code calculateScore} of the
+ * webapp's game mode strategies.
+ */
+@FunctionalInterface
+public interface Scoring {
+
+  /**
+   * @param correct        whether {@code /answer} said the answer was right
+   * @param secondsTaken   time off the mode's clock: spent on the question, or since the game started for a
+   *                       clock that runs for the whole game
+   * @param hintsUsed      {@code /askllm} calls made for the question
+   * @param streak         correct answers in a row before this one
+   * @param round          1-based round number
+   */
+  int score(boolean correct, int secondsTaken, int hintsUsed, int streak, int round);
+
+  /**
+   * The custom game mode: a flat 75 points per correct answer.
+   */
+  static Scoring custom() {
+    return (correct, secondsTaken, hintsUsed, streak, round) -> correct ? 75 : 0;
+  }
+
+  /**
+   * The classical mode: 1000 points, less up to 600 for the 60 seconds of the question and 100 per hint, plus a
+   * bonus from the third answer in a row.
+   */
+  static Scoring classical() {
+    return (correct, secondsTaken, hintsUsed, streak, round) -> correct
+        ? points(1000 - secondsTaken * 600.0 / 60 - hintsUsed * 100 + streakBonus(streak))
+        : 0;
+  }
+
+  /**
+   * Sudden death: 1000 points plus 50 a round, less a time penalty over the 30 seconds of the question and a hint
+   * penalty that both grow with the round.
+   */
+  static Scoring suddenDeath() {
+    return (correct, secondsTaken, hintsUsed, streak, round) -> {
+      if (!correct) {
+        return 0;
+      }
+      double roundBonus = (round - 1) * 50;
+      return points(1000 + roundBonus - secondsTaken * (600 + roundBonus) / 30 - hintsUsed * (100 + roundBonus / 3));
+    };
+  }
+
+  /**
+   * The time trial: 1000 points, less up to 600 as the game's 2 minutes run out and 100 per hint, plus a bonus
+   * from the third answer in a row. The webapp never passes the streak of fast answers, so there is no bonus for
+   * them.
+   */
+  static Scoring timeTrial() {
+    return (correct, secondsTaken, hintsUsed, streak, round) -> correct
+        ? points(1000 - secondsTaken * 600.0 / 120 - hintsUsed * 100 + streakBonus(streak))
+        : 0;
+  }
+
+  private static int streakBonus(int streak) {
+    return streak >= 3 ? 50 + (streak - 3) * 15 : 0;
+  }
+
+  private static int points(double score) {
+    return (int) Math.max(0, Math.floor(score));
+  }
+}
@@ -0,0 +1,184 @@
+package io.gatling.demo.har;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * The entries of a HAR 1.2 archive, as exported by the browser's network tab or Gatling's recorder.
+ */
+final class Har {
+
+  /**
+   * One request and its response.
+   */
+  static final class Entry {
+    final int index;
+    final long start;
+    final long end;
+    final String method;
+    final URI url;
+    /** Request headers in recorded order. HTTP/2 pseudo headers are left out. */
+    final Map<String, String> headers;
+    final String requestMimeType;
+    /** Request body as text, or null when it is binary. */
+    final String requestBody;
+    /** Request body as sent on the wire. */
+    final byte[] requestBytes;
+    final int status;
+    final String responseMimeType;
+    final String responseBody;
+
+    Entry(int index, long start, long end, String method, URI url, Map<String, String> headers,
+        String requestMimeType, String requestBody, byte[] requestBytes, int status, String responseMimeType,
+        String responseBody) {
+      this.index = index;
+      this.start = start;
+      this.end = end;
+      this.method = method;
+      this.url = url;
+      this.headers = headers;
+      this.requestMimeType = requestMimeType;
+      this.requestBody = requestBody;
+      this.requestBytes = requestBytes;
+      this.status = status;
+      this.responseMimeType = responseMimeType;
+      this.responseBody = responseBody;
+    }
+
+    /** Value of request header {@code name}, whatever its case, or null. */
+    String header(String name) {
+      for (Map.Entry<String, String> header : headers.entrySet()) {
+        if (header.getKey().equalsIgnoreCase(name)) {
+          return header.getValue();
+        }
+      }
+      return null;
+    }
+
+    String origin() {
+      return origin(url);
+    }
+
+    static String origin(URI url) {
+      return url.getScheme() + "://" + url.getRawAuthority();
+    }
+
+    /** Path and query, as sent on the request line. */
+    String pathAndQuery() {
+      String path = url.getRawPath().isEmpty() ? "/" : url.getRawPath();
+      return url.getRawQuery() == null ? path : path + "?" + url.getRawQuery();
+    }
+
+    /**
+     * Whether the request body is text that variables can be substituted in. Multipart and other binary bodies
+     * are replayed byte for byte.
+     */
+    boolean isTextRequest() {
+      return isText(requestMimeType);
+    }
+
+    boolean isJsonResponse() {
+      return responseBody != null && responseMimeType != null && responseMimeType.contains("json");
+    }
+
+    boolean isHtmlResponse() {
+      return responseBody != null && responseMimeType != null && responseMimeType.contains("html");
+    }
+
+    @Override
+    public String toString() {
+      return method + " " + url;
+    }
+  }
+
+  private Har() {
+  }
+
+  /**
+   * Entries of {@code file} in the order they were sent.
+   */
+  static List<Entry> read(Path file) throws IOException {
+    JsonNode log = new ObjectMapper().readTree(file.toFile()).path("log");
+    if (!log.has("entries")) {
+      throw new IOException(file + " is not a HAR archive: no log.entries");
+    }
+    List<Entry> entries = new ArrayList<>();
+    for (JsonNode entry : log.get("entries")) {
+      entries.add(entry(entry));
+    }
+    entries.sort(Comparator.comparingLong(entry -> entry.start));
+    List<Entry> indexed = new ArrayList<>(entries.size());
+    for (Entry entry : entries) {
+      indexed.add(new Entry(indexed.size(), entry.start, entry.end, entry.method, entry.url, entry.headers,
+          entry.requestMimeType, entry.requestBody, entry.requestBytes, entry.status, entry.responseMimeType,
+          entry.responseBody));
+    }
+    return indexed;
+  }
+
+  private static Entry entry(JsonNode entry) {
+    long start = OffsetDateTime.parse(entry.path("startedDateTime").asText()).toInstant().toEpochMilli();
+    long end = start + Math.max(0, Math.round(entry.path("time").asDouble()));
+    JsonNode request = entry.path("request");
+    Map<String, String> headers = new LinkedHashMap<>();
+    for (JsonNode header : request.path("headers")) {
+      String name = header.path("name").asText();
+      if (!name.startsWith(":")) {
+        headers.put(name, header.path("value").asText());
+      }
+    }
+    JsonNode postData = request.path("postData");
+    String requestMimeType = text(postData, "mimeType");
+    byte[] requestBytes = requestBytes(postData, requestMimeType);
+    JsonNode response = entry.path("response");
+    JsonNode content = response.path("content");
+    return new Entry(-1, start, end, request.path("method").asText(), URI.create(request.path("url").asText()),
+        headers, requestMimeType, requestBytes == null || !isText(requestMimeType) ? null
+            : new String(requestBytes, StandardCharsets.UTF_8), requestBytes, response.path("status").asInt(),
+        text(content, "mimeType"), content(content));
+  }
+
+  // Some tools base64-encode postData like response content. Browsers write binary bodies into the text one
+  // char per byte, which ISO-8859-1 maps back to the original bytes.
+  private static byte[] requestBytes(JsonNode postData, String mimeType) {
+    String text = text(postData, "text");
+    if (text == null) {
+      return null;
+    }
+    if ("base64".equals(text(postData, "encoding"))) {
+      return Base64.getDecoder().decode(text);
+    }
+    boolean bytePerChar = !isText(mimeType) && text.chars().allMatch(c -> c < 256);
+    return text.getBytes(bytePerChar ? StandardCharsets.ISO_8859_1 : StandardCharsets.UTF_8);
+  }
+
+  private static boolean isText(String mimeType) {
+    return mimeType == null || mimeType.startsWith("text/") || mimeType.contains("json") || mimeType.contains("xml")
+        || mimeType.contains("javascript") || mimeType.contains("x-www-form-urlencoded");
+  }
+
+  private static String content(JsonNode content) {
+    String text = text(content, "text");
+    if (text != null && "base64".equals(text(content, "encoding"))) {
+      return new String(Base64.getDecoder().decode(text), StandardCharsets.UTF_8);
+    }
+    return text;
+  }
+
+  private static String text(JsonNode node, String field) {
+    JsonNode value = node.get(field);
+    return value == null || value.isNull() ? null : value.asText();
+  }
+}
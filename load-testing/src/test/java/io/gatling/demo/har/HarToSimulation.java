@@ -0,0 +1,709 @@
+package io.gatling.demo.har;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.gatling.demo.Targets;
+import io.gatling.demo.auth.Auth;
+import io.gatling.demo.http.Headers;
+
+/**
+ * Turns a HAR recording of the webapp into a compact simulation built on {@link io.gatling.demo.http.Protocols}
+ * and {@link Headers}.
+ *
+ * <p>Compared to the recorder's output:
+ * <ul>
+ *   <li>Only requests to the webapp and gateway origins are kept. OCSP checks, CDNs and other foreign hosts are
+ *       dropped, as are the page resources {@code inferHtmlResources()} fetches by itself.</li>
+ *   <li>Headers the protocol already sets, cache validators and browser hints are stripped. What remains is mapped
+ *       onto {@link Headers} and shared {@code headers_N} maps.</li>
+ *   <li>Values a request reuses from an earlier response (tokens, ids, hashed bundle names) are saved with a check
+ *       and referenced as {@code #{variable}}. Credentials come from the {@code Population} feeder, and recorded
+ *       Bearer tokens that no response explains from the token pool.</li>
+ * </ul>
+ *
+ * <pre>
+ * mvnw exec:java -Dexec.mainClass=io.gatling.demo.har.HarToSimulation -Dexec.classpathScope=test \
+ *     -Dexec.args="recording.har QuestionOfTheDaySimulation"
+ * </pre>
+ *
+ * Optional: {@code -Dhar.package} (io.gatling.demo), {@code -Dhar.sources} (src/test/java), {@code -Dhar.resources}
+ * (src/test/resources), {@code -Dhar.webapp} and {@code -Dhar.gateway} (origins, detected by default) and
+ * {@code -Dhar.pauseThresholdMs} (1000, the idle time that starts a new step).
+ */
+public final class HarToSimulation {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(HarToSimulation.class);
+
+  /** Set by the protocol, managed by Gatling, or noise that would pin the simulation to one recording. */
+  private static final Set<String> DROPPED_HEADERS = Set.of("host", "connection", "content-length", "accept-encoding",
+      "accept-language", "user-agent", "priority", "if-none-match", "if-modified-since", "cache-control", "pragma",
+      "referer", "cookie", "te", "dnt");
+
+  private static final Pattern HTML_REFERENCE = Pattern.compile("(src|href)=\"([^\"]+)\"");
+  private static final Pattern HASH = Pattern.compile("[.-][0-9a-f]{8,}(?=\\.)");
+  private static final int MIN_CORRELATED_LENGTH = 8;
+  private static final String WEBAPP_ORIGIN = "\u0000webapp";
+
+  /**
+   * A recorded request as it will be replayed.
+   */
+  static final class Request {
+    final Har.Entry entry;
+    final boolean gateway;
+    String url;
+    /** Text body with variables substituted, or null. */
+    String body;
+    /** Binary body, replayed as recorded. */
+    byte[] rawBody;
+    Map<String, String> headers = new LinkedHashMap<>();
+    final List<String> checks = new ArrayList<>();
+    final Set<String> consumes = new HashSet<>();
+    final Set<String> produces = new HashSet<>();
+
+    Request(Har.Entry entry, boolean gateway) {
+      this.entry = entry;
+      this.gateway = gateway;
+    }
+  }
+
+  /**
+   * A main request, the resources fetched along with it, and the pause before it.
+   */
+  static final class Step {
+    final long pauseSeconds;
+    final List<Request> requests = new ArrayList<>();
+    long end;
+
+    Step(long pauseSeconds) {
+      this.pauseSeconds = pauseSeconds;
+    }
+  }
+
+  /**
+   * A response value later requests might reuse.
+   */
+  private static final class Candidate {
+    final String value;
+    final Request source;
+    final String check;
+    final String name;
+    final String display;
+    String variable;
+
+    Candidate(String value, Request source, String check, String name, String display) {
+      this.value = value;
+      this.source = source;
+      this.check = check;
+      this.name = name;
+      this.display = display;
+    }
+  }
+
+  private final String simulationName;
+  private final String packageName;
+  private final long pauseThresholdMs;
+  private String webappOrigin;
+  private String gatewayOrigin;
+
+  private final List<Request> requests = new ArrayList<>();
+  private final List<Candidate> candidates = new ArrayList<>();
+  private final Map<String, String> substitutions = new HashMap<>();
+  private final Map<String, String> assetNames = new HashMap<>();
+  private final Set<String> variables = new HashSet<>();
+  private final StringBuilder sent = new StringBuilder();
+  private boolean usesCredentials;
+  private boolean usesTokenPool;
+
+  HarToSimulation(String simulationName, String packageName, String webappOrigin, String gatewayOrigin,
+      long pauseThresholdMs) {
+    this.simulationName = simulationName;
+    this.packageName = packageName;
+    this.webappOrigin = webappOrigin;
+    this.gatewayOrigin = gatewayOrigin;
+    this.pauseThresholdMs = pauseThresholdMs;
+  }
+
+  public static void main(String[] args) throws IOException {
+    if (args.length == 0) {
+      throw new IllegalArgumentException("Usage: HarToSimulation <recording.har> [SimulationClassName]");
+    }
+    Path har = Paths.get(args[0]);
+    String simulationName = args.length > 1
+        ? args[1]
+        : className(har.getFileName().toString().replaceAll("\\.har$", ""));
+    HarToSimulation generator = new HarToSimulation(simulationName,
+        System.getProperty("har.package", "io.gatling.demo"), System.getProperty("har.webapp"),
+        System.getProperty("har.gateway"), Long.getLong("har.pauseThresholdMs", 1000));
+    generator.convert(Har.read(har));
+    Path source = generator.writeSources(Paths.get(System.getProperty("har.sources", "src/test/java")),
+        Paths.get(System.getProperty("har.resources", "src/test/resources")));
+    LOGGER.info("Written {}", source.toAbsolutePath());
+  }
+
+  void convert(List<Har.Entry> entries) {
+    detectOrigins(entries);
+    Set<Har.Entry> inferred = inferredResources(entries);
+    Map<String, Integer> foreign = new TreeMap<>();
+    for (Har.Entry entry : entries) {
+      String origin = entry.origin();
+      if (!origin.equals(webappOrigin) && !origin.equals(gatewayOrigin)) {
+        foreign.merge(entry.url.getHost(), 1, Integer::sum);
+      } else if (!inferred.contains(entry)) {
+        correlate(new Request(entry, origin.equals(gatewayOrigin) && !origin.equals(webappOrigin)));
+      }
+    }
+    foreign.forEach((host, count) -> LOGGER.info("Dropped {} request(s) to foreign host {}", count, host));
+    if (!inferred.isEmpty()) {
+      LOGGER.info("Dropped {} page resource(s) inferHtmlResources() fetches by itself", inferred.size());
+    }
+    candidates.stream().filter(candidate -> candidate.variable != null).forEach(candidate -> LOGGER.info(
+        "Correlated #{{}} from {} {}", candidate.variable, candidate.source.entry, candidate.check));
+  }
+
+  /**
+   * The webapp serves the first page, the gateway gets most of the webapp's cross-origin calls.
+   */
+  private void detectOrigins(List<Har.Entry> entries) {
+    if (webappOrigin == null) {
+      webappOrigin = entries.stream().filter(HarToSimulation::isNavigation).findFirst()
+          .orElseThrow(() -> new IllegalArgumentException("No page load in the HAR, set -Dhar.webapp"))
+          .origin();
+    }
+    if (gatewayOrigin == null) {
+      Map<String, Integer> calls = new HashMap<>();
+      for (Har.Entry entry : entries) {
+        if (webappOrigin.equals(entry.header("Origin")) && !entry.origin().equals(webappOrigin)) {
+          calls.merge(entry.origin(), 1, Integer::sum);
+        }
+      }
+      gatewayOrigin = calls.entrySet().stream().max(Map.Entry.comparingByValue()).map(Map.Entry::getKey)
+          .orElse(webappOrigin);
+    }
+    LOGGER.info("Webapp {}, gateway {}", webappOrigin, gatewayOrigin);
+  }
+
+  private static boolean isNavigation(Har.Entry entry) {
+    String accept = entry.header("Accept");
+    return "GET".equals(entry.method)
+        && ("navigate".equals(entry.header("Sec-Fetch-Mode")) || accept != null && accept.startsWith("text/html"));
+  }
+
+  /**
+   * Requests for scripts, stylesheets and images a page references, up to the next page load.
+   */
+  private static Set<Har.Entry> inferredResources(List<Har.Entry> entries) {
+    Set<Har.Entry> inferred = new HashSet<>();
+    Set<URI> referenced = new HashSet<>();
+    for (Har.Entry entry : entries) {
+      if (isNavigation(entry)) {
+        referenced.clear();
+        if (entry.isHtmlResponse()) {
+          Matcher matcher = HTML_REFERENCE.matcher(entry.responseBody);
+          while (matcher.find()) {
+            if (!matcher.group(2).startsWith("data:")) {
+              referenced.add(entry.url.resolve(matcher.group(2)));
+            }
+          }
+        }
+      } else if ("GET".equals(entry.method) && referenced.contains(entry.url)) {
+        inferred.add(entry);
+      }
+    }
+    return inferred;
+  }
+
+  private void correlate(Request request) {
+    Har.Entry entry = request.entry;
+    String surface = surface(entry.pathAndQuery(), entry.requestBody, entry.headers);
+
+    candidates.sort(Comparator.comparingInt((Candidate candidate) -> candidate.value.length()).reversed());
+    for (Candidate candidate : candidates) {
+      if (candidate.source.entry.end > entry.start || !surface.contains(candidate.value)) {
+        continue;
+      }
+      if (candidate.variable == null && !substitutions.containsKey(candidate.value)) {
+        candidate.variable = variable(candidate.name);
+        substitutions.put(candidate.value, "#{" + candidate.variable + "}");
+        candidate.source.checks.add(candidate.check + ".saveAs(\"" + candidate.variable + "\")");
+        candidate.source.produces.add(candidate.variable);
+        if (candidate.display != null) {
+          assetNames.put(candidate.variable, candidate.display);
+        }
+      }
+      if (candidate.variable != null) {
+        request.consumes.add(candidate.variable);
+      }
+    }
+    credentials(entry);
+    String authorization = entry.header("Authorization");
+    if (authorization != null && authorization.startsWith("Bearer ")) {
+      String token = authorization.substring("Bearer ".length());
+      if (!substitutions.containsKey(token)) {
+        substitutions.put(token, "#{token}");
+        variables.add("token");
+        usesTokenPool = true;
+      }
+    }
+
+    request.url = substitute(entry.pathAndQuery());
+    if (entry.isTextRequest()) {
+      request.body = entry.requestBody == null || entry.requestBody.isEmpty() ? null : substitute(entry.requestBody);
+    } else if (entry.requestBytes != null && entry.requestBytes.length > 0) {
+      request.rawBody = entry.requestBytes;
+    }
+    entry.headers.forEach((name, value) -> {
+      String lowerCase = name.toLowerCase();
+      if (!DROPPED_HEADERS.contains(lowerCase) && !lowerCase.startsWith("sec-")
+          && !(lowerCase.equals("accept") && value.equals("*/*"))) {
+        request.headers.put(name, substitute(value));
+      }
+    });
+    requests.add(request);
+
+    sent.append(surface);
+    registerCandidates(request);
+  }
+
+  private static String surface(String url, String body, Map<String, String> headers) {
+    StringBuilder surface = new StringBuilder(url).append('\n');
+    if (body != null) {
+      surface.append(body).append('\n');
+    }
+    headers.values().forEach(value -> surface.append(value).append('\n'));
+    return surface.toString();
+  }
+
+  /**
+   * Login and registration bodies carry the recorded user's credentials, which the feeder replaces.
+   */
+  private void credentials(Har.Entry entry) {
+    if (entry.requestBody == null || entry.requestMimeType == null || !entry.requestMimeType.contains("json")) {
+      return;
+    }
+    try {
+      JsonNode body = new ObjectMapper().readTree(entry.requestBody);
+      if (body.path("username").isTextual() && body.path("password").isTextual()) {
+        substitutions.putIfAbsent(body.get("username").asText(), "#{username}");
+        substitutions.putIfAbsent(body.get("password").asText(), "#{password}");
+        variables.add("username");
+        variables.add("password");
+        usesCredentials = true;
+      }
+    } catch (IOException e) {
+      // Not JSON after all, nothing to replace
+    }
+  }
+
+  private void registerCandidates(Request request) {
+    Har.Entry entry = request.entry;
+    if (entry.isJsonResponse()) {
+      try {
+        walk(request, new ObjectMapper().readTree(entry.responseBody), "$", null, null);
+      } catch (IOException e) {
+        LOGGER.debug("Unparseable JSON response of {}", entry, e);
+      }
+    } else if (entry.isHtmlResponse()) {
+      Matcher matcher = HTML_REFERENCE.matcher(entry.responseBody);
+      while (matcher.find()) {
+        String value = matcher.group(2);
+        if (HASH.matcher(value).find()) {
+          String fileName = value.substring(value.lastIndexOf('/') + 1);
+          String display = HASH.matcher(fileName).replaceAll("");
+          String pattern = matcher.group(1) + "=\"(" + HASH.matcher(Pattern.quote(value))
+              .replaceAll("\\\\E[.-][0-9a-f]+\\\\Q") + ")\"";
+          addCandidate(value, request, "regex(" + literal(pattern) + ")", display, display);
+        }
+      }
+    }
+  }
+
+  private void walk(Request request, JsonNode node, String path, String key, String parentKey) {
+    if (node.isObject()) {
+      node.fields().forEachRemaining(field -> {
+        String name = field.getKey();
+        String child = name.matches("[A-Za-z_$][\\w$]*") ? path + "." + name : path + "['" + name + "']";
+        walk(request, field.getValue(), child, name, key);
+      });
+    } else if (node.isArray()) {
+      // images[1] is an image
+      String element = key != null && key.endsWith("s") ? key.substring(0, key.length() - 1) : key;
+      for (int i = 0; i < node.size(); i++) {
+        walk(request, node.get(i), path + "[" + i + "]", element, parentKey);
+      }
+    } else if (node.isTextual() && node.asText().length() >= MIN_CORRELATED_LENGTH) {
+      String name = key;
+      if (key == null || key.equals("id") || key.equals("_id")) {
+        String[] segments = request.entry.url.getPath().split("/");
+        name = (parentKey != null ? parentKey : segments.length > 1 ? segments[1] : "response") + "Id";
+      }
+      addCandidate(node.asText(), request, "jsonPath(" + literal(path) + ")", name, null);
+    }
+  }
+
+  private void addCandidate(String value, Request source, String check, String name, String display) {
+    // Values the client sent first (echoed usernames, ids it chose) are not correlations
+    if (sent.indexOf(value) < 0 && !substitutions.containsKey(value)) {
+      candidates.add(new Candidate(value, source, check, name, display));
+    }
+  }
+
+  private String variable(String name) {
+    String base = className(name);
+    base = base.isEmpty() ? "value" : Character.toLowerCase(base.charAt(0)) + base.substring(1);
+    String variable = base;
+    for (int i = 2; !variables.add(variable); i++) {
+      variable = base + i;
+    }
+    return variable;
+  }
+
+  private String substitute(String text) {
+    List<String> values = new ArrayList<>(substitutions.keySet());
+    values.sort(Comparator.comparingInt(String::length).reversed());
+    for (String value : values) {
+      text = text.replace(value, substitutions.get(value));
+    }
+    return text;
+  }
+
+  List<Step> steps() {
+    List<Step> steps = new ArrayList<>();
+    Step step = null;
+    Set<String> produced = new HashSet<>();
+    for (Request request : requests) {
+      boolean dependsOnStep = request.consumes.stream().anyMatch(produced::contains);
+      if (step == null || isNavigation(request.entry) || dependsOnStep
+          || request.entry.start - step.end >= pauseThresholdMs) {
+        step = new Step(step == null ? 0 : Math.max(0, Math.round((request.entry.start - step.end) / 1000.0)));
+        steps.add(step);
+        produced.clear();
+      }
+      step.requests.add(request);
+      step.end = Math.max(step.end, request.entry.end);
+      produced.addAll(request.produces);
+    }
+    return steps;
+  }
+
+  String requestName(Request request) {
+    List<String> words = new ArrayList<>();
+    String path = request.url.split("\\?", 2)[0];
+    Matcher variable = Pattern.compile("#\\{(\\w+)}").matcher("");
+    for (String segment : path.split("/")) {
+      if (segment.isEmpty()) {
+        continue;
+      }
+      if (variable.reset(segment).find()) {
+        String asset = assetNames.get(variable.group(1));
+        if (asset != null) {
+          words.add(asset);
+        }
+        continue;
+      }
+      words.add(HASH.matcher(URLDecoder.decode(segment, StandardCharsets.UTF_8)).replaceAll(""));
+    }
+    return request.entry.method.toLowerCase() + " " + (words.isEmpty() ? "index" : String.join(" ", words));
+  }
+
+  /**
+   * Writes the simulation class under {@code sources} and its request bodies under {@code resources}.
+   */
+  Path writeSources(Path sources, Path resources) throws IOException {
+    String bodyDirectory = packageName.replace('.', '/') + "/" + simulationName.toLowerCase();
+    SimulationWriter writer = new SimulationWriter();
+    for (Request request : requests) {
+      if (request.body != null || request.rawBody != null) {
+        String mimeType = request.entry.requestMimeType;
+        String extension = request.body == null || mimeType == null ? "dat"
+            : mimeType.contains("json") ? "json"
+            : "txt";
+        String file = bodyDirectory + "/" + String.format("%04d_request.%s", request.entry.index, extension);
+        Path target = resources.resolve(file);
+        Files.createDirectories(target.getParent());
+        if (request.body != null) {
+          Files.writeString(target, request.body);
+        } else {
+          Files.write(target, request.rawBody);
+        }
+        writer.bodies.put(request, file);
+      }
+    }
+    Path source = sources.resolve(packageName.replace('.', '/')).resolve(simulationName + ".java");
+    Files.createDirectories(source.getParent());
+    Files.writeString(source, writer.write(steps()));
+    return source;
+  }
+
+  /**
+   * Renders the Java source, in the layout of the recorder's simulations.
+   */
+  private final class SimulationWriter {
+    final Map<Request, String> bodies = new HashMap<>();
+    final Set<String> imports = new TreeSet<>(Comparator.comparing(
+        (String name) -> name.replaceFirst("^static ", "")));
+    final Map<Map<String, String>, String> headerFields = new LinkedHashMap<>();
+    final Map<String, Map<String, String>> canonicalLibrary = new LinkedHashMap<>();
+    final boolean gatewayBase = requests.stream().filter(request -> request.gateway).count() * 2 > requests.size();
+
+    SimulationWriter() {
+      Headers.library().forEach((name, headers) -> canonicalLibrary.put(name, canonical(toStrings(headers))));
+    }
+
+    String write(List<Step> steps) {
+      StringBuilder chain = new StringBuilder();
+      for (int i = 0; i < steps.size(); i++) {
+        Step step = steps.get(i);
+        if (i > 0) {
+          chain.append(",\n");
+          if (step.pauseSeconds > 0) {
+            staticImport("io.gatling.javaapi.core.CoreDsl.pause");
+            chain.append("          pause(").append(step.pauseSeconds).append("),\n");
+          }
+        }
+        chain.append(request(step.requests.get(0), 10));
+        if (step.requests.size() > 1) {
+          chain.append("\n              .resources(");
+          for (int j = 1; j < step.requests.size(); j++) {
+            chain.append(j > 1 ? ",\n" : "\n").append(request(step.requests.get(j), 18));
+          }
+          chain.append(")");
+        }
+      }
+
+      StringBuilder body = new StringBuilder();
+      body.append("public class ").append(simulationName).append(" extends Simulation {\n\n");
+      body.append("  private HttpProtocolBuilder httpProtocol = Protocols.browser(")
+          .append(gatewayBase ? "Targets.GATEWAY_URL" : "Targets.WEBAPP_URL").append(");\n\n");
+      headerFields.forEach((headers, field) -> body.append("  private Map<CharSequence, String> ").append(field)
+          .append(" = ").append(headerMap(headers)).append(";\n\n"));
+      body.append("  private ScenarioBuilder scn = scenario(\"").append(simulationName).append("\")\n");
+      if (usesCredentials || usesTokenPool) {
+        demoImport("users.Population");
+        body.append("      .feed(Population.feeder())\n");
+      }
+      if (usesTokenPool) {
+        demoImport("auth.Auth");
+        body.append("      .exec(Auth.attachToken())\n");
+      }
+      body.append("      .exec(\n").append(chain).append(");\n\n");
+      body.append("  @Override\n  public void before() {\n    Targets.before();\n");
+      if (usesTokenPool) {
+        body.append("    Population.provision();\n");
+      }
+      body.append("    Injector.awaitStart();\n");
+      body.append("  }\n\n  @Override\n  public void after() {\n");
+      if (usesTokenPool) {
+        body.append("    Auth.release();\n");
+      }
+      body.append("    Targets.after();\n  }\n\n");
+      body.append("  {\n    setUp(scn.injectOpen(Load.open(constantUsersPerSec(Load.rate(1)).during(60)")
+          .append(".randomized())))\n")
+          .append("        .protocols(httpProtocol)\n")
+          .append("        .assertions(Slo.assertions(getClass()));\n  }\n}\n");
+
+      demoImport("Load");
+      demoImport("Targets");
+      demoImport("distributed.Injector");
+      demoImport("http.Protocols");
+      demoImport("slo.Slo");
+      staticImport("io.gatling.javaapi.core.CoreDsl.constantUsersPerSec");
+      staticImport("io.gatling.javaapi.core.CoreDsl.scenario");
+      imports.add("io.gatling.javaapi.core.ScenarioBuilder");
+      imports.add("io.gatling.javaapi.core.Simulation");
+      staticImport("io.gatling.javaapi.http.HttpDsl.http");
+      imports.add("io.gatling.javaapi.http.HttpProtocolBuilder");
+      if (!headerFields.isEmpty()) {
+        imports.add("java.util.Map");
+      }
+
+      StringBuilder source = new StringBuilder("package ").append(packageName).append(";\n\n");
+      boolean javaImports = false;
+      for (String name : imports) {
+        if (name.startsWith("java.")) {
+          source.append("import ").append(name).append(";\n");
+          javaImports = true;
+        }
+      }
+      if (javaImports) {
+        source.append('\n');
+      }
+      for (String name : imports) {
+        if (!name.startsWith("java.")) {
+          source.append("import ").append(name).append(";\n");
+        }
+      }
+      return source.append('\n').append(body).toString();
+    }
+
+    private String request(Request request, int indent) {
+      String pad = " ".repeat(indent);
+      String callPad = " ".repeat(indent + 4);
+      StringBuilder out = new StringBuilder(pad).append("http(").append(literal(requestName(request))).append(")");
+      String url = request.gateway == gatewayBase ? literal(request.url)
+          : (request.gateway ? "Targets.GATEWAY_URL + " : "Targets.WEBAPP_URL + ") + literal(request.url);
+      String method = request.entry.method;
+      if (Set.of("GET", "POST", "PUT", "PATCH", "DELETE", "OPTIONS", "HEAD").contains(method)) {
+        out.append('\n').append(callPad).append('.').append(method.toLowerCase()).append('(').append(url).append(')');
+      } else {
+        out.append('\n').append(callPad).append(".httpRequest(").append(literal(method)).append(", ").append(url)
+            .append(')');
+      }
+      String headers = headers(request);
+      if (headers != null) {
+        out.append('\n').append(callPad).append(".headers(").append(headers).append(')');
+      }
+      String body = bodies.get(request);
+      if (body != null) {
+        String type = request.body != null && request.body.contains("#{") ? "ElFileBody" : "RawFileBody";
+        staticImport("io.gatling.javaapi.core.CoreDsl." + type);
+        out.append('\n').append(callPad).append(".body(").append(type).append('(').append(literal(body)).append("))");
+      }
+      List<String> checks = new ArrayList<>(request.checks);
+      if (request.entry.status >= 400) {
+        staticImport("io.gatling.javaapi.http.HttpDsl.status");
+        checks.add(0, "status().is(" + request.entry.status + ")");
+      }
+      for (String check : request.checks) {
+        staticImport("io.gatling.javaapi.core.CoreDsl." + check.substring(0, check.indexOf('(')));
+      }
+      if (!checks.isEmpty()) {
+        out.append('\n').append(callPad).append(".check(").append(String.join(", ", checks)).append(')');
+      }
+      return out.toString();
+    }
+
+    private String headers(Request request) {
+      if (request.headers.isEmpty()) {
+        return null;
+      }
+      Map<String, String> canonical = canonical(request.headers);
+      for (Map.Entry<String, Map<String, String>> entry : canonicalLibrary.entrySet()) {
+        if (entry.getValue().equals(canonical)) {
+          demoImport("http.Headers");
+          return "Headers." + entry.getKey();
+        }
+      }
+      if ("OPTIONS".equals(request.entry.method) && canonical.size() == 3
+          && WEBAPP_ORIGIN.equals(canonical.get("origin"))
+          && canonical.containsKey("access-control-request-method")
+          && canonical.containsKey("access-control-request-headers")) {
+        demoImport("http.Headers");
+        return "Headers.preflight(" + literal(canonical.get("access-control-request-method")) + ", "
+            + literal(canonical.get("access-control-request-headers")) + ")";
+      }
+      return headerFields.computeIfAbsent(request.headers, headers -> "headers_" + request.entry.index);
+    }
+
+    private Map<String, String> canonical(Map<String, String> headers) {
+      Map<String, String> canonical = new HashMap<>();
+      headers.forEach((name, value) -> canonical.put(name.toLowerCase(),
+          value.equals(webappOrigin) || value.equals(Targets.WEBAPP_URL) ? WEBAPP_ORIGIN : value));
+      return canonical;
+    }
+
+    private String headerMap(Map<String, String> headers) {
+      if (headers.size() == 1) {
+        Map.Entry<String, String> header = headers.entrySet().iterator().next();
+        return "Map.of(" + literal(header.getKey()) + ", " + headerValue(header.getValue()) + ")";
+      }
+      StringBuilder map = new StringBuilder("Map.ofEntries(");
+      for (Iterator<Map.Entry<String, String>> it = headers.entrySet().iterator(); it.hasNext(); ) {
+        Map.Entry<String, String> header = it.next();
+        map.append("\n      Map.entry(").append(literal(header.getKey())).append(", ")
+            .append(headerValue(header.getValue())).append(it.hasNext() ? ")," : "))");
+      }
+      return map.toString();
+    }
+
+    private String headerValue(String value) {
+      if (value.equals(webappOrigin)) {
+        return "Targets.WEBAPP_URL";
+      }
+      if (value.equals(Auth.BEARER)) {
+        demoImport("auth.Auth");
+        return "Auth.BEARER";
+      }
+      return literal(value);
+    }
+
+    private void staticImport(String name) {
+      imports.add("static " + name);
+    }
+
+    private void demoImport(String name) {
+      if (name.contains(".") || !packageName.equals("io.gatling.demo")) {
+        imports.add("io.gatling.demo." + name);
+      }
+    }
+  }
+
+  private static Map<String, String> toStrings(Map<CharSequence, String> headers) {
+    Map<String, String> strings = new LinkedHashMap<>();
+    headers.forEach((name, value) -> strings.put(name.toString(), value));
+    return strings;
+  }
+
+  static String className(String name) {
+    StringBuilder className = new StringBuilder();
+    for (String word : name.split("[^A-Za-z0-9]+")) {
+      if (!word.isEmpty()) {
+        className.append(Character.toUpperCase(word.charAt(0))).append(word.substring(1));
+      }
+    }
+    return className.toString();
+  }
+
+  static String literal(String value) {
+    StringBuilder literal = new StringBuilder("\"");
+    for (char c : value.toCharArray()) {
+      switch (c) {
+        case '"':
+          literal.append("\\\"");
+          break;
+        case '\\':
+          literal.append("\\\\");
+          break;
+        case '\n':
+          literal.append("\\n");
+          break;
+        case '\r':
+          literal.append("\\r");
+          break;
+        case '\t':
+          literal.append("\\t");
+          break;
+        default:
+          if (c < 0x20) {
+            literal.append(String.format("\\u%04x", (int) c));
+          } else {
+            literal.append(c);
+          }
+      }
+    }
+    return literal.append('"').toString();
+  }
+}
@@ -0,0 +1,215 @@
+package io.gatling.demo.hdr;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import io.gatling.demo.stats.LatencyHistogram;
+
+/**
+ * A {@link LatencyHistogram} in HdrHistogram's V2 compressed encoding, as {@code encodeIntoCompressedByteBuffer}
+ * writes it and {@code decodeFromCompressedByteBuffer} reads it.
+ *
+ * <p>HdrHistogram has no layout with the 64 sub-buckets per power of two of {@link LatencyHistogram}, so a histogram
+ * is written in the layout of 2 significant digits, twice as fine: each of its buckets holds its count at its highest
+ * value, capped by the max. Every bucket of that layout lies within one of {@link LatencyHistogram}, so a histogram
+ * reads back with the same counts and percentiles; only the mean moves to the tops of the buckets. Histograms of
+ * other layouts, such as those of the HdrHistogram library, read back to {@link LatencyHistogram}'s precision.
+ */
+final class HdrEncoding {
+
+  // HdrHistogram's V2 cookies, with the word size bits it sets
+  private static final int ENCODING_COOKIE = 0x1c849303 | 0x10;
+  private static final int COMPRESSED_ENCODING_COOKIE = 0x1c849304 | 0x10;
+  private static final int HEADER_BYTES = 40;
+  private static final int DIGITS = 2;
+  private static final Layout LAYOUT = new Layout(1, DIGITS);
+
+  private HdrEncoding() {
+  }
+
+  /**
+   * HdrHistogram's bucket layout for a lowest discernible value and a number of significant digits.
+   */
+  private static final class Layout {
+    final int unitMagnitude;
+    final int subBucketHalfCountMagnitude;
+    final int subBucketHalfCount;
+    final long subBucketMask;
+    final int leadingZeroCountBase;
+
+    Layout(long lowestDiscernibleValue, int significantDigits) {
+      long largestValueWithSingleUnitResolution = 2 * (long) Math.pow(10, significantDigits);
+      unitMagnitude = 63 - Long.numberOfLeadingZeros(lowestDiscernibleValue);
+      int subBucketCountMagnitude = (int) Math.ceil(Math.log(largestValueWithSingleUnitResolution) / Math.log(2));
+      subBucketHalfCountMagnitude = Math.max(subBucketCountMagnitude, 1) - 1;
+      subBucketHalfCount = 1 << subBucketHalfCountMagnitude;
+      subBucketMask = ((long) subBucketHalfCount * 2 - 1) << unitMagnitude;
+      leadingZeroCountBase = 64 - unitMagnitude - subBucketHalfCountMagnitude - 1;
+    }
+
+    private int bucketIndex(long value) {
+      return leadingZeroCountBase - Long.numberOfLeadingZeros(value | subBucketMask);
+    }
+
+    int index(long value) {
+      int bucketIndex = bucketIndex(value);
+      int subBucketIndex = (int) (value >>> (bucketIndex + unitMagnitude));
+      return ((bucketIndex + 1) << subBucketHalfCountMagnitude) + subBucketIndex - subBucketHalfCount;
+    }
+
+    // Lowest, then highest value of the bucket at index
+    long[] range(int index) {
+      int bucketIndex = (index >> subBucketHalfCountMagnitude) - 1;
+      int subBucketIndex = (index & (subBucketHalfCount - 1)) + subBucketHalfCount;
+      if (bucketIndex < 0) {
+        subBucketIndex -= subBucketHalfCount;
+        bucketIndex = 0;
+      }
+      int shift = bucketIndex + unitMagnitude;
+      return new long[] {(long) subBucketIndex << shift, (((long) subBucketIndex + 1) << shift) - 1};
+    }
+  }
+
+  static byte[] encode(LatencyHistogram histogram) {
+    long[] counts = new long[histogram.count() == 0 ? 0 : LAYOUT.index(histogram.max()) + 1];
+    for (int bucket = 0; bucket < LatencyHistogram.buckets(); bucket++) {
+      if (histogram.countAt(bucket) > 0) {
+        long value = Math.min(histogram.max(), LatencyHistogram.highestEquivalentValue(bucket));
+        counts[LAYOUT.index(value)] += histogram.countAt(bucket);
+      }
+    }
+    ByteBuffer uncompressed = ByteBuffer.allocate(HEADER_BYTES + counts.length * 9);
+    uncompressed.putInt(ENCODING_COOKIE);
+    uncompressed.putInt(0);
+    uncompressed.putInt(0);
+    uncompressed.putInt(DIGITS);
+    uncompressed.putLong(1);
+    uncompressed.putLong(Integer.MAX_VALUE);
+    uncompressed.putDouble(1.0);
+    int index = 0;
+    while (index < counts.length) {
+      long count = counts[index++];
+      int zeros = 0;
+      if (count == 0) {
+        zeros = 1;
+        while (index < counts.length && counts[index] == 0) {
+          zeros++;
+          index++;
+        }
+      }
+      putZigZag(uncompressed, zeros > 1 ? -zeros : count);
+    }
+    uncompressed.putInt(4, uncompressed.position() - HEADER_BYTES);
+
+    ByteBuffer target = ByteBuffer.allocate(8 + uncompressed.position() + uncompressed.position() / 100 + 64);
+    target.putInt(COMPRESSED_ENCODING_COOKIE);
+    target.putInt(0);
+    Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+    try {
+      deflater.setInput(uncompressed.array(), 0, uncompressed.position());
+      deflater.finish();
+      int length = deflater.deflate(target.array(), 8, target.capacity() - 8);
+      if (!deflater.finished()) {
+        throw new IllegalStateException("Compressed histogram larger than its buffer");
+      }
+      target.putInt(4, length);
+      return Arrays.copyOf(target.array(), 8 + length);
+    } finally {
+      deflater.end();
+    }
+  }
+
+  /**
+   * Reads a histogram in HdrHistogram's V2 compressed encoding, each count at the highest value of its bucket. That of
+   * the highest bucket is capped by {@code max}, the max of its interval, when the max lies within it: logs written
+   * with another value unit ratio than 1 have their max in other units.
+   */
+  static LatencyHistogram decode(byte[] bytes, long max) throws DataFormatException {
+    ByteBuffer compressed = ByteBuffer.wrap(bytes);
+    if ((compressed.getInt() & ~0xf0) != (COMPRESSED_ENCODING_COOKIE & ~0xf0)) {
+      throw new DataFormatException("Not an HdrHistogram V2 compressed histogram");
+    }
+    int length = compressed.getInt();
+    Inflater inflater = new Inflater();
+    try {
+      inflater.setInput(bytes, 8, length);
+      byte[] header = new byte[HEADER_BYTES];
+      if (inflater.inflate(header) < HEADER_BYTES) {
+        throw new DataFormatException("Truncated HdrHistogram header");
+      }
+      ByteBuffer fields = ByteBuffer.wrap(header);
+      if ((fields.getInt() & ~0xf0) != (ENCODING_COOKIE & ~0xf0)) {
+        throw new DataFormatException("Not an HdrHistogram V2 encoding");
+      }
+      int payloadLength = fields.getInt();
+      if (fields.getInt() != 0) {
+        throw new DataFormatException("Shifted (normalized) histograms are not supported");
+      }
+      int digits = fields.getInt();
+      long lowest = fields.getLong();
+      if (digits < 0 || digits > 5 || lowest < 1) {
+        throw new DataFormatException("Unsupported layout of " + digits + " digits from " + lowest);
+      }
+      Layout layout = new Layout(lowest, digits);
+      byte[] payload = new byte[payloadLength];
+      inflater.inflate(payload);
+      ByteBuffer counts = ByteBuffer.wrap(payload);
+      List<long[]> buckets = new ArrayList<>();
+      int index = 0;
+      while (counts.hasRemaining()) {
+        long count = getZigZag(counts);
+        if (count < 0) {
+          index += (int) -count;
+        } else {
+          if (count > 0) {
+            buckets.add(new long[] {index, count});
+          }
+          index++;
+        }
+      }
+      LatencyHistogram histogram = new LatencyHistogram();
+      for (int i = 0; i < buckets.size(); i++) {
+        long[] range = layout.range((int) buckets.get(i)[0]);
+        boolean capped = i == buckets.size() - 1 && max >= range[0] && max <= range[1];
+        histogram.record(capped ? max : range[1], buckets.get(i)[1]);
+      }
+      return histogram;
+    } catch (BufferUnderflowException e) {
+      throw new DataFormatException("Truncated HdrHistogram counts");
+    } finally {
+      inflater.end();
+    }
+  }
+
+  // LEB128 of the ZigZag value, at most 9 bytes, as HdrHistogram's ZigZagEncoding
+  private static void putZigZag(ByteBuffer buffer, long value) {
+    long zigZag = (value << 1) ^ (value >> 63);
+    for (int shift = 0; shift < 56; shift += 7) {
+      if (zigZag >>> (shift + 7) == 0) {
+        buffer.put((byte) (zigZag >>> shift));
+        return;
+      }
+      buffer.put((byte) ((zigZag >>> shift) & 0x7f | 0x80));
+    }
+    buffer.put((byte) (zigZag >>> 56));
+  }
+
+  private static long getZigZag(ByteBuffer buffer) {
+    long value = 0;
+    for (int shift = 0; shift < 56; shift += 7) {
+      long b = buffer.get();
+      value |= (b & 0x7f) << shift;
+      if ((b & 0x80) == 0) {
+        return (value >>> 1) ^ -(value & 1);
+      }
+    }
+    value |= ((long) buffer.get()) << 56;
+    return (value >>> 1) ^ -(value & 1);
+  }
+}
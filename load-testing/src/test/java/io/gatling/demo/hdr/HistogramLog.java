@@ -0,0 +1,134 @@
+package io.gatling.demo.hdr;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Base64;
+import java.util.Date;
+import java.util.Locale;
+import java.util.function.Consumer;
+import java.util.zip.DataFormatException;
+
+import io.gatling.demo.stats.LatencyHistogram;
+
+/**
+ * HdrHistogram's interval log format, version 1.3, as its {@code HistogramLogWriter} writes it and
+ * {@code HistogramLogReader}, {@code HistogramLogProcessor} and the HdrHistogram plotters read it.
+ *
+ * <p>Each line after the header is an interval: its optional tag, its start in seconds from the log's base time, its
+ * length, its max and its {@link LatencyHistogram} in the V2 compressed encoding ({@link HdrEncoding}), in base64. The
+ * values are milliseconds, and so is the max column: the HdrHistogram tools take {@code -outputValueUnitRatio 1} to
+ * print them as they are. A tag is a request name, with the spaces and commas the format cannot hold percent-encoded
+ * ({@code post%20answer}); the untagged intervals hold every request.
+ */
+public final class HistogramLog {
+
+  public static final String VERSION = "1.3";
+  public static final String LEGEND =
+      "\"StartTimestamp\",\"Interval_Length\",\"Interval_Max\",\"Interval_Compressed_Histogram\"";
+
+  /**
+   * One interval of a log, its start in milliseconds since the epoch.
+   */
+  public static final class Interval {
+    public final String tag;
+    public final long startMillis;
+    public final long lengthMillis;
+    public final LatencyHistogram histogram;
+
+    Interval(String tag, long startMillis, long lengthMillis, LatencyHistogram histogram) {
+      this.tag = tag;
+      this.startMillis = startMillis;
+      this.lengthMillis = lengthMillis;
+      this.histogram = histogram;
+    }
+  }
+
+  private HistogramLog() {
+  }
+
+  public static void writeHeader(Writer out, String comment, long startMillis) throws IOException {
+    out.write("#[Histogram log format version " + VERSION + "]\n");
+    if (comment != null) {
+      out.write("#[" + comment + "]\n");
+    }
+    out.write(String.format(Locale.US, "#[StartTime: %.3f (seconds since epoch), %s]\n", startMillis / 1000.0,
+        new Date(startMillis)));
+    out.write(String.format(Locale.US, "#[BaseTime: %.3f (seconds since epoch)]\n", startMillis / 1000.0));
+    out.write(LEGEND + "\n");
+  }
+
+  /**
+   * Writes an interval, {@code tag} being null for the untagged ones.
+   */
+  public static void writeInterval(Writer out, long baseMillis, String tag, long startMillis, long lengthMillis,
+      LatencyHistogram histogram) throws IOException {
+    if (tag != null) {
+      out.write("Tag=" + encodeTag(tag) + ",");
+    }
+    out.write(String.format(Locale.US, "%.3f,%.3f,%.3f,%s\n", (startMillis - baseMillis) / 1000.0,
+        lengthMillis / 1000.0, (double) histogram.max(), Base64.getEncoder()
+            .encodeToString(HdrEncoding.encode(histogram))));
+  }
+
+  static String encodeTag(String tag) {
+    return tag.replace("%", "%25").replace(" ", "%20").replace(",", "%2C");
+  }
+
+  static String decodeTag(String tag) {
+    return URLDecoder.decode(tag.replace("+", "%2B"), StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Passes every interval of a log to {@code consumer} in turn, its timestamps made absolute with its base time, or
+   * taken as absolute when the log has none and they are too large to be relative, as HdrHistogram's reader does.
+   */
+  public static void read(Path file, Consumer<Interval> consumer) throws IOException {
+    double baseSeconds = 0;
+    double startSeconds = 0;
+    boolean hasBase = false;
+    try (BufferedReader reader = Files.newBufferedReader(file)) {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        if (line.startsWith("#[StartTime: ")) {
+          startSeconds = Double.parseDouble(line.substring(13).split(" ")[0]);
+          continue;
+        }
+        if (line.startsWith("#[BaseTime: ")) {
+          baseSeconds = Double.parseDouble(line.substring(12).split(" ")[0]);
+          hasBase = true;
+          continue;
+        }
+        if (line.isBlank() || line.startsWith("#") || line.startsWith("\"StartTimestamp\"")) {
+          continue;
+        }
+        String tag = null;
+        if (line.startsWith("Tag=")) {
+          int comma = line.indexOf(',');
+          tag = decodeTag(line.substring(4, comma));
+          line = line.substring(comma + 1);
+        }
+        String[] fields = line.split(",");
+        if (fields.length < 4) {
+          throw new IOException("Not an interval line of " + file + ": " + line);
+        }
+        double start = Double.parseDouble(fields[0]);
+        // Without a base time, timestamps over a year are absolute, smaller ones relative to the start time
+        double base = hasBase ? baseSeconds : start > 365 * 24 * 3600 ? 0 : startSeconds;
+        LatencyHistogram histogram;
+        try {
+          histogram = HdrEncoding.decode(Base64.getDecoder().decode(fields[3].trim()),
+              (long) Math.ceil(Double.parseDouble(fields[2])));
+        } catch (DataFormatException | IllegalArgumentException e) {
+          throw new IOException("Unreadable histogram in " + file + ": " + e.getMessage(), e);
+        }
+        consumer.accept(new Interval(tag, Math.round((base + start) * 1000),
+            Math.round(Double.parseDouble(fields[1]) * 1000), histogram));
+      }
+    }
+  }
+}
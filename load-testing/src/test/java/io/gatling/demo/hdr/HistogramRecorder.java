@@ -0,0 +1,214 @@
+package io.gatling.demo.hdr;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.gatling.demo.stats.LatencyHistogram;
+import io.gatling.demo.stats.SimulationLog;
+
+/**
+ * Records a {@link LatencyHistogram} per request name, named by its group path, and per window of
+ * {@code -Dhdr.windowSeconds} (default 10) of completion time, plus an untagged one of every request, into
+ * {@value #FILE_NAME} in the run directory as a {@link HistogramLog}.
+ *
+ * <p>During a run, {@link #start()} follows {@code simulation.log} from a thread of its own as Gatling writes it, so
+ * the injector's threads do nothing more than they already do. A window is written once the log is a window past its
+ * end, so a run that dies keeps the windows it completed; a request completing later than that counts in the oldest
+ * window still open. Recording a request increments two counters: the histograms, the same as the reports use, are
+ * allocated once per name and recycled from window to window. {@code -Dhdr.enabled=false} records nothing. An earlier
+ * run's log is converted with:
+ *
+ * <pre>
+ * mvnw exec:java -Dexec.mainClass=io.gatling.demo.hdr.HistogramRecorder -Dexec.classpathScope=test \
+ *     [-Dexec.args=target/gatling/&lt;run&gt;]
+ * </pre>
+ */
+public final class HistogramRecorder implements SimulationLog.Listener, AutoCloseable {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(HistogramRecorder.class);
+
+  public static final String FILE_NAME = "latency.hlog";
+
+  private static final long POLL_MILLIS = 200;
+
+  private static ExecutorService executor;
+  private static volatile boolean stopping;
+
+  private static final class Window {
+    final Map<String, LatencyHistogram> requests = new TreeMap<>();
+    LatencyHistogram all;
+  }
+
+  private final Writer out;
+  private final long windowMillis;
+  private final TreeMap<Long, Window> open = new TreeMap<>();
+  private final ArrayDeque<LatencyHistogram> free = new ArrayDeque<>();
+  private final ArrayDeque<Window> freeWindows = new ArrayDeque<>();
+  private long base = -1;
+  private long latestEnd;
+  private long flushedUntil = Long.MIN_VALUE;
+
+  public HistogramRecorder(Writer out, long windowMillis) {
+    this.out = out;
+    this.windowMillis = windowMillis;
+  }
+
+  public static HistogramRecorder fromProperties(Writer out) {
+    return new HistogramRecorder(out, Long.getLong("hdr.windowSeconds", 10) * 1000);
+  }
+
+  @Override
+  public void run(SimulationLog.Run run) {
+    base = run.start;
+    try {
+      HistogramLog.writeHeader(out, run.simulationClassName + ", milliseconds, tagged by request name", base);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  @Override
+  public void request(List<String> groups, String name, long start, long end, boolean ok, String message) {
+    long windowStart = Math.max(flushedUntil, base + Math.floorDiv(end - base, windowMillis) * windowMillis);
+    Window window = open.get(windowStart);
+    if (window == null) {
+      window = freeWindows.isEmpty() ? new Window() : freeWindows.poll();
+      window.all = histogram();
+      open.put(windowStart, window);
+    }
+    String request = SimulationLog.path(groups, name);
+    LatencyHistogram histogram = window.requests.get(request);
+    if (histogram == null) {
+      histogram = histogram();
+      window.requests.put(request, histogram);
+    }
+    histogram.record(end - start);
+    window.all.record(end - start);
+    if (end > latestEnd) {
+      latestEnd = end;
+      flush(latestEnd - windowMillis);
+    }
+  }
+
+  private LatencyHistogram histogram() {
+    return free.isEmpty() ? new LatencyHistogram() : free.poll();
+  }
+
+  // Writes and recycles the windows that ended at or before upTo
+  private void flush(long upTo) {
+    while (!open.isEmpty() && open.firstKey() + windowMillis <= upTo) {
+      Map.Entry<Long, Window> first = open.pollFirstEntry();
+      write(first.getKey(), first.getValue());
+      flushedUntil = first.getKey() + windowMillis;
+    }
+  }
+
+  private void write(long start, Window window) {
+    try {
+      HistogramLog.writeInterval(out, base, null, start, windowMillis, window.all);
+      for (Map.Entry<String, LatencyHistogram> request : window.requests.entrySet()) {
+        HistogramLog.writeInterval(out, base, request.getKey(), start, windowMillis, request.getValue());
+      }
+      out.flush();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    window.all.reset();
+    free.add(window.all);
+    for (LatencyHistogram histogram : window.requests.values()) {
+      histogram.reset();
+      free.add(histogram);
+    }
+    window.requests.clear();
+    freeWindows.add(window);
+  }
+
+  /**
+   * Writes the windows still open and closes the log.
+   */
+  @Override
+  public void close() throws IOException {
+    flush(Long.MAX_VALUE);
+    out.close();
+  }
+
+  public static boolean enabled() {
+    return !"false".equals(System.getProperty("hdr.enabled"));
+  }
+
+  /**
+   * Starts recording the run that is about to begin. Meant to be called from {@code Simulation.before()}.
+   */
+  public static synchronized void start() {
+    if (executor != null || !enabled()) {
+      return;
+    }
+    long startedAt = System.currentTimeMillis();
+    stopping = false;
+    executor = Executors.newSingleThreadExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "hdr-histograms");
+      thread.setDaemon(true);
+      return thread;
+    });
+    executor.execute(() -> record(startedAt));
+  }
+
+  private static void record(long startedAt) {
+    try {
+      Path log = SimulationLog.awaitLog(startedAt, () -> stopping, POLL_MILLIS);
+      if (log == null) {
+        return;
+      }
+      try (HistogramRecorder recorder = fromProperties(Files.newBufferedWriter(log.resolveSibling(FILE_NAME)))) {
+        SimulationLog.follow(log, recorder, () -> stopping, POLL_MILLIS);
+      }
+    } catch (IOException | UncheckedIOException e) {
+      LOGGER.warn("Could not record the latency histograms", e);
+    }
+  }
+
+  /**
+   * Reads the log to its end, writes the last windows and stops. Meant to be called from {@code Simulation.after()}.
+   */
+  public static void stop() {
+    ExecutorService stopped;
+    synchronized (HistogramRecorder.class) {
+      stopped = executor;
+      executor = null;
+    }
+    if (stopped == null) {
+      return;
+    }
+    stopping = true;
+    stopped.shutdown();
+    try {
+      if (!stopped.awaitTermination(30, TimeUnit.SECONDS)) {
+        LOGGER.warn("The latency histograms are still being written");
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  public static void main(String[] args) throws IOException {
+    Path log = SimulationLog.fromArgs(args);
+    Path file = log.resolveSibling(FILE_NAME);
+    try (HistogramRecorder recorder = fromProperties(Files.newBufferedWriter(file))) {
+      SimulationLog.read(log, recorder);
+    }
+    System.out.println("Written to " + file.toAbsolutePath());
+  }
+}
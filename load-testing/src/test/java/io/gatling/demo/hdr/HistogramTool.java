@@ -0,0 +1,214 @@
+package io.gatling.demo.hdr;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import io.gatling.demo.stats.LatencyHistogram;
+import io.gatling.demo.stats.SimulationLog;
+
+/**
+ * Merges {@link HistogramLog}s, of several runs or of the injectors of a distributed run, and prints any percentile
+ * or the whole latency distribution of each request name.
+ *
+ * <p>The arguments are logs or run directories, the latest run's by default. The intervals of every log are added per
+ * tag, those of all requests being reported as {@value #ALL}; {@code -Dhdr.tags} keeps only the given request names,
+ * comma-separated, and {@code -Dhdr.from} and {@code -Dhdr.to} only the intervals starting within those seconds of
+ * their log's first interval, e.g. to leave a ramp-up out. The table gives the count and the
+ * {@code -Dhdr.percentiles} (default {@value #DEFAULT_PERCENTILES}) of each tag. {@code -Dhdr.cdf=true} adds each
+ * tag's percentile distribution in HdrHistogram's {@code .hgrm} format, which its plotter charts as a CDF on a
+ * log scale, and {@code -Dhdr.out=<file>} writes the merged histograms as a log again, one interval per tag.
+ *
+ * <pre>
+ * mvnw exec:java -Dexec.mainClass=io.gatling.demo.hdr.HistogramTool -Dexec.classpathScope=test \
+ *     -Dexec.args="target/gatling/&lt;run1&gt; target/gatling/&lt;run2&gt;" [-Dhdr.tags="post answer"] [-Dhdr.cdf=true]
+ * </pre>
+ */
+public final class HistogramTool {
+
+  public static final String ALL = "all requests";
+  public static final String DEFAULT_PERCENTILES = "50,90,99,99.9,99.99,100";
+
+  private final Map<String, LatencyHistogram> merged = new TreeMap<>();
+  private final Set<String> tags;
+  private final double fromSeconds;
+  private final double toSeconds;
+  private long start = Long.MAX_VALUE;
+  private long end = Long.MIN_VALUE;
+  private int logs;
+  private int intervals;
+
+  public HistogramTool(Set<String> tags, double fromSeconds, double toSeconds) {
+    this.tags = tags;
+    this.fromSeconds = fromSeconds;
+    this.toSeconds = toSeconds;
+  }
+
+  public void read(Path file) throws IOException {
+    long[] first = {Long.MIN_VALUE};
+    HistogramLog.read(file, interval -> {
+      if (first[0] == Long.MIN_VALUE) {
+        first[0] = interval.startMillis;
+      }
+      String tag = interval.tag == null ? ALL : interval.tag;
+      double offset = (interval.startMillis - first[0]) / 1000.0;
+      if ((!tags.isEmpty() && !tags.contains(tag)) || offset < fromSeconds || offset >= toSeconds) {
+        return;
+      }
+      merged.computeIfAbsent(tag, key -> new LatencyHistogram()).merge(interval.histogram);
+      start = Math.min(start, interval.startMillis);
+      end = Math.max(end, interval.startMillis + interval.lengthMillis);
+      intervals++;
+    });
+    logs++;
+  }
+
+  public Map<String, LatencyHistogram> merged() {
+    return merged;
+  }
+
+  public String table(double[] percentiles) {
+    int width = Math.max(7, merged.keySet().stream().mapToInt(String::length).max().orElse(0));
+    StringBuilder out = new StringBuilder();
+    out.append(String.format("Latency of %d intervals from %d logs, in milliseconds%n%n", intervals, logs));
+    out.append(String.format("  %-" + width + "s %10s", "request", "count"));
+    for (double percentile : percentiles) {
+      out.append(String.format(" %9s", label(percentile)));
+    }
+    out.append('\n');
+    merged.forEach((tag, histogram) -> {
+      out.append(String.format("  %-" + width + "s %10d", tag, histogram.count()));
+      for (double percentile : percentiles) {
+        out.append(String.format(" %9d", histogram.percentile(percentile)));
+      }
+      out.append('\n');
+    });
+    return out.toString();
+  }
+
+  private static String label(double percentile) {
+    return percentile == 100 ? "max"
+        : "p" + (percentile == Math.rint(percentile) ? Long.toString((long) percentile) : Double.toString(percentile));
+  }
+
+  /**
+   * The percentile distribution of {@code histogram} as HdrHistogram's {@code outputPercentileDistribution} prints
+   * it with a value unit ratio of 1: a line per level, {@code ticksPerHalfDistance} levels per halving of the
+   * distance to 100%, then one at 100%. Values are those of {@link LatencyHistogram#valueAtRank(long)}.
+   */
+  public static String distribution(LatencyHistogram histogram, int ticksPerHalfDistance) {
+    StringBuilder out = new StringBuilder();
+    out.append(String.format(Locale.US, "%12s %14s %10s %14s%n%n", "Value", "Percentile", "TotalCount",
+        "1/(1-Percentile)"));
+    long total = histogram.count();
+    double level = 0;
+    long seen = 0;
+    for (int bucket = 0; bucket < LatencyHistogram.buckets() && seen < total; bucket++) {
+      if (histogram.countAt(bucket) == 0) {
+        continue;
+      }
+      seen += histogram.countAt(bucket);
+      long value = histogram.valueAtRank(seen);
+      while (100.0 * seen / total >= level && level < 100) {
+        out.append(String.format(Locale.US, "%12.3f %2.12f %10d %14.2f%n", (double) value, level / 100, seen,
+            1 / (1 - level / 100)));
+        long halvings = (long) (Math.log(100 / (100 - level)) / Math.log(2));
+        level += 100.0 / (ticksPerHalfDistance * (long) Math.pow(2, halvings + 1));
+        // The levels approach 100% without end: the last bucket gets one, then the 100% line below
+        if (seen == total) {
+          break;
+        }
+      }
+    }
+    if (total > 0) {
+      out.append(String.format(Locale.US, "%12.3f %2.12f %10d%n", (double) histogram.max(), 1.0, total));
+    }
+    out.append(String.format(Locale.US, "#[Mean    = %12.3f, StdDeviation   = %12.3f]%n", histogram.mean(),
+        standardDeviation(histogram)));
+    out.append(String.format(Locale.US, "#[Max     = %12.3f, Total count    = %12d]%n", (double) histogram.max(),
+        total));
+    return out.toString();
+  }
+
+  // Around the mean, each bucket counted at its middle
+  private static double standardDeviation(LatencyHistogram histogram) {
+    if (histogram.count() == 0) {
+      return 0;
+    }
+    double mean = histogram.mean();
+    double squares = 0;
+    for (int bucket = 0; bucket < LatencyHistogram.buckets(); bucket++) {
+      if (histogram.countAt(bucket) != 0) {
+        double deviation = (LatencyHistogram.lowestEquivalentValue(bucket)
+            + LatencyHistogram.highestEquivalentValue(bucket)) / 2.0 - mean;
+        squares += deviation * deviation * histogram.countAt(bucket);
+      }
+    }
+    return Math.sqrt(squares / histogram.count());
+  }
+
+  /**
+   * Writes the merged histograms as a log of one interval per tag, itself mergeable.
+   */
+  public void write(Path file) throws IOException {
+    try (Writer out = Files.newBufferedWriter(file)) {
+      HistogramLog.writeHeader(out, "Merged from " + logs + " logs, milliseconds, tagged by request name", start);
+      for (Map.Entry<String, LatencyHistogram> tag : merged.entrySet()) {
+        HistogramLog.writeInterval(out, start, tag.getKey().equals(ALL) ? null : tag.getKey(), start, end - start,
+            tag.getValue());
+      }
+    }
+  }
+
+  private static List<Path> inputs(String[] args) throws IOException {
+    List<Path> files = new ArrayList<>();
+    if (args.length == 0) {
+      files.add(SimulationLog.latestRun().resolve(HistogramRecorder.FILE_NAME));
+    }
+    for (String arg : args) {
+      Path path = Paths.get(arg);
+      files.add(Files.isDirectory(path) ? path.resolve(HistogramRecorder.FILE_NAME) : path);
+    }
+    return files;
+  }
+
+  private static List<String> list(String property, String defaultValue) {
+    List<String> values = new ArrayList<>();
+    for (String value : System.getProperty(property, defaultValue).split(",")) {
+      if (!value.isBlank()) {
+        values.add(value.trim());
+      }
+    }
+    return values;
+  }
+
+  public static void main(String[] args) throws IOException {
+    HistogramTool tool = new HistogramTool(new LinkedHashSet<>(list("hdr.tags", "")),
+        Double.parseDouble(System.getProperty("hdr.from", "0")),
+        Double.parseDouble(System.getProperty("hdr.to", "Infinity")));
+    for (Path file : inputs(args)) {
+      tool.read(file);
+    }
+    double[] percentiles = list("hdr.percentiles", DEFAULT_PERCENTILES).stream().mapToDouble(Double::parseDouble)
+        .toArray();
+    System.out.println(tool.table(percentiles));
+    if (Boolean.getBoolean("hdr.cdf")) {
+      tool.merged().forEach((tag, histogram) -> System.out.println("# " + tag + "\n"
+          + distribution(histogram, Integer.getInteger("hdr.ticks", 5))));
+    }
+    String out = System.getProperty("hdr.out");
+    if (out != null) {
+      tool.write(Paths.get(out));
+      System.out.println("Written to " + Paths.get(out).toAbsolutePath());
+    }
+  }
+}
@@ -0,0 +1,65 @@
+package io.gatling.demo.http;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import io.gatling.javaapi.http.HttpProtocolBuilder;
+
+/**
+ * How the virtual users connect to the webapp and the gateway.
+ *
+ * <ul>
+ *   <li>{@code per-user} — HTTP/1.1, each user opening up to 6 connections per host like a browser</li>
+ *   <li>{@code shared} — HTTP/1.1 from one pool shared by all users, like a proxy in front of the services</li>
+ *   <li>{@code http2} — each user multiplexing its requests over one HTTP/2 connection per host. Gatling only speaks
+ *   HTTP/2 over TLS, so the targets have to be {@code https} URLs of an HTTP/2-capable proxy; otherwise it falls back
+ *   to {@code per-user}</li>
+ * </ul>
+ */
+public enum ConnectionStrategy {
+  PER_USER("per-user"),
+  SHARED("shared"),
+  HTTP2("http2");
+
+  public final String label;
+
+  ConnectionStrategy(String label) {
+    this.label = label;
+  }
+
+  public static ConnectionStrategy parse(String label) {
+    for (ConnectionStrategy strategy : values()) {
+      if (strategy.label.equals(label.trim().toLowerCase(Locale.ROOT))) {
+        return strategy;
+      }
+    }
+    throw new IllegalArgumentException("Unknown connection strategy: " + label);
+  }
+
+  public static List<ConnectionStrategy> parseAll(String labels) {
+    List<ConnectionStrategy> strategies = new ArrayList<>();
+    for (String label : labels.split(",")) {
+      if (!label.isBlank()) {
+        strategies.add(parse(label));
+      }
+    }
+    return strategies;
+  }
+
+  HttpProtocolBuilder apply(HttpProtocolBuilder protocol) {
+    switch (this) {
+      case SHARED:
+        return protocol.shareConnections();
+      case HTTP2:
+        return protocol.enableHttp2();
+      default:
+        return protocol.maxConnectionsPerHost(6);
+    }
+  }
+
+  @Override
+  public String toString() {
+    return label;
+  }
+}
@@ -0,0 +1,73 @@
+package io.gatling.demo.http;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import io.gatling.demo.Targets;
+import io.gatling.demo.auth.Auth;
+
+/**
+ * Request headers the webapp sends, on top of those of {@link Protocols#browser(String)}.
+ *
+ * <p>Cache validators ({@code If-None-Match}, {@code If-Modified-Since}) and {@code Priority} hints are left out
+ * on purpose: recorded ETags turn every asset into a 304 and go stale with each deployment.
+ */
+public final class Headers {
+
+  /** Page navigation, e.g. the initial load or a full reload of a route. */
+  public static final Map<CharSequence, String> NAVIGATION = Map.of(
+      "Accept", "text/html,application/xhtml+xml,application/xml;q=0.9,*/*;q=0.8",
+      "Upgrade-Insecure-Requests", "1");
+
+  public static final Map<CharSequence, String> STYLESHEET = Map.of("Accept", "text/css,*/*;q=0.1");
+
+  public static final Map<CharSequence, String> IMAGE = Map.of(
+      "Accept", "image/avif,image/webp,image/png,image/svg+xml,image/*;q=0.8,*/*;q=0.5");
+
+  /** Cross-origin call from the webapp to the gateway through axios. */
+  public static final Map<CharSequence, String> API = Map.of(
+      "Accept", "application/json, text/plain, */*",
+      "Origin", Targets.WEBAPP_URL);
+
+  public static final Map<CharSequence, String> API_JSON = with(API, "Content-Type", "application/json");
+
+  public static final Map<CharSequence, String> AUTHORIZED_API = with(API, "authorization", Auth.BEARER);
+
+  public static final Map<CharSequence, String> AUTHORIZED_API_JSON = with(API_JSON, "authorization", Auth.BEARER);
+
+  private Headers() {
+  }
+
+  /**
+   * CORS preflight the browser sends before a cross-origin {@code method} carrying {@code requestHeaders}
+   * (lower case, comma separated as the browser lists them).
+   */
+  public static Map<CharSequence, String> preflight(String method, String requestHeaders) {
+    return Map.of(
+        "Access-Control-Request-Headers", requestHeaders,
+        "Access-Control-Request-Method", method,
+        "Origin", Targets.WEBAPP_URL);
+  }
+
+  /**
+   * The constants above by field name, for tools that map recorded headers onto them.
+   */
+  public static Map<String, Map<CharSequence, String>> library() {
+    Map<String, Map<CharSequence, String>> library = new LinkedHashMap<>();
+    library.put("NAVIGATION", NAVIGATION);
+    library.put("STYLESHEET", STYLESHEET);
+    library.put("IMAGE", IMAGE);
+    library.put("API", API);
+    library.put("API_JSON", API_JSON);
+    library.put("AUTHORIZED_API", AUTHORIZED_API);
+    library.put("AUTHORIZED_API_JSON", AUTHORIZED_API_JSON);
+    return library;
+  }
+
+  private static Map<CharSequence, String> with(Map<CharSequence, String> headers, String name, String value) {
+    Map<CharSequence, String> copy = new HashMap<>(headers);
+    copy.put(name, value);
+    return Map.copyOf(copy);
+  }
+}
@@ -0,0 +1,40 @@
+package io.gatling.demo.http;
+
+import static io.gatling.javaapi.http.HttpDsl.http;
+import io.gatling.javaapi.http.HttpProtocolBuilder;
+
+/**
+ * HTTP protocol shared by the simulations: the Firefox the scenarios were recorded with, each request signed and its
+ * response recorded by {@link Tracing}.
+ */
+public final class Protocols {
+
+  public static final String USER_AGENT =
+      "Mozilla/5.0 (Windows NT 10.0; Win64; x64; rv:138.0) Gecko/20100101 Firefox/138.0";
+
+  private Protocols() {
+  }
+
+  /**
+   * Browser protocol with relative URLs resolved against {@code baseUrl}. Page resources are fetched like the
+   * browser does.
+   */
+  public static HttpProtocolBuilder browser(String baseUrl) {
+    return http
+        .baseUrl(baseUrl)
+        .inferHtmlResources()
+        .acceptHeader("*/*")
+        .acceptEncodingHeader("gzip, deflate")
+        .acceptLanguageHeader("en-US,en;q=0.5")
+        .userAgentHeader(USER_AGENT)
+        .sign(Tracing::sign)
+        .transformResponse(Tracing::record);
+  }
+
+  /**
+   * {@link #browser(String)} connecting the way {@code strategy} says.
+   */
+  public static HttpProtocolBuilder browser(String baseUrl, ConnectionStrategy strategy) {
+    return strategy.apply(browser(baseUrl));
+  }
+}
@@ -0,0 +1,233 @@
+package io.gatling.demo.http;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.gatling.demo.distributed.Injector;
+import io.gatling.demo.stats.SimulationLog;
+import io.gatling.http.client.Request;
+import io.gatling.http.response.Response;
+import io.gatling.javaapi.core.Session;
+
+/**
+ * Gives every request a unique {@code X-Request-Id} and a W3C {@code traceparent} carrying the same id as its trace
+ * id, so that the gateway's request log can be joined with {@code simulation.log}.
+ *
+ * <p>{@link Protocols} signs each request with {@link #sign(Request, Session)} as it is sent and hands its response
+ * to {@link #record(Response, Session)}. Between {@link #start(Path)} and {@link #stop()}, the id, the start and end
+ * of the request exactly as {@code simulation.log} has them, the request name, method and path are queued and
+ * written every 200 ms to {@link #defaultFile()}, so that tracing costs the netty thread two random numbers and a
+ * queue insertion. The times come from the response as Gatling takes the start before connecting, ahead of the
+ * signing. Requests that get no response, such as timeouts, are not recorded. {@code -Dtrace.enabled=false} sends no
+ * headers.
+ */
+public final class Tracing {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(Tracing.class);
+
+  public static final boolean ENABLED = !"false".equals(System.getProperty("trace.enabled"));
+  public static final String HEADER = "id,start,end,name,method,path";
+
+  private static final String ID_HEADER = "X-Request-Id";
+  private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+  private static volatile Queue<String> sent;
+  private static ScheduledExecutorService writer;
+  private static BufferedWriter out;
+
+  private Tracing() {
+  }
+
+  /**
+   * One file per {@link Injector}, as their ids are only unique together with the file.
+   */
+  public static Path defaultFile() {
+    return SimulationLog.resultsDirectory().resolve(Injector.COUNT == 1
+        ? "trace-ids.csv"
+        : "trace-ids-" + Injector.INDEX + ".csv");
+  }
+
+  /**
+   * Adds the trace headers to {@code request}. Meant for {@code HttpProtocolBuilder.sign}.
+   */
+  public static Request sign(Request request, Session session) {
+    if (!ENABLED) {
+      return request;
+    }
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    char[] traceId = new char[32];
+    hex(random.nextLong(), traceId, 0);
+    hex(random.nextLong(), traceId, 16);
+    char[] spanId = new char[16];
+    hex(random.nextLong(), spanId, 0);
+    String id = new String(traceId);
+    request.getHeaders()
+        .set(ID_HEADER, id)
+        .set("traceparent", "00-" + id + "-" + new String(spanId) + "-01");
+    return request;
+  }
+
+  /**
+   * Records the id {@code response} was requested with, along with the start and end Gatling logs for it. Meant for
+   * {@code HttpProtocolBuilder.transformResponse}; returns {@code response} as is.
+   */
+  public static Response record(Response response, Session session) {
+    Queue<String> queue = sent;
+    if (queue == null) {
+      return response;
+    }
+    Request request = response.request();
+    String id = request.getHeaders().get(ID_HEADER);
+    if (id != null) {
+      queue.add(id + "," + response.startTimestamp() + "," + response.endTimestamp() + "," + csv(request.getName())
+          + "," + request.getMethod().name() + "," + csv(request.getUri().getPath()));
+    }
+    return response;
+  }
+
+  private static void hex(long value, char[] into, int offset) {
+    for (int i = 15; i >= 0; i--) {
+      into[offset + i] = HEX[(int) (value & 0xf)];
+      value >>>= 4;
+    }
+  }
+
+  private static String csv(String value) {
+    return value.indexOf(',') < 0 && value.indexOf('"') < 0 ? value : '"' + value.replace("\"", "\"\"") + '"';
+  }
+
+  /**
+   * Starts recording the ids sent into {@code file}. Meant to be called from {@code Simulation.before()}.
+   */
+  public static synchronized void start(Path file) {
+    if (writer != null || !ENABLED) {
+      return;
+    }
+    try {
+      Files.createDirectories(file.getParent());
+      out = Files.newBufferedWriter(file);
+      out.write(HEADER);
+      out.newLine();
+    } catch (IOException e) {
+      throw new UncheckedIOException("Could not write " + file, e);
+    }
+    Queue<String> queue = new ConcurrentLinkedQueue<>();
+    sent = queue;
+    writer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "trace-ids");
+      thread.setDaemon(true);
+      return thread;
+    });
+    writer.scheduleWithFixedDelay(() -> drain(queue), 200, 200, TimeUnit.MILLISECONDS);
+  }
+
+  // Only called from the writer's single thread, then from stop() once it has terminated
+  private static void drain(Queue<String> queue) {
+    try {
+      String line;
+      while ((line = queue.poll()) != null) {
+        out.write(line);
+        out.newLine();
+      }
+    } catch (IOException e) {
+      LOGGER.warn("Could not write the trace ids", e);
+    }
+  }
+
+  /**
+   * Writes the ids still queued and stops recording. Meant to be called from {@code Simulation.after()}.
+   */
+  public static void stop() {
+    ScheduledExecutorService stopped;
+    Queue<String> queue;
+    synchronized (Tracing.class) {
+      stopped = writer;
+      queue = sent;
+      writer = null;
+      sent = null;
+    }
+    if (stopped == null) {
+      return;
+    }
+    stopped.shutdown();
+    try {
+      stopped.awaitTermination(5, TimeUnit.SECONDS);
+      drain(queue);
+      out.close();
+    } catch (IOException e) {
+      LOGGER.warn("Could not close the trace ids", e);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * One line of {@link #defaultFile()}.
+   */
+  public static final class Sent {
+    public final String id;
+    public final long start;
+    public final long end;
+    public final String name;
+    public final String method;
+    public final String path;
+
+    Sent(String id, long start, long end, String name, String method, String path) {
+      this.id = id;
+      this.start = start;
+      this.end = end;
+      this.name = name;
+      this.method = method;
+      this.path = path;
+    }
+  }
+
+  public static List<Sent> load(Path file) throws IOException {
+    List<Sent> lines = new ArrayList<>();
+    for (String line : Files.readAllLines(file)) {
+      if (line.isEmpty() || line.equals(HEADER)) {
+        continue;
+      }
+      List<String> fields = fields(line);
+      lines.add(new Sent(fields.get(0), Long.parseLong(fields.get(1)), Long.parseLong(fields.get(2)), fields.get(3),
+          fields.get(4), fields.get(5)));
+    }
+    return lines;
+  }
+
+  private static List<String> fields(String line) {
+    List<String> fields = new ArrayList<>();
+    StringBuilder field = new StringBuilder();
+    boolean quoted = false;
+    for (int i = 0; i < line.length(); i++) {
+      char c = line.charAt(i);
+      if (quoted && c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+        field.append('"');
+        i++;
+      } else if (c == '"') {
+        quoted = !quoted;
+      } else if (c == ',' && !quoted) {
+        fields.add(field.toString());
+        field.setLength(0);
+      } else {
+        field.append(c);
+      }
+    }
+    fields.add(field.toString());
+    return fields;
+  }
+}
@@ -0,0 +1,140 @@
+package io.gatling.demo.leaderboard;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * The combinations of {@code GET /statistics} parameters a {@link io.gatling.demo.LeaderboardMatrixSimulation}
+ * requests, each as its query string.
+ *
+ * <p>A combination is a sort field, an order, a game type ({@code all} for none), at most one filter, an offset and
+ * a limit. Each dimension is a comma-separated {@code -Dmatrix.*} property, so the matrix can be narrowed to the
+ * parameters under suspicion. The filters use {@code -Dmatrix.minGames} (default 10), {@code -Dmatrix.minScore}
+ * (default 1000) and a registration date {@code -Dmatrix.registeredDays} ago (default 365).
+ */
+public final class LeaderboardMatrix {
+
+  public static final String[] DIMENSIONS = {"sort", "order", "gameType", "filter", "offset", "limit"};
+  public static final String ALL_TYPES = "all";
+  public static final String NO_FILTER = "none";
+  static final List<String> FILTERS = List.of("minGames", "minScore", "registeredAfter", "registeredBefore");
+
+  private final Map<String, List<String>> values = new LinkedHashMap<>();
+  private final Map<String, String> filterValues = new LinkedHashMap<>();
+
+  public LeaderboardMatrix(Map<String, List<String>> values, Map<String, String> filterValues) {
+    for (String dimension : DIMENSIONS) {
+      List<String> list = values.get(dimension);
+      if (list == null || list.isEmpty()) {
+        throw new IllegalArgumentException("No value for the " + dimension + " dimension");
+      }
+      this.values.put(dimension, list);
+    }
+    for (String filter : this.values.get("filter")) {
+      if (!NO_FILTER.equals(filter) && !FILTERS.contains(filter)) {
+        throw new IllegalArgumentException("Unknown filter " + filter + ", expected one of " + FILTERS);
+      }
+    }
+    this.filterValues.putAll(filterValues);
+  }
+
+  public static LeaderboardMatrix fromSystemProperties() {
+    Map<String, List<String>> values = new LinkedHashMap<>();
+    values.put("sort", list("matrix.sorts", "totalScore,maxScore,gamesPlayed,questionsAnswered,correctAnswers,"
+        + "incorrectAnswers,accuracy,username,registrationDate"));
+    values.put("order", list("matrix.orders", "desc,asc"));
+    values.put("gameType", list("matrix.gameTypes", ALL_TYPES + "," + String.join(",", SeedData.GAME_TYPES)));
+    values.put("filter", list("matrix.filters", NO_FILTER + "," + String.join(",", FILTERS)));
+    values.put("offset", list("matrix.offsets", "0," + System.getProperty("matrix.deepOffset", "10000")));
+    values.put("limit", list("matrix.limits", "100"));
+    String registered = LocalDate.now(ZoneOffset.UTC).minusDays(Long.getLong("matrix.registeredDays", 365))
+        .toString();
+    Map<String, String> filterValues = new LinkedHashMap<>();
+    filterValues.put("minGames", System.getProperty("matrix.minGames", "10"));
+    filterValues.put("minScore", System.getProperty("matrix.minScore", "1000"));
+    filterValues.put("registeredAfter", registered);
+    filterValues.put("registeredBefore", registered);
+    return new LeaderboardMatrix(values, filterValues);
+  }
+
+  private static List<String> list(String property, String defaultValue) {
+    List<String> list = new ArrayList<>();
+    for (String value : System.getProperty(property, defaultValue).split(",")) {
+      if (!value.isBlank()) {
+        list.add(value.trim());
+      }
+    }
+    return list;
+  }
+
+  /**
+   * The query strings of every combination, in dimension order.
+   */
+  public List<String> queries() {
+    List<String> queries = new ArrayList<>();
+    for (String sort : values.get("sort")) {
+      for (String order : values.get("order")) {
+        for (String gameType : values.get("gameType")) {
+          for (String filter : values.get("filter")) {
+            for (String offset : values.get("offset")) {
+              for (String limit : values.get("limit")) {
+                StringBuilder query = new StringBuilder();
+                query.append("sort=").append(sort).append("&order=").append(order);
+                if (!ALL_TYPES.equals(gameType)) {
+                  query.append("&gameType=").append(gameType);
+                }
+                if (!NO_FILTER.equals(filter)) {
+                  query.append('&').append(filter).append('=').append(filterValues.get(filter));
+                }
+                query.append("&offset=").append(offset).append("&limit=").append(limit);
+                queries.add(query.toString());
+              }
+            }
+          }
+        }
+      }
+    }
+    return queries;
+  }
+
+  /**
+   * Every combination {@code samples} times, in an order drawn from {@code seed}, so that no combination is always
+   * requested right after the same one.
+   */
+  public List<String> schedule(int samples, long seed) {
+    List<String> schedule = new ArrayList<>();
+    List<String> queries = queries();
+    for (int i = 0; i < samples; i++) {
+      schedule.addAll(queries);
+    }
+    Collections.shuffle(schedule, new Random(seed));
+    return schedule;
+  }
+
+  /**
+   * The value of each of {@link #DIMENSIONS} in {@code query}, the inverse of {@link #queries()}.
+   */
+  public static Map<String, String> dimensions(String query) {
+    Map<String, String> parameters = new LinkedHashMap<>();
+    for (String parameter : query.split("&")) {
+      int equals = parameter.indexOf('=');
+      if (equals > 0) {
+        parameters.put(parameter.substring(0, equals), parameter.substring(equals + 1));
+      }
+    }
+    Map<String, String> dimensions = new LinkedHashMap<>();
+    dimensions.put("sort", parameters.getOrDefault("sort", ""));
+    dimensions.put("order", parameters.getOrDefault("order", ""));
+    dimensions.put("gameType", parameters.getOrDefault("gameType", ALL_TYPES));
+    dimensions.put("filter", FILTERS.stream().filter(parameters::containsKey).findFirst().orElse(NO_FILTER));
+    dimensions.put("offset", parameters.getOrDefault("offset", ""));
+    dimensions.put("limit", parameters.getOrDefault("limit", ""));
+    return dimensions;
+  }
+}
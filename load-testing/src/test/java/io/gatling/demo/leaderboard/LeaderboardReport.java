@@ -0,0 +1,146 @@
+package io.gatling.demo.leaderboard;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.gatling.demo.LeaderboardMatrixSimulation;
+import io.gatling.demo.stats.Reports;
+import io.gatling.demo.stats.RequestStats;
+import io.gatling.demo.stats.SimulationLog;
+
+/**
+ * {@code GET /statistics} latency per parameter combination of a {@link LeaderboardMatrixSimulation} run.
+ *
+ * <p>For each combination the report gives the p50, p95 and p99 and the errors, slowest first. Then, for each
+ * dimension, the p95 of all the requests with a given value, which tells the parameter that costs from the
+ * combinations that happen to include it. A combination whose p95 is over {@code -Dmatrix.slowFactor} (default 3)
+ * times the median combination's is flagged: the aggregation likely scans the collection there, and wants an index
+ * or a precomputed leaderboard. The result is printed and written to {@code leaderboard.json} in the run directory.
+ *
+ * <pre>
+ * mvnw exec:java -Dexec.mainClass=io.gatling.demo.leaderboard.LeaderboardReport -Dexec.classpathScope=test \
+ *     [-Dexec.args=target/gatling/&lt;run&gt;]
+ * </pre>
+ */
+public final class LeaderboardReport {
+
+  public static final String PREFIX = "get statistics?";
+
+  private final double slowFactor;
+  private final Map<String, RequestStats> combinations = new TreeMap<>();
+  private final Map<String, Map<String, RequestStats>> marginals = new LinkedHashMap<>();
+  private String simulation;
+
+  public LeaderboardReport(double slowFactor) {
+    this.slowFactor = slowFactor;
+    for (String dimension : LeaderboardMatrix.DIMENSIONS) {
+      marginals.put(dimension, new TreeMap<>());
+    }
+  }
+
+  public void read(Path log) throws IOException {
+    SimulationLog.Run run = SimulationLog.read(log, new SimulationLog.Listener() {
+      @Override
+      public void request(List<String> groups, String name, long start, long end, boolean ok, String message) {
+        if (!name.startsWith(PREFIX)) {
+          return;
+        }
+        String query = name.substring(PREFIX.length());
+        combinations.computeIfAbsent(query, key -> new RequestStats()).record(end - start, ok);
+        LeaderboardMatrix.dimensions(query).forEach((dimension, value) -> marginals.get(dimension)
+            .computeIfAbsent(value, key -> new RequestStats()).record(end - start, ok));
+      }
+    });
+    simulation = run.simulationClassName;
+  }
+
+  private List<Map.Entry<String, RequestStats>> slowestFirst() {
+    List<Map.Entry<String, RequestStats>> sorted = new ArrayList<>(combinations.entrySet());
+    sorted.sort((a, b) -> Long.compare(b.getValue().histogram.percentile(95), a.getValue().histogram.percentile(95)));
+    return sorted;
+  }
+
+  private long medianP95() {
+    List<Map.Entry<String, RequestStats>> sorted = slowestFirst();
+    return sorted.isEmpty() ? 0 : sorted.get(sorted.size() / 2).getValue().histogram.percentile(95);
+  }
+
+  private boolean slow(RequestStats stats, long median) {
+    return stats.histogram.percentile(95) > slowFactor * Math.max(1, median);
+  }
+
+  public String text() {
+    StringBuilder out = new StringBuilder();
+    long median = medianP95();
+    out.append("Leaderboard query matrix of ").append(simulation).append(", ").append(combinations.size())
+        .append(" combinations, median p95 ").append(median).append(" ms\n\n");
+    out.append(String.format("  %7s %7s %7s %8s  %s%n", "p50", "p95", "p99", "errors", "combination"));
+    for (Map.Entry<String, RequestStats> entry : slowestFirst()) {
+      RequestStats stats = entry.getValue();
+      out.append(String.format("  %7d %7d %7d %7.2f%%  %s%s%n", stats.histogram.percentile(50),
+          stats.histogram.percentile(95), stats.histogram.percentile(99), stats.errorRate() * 100, entry.getKey(),
+          slow(stats, median) ? "  SLOW" : ""));
+    }
+    out.append("\nBy dimension\n");
+    marginals.forEach((dimension, values) -> {
+      out.append("  ").append(dimension).append('\n');
+      values.forEach((value, stats) -> out.append(String.format("    %-20s %7d requests, p95 %6d ms, %.2f%% errors%n",
+          value, stats.count(), stats.histogram.percentile(95), stats.errorRate() * 100)));
+    });
+    long flagged = combinations.values().stream().filter(stats -> slow(stats, median)).count();
+    if (flagged > 0) {
+      out.append(String.format("%n%d combinations over %.1fx the median p95: likely a collection scan, index the "
+          + "fields they sort or filter on or precompute the leaderboard%n", flagged, slowFactor));
+    }
+    return out.toString();
+  }
+
+  public ObjectNode json() {
+    ObjectMapper mapper = new ObjectMapper();
+    ObjectNode root = mapper.createObjectNode();
+    long median = medianP95();
+    root.put("simulation", simulation);
+    root.put("medianP95", median);
+    root.put("slowFactor", slowFactor);
+    ArrayNode list = root.putArray("combinations");
+    for (Map.Entry<String, RequestStats> entry : slowestFirst()) {
+      RequestStats stats = entry.getValue();
+      ObjectNode node = list.addObject();
+      node.put("query", entry.getKey());
+      LeaderboardMatrix.dimensions(entry.getKey()).forEach(node::put);
+      node.put("requests", stats.count());
+      node.put("errors", stats.ko());
+      node.put("p50", stats.histogram.percentile(50));
+      node.put("p95", stats.histogram.percentile(95));
+      node.put("p99", stats.histogram.percentile(99));
+      node.put("slow", slow(stats, median));
+    }
+    ObjectNode dimensions = root.putObject("dimensions");
+    marginals.forEach((dimension, values) -> {
+      ObjectNode dimensionNode = dimensions.putObject(dimension);
+      values.forEach((value, stats) -> {
+        ObjectNode valueNode = dimensionNode.putObject(value);
+        valueNode.put("requests", stats.count());
+        valueNode.put("errors", stats.ko());
+        valueNode.put("p95", stats.histogram.percentile(95));
+      });
+    });
+    return root;
+  }
+
+  public static void main(String[] args) throws IOException {
+    Path log = SimulationLog.fromArgs(args);
+    LeaderboardReport report =
+        new LeaderboardReport(Double.parseDouble(System.getProperty("matrix.slowFactor", "3")));
+    report.read(log);
+    Reports.write(log, "leaderboard.json", report.text(), report.json());
+  }
+}
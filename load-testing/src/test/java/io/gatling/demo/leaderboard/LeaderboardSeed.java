@@ -0,0 +1,105 @@
+package io.gatling.demo.leaderboard;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.Random;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Writes a production-sized statisticservice {@code users} collection of {@link SeedData} players, one MongoDB
+ * extended JSON document per line, for {@code mongoimport}.
+ *
+ * <p>Usernames are {@code <seed.prefix><index>}, so the players do not collide with the registered population.
+ * The same {@code -Dseed.seed} writes the same collection.
+ *
+ * <pre>
+ * mvnw exec:java -Dexec.mainClass=io.gatling.demo.leaderboard.LeaderboardSeed -Dexec.classpathScope=test \
+ *     -Dseed.users=100000 [-Dseed.medianGames=8 -Dseed.days=730 -Dseed.file=target/leaderboard-seed.jsonl]
+ * mongoimport --uri mongodb://localhost:27017/userdb --collection users --file target/leaderboard-seed.jsonl
+ * </pre>
+ */
+public final class LeaderboardSeed {
+
+  private static final String PREFIX = System.getProperty("seed.prefix", "lb_");
+
+  private LeaderboardSeed() {
+  }
+
+  /**
+   * The username of the {@code index}-th seeded player, from 1.
+   */
+  public static String username(int index) {
+    return String.format("%s%07d", PREFIX, index);
+  }
+
+  public static void write(Path file, int users, SeedData data, Random random) throws IOException {
+    if (file.getParent() != null) {
+      Files.createDirectories(file.getParent());
+    }
+    try (OutputStream out = Files.newOutputStream(file);
+        JsonGenerator json = new ObjectMapper().getFactory().createGenerator(out, JsonEncoding.UTF8)) {
+      json.setRootValueSeparator(null);
+      for (int i = 1; i <= users; i++) {
+        write(json, data.player(username(i), random));
+        json.flush();
+        out.write('\n');
+      }
+    }
+  }
+
+  private static void write(JsonGenerator json, SeedData.Player player) throws IOException {
+    int questions = 0;
+    int correct = 0;
+    for (SeedData.Game game : player.games) {
+      questions += game.questionsAnswered;
+      correct += game.correctAnswers;
+    }
+    json.writeStartObject();
+    json.writeStringField("username", player.username);
+    date(json, "registrationDate", player.registrationDate);
+    json.writeNumberField("gamesPlayed", player.games.size());
+    json.writeNumberField("questionsAnswered", questions);
+    json.writeNumberField("correctAnswers", correct);
+    json.writeNumberField("incorrectAnswers", questions - correct);
+    json.writeArrayFieldStart("profileVisits");
+    json.writeEndArray();
+    json.writeNumberField("totalVisits", 0);
+    json.writeArrayFieldStart("games");
+    for (SeedData.Game game : player.games) {
+      json.writeStartObject();
+      json.writeStringField("username", player.username);
+      json.writeStringField("gameType", game.gameType);
+      json.writeNumberField("questionsAnswered", game.questionsAnswered);
+      json.writeNumberField("correctAnswers", game.correctAnswers);
+      json.writeNumberField("incorrectAnswers", game.questionsAnswered - game.correctAnswers);
+      json.writeNumberField("score", game.score);
+      date(json, "registrationDate", game.endDate);
+      date(json, "endDate", game.endDate);
+      json.writeEndObject();
+    }
+    json.writeEndArray();
+    json.writeEndObject();
+  }
+
+  private static void date(JsonGenerator json, String field, long millis) throws IOException {
+    json.writeObjectFieldStart(field);
+    json.writeStringField("$date", Instant.ofEpochMilli(millis).toString());
+    json.writeEndObject();
+  }
+
+  public static void main(String[] args) throws IOException {
+    Path file = Paths.get(System.getProperty("seed.file", "target/leaderboard-seed.jsonl"));
+    int users = Integer.getInteger("seed.users", 100_000);
+    write(file, users, SeedData.fromSystemProperties(), new Random(Long.getLong("seed.seed", 42)));
+    System.out.println("Wrote " + users + " players to " + file.toAbsolutePath());
+    System.out.println("Import them with: mongoimport --uri mongodb://localhost:27017/userdb --collection users --file "
+        + file);
+  }
+}
@@ -0,0 +1,133 @@
+package io.gatling.demo.leaderboard;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Synthetic players of the statisticservice, with a game history shaped like production's.
+ *
+ * <p>Registration dates are spread evenly over the last {@code days}. A fifth of the players never played; the
+ * others played a log-normal number of games around {@code medianGames}, so a few heavy players hold long
+ * {@code games} arrays, as in the real collection. Each player has their own accuracy, and each game follows its
+ * mode's rules: 10 questions in classical, until the first miss in sudden death, as many as fit in a time trial, one
+ * in the question of the day.
+ */
+public final class SeedData {
+
+  public static final String[] GAME_TYPES = {"classical", "suddenDeath", "timeTrial", "custom", "qod"};
+  private static final double[] GAME_TYPE_WEIGHTS = {0.35, 0.2, 0.2, 0.1, 0.15};
+  private static final int MAX_GAMES = 5000;
+
+  private final int days;
+  private final double medianGames;
+  private final long now;
+
+  public SeedData(int days, double medianGames, long now) {
+    this.days = days;
+    this.medianGames = medianGames;
+    this.now = now;
+  }
+
+  public static SeedData fromSystemProperties() {
+    return new SeedData(Integer.getInteger("seed.days", 730),
+        Double.parseDouble(System.getProperty("seed.medianGames", "8")), System.currentTimeMillis());
+  }
+
+  public static final class Game {
+    public final String gameType;
+    public final int questionsAnswered;
+    public final int correctAnswers;
+    public final int score;
+    public final long endDate;
+
+    Game(String gameType, int questionsAnswered, int correctAnswers, int score, long endDate) {
+      this.gameType = gameType;
+      this.questionsAnswered = questionsAnswered;
+      this.correctAnswers = correctAnswers;
+      this.score = score;
+      this.endDate = endDate;
+    }
+  }
+
+  public static final class Player {
+    public final String username;
+    public final long registrationDate;
+    public final List<Game> games;
+
+    Player(String username, long registrationDate, List<Game> games) {
+      this.username = username;
+      this.registrationDate = registrationDate;
+      this.games = games;
+    }
+  }
+
+  /**
+   * The player called {@code username}, drawn from {@code random}.
+   */
+  public Player player(String username, Random random) {
+    long registered = now - (long) (random.nextDouble() * Duration.ofDays(days).toMillis());
+    int count = random.nextDouble() < 0.2 ? 0
+        : (int) Math.min(MAX_GAMES, Math.round(medianGames * Math.exp(1.2 * random.nextGaussian())));
+    double accuracy = 0.3 + 0.6 * random.nextDouble();
+    List<Game> games = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      games.add(game(accuracy, registered + (long) (random.nextDouble() * (now - registered)), random));
+    }
+    return new Player(username, registered, games);
+  }
+
+  /**
+   * One game of a random mode, played by a player answering right with probability {@code accuracy}, that ended
+   * at {@code ended}.
+   */
+  public static Game game(double accuracy, long ended, Random random) {
+    String type = gameType(random);
+    int questions;
+    int correct;
+    switch (type) {
+      case "suddenDeath":
+        correct = 0;
+        while (correct < 30 && random.nextDouble() < accuracy) {
+          correct++;
+        }
+        questions = Math.min(30, correct + 1);
+        break;
+      case "timeTrial":
+        questions = 5 + random.nextInt(26);
+        correct = binomial(questions, accuracy, random);
+        break;
+      case "qod":
+        questions = 1;
+        correct = binomial(1, accuracy, random);
+        break;
+      default:
+        questions = "custom".equals(type) ? 5 + random.nextInt(16) : 10;
+        correct = binomial(questions, accuracy, random);
+        break;
+    }
+    return new Game(type, questions, correct, correct * 100 + random.nextInt(50) * correct, ended);
+  }
+
+  private static String gameType(Random random) {
+    double draw = random.nextDouble();
+    for (int i = 0; i < GAME_TYPES.length - 1; i++) {
+      draw -= GAME_TYPE_WEIGHTS[i];
+      if (draw < 0) {
+        return GAME_TYPES[i];
+      }
+    }
+    return GAME_TYPES[GAME_TYPES.length - 1];
+  }
+
+  private static int binomial(int trials, double probability, Random random) {
+    int successes = 0;
+    for (int i = 0; i < trials; i++) {
+      if (random.nextDouble() < probability) {
+        successes++;
+      }
+    }
+    return successes;
+  }
+}
@@ -0,0 +1,175 @@
+package io.gatling.demo.live;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.gatling.demo.distributed.Injector;
+import io.gatling.demo.stats.SimulationLog;
+
+/**
+ * Publishes the {@link LiveMetrics} of the running simulation while it runs, from the injector's JVM.
+ *
+ * <p>With {@code -Dlive.port}, {@code /metrics} serves them to Prometheus, as OpenMetrics when the scrape accepts it
+ * and in the older text format otherwise; each {@link Injector} listens on the port plus its index. With
+ * {@code -Dlive.file}, a timestamped snapshot is appended to the file every {@code -Dlive.fileSeconds} (default
+ * 10), and the file is rolled over to {@code <file>.1} once it reaches {@code -Dlive.fileMegabytes} (default 50).
+ * Latency buckets are {@code -Dlive.buckets} milliseconds (default {@value LiveMetrics#DEFAULT_BUCKETS}).
+ *
+ * <p>The metrics are read from the run's {@code simulation.log} as Gatling writes it, so they trail the run by
+ * Gatling's buffering of that file, a few seconds at most under load. The log followed is the first one written
+ * to after {@link #start()}, see {@link SimulationLog#logSince(long)}.
+ */
+public final class LiveExporter {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(LiveExporter.class);
+
+  private static final long POLL_MILLIS = 200;
+
+  private static ScheduledExecutorService executor;
+  private static HttpServer server;
+  private static LiveMetrics metrics;
+  private static volatile boolean stopping;
+
+  private LiveExporter() {
+  }
+
+  public static boolean enabled() {
+    return System.getProperty("live.port") != null || System.getProperty("live.file") != null;
+  }
+
+  /**
+   * Starts following the run that is about to begin. Meant to be called from {@code Simulation.before()}.
+   */
+  public static synchronized void start() {
+    if (executor != null || !enabled()) {
+      return;
+    }
+    LiveMetrics live = new LiveMetrics(LiveMetrics.parseBuckets(
+        System.getProperty("live.buckets", LiveMetrics.DEFAULT_BUCKETS)));
+    metrics = live;
+    long startedAt = System.currentTimeMillis();
+    stopping = false;
+    // The log follower, the file sink and the scrapes
+    executor = Executors.newScheduledThreadPool(3, runnable -> {
+      Thread thread = new Thread(runnable, "live-metrics");
+      thread.setDaemon(true);
+      return thread;
+    });
+    executor.execute(() -> follow(live, startedAt));
+    String port = System.getProperty("live.port");
+    if (port != null) {
+      serve(live, Integer.parseInt(port) + Injector.INDEX);
+    }
+    if (System.getProperty("live.file") != null) {
+      long period = Long.getLong("live.fileSeconds", 10);
+      executor.scheduleAtFixedRate(() -> append(live), period, period, TimeUnit.SECONDS);
+    }
+  }
+
+  private static void follow(LiveMetrics metrics, long startedAt) {
+    try {
+      Path log = SimulationLog.awaitLog(startedAt, () -> stopping, POLL_MILLIS);
+      if (log == null) {
+        return;
+      }
+      LOGGER.info("Publishing the live metrics of {}", log);
+      SimulationLog.follow(log, metrics, () -> stopping, POLL_MILLIS);
+    } catch (IOException e) {
+      LOGGER.warn("Could not follow the simulation log, the live metrics stop here", e);
+    }
+  }
+
+  private static void serve(LiveMetrics metrics, int port) {
+    try {
+      server = HttpServer.create(new InetSocketAddress(port), 0);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Could not listen on port " + port + " for the live metrics", e);
+    }
+    server.createContext("/metrics", exchange -> respond(exchange, metrics));
+    server.setExecutor(executor);
+    server.start();
+    LOGGER.info("Live metrics on http://localhost:{}/metrics", port);
+  }
+
+  private static void respond(HttpExchange exchange, LiveMetrics metrics) throws IOException {
+    String accept = exchange.getRequestHeaders().getFirst("Accept");
+    boolean openMetrics = accept != null && accept.contains("application/openmetrics-text");
+    byte[] body = metrics.render(openMetrics, -1).getBytes(StandardCharsets.UTF_8);
+    exchange.getResponseHeaders().set("Content-Type",
+        openMetrics ? LiveMetrics.OPENMETRICS_TYPE : LiveMetrics.TEXT_TYPE);
+    exchange.sendResponseHeaders(200, body.length);
+    try (OutputStream out = exchange.getResponseBody()) {
+      out.write(body);
+    }
+  }
+
+  // Called from the executor's scheduled task, then once from stop() after the executor has terminated
+  private static void append(LiveMetrics metrics) {
+    Path file = Paths.get(System.getProperty("live.file"));
+    long maxBytes = Long.getLong("live.fileMegabytes", 50) << 20;
+    try {
+      if (file.getParent() != null) {
+        Files.createDirectories(file.getParent());
+      }
+      if (Files.exists(file) && Files.size(file) >= maxBytes) {
+        Files.move(file, file.resolveSibling(file.getFileName() + ".1"), StandardCopyOption.REPLACE_EXISTING);
+      }
+      Files.writeString(file, metrics.render(true, System.currentTimeMillis()), StandardOpenOption.CREATE,
+          StandardOpenOption.APPEND);
+    } catch (IOException e) {
+      LOGGER.warn("Could not append the live metrics to {}", file, e);
+    }
+  }
+
+  /**
+   * Reads the log to its end, writes a last snapshot and stops publishing. Meant to be called from
+   * {@code Simulation.after()}.
+   */
+  public static void stop() {
+    ScheduledExecutorService stopped;
+    HttpServer stoppedServer;
+    LiveMetrics last;
+    synchronized (LiveExporter.class) {
+      stopped = executor;
+      stoppedServer = server;
+      last = metrics;
+      executor = null;
+      server = null;
+      metrics = null;
+    }
+    if (stopped == null) {
+      return;
+    }
+    stopping = true;
+    if (stoppedServer != null) {
+      stoppedServer.stop(0);
+    }
+    stopped.shutdown();
+    try {
+      if (!stopped.awaitTermination(10, TimeUnit.SECONDS)) {
+        stopped.shutdownNow();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    if (System.getProperty("live.file") != null) {
+      append(last);
+    }
+  }
+}
@@ -0,0 +1,148 @@
+package io.gatling.demo.live;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+import io.gatling.demo.stats.SimulationLog;
+
+/**
+ * Counters and latency histograms of a run so far, per request name, in the Prometheus exposition formats.
+ *
+ * <p>Requests are named by their group path, as in Gatling's report. The histogram buckets are cumulative upper
+ * bounds in milliseconds, exposed in seconds as Prometheus expects. Fed by a single {@link SimulationLog.Listener}
+ * thread and read by any number of scrapes.
+ */
+public final class LiveMetrics implements SimulationLog.Listener {
+
+  public static final String OPENMETRICS_TYPE = "application/openmetrics-text; version=1.0.0; charset=utf-8";
+  public static final String TEXT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+  public static final String DEFAULT_BUCKETS = "10,25,50,100,250,500,1000,2500,5000,10000,30000";
+
+  private static final class Series {
+    final long[] buckets;
+    long ok;
+    long ko;
+    long sumMillis;
+
+    Series(int bounds) {
+      buckets = new long[bounds];
+    }
+  }
+
+  private final long[] bounds;
+  private final Map<String, Series> requests = new TreeMap<>();
+  private final Map<String, long[]> users = new TreeMap<>();
+  private String simulation = "";
+  private long errors;
+
+  public LiveMetrics(long[] bounds) {
+    this.bounds = bounds.clone();
+  }
+
+  public static long[] parseBuckets(String buckets) {
+    List<Long> list = new ArrayList<>();
+    for (String bucket : buckets.split(",")) {
+      if (!bucket.isBlank()) {
+        list.add(Long.parseLong(bucket.trim()));
+      }
+    }
+    return list.stream().sorted().mapToLong(Long::longValue).toArray();
+  }
+
+  @Override
+  public synchronized void run(SimulationLog.Run run) {
+    simulation = run.simulationClassName;
+  }
+
+  @Override
+  public synchronized void user(String scenario, boolean start, long timestamp) {
+    // Started and ended users
+    long[] counts = users.computeIfAbsent(scenario, key -> new long[2]);
+    counts[start ? 0 : 1]++;
+  }
+
+  @Override
+  public synchronized void request(List<String> groups, String name, long start, long end, boolean ok,
+      String message) {
+    Series series = requests.computeIfAbsent(SimulationLog.path(groups, name), key -> new Series(bounds.length));
+    long millis = end - start;
+    if (ok) {
+      series.ok++;
+    } else {
+      series.ko++;
+    }
+    series.sumMillis += millis;
+    for (int i = bounds.length - 1; i >= 0 && millis <= bounds[i]; i--) {
+      series.buckets[i]++;
+    }
+  }
+
+  @Override
+  public synchronized void error(String message, long timestamp) {
+    errors++;
+  }
+
+  /**
+   * The metrics as OpenMetrics text, with {@code # EOF}, or in Prometheus' older text format. A
+   * {@code timestampMillis} of -1 leaves the samples without a timestamp, as a scrape wants them.
+   */
+  public synchronized String render(boolean openMetrics, long timestampMillis) {
+    String at = timestampMillis < 0 ? "" : " " + (openMetrics
+        ? String.format(Locale.ROOT, "%.3f", timestampMillis / 1000.0)
+        : Long.toString(timestampMillis));
+    StringBuilder out = new StringBuilder();
+    type(out, openMetrics, "gatling_requests", "counter", "Requests completed, by name and status");
+    requests.forEach((name, series) -> {
+      String request = "request=\"" + escape(name) + "\"";
+      out.append("gatling_requests_total{").append(request).append(",status=\"ok\"} ").append(series.ok)
+          .append(at).append('\n');
+      out.append("gatling_requests_total{").append(request).append(",status=\"ko\"} ").append(series.ko)
+          .append(at).append('\n');
+    });
+    type(out, openMetrics, "gatling_response_time_seconds", "histogram", "Response times, by request name");
+    requests.forEach((name, series) -> {
+      String request = "request=\"" + escape(name) + "\"";
+      for (int i = 0; i < bounds.length; i++) {
+        out.append("gatling_response_time_seconds_bucket{").append(request).append(",le=\"")
+            .append(seconds(bounds[i])).append("\"} ").append(series.buckets[i]).append(at).append('\n');
+      }
+      out.append("gatling_response_time_seconds_bucket{").append(request).append(",le=\"+Inf\"} ")
+          .append(series.ok + series.ko).append(at).append('\n');
+      out.append("gatling_response_time_seconds_sum{").append(request).append("} ")
+          .append(seconds(series.sumMillis)).append(at).append('\n');
+      out.append("gatling_response_time_seconds_count{").append(request).append("} ")
+          .append(series.ok + series.ko).append(at).append('\n');
+    });
+    type(out, openMetrics, "gatling_users_active", "gauge", "Virtual users started and not yet ended, by scenario");
+    users.forEach((scenario, counts) -> out.append("gatling_users_active{scenario=\"").append(escape(scenario))
+        .append("\"} ").append(counts[0] - counts[1]).append(at).append('\n'));
+    type(out, openMetrics, "gatling_users_started", "counter", "Virtual users started, by scenario");
+    users.forEach((scenario, counts) -> out.append("gatling_users_started_total{scenario=\"")
+        .append(escape(scenario)).append("\"} ").append(counts[0]).append(at).append('\n'));
+    type(out, openMetrics, "gatling_errors", "counter", "Errors outside requests, such as failed session functions");
+    out.append("gatling_errors_total{simulation=\"").append(escape(simulation)).append("\"} ").append(errors)
+        .append(at).append('\n');
+    if (openMetrics) {
+      out.append("# EOF\n");
+    }
+    return out.toString();
+  }
+
+  private static void type(StringBuilder out, boolean openMetrics, String family, String type, String help) {
+    // The older format names a counter's family after its sample, with the _total suffix
+    String name = !openMetrics && type.equals("counter") ? family + "_total" : family;
+    out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+    out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+  }
+
+  private static String seconds(long millis) {
+    return millis % 1000 == 0 ? (millis / 1000) + ".0" : Double.toString(millis / 1000.0);
+  }
+
+  private static String escape(String value) {
+    return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+  }
+}
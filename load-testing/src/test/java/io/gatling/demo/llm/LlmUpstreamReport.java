@@ -0,0 +1,279 @@
+package io.gatling.demo.llm;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.TreeMap;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.gatling.demo.LlmUpstreamSimulation;
+import io.gatling.demo.mock.MockLlm;
+import io.gatling.demo.stats.Reports;
+import io.gatling.demo.stats.RequestStats;
+import io.gatling.demo.stats.SimulationLog;
+import io.gatling.demo.upload.GatewayMemory;
+
+/**
+ * How an {@link LlmUpstreamSimulation} run went over time, next to what its {@link MockLlm} upstream and the gateway
+ * went through.
+ *
+ * <p>The run is cut into windows of {@code -Dllm.windowSeconds} (default 10). For each, by the start of the requests:
+ * the greetings and hints sent, their p50 and p95, and their failures split into timeouts of the injector, empty
+ * answers (the llmservice's 200 with no text) and other errors such as its 500. Next to them, from the stand-in's
+ * samples, the most requests waiting for a generation, generating and held at once, and the 429s and 504s it sent;
+ * and from {@link GatewayMemory} the gateway's peak resident and external memory. Requests held upstream grow with
+ * the arrival rate times how long each is held, so a slower or throttled upstream shows as held requests, then
+ * memory, then timeouts. The result is printed and written to {@value #FILE_NAME} in the run directory.
+ *
+ * <pre>
+ * mvnw exec:java -Dexec.mainClass=io.gatling.demo.llm.LlmUpstreamReport -Dexec.classpathScope=test \
+ *     [-Dexec.args=target/gatling/&lt;run&gt;] [-Dllm.samples=target/gatling/llm-upstream.csv] \
+ *     [-Dllm.memory=target/gatling/llm-memory.csv]
+ * </pre>
+ */
+public final class LlmUpstreamReport {
+
+  public static final String FILE_NAME = "llm-upstream.json";
+  public static final String GREETING_REQUEST = "post simplellm";
+  public static final String HINT_REQUEST = "post askllm";
+
+  private static final double MB = 1_000_000.0;
+
+  /**
+   * Requests of one name, with their failures by cause.
+   */
+  static final class Calls {
+    final RequestStats stats = new RequestStats();
+    long timeouts;
+    long empty;
+    long errors;
+
+    void record(long responseTime, boolean ok, String message) {
+      stats.record(responseTime, ok);
+      if (ok) {
+        return;
+      }
+      // "Request timeout to ... after N ms", "jsonPath($.answer).find.exists, found nothing"
+      if (message != null && message.startsWith("Request timeout")) {
+        timeouts++;
+      } else if (message != null && message.endsWith("found nothing")) {
+        empty++;
+      } else {
+        errors++;
+      }
+    }
+  }
+
+  /**
+   * One window of the run.
+   */
+  static final class Window {
+    final long from;
+    final Calls greetings = new Calls();
+    final Calls hints = new Calls();
+    int maxWaiting = -1;
+    int maxGenerating = -1;
+    int maxHeld = -1;
+    long rateLimited;
+    long timedOut;
+    long peakRss = -1;
+    long peakExternal = -1;
+
+    Window(long from) {
+      this.from = from;
+    }
+  }
+
+  private final long windowMillis;
+  private final TreeMap<Long, Window> windows = new TreeMap<>();
+  private final Window total = new Window(0);
+  private String simulation;
+  private long start;
+  private long end;
+
+  public LlmUpstreamReport(long windowMillis) {
+    this.windowMillis = windowMillis;
+  }
+
+  /**
+   * Where {@link LlmUpstreamSimulation} has the stand-in write its samples.
+   */
+  public static Path samplesFile() {
+    return SimulationLog.resultsDirectory().resolve("llm-upstream.csv");
+  }
+
+  /**
+   * Where {@link LlmUpstreamSimulation} has {@link GatewayMemory} write the gateway's memory.
+   */
+  public static Path memoryFile() {
+    return SimulationLog.resultsDirectory().resolve("llm-memory.csv");
+  }
+
+  public void read(Path log) throws IOException {
+    SimulationLog.Run run = SimulationLog.read(log, new SimulationLog.Listener() {
+      @Override
+      public void run(SimulationLog.Run run) {
+        start = run.start;
+      }
+
+      @Override
+      public void request(List<String> groups, String name, long from, long to, boolean ok, String message) {
+        end = Math.max(end, to);
+        Window window = window(from);
+        if (name.equals(GREETING_REQUEST)) {
+          window.greetings.record(to - from, ok, message);
+          total.greetings.record(to - from, ok, message);
+        } else if (name.equals(HINT_REQUEST)) {
+          window.hints.record(to - from, ok, message);
+          total.hints.record(to - from, ok, message);
+        }
+      }
+    });
+    simulation = run.simulationClassName;
+  }
+
+  private Window window(long timestamp) {
+    long from = Math.max(0, timestamp - start) / windowMillis * windowMillis;
+    return windows.computeIfAbsent(from, Window::new);
+  }
+
+  /**
+   * Adds the stand-in's samples, written with {@link MockLlm#SAMPLES_HEADER}. Samples outside of the run, such as
+   * those of an earlier one, are ignored.
+   */
+  public void upstream(Path file) throws IOException {
+    long[] previous = null;
+    for (String line : Files.readAllLines(file)) {
+      if (line.isEmpty() || line.equals(MockLlm.SAMPLES_HEADER)) {
+        continue;
+      }
+      String[] fields = line.split(",");
+      long[] sample = new long[fields.length];
+      for (int i = 0; i < fields.length; i++) {
+        sample[i] = Long.parseLong(fields[i]);
+      }
+      // timestamp, waiting, generating, held, requests, rateLimited, timedOut, answered
+      if (!inRun(sample[0])) {
+        continue;
+      }
+      for (Window window : List.of(window(sample[0]), total)) {
+        window.maxWaiting = Math.max(window.maxWaiting, (int) sample[1]);
+        window.maxGenerating = Math.max(window.maxGenerating, (int) sample[2]);
+        window.maxHeld = Math.max(window.maxHeld, (int) sample[3]);
+        window.rateLimited += sample[5] - (previous == null ? 0 : previous[5]);
+        window.timedOut += sample[6] - (previous == null ? 0 : previous[6]);
+      }
+      previous = sample;
+    }
+  }
+
+  /**
+   * Adds the gateway's memory samples. Samples outside of the run are ignored.
+   */
+  public void memory(List<GatewayMemory.Sample> samples) {
+    for (GatewayMemory.Sample sample : samples) {
+      if (!inRun(sample.timestamp)) {
+        continue;
+      }
+      for (Window window : List.of(window(sample.timestamp), total)) {
+        window.peakRss = Math.max(window.peakRss, sample.rss);
+        window.peakExternal = Math.max(window.peakExternal, sample.external);
+      }
+    }
+  }
+
+  // Samplers start in before(), a little ahead of the run, and stop in after()
+  private boolean inRun(long timestamp) {
+    return timestamp >= start - windowMillis && timestamp <= end + windowMillis;
+  }
+
+  public String text() {
+    StringBuilder out = new StringBuilder();
+    out.append("LLM upstream of ").append(simulation).append(", by ").append(windowMillis / 1000)
+        .append(" s window\n\n");
+    out.append(String.format("  %6s %6s %6s %6s %6s %6s %6s %6s %6s %6s %6s %6s %6s %6s %6s %9s %9s%n", "from",
+        "greet", "p50", "p95", "hints", "p50", "p95", "tmout", "empty", "error", "wait", "gen", "held", "429", "504",
+        "rss MB", "ext MB"));
+    for (Window window : windows.values()) {
+      line(out, String.format("%5ds", window.from / 1000), window);
+    }
+    line(out, "total", total);
+    out.append("\n  in ms; tmout, empty and error count the greetings and hints together; wait, gen and held are")
+        .append(" the most at once upstream\n");
+    return out.toString();
+  }
+
+  private static void line(StringBuilder out, String label, Window window) {
+    out.append(String.format("  %6s %6d %6d %6d %6d %6d %6d %6d %6d %6d %6s %6s %6s %6d %6d %9s %9s%n", label,
+        window.greetings.stats.count(), window.greetings.stats.histogram.percentile(50),
+        window.greetings.stats.histogram.percentile(95), window.hints.stats.count(),
+        window.hints.stats.histogram.percentile(50), window.hints.stats.histogram.percentile(95),
+        window.greetings.timeouts + window.hints.timeouts, window.greetings.empty + window.hints.empty,
+        window.greetings.errors + window.hints.errors, gauge(window.maxWaiting), gauge(window.maxGenerating),
+        gauge(window.maxHeld), window.rateLimited, window.timedOut, megabytes(window.peakRss),
+        megabytes(window.peakExternal)));
+  }
+
+  private static String gauge(int value) {
+    return value < 0 ? "-" : Integer.toString(value);
+  }
+
+  private static String megabytes(long bytes) {
+    return bytes < 0 ? "-" : String.format("%.1f", bytes / MB);
+  }
+
+  public ObjectNode json() {
+    ObjectMapper mapper = new ObjectMapper();
+    ObjectNode root = mapper.createObjectNode();
+    root.put("simulation", simulation);
+    root.put("windowSeconds", windowMillis / 1000);
+    write(root.putObject("total"), total);
+    ArrayNode array = root.putArray("windows");
+    for (Window window : windows.values()) {
+      write(array.addObject().put("fromSeconds", window.from / 1000), window);
+    }
+    return root;
+  }
+
+  private static void write(ObjectNode node, Window window) {
+    write(node.putObject("greetings"), window.greetings);
+    write(node.putObject("hints"), window.hints);
+    node.putObject("upstream")
+        .put("maxWaiting", window.maxWaiting)
+        .put("maxGenerating", window.maxGenerating)
+        .put("maxHeld", window.maxHeld)
+        .put("rateLimited", window.rateLimited)
+        .put("timedOut", window.timedOut);
+    node.putObject("gateway")
+        .put("peakRssBytes", window.peakRss)
+        .put("peakExternalBytes", window.peakExternal);
+  }
+
+  private static void write(ObjectNode node, Calls calls) {
+    node.put("count", calls.stats.count())
+        .put("p50", calls.stats.histogram.percentile(50))
+        .put("p95", calls.stats.histogram.percentile(95))
+        .put("p99", calls.stats.histogram.percentile(99))
+        .put("errorRate", calls.stats.errorRate())
+        .put("timeouts", calls.timeouts)
+        .put("empty", calls.empty)
+        .put("errors", calls.errors);
+  }
+
+  public static void main(String[] args) throws IOException {
+    Path log = SimulationLog.fromArgs(args);
+    LlmUpstreamReport report = new LlmUpstreamReport(Long.getLong("llm.windowSeconds", 10) * 1000);
+    report.read(log);
+    Path samples = Paths.get(System.getProperty("llm.samples", samplesFile().toString()));
+    if (Files.exists(samples)) {
+      report.upstream(samples);
+    }
+    Path memory = Paths.get(System.getProperty("llm.memory", memoryFile().toString()));
+    report.memory(Files.exists(memory) ? GatewayMemory.load(memory) : List.of());
+    Reports.write(log, FILE_NAME, report.text(), report.json());
+  }
+}
@@ -0,0 +1,82 @@
+package io.gatling.demo.mock;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Base64;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Minimal HS256 JSON Web Token support, shaped like the tokens issued by authservice and userservice.
+ */
+final class Jwt {
+
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+  private static final String HEADER = encode("{\"alg\":\"HS256\",\"typ\":\"JWT\"}".getBytes(StandardCharsets.UTF_8));
+
+  private Jwt() {
+  }
+
+  static String sign(String userId, String username, long issuedAtSeconds, long expiresAtSeconds, String secret) {
+    ObjectNode payload = MAPPER.createObjectNode()
+        .put("userId", userId)
+        .put("username", username)
+        .put("iat", issuedAtSeconds)
+        .put("exp", expiresAtSeconds);
+    String unsigned = HEADER + "." + encode(payload.toString().getBytes(StandardCharsets.UTF_8));
+    return unsigned + "." + encode(hmac(unsigned, secret));
+  }
+
+  /**
+   * Returns the token's claims, or {@code null} when it is malformed, or when {@code verify} is set and
+   * its signature or expiry is wrong.
+   */
+  static JsonNode claims(String token, String secret, boolean verify, long nowSeconds) {
+    String[] parts = token.split("\\.");
+    if (parts.length != 3) {
+      return null;
+    }
+    JsonNode claims;
+    try {
+      claims = MAPPER.readTree(Base64.getUrlDecoder().decode(parts[1]));
+    } catch (Exception e) {
+      return null;
+    }
+    if (!claims.hasNonNull("username")) {
+      return null;
+    }
+    if (verify) {
+      byte[] expected = hmac(parts[0] + "." + parts[1], secret);
+      byte[] actual;
+      try {
+        actual = Base64.getUrlDecoder().decode(parts[2]);
+      } catch (IllegalArgumentException e) {
+        return null;
+      }
+      if (!MessageDigest.isEqual(expected, actual) || claims.path("exp").asLong(0) <= nowSeconds) {
+        return null;
+      }
+    }
+    return claims;
+  }
+
+  private static byte[] hmac(String data, String secret) {
+    try {
+      Mac mac = Mac.getInstance("HmacSHA256");
+      mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+      return mac.doFinal(data.getBytes(StandardCharsets.UTF_8));
+    } catch (GeneralSecurityException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private static String encode(byte[] bytes) {
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+  }
+}
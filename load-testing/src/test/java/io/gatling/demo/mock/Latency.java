@@ -0,0 +1,109 @@
+package io.gatling.demo.mock;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import com.typesafe.config.Config;
+
+/**
+ * Response-time distribution of a mocked route, sampled once per request.
+ */
+public abstract class Latency {
+
+  public static final Latency NONE = constant(0);
+
+  /**
+   * Returns the delay to apply before answering, in milliseconds. Never negative.
+   */
+  public abstract long sampleMillis(Random random);
+
+  public static Latency constant(long millis) {
+    return new Latency() {
+      @Override
+      public long sampleMillis(Random random) {
+        return millis;
+      }
+    };
+  }
+
+  public static Latency uniform(long minMillis, long maxMillis) {
+    return new Latency() {
+      @Override
+      public long sampleMillis(Random random) {
+        return minMillis + (long) (random.nextDouble() * (maxMillis - minMillis));
+      }
+    };
+  }
+
+  public static Latency normal(long meanMillis, long stdDevMillis) {
+    return new Latency() {
+      @Override
+      public long sampleMillis(Random random) {
+        return Math.max(0, Math.round(meanMillis + random.nextGaussian() * stdDevMillis));
+      }
+    };
+  }
+
+  /**
+   * Log-normal distribution, the usual shape of service response times: a median plus a long right tail
+   * whose weight is controlled by {@code sigma}.
+   */
+  public static Latency logNormal(long medianMillis, double sigma) {
+    return new Latency() {
+      @Override
+      public long sampleMillis(Random random) {
+        return Math.round(medianMillis * Math.exp(sigma * random.nextGaussian()));
+      }
+    };
+  }
+
+  public static Latency exponential(long meanMillis) {
+    return new Latency() {
+      @Override
+      public long sampleMillis(Random random) {
+        return Math.round(-meanMillis * Math.log(1 - random.nextDouble()));
+      }
+    };
+  }
+
+  /**
+   * This latency less a sample of {@code other}, never below 0: a route's time without the share of it
+   * {@code other} stands for.
+   */
+  public Latency minus(Latency other) {
+    Latency self = this;
+    return new Latency() {
+      @Override
+      public long sampleMillis(Random random) {
+        return Math.max(0, self.sampleMillis(random) - other.sampleMillis(random));
+      }
+    };
+  }
+
+  /**
+   * Reads a latency block such as {@code { distribution = lognormal, median = 40ms, sigma = 0.5 }}.
+   */
+  public static Latency fromConfig(Config config) {
+    String distribution = config.getString("distribution");
+    switch (distribution) {
+      case "none":
+        return NONE;
+      case "constant":
+        return constant(millis(config, "value"));
+      case "uniform":
+        return uniform(millis(config, "min"), millis(config, "max"));
+      case "normal":
+        return normal(millis(config, "mean"), millis(config, "stddev"));
+      case "lognormal":
+        return logNormal(millis(config, "median"), config.getDouble("sigma"));
+      case "exponential":
+        return exponential(millis(config, "mean"));
+      default:
+        throw new IllegalArgumentException("Unknown latency distribution: " + distribution);
+    }
+  }
+
+  private static long millis(Config config, String path) {
+    return config.getDuration(path, TimeUnit.MILLISECONDS);
+  }
+}
@@ -0,0 +1,835 @@
+package io.gatling.demo.mock;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.time.DateTimeException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.gatling.demo.leaderboard.LeaderboardSeed;
+import io.gatling.demo.leaderboard.SeedData;
+
+/**
+ * In-memory stand-in for {@code gatewayservice} and the services behind it.
+ *
+ * <p>It keeps just enough state to answer consistently: registered users, issued questions and their
+ * correct option, recorded answers, the question of the day and per-user game aggregates. Status codes
+ * and error bodies follow the real services so failure paths can be exercised too.
+ */
+public final class MockGateway {
+
+  static final String[] QUESTION_TYPES = {"foods", "monuments", "animals", "flags"};
+  static final Set<String> SORT_FIELDS = Set.of("username", "gamesPlayed", "questionsAnswered", "correctAnswers",
+      "incorrectAnswers", "accuracy", "totalScore", "maxScore", "registrationDate");
+  static final Set<String> GAME_TYPES = Set.of("", "classical", "suddenDeath", "timeTrial", "custom", "qod");
+
+  private static final int ANSWERS_PER_QUESTION = 4;
+  private static final int MAX_REMEMBERED_QUESTIONS = 200_000;
+  private static final int MAX_IMAGE_BYTES = 5 * 1024 * 1024;
+  private static final Pattern USERNAME = Pattern.compile("^[a-zA-Z0-9_-]{3,30}$");
+  private static final Pattern DATE = Pattern.compile("^\\d{4}-\\d{2}-\\d{2}$");
+  private static final Pattern DATE_TIME = Pattern.compile("^\\d{4}-\\d{2}-\\d{2}T\\d{2}:\\d{2}:\\d{2}(\\.\\d{3})?Z$");
+  private static final ZoneId QOD_ZONE = ZoneId.of("Europe/Madrid");
+  private static final int QOD_HOUR = 2;
+  private static final Logger LOGGER = LoggerFactory.getLogger(MockGateway.class);
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+  private static final HttpClient SPARQL_CLIENT = HttpClient.newHttpClient();
+
+  // 1x1 transparent PNG, enough for the browser-side image fetches
+  static final byte[] PNG = Base64.getDecoder().decode(
+      "iVBORw0KGgoAAAANSUhEUgAAAAEAAAABCAQAAAC1HAwCAAAAC0lEQVR42mNkYAAAAAYAAjCB0C8AAAAASUVORK5CYII=");
+
+  private static final class User {
+    final String id;
+    final String username;
+    final String password;
+    final long registrationDate;
+    long gamesPlayed;
+    long questionsAnswered;
+    long correctAnswers;
+    long totalScore;
+    long maxScore;
+    // By game type: games, questions answered, correct answers, total score, max score
+    final Map<String, long[]> games = new HashMap<>();
+
+    User(String id, String username, String password) {
+      this(id, username, password, System.currentTimeMillis());
+    }
+
+    User(String id, String username, String password, long registrationDate) {
+      this.id = id;
+      this.username = username;
+      this.password = password;
+      this.registrationDate = registrationDate;
+    }
+
+    synchronized void record(String gameType, long questions, long correct, long score) {
+      gamesPlayed++;
+      questionsAnswered += questions;
+      correctAnswers += correct;
+      totalScore += score;
+      maxScore = Math.max(maxScore, score);
+      long[] byType = games.computeIfAbsent(gameType, type -> new long[5]);
+      byType[0]++;
+      byType[1] += questions;
+      byType[2] += correct;
+      byType[3] += score;
+      byType[4] = Math.max(byType[4], score);
+    }
+
+    synchronized Map<String, Object> summary() {
+      return summary(gamesPlayed, questionsAnswered, correctAnswers, totalScore, maxScore);
+    }
+
+    /**
+     * The statistics of the games of {@code gameType} alone, {@code null} if the user never played one.
+     */
+    synchronized Map<String, Object> summary(String gameType) {
+      long[] byType = games.get(gameType);
+      return byType == null ? null : summary(byType[0], byType[1], byType[2], byType[3], byType[4]);
+    }
+
+    private Map<String, Object> summary(long played, long answered, long correct, long total, long max) {
+      Map<String, Object> summary = new LinkedHashMap<>();
+      summary.put("_id", id);
+      summary.put("username", username);
+      summary.put("registrationDate", registrationDate);
+      summary.put("gamesPlayed", played);
+      summary.put("questionsAnswered", answered);
+      summary.put("correctAnswers", correct);
+      summary.put("incorrectAnswers", answered - correct);
+      summary.put("accuracy", answered == 0 ? 0 : correct * 100.0 / answered);
+      summary.put("totalScore", total);
+      summary.put("maxScore", max);
+      return summary;
+    }
+  }
+
+  private static final class Question {
+    final String id;
+    final String type;
+    final String topic;
+    final List<String> images;
+    final String correctOption;
+    final Map<String, Map<String, Object>> answers = new ConcurrentHashMap<>();
+
+    Question(String id, String type, String topic, List<String> images, String correctOption) {
+      this.id = id;
+      this.type = type;
+      this.topic = topic;
+      this.images = images;
+      this.correctOption = correctOption;
+    }
+
+    Map<String, Object> publicView() {
+      Map<String, Object> view = new LinkedHashMap<>();
+      view.put("id", id);
+      view.put("imageType", "flags".equals(type) ? "game.imageTypes.flag" : "game.imageTypes.image");
+      view.put("relation", "game.relations.correspondsTo");
+      view.put("topic", topic);
+      view.put("images", images);
+      return view;
+    }
+  }
+
+  private final MockSettings settings;
+  private final AtomicLong ids = new AtomicLong(System.currentTimeMillis() << 20);
+  private final Map<String, User> users = new ConcurrentHashMap<>();
+  private final Map<String, Question> questions = Collections.synchronizedMap(
+      new LinkedHashMap<String, Question>(1024, 0.75f, false) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Question> eldest) {
+          return size() > MAX_REMEMBERED_QUESTIONS;
+        }
+      });
+  private volatile LocalDate qodDay;
+  private volatile Question questionOfTheDay;
+  // WikidataItemRepository: pre-saved items by type, then wikidata id
+  private final Map<String, Map<String, String[]>> pool = new ConcurrentHashMap<>();
+  private ScheduledExecutorService preSaver;
+  // The llmservice behind /askllm and /simplellm, or null to answer them after their route latency
+  private volatile MockLlmService llmService;
+
+  public MockGateway(MockSettings settings) {
+    this.settings = settings;
+    for (String type : QUESTION_TYPES) {
+      Map<String, String[]> items = new ConcurrentHashMap<>();
+      if (settings.questionPoolWarm()) {
+        for (String[] item : MockSparql.sample(type, settings.sparqlItems(), settings.sparqlPopulation(),
+            ThreadLocalRandom.current())) {
+          items.put(item[0], new String[] {item[1], item[2]});
+        }
+      }
+      pool.put(type, items);
+    }
+    SeedData seed = SeedData.fromSystemProperties();
+    Random random = new Random(Long.getLong("seed.seed", 42));
+    for (int i = 1; i <= settings.statisticsSeedUsers(); i++) {
+      SeedData.Player player = seed.player(LeaderboardSeed.username(i), random);
+      User user = new User(nextId(), player.username, "", player.registrationDate);
+      for (SeedData.Game game : player.games) {
+        user.record(game.gameType, game.questionsAnswered, game.correctAnswers, game.score);
+      }
+      users.put(user.username, user);
+    }
+  }
+
+  /**
+   * Starts the pre-save job: once now, as {@code initialRun()} does, then every hour on the hour if enabled.
+   */
+  public synchronized void start() {
+    preSaver = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "mock-gateway-presave");
+      thread.setDaemon(true);
+      return thread;
+    });
+    preSaver.execute(this::preSave);
+    if (settings.questionPoolHourly()) {
+      ZonedDateTime now = ZonedDateTime.now(QOD_ZONE);
+      long delay = Duration.between(now, now.truncatedTo(ChronoUnit.HOURS).plusHours(1)).toMillis();
+      preSaver.scheduleAtFixedRate(this::preSave, delay, Duration.ofHours(1).toMillis(), TimeUnit.MILLISECONDS);
+    }
+  }
+
+  /**
+   * From now on, answers {@code /askllm} and {@code /simplellm} as the llmservice does, calling the LLM API at
+   * {@code upstream} such as a {@link MockLlm}, rather than after their route latency.
+   */
+  public void forwardLlm(String upstream) {
+    llmService = new MockLlmService(upstream);
+  }
+
+  public synchronized void stop() {
+    if (preSaver != null) {
+      preSaver.shutdownNow();
+      preSaver = null;
+    }
+  }
+
+  public MockServer server() {
+    MockServer server = new MockServer("gateway", settings.gatewayPort(), settings.workerThreads(),
+        settings::behaviour);
+    if (!settings.requestLog().isEmpty()) {
+      server.requestLog(Paths.get(settings.requestLog()));
+    }
+    return server
+        .route("GET", "/metrics", request -> metrics(server))
+        .route("GET", "/health", request -> Reply.json(Map.of("status", "OK")))
+        .route("POST", "/login", this::login)
+        .route("POST", "/adduser", this::addUser)
+        .route("GET", "/default-images/:imageName", request -> Reply.bytes("image/png", PNG))
+        .route("GET", "/users/:username/image", this::userImage)
+        .route("PATCH", "/users/:username", authenticated(this::updateUser))
+        .route("POST", "/users/:username/default-image", authenticated(this::defaultImage))
+        .route("POST", "/users/:username/custom-image", authenticated(this::customImage))
+        .route("GET", "/profile/:username", authenticated(this::profile))
+        .route("POST", "/askllm", this::askLlm)
+        .route("POST", "/simplellm", this::simpleLlm)
+        .route("GET", "/question", request -> pooledQuestion(randomType()))
+        .route("GET", "/question/:questionType", this::question)
+        .route("GET", "/question-of-the-day", authenticated(this::questionOfTheDay))
+        .route("POST", "/answer", authenticated(this::answer))
+        .route("GET", "/statistics", authenticated(this::leaderboard))
+        .route("POST", "/statistics", authenticated(this::updateStatistics))
+        .route("POST", "/recordGame", authenticated(this::recordGame))
+        .route("POST", "/mock/rollover", request -> Reply.json(rollOverQuestionOfTheDay().publicView()))
+        .route("POST", "/mock/presave", this::triggerPreSave);
+  }
+
+  /**
+   * A service stand-in, whose routes behave like the gateway routes that forward to them.
+   */
+  private final class Service {
+    final MockServer server;
+    final Map<String, String> gatewayRoutes = new HashMap<>();
+
+    Service(String name) {
+      server = new MockServer(name, settings.servicePort(name), settings.workerThreads(),
+          route -> settings.directBehaviour(gatewayRoutes.getOrDefault(route, route)));
+    }
+
+    Service route(String method, String pattern, String gatewayRoute, MockServer.Handler handler) {
+      gatewayRoutes.put(method + " " + pattern, gatewayRoute);
+      server.route(method, pattern, handler);
+      return this;
+    }
+  }
+
+  /**
+   * Stand-ins for the services behind the gateway, each on its compose port and serving the routes the gateway
+   * forwards to, so that the gateway's own cost can be measured against them. They share this gateway's state.
+   */
+  public List<MockServer> serviceServers() {
+    return List.of(
+        new Service("user")
+            .route("POST", "/adduser", "POST /adduser", this::addUser)
+            .route("GET", "/images/default/:imageName", "GET /default-images/:imageName",
+                request -> Reply.bytes("image/png", PNG))
+            .route("GET", "/users/:username/image", "GET /users/:username/image", this::imagePath)
+            .server,
+        new Service("auth")
+            .route("POST", "/login", "POST /login", this::login)
+            .server,
+        new Service("llm")
+            .route("POST", "/ask", "POST /askllm", this::askLlm)
+            .route("POST", "/simpleMessage", "POST /simplellm", this::simpleLlm)
+            .server,
+        new Service("question")
+            .route("GET", "/question", "GET /question", request -> pooledQuestion(randomType()))
+            .route("GET", "/question/:questionType", "GET /question/:questionType", this::question)
+            .route("GET", "/question-of-the-day", "GET /question-of-the-day",
+                trusted("username", this::questionOfTheDay))
+            .route("POST", "/answer", "POST /answer", trusted("username", this::answer))
+            .server,
+        new Service("statistics")
+            .route("GET", "/statistics", "GET /statistics", this::leaderboard)
+            .route("GET", "/statistics/:username", "GET /profile/:username", trusted("currentuser", this::profile))
+            .route("POST", "/statistics", "POST /statistics", trusted("username", this::updateStatistics))
+            .route("POST", "/recordGame", "POST /recordGame", trusted("username", this::recordGame))
+            .server);
+  }
+
+  /**
+   * The memory gauges of prom-client's default metrics, which the gateway's express-prom-bundle serves. Node's
+   * external memory, where multer buffers uploads, stands for the request bodies the mock holds.
+   */
+  private static Reply metrics(MockServer server) {
+    Runtime runtime = Runtime.getRuntime();
+    long heapUsed = runtime.totalMemory() - runtime.freeMemory();
+    return Reply.text("text/plain; version=0.0.4; charset=utf-8",
+        "# HELP process_resident_memory_bytes Resident memory size in bytes.\n"
+            + "# TYPE process_resident_memory_bytes gauge\n"
+            + "process_resident_memory_bytes " + runtime.totalMemory() + "\n"
+            + "# HELP nodejs_heap_size_used_bytes Process heap size used from Node.js in bytes.\n"
+            + "# TYPE nodejs_heap_size_used_bytes gauge\n"
+            + "nodejs_heap_size_used_bytes " + heapUsed + "\n"
+            + "# HELP nodejs_external_memory_bytes Node.js external memory size in bytes.\n"
+            + "# TYPE nodejs_external_memory_bytes gauge\n"
+            + "nodejs_external_memory_bytes " + server.bufferedBytes() + "\n");
+  }
+
+  private MockServer.Handler authenticated(MockServer.Handler handler) {
+    return request -> {
+      String authorization = request.header("Authorization");
+      if (authorization == null) {
+        return Reply.error(401, "Authorization header missing");
+      }
+      String[] parts = authorization.split(" ");
+      if (parts.length < 2 || parts[1].isEmpty()) {
+        return Reply.error(401, "Token missing");
+      }
+      JsonNode claims = Jwt.claims(parts[1], settings.jwtSecret(),
+          settings.authMode() == MockSettings.AuthMode.VERIFY, System.currentTimeMillis() / 1000);
+      if (claims == null) {
+        return Reply.error(403, "Invalid or expired token");
+      }
+      request.user(claims.get("username").asText());
+      return handler.handle(request);
+    };
+  }
+
+  // The services take the user the gateway authenticated from a header
+  private static MockServer.Handler trusted(String header, MockServer.Handler handler) {
+    return request -> {
+      String user = request.header(header);
+      if (user == null || user.isEmpty()) {
+        return Reply.error(400, "Current user missing in request");
+      }
+      request.user(user);
+      return handler.handle(request);
+    };
+  }
+
+  private Reply login(MockRequest request) {
+    JsonNode body = request.json();
+    String username = body.path("username").asText("");
+    String password = body.path("password").asText("");
+    if (username.isEmpty() || password.isEmpty()) {
+      return Reply.error(400, "logIn.errors.missingFields");
+    }
+    User user = users.get(username);
+    if (user == null && settings.acceptUnknownUsers()) {
+      user = users.computeIfAbsent(username, name -> new User(nextId(), name, password));
+    }
+    if (user == null || !user.password.equals(password)) {
+      return Reply.error(401, "logIn.errors.invalidCredentials");
+    }
+    return Reply.json(session(user));
+  }
+
+  private Reply addUser(MockRequest request) {
+    JsonNode body = request.json();
+    for (String field : new String[] {"username", "password", "confirmpassword"}) {
+      if (body.path(field).asText("").isEmpty()) {
+        return Reply.error(400, "Missing required field: " + field);
+      }
+    }
+    String username = body.get("username").asText();
+    String password = body.get("password").asText();
+    if (!password.equals(body.get("confirmpassword").asText())) {
+      return Reply.error(400, "signUp.errors.passwordsDoNotMatch");
+    }
+    User user = new User(nextId(), username, password);
+    if (users.putIfAbsent(username, user) != null) {
+      return Reply.error(400, "signUp.errors.duplicateUsername");
+    }
+    return Reply.json(session(user));
+  }
+
+  private Map<String, Object> session(User user) {
+    long now = System.currentTimeMillis() / 1000;
+    String token = Jwt.sign(user.id, user.username, now, now + settings.tokenTtl().getSeconds(), settings.jwtSecret());
+    Map<String, Object> session = new LinkedHashMap<>();
+    session.put("token", token);
+    session.put("username", user.username);
+    session.put("createdAt", user.registrationDate);
+    return session;
+  }
+
+  private Reply userImage(MockRequest request) {
+    if (!users.containsKey(request.pathParam("username")) && !settings.acceptUnknownUsers()) {
+      return Reply.error(404, "User not found");
+    }
+    return Reply.bytes("image/png", PNG);
+  }
+
+  // userservice's own route, which gives the path the gateway then fetches the image from
+  private Reply imagePath(MockRequest request) {
+    if (!users.containsKey(request.pathParam("username")) && !settings.acceptUnknownUsers()) {
+      return Reply.error(404, "User not found");
+    }
+    return Reply.json(Map.of("image", "/images/default/image_1.png"));
+  }
+
+  private Reply updateUser(MockRequest request) {
+    if (!request.pathParam("username").equals(request.user())) {
+      return Reply.error(403, "You can only update your own account");
+    }
+    return Reply.json(Map.of("success", false, "message", "No updates applied to the user"));
+  }
+
+  private Reply defaultImage(MockRequest request) {
+    String image = request.json().path("image").asText("");
+    if (image.isEmpty()) {
+      return Reply.error(400, "No default image provided");
+    }
+    return Reply.json(imageUpdated("/images/default/" + image));
+  }
+
+  private Reply customImage(MockRequest request) {
+    String contentType = request.header("Content-Type");
+    String body = new String(request.body(), StandardCharsets.ISO_8859_1);
+    int part = body.indexOf("name=\"image\"");
+    if (contentType == null || !contentType.startsWith("multipart/form-data") || part < 0) {
+      return Reply.error(400, "No image file provided");
+    }
+    int partType = body.indexOf("Content-Type:", part);
+    if (partType < 0 || !body.startsWith("image/", partType + "Content-Type:".length() + 1)) {
+      return Reply.error(400, "profile.errors.invalidImage");
+    }
+    // multer's fileSize limit, whose error the gateway leaves to express's default handler
+    int data = body.indexOf("\r\n\r\n", partType) + 4;
+    if (body.lastIndexOf("\r\n--") - data > MAX_IMAGE_BYTES) {
+      return Reply.error(500, "File too large");
+    }
+    return Reply.json(imageUpdated("/images/custom/" + request.pathParam("username") + ".png"));
+  }
+
+  private static Map<String, Object> imageUpdated(String path) {
+    Map<String, Object> reply = new LinkedHashMap<>();
+    reply.put("success", true);
+    reply.put("message", "Image updated successfully");
+    reply.put("imagePath", path);
+    return reply;
+  }
+
+  private Reply profile(MockRequest request) {
+    String target = request.pathParam("username");
+    if (!USERNAME.matcher(target).matches()) {
+      return Reply.error(400, "Invalid username format");
+    }
+    User user = settings.acceptUnknownUsers()
+        ? users.computeIfAbsent(target, name -> new User(nextId(), name, ""))
+        : users.get(target);
+    if (user == null) {
+      return Reply.error(404, "statistics.errors.userNotFound");
+    }
+    Map<String, Object> summary = user.summary();
+    Map<String, Object> profile = new LinkedHashMap<>();
+    profile.put("username", user.username);
+    profile.put("gamesPlayed", summary.get("gamesPlayed"));
+    profile.put("registrationDate", user.registrationDate);
+    profile.put("totalVisits", 0);
+    profile.put("globalStatistics", summary);
+    boolean owner = target.equals(request.user());
+    if (owner) {
+      profile.put("recentVisitors", List.of());
+    }
+    profile.put("isProfileOwner", owner);
+    return Reply.json(profile);
+  }
+
+  private Reply askLlm(MockRequest request) {
+    JsonNode body = request.json();
+    if (body.path("gameQuestion").asText("").isEmpty() || body.path("userQuestion").asText("").isEmpty()) {
+      return Reply.json(400, Map.of("errors", List.of(Map.of("msg", "The game question is required"))));
+    }
+    MockLlmService forward = llmService;
+    if (forward != null) {
+      return Reply.later(forward.ask(body.path("gameQuestion").asText(), body.path("userQuestion").asText()));
+    }
+    return Reply.json(Map.of("answer", "Think about where you would usually find it. That should narrow it down."));
+  }
+
+  private Reply simpleLlm(MockRequest request) {
+    String message = request.json().path("message").asText("");
+    if (message.isEmpty()) {
+      return Reply.json(400, Map.of("errors", List.of(Map.of("msg", "The message is required"))));
+    }
+    MockLlmService forward = llmService;
+    if (forward != null) {
+      return Reply.later(forward.simpleMessage(message));
+    }
+    return Reply.json(Map.of("response", "Welcome to WiChat! Log in and see how many images you can guess today."));
+  }
+
+  private Reply question(MockRequest request) {
+    String type = request.pathParam("questionType");
+    if ("random".equals(type)) {
+      type = randomType();
+    }
+    if (!List.of(QUESTION_TYPES).contains(type)) {
+      return Reply.error(500, "Failed to fetch question");
+    }
+    return pooledQuestion(type);
+  }
+
+  // getQuestionAndImages(): four random pre-saved items, one of them the answer
+  private Reply pooledQuestion(String type) {
+    List<String[]> items = new ArrayList<>(pool.get(type).values());
+    if (items.size() < ANSWERS_PER_QUESTION) {
+      // "Not enough items found"
+      return Reply.error(500, "Failed to fetch question");
+    }
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    List<String> labels = new ArrayList<>(ANSWERS_PER_QUESTION);
+    List<String> images = new ArrayList<>(ANSWERS_PER_QUESTION);
+    for (int i = 0; i < ANSWERS_PER_QUESTION; i++) {
+      String[] item = items.remove(random.nextInt(items.size()));
+      labels.add(item[0]);
+      images.add(item[1]);
+    }
+    int chosen = random.nextInt(ANSWERS_PER_QUESTION);
+    Question question = new Question(nextId(), type, labels.get(chosen), images, images.get(chosen));
+    questions.put(question.id, question);
+    return Reply.json(question.publicView());
+  }
+
+  /**
+   * Runs the pre-save job now. With {@code ?cold=true} the pool is emptied first, as after a fresh deployment.
+   */
+  private Reply triggerPreSave(MockRequest request) {
+    if ("true".equals(request.query("cold"))) {
+      pool.values().forEach(Map::clear);
+    }
+    synchronized (this) {
+      if (preSaver == null) {
+        return Reply.error(503, "The mock gateway is not started");
+      }
+      preSaver.execute(this::preSave);
+    }
+    return Reply.json(Map.of("message", "Pre-save started"));
+  }
+
+  // preSaveWikidataItems(): one SPARQL query per type, upserted into the pool by wikidata id
+  private void preSave() {
+    long start = System.currentTimeMillis();
+    int fetched = 0;
+    for (String type : QUESTION_TYPES) {
+      String query = "SELECT ?item ?itemLabel ?image WHERE { ?item wdt:P31 wd:" + MockSparql.TYPE_CLASSES.get(type)
+          + "; wdt:P18 ?image. } LIMIT " + settings.sparqlItems();
+      try {
+        HttpResponse<String> response = SPARQL_CLIENT.send(HttpRequest.newBuilder(URI.create(
+            "http://localhost:" + settings.sparqlPort() + "/sparql?format=json&query="
+                + URLEncoder.encode(query, StandardCharsets.UTF_8))).build(), HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+          throw new IOException("SPARQL endpoint answered " + response.statusCode());
+        }
+        Map<String, String[]> items = pool.get(type);
+        for (JsonNode binding : MAPPER.readTree(response.body()).path("results").path("bindings")) {
+          String id = binding.path("item").path("value").asText();
+          items.put(id.substring(id.lastIndexOf('/') + 1), new String[] {
+              binding.path("itemLabel").path("value").asText(), binding.path("image").path("value").asText()});
+          fetched++;
+        }
+      } catch (IOException e) {
+        LOGGER.warn("Mock pre-save of {} failed: {}", type, e.toString());
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      }
+    }
+    LOGGER.info("Mock pre-save fetched {} items in {} ms", fetched, System.currentTimeMillis() - start);
+  }
+
+  private Reply questionOfTheDay(MockRequest request) {
+    Question question = currentQuestionOfTheDay();
+    Map<String, Object> view = question.publicView();
+    view.put("recordedAnswer", question.answers.get(request.user()));
+    return Reply.json(view);
+  }
+
+  private Reply answer(MockRequest request) {
+    JsonNode body = request.json();
+    String questionId = body.path("questionId").asText("");
+    String answer = body.path("answer").asText("");
+    if (questionId.isEmpty() || answer.isEmpty()) {
+      return Reply.json(400, Map.of("errors", List.of(Map.of("msg", "The question id and answer are required"))));
+    }
+    Question question = questions.get(questionId);
+    if (question == null) {
+      Question qod = questionOfTheDay;
+      question = qod != null && qod.id.equals(questionId) ? qod : null;
+    }
+    if (question == null) {
+      // questionRepository.getCorrectOption() resolves to false for unknown ids
+      return Reply.json(Map.of("correct", false, "correctOption", false));
+    }
+    Map<String, Object> recorded = question.answers.get(request.user());
+    if (recorded == null) {
+      Map<String, Object> created = new LinkedHashMap<>();
+      created.put("questionId", questionId);
+      created.put("username", request.user());
+      created.put("answer", answer);
+      created.put("isCorrect", answer.equals(question.correctOption));
+      created.put("correctOption", question.correctOption);
+      recorded = question.answers.putIfAbsent(request.user(), created);
+      if (recorded == null) {
+        recorded = created;
+      }
+    }
+    return Reply.json(Map.of("correct", recorded.get("isCorrect"), "correctOption", recorded.get("correctOption")));
+  }
+
+  private Reply leaderboard(MockRequest request) {
+    String sort = valueOr(request.query("sort"), "totalScore");
+    String order = valueOr(request.query("order"), "desc");
+    String gameType = request.query("gameType");
+    if (!SORT_FIELDS.contains(sort)) {
+      return Reply.error(400, "Invalid sort field");
+    }
+    if (!"asc".equals(order) && !"desc".equals(order)) {
+      return Reply.error(400, "Invalid sort order");
+    }
+    if (gameType != null && !GAME_TYPES.contains(gameType)) {
+      return Reply.error(400, "Invalid game type");
+    }
+    int limit;
+    int offset;
+    try {
+      limit = Integer.parseInt(valueOr(request.query("limit"), "50"));
+      offset = Integer.parseInt(valueOr(request.query("offset"), "0"));
+    } catch (NumberFormatException e) {
+      return Reply.error(400, "Invalid limit value, must be between 1 and 100");
+    }
+    if (limit < 1 || limit > 100) {
+      return Reply.error(400, "Invalid limit value, must be between 1 and 100");
+    }
+    if (offset < 0) {
+      return Reply.error(400, "Invalid offset value, must be non-negative");
+    }
+    String minGames = request.query("minGames");
+    String minScore = request.query("minScore");
+    if (minGames != null && nonNegative(minGames) < 0) {
+      return Reply.error(400, "Invalid minimum games value");
+    }
+    if (minScore != null && nonNegative(minScore) < 0) {
+      return Reply.error(400, "Invalid minimum score value");
+    }
+    String registeredBefore = request.query("registeredBefore");
+    String registeredAfter = request.query("registeredAfter");
+    long before = registeredBefore == null ? Long.MAX_VALUE : dateMillis(registeredBefore);
+    long after = registeredAfter == null ? Long.MIN_VALUE : dateMillis(registeredAfter);
+    if (before == -1) {
+      return Reply.error(400, "Invalid registeredBefore date format");
+    }
+    if (after == -1) {
+      return Reply.error(400, "Invalid registeredAfter date format");
+    }
+
+    // The service's pipeline: registration and game type match, per-type stats, then minGames and minScore
+    String type = gameType == null || gameType.isEmpty() ? null : gameType;
+    double gamesAtLeast = minGames == null || minGames.isEmpty() ? 0 : nonNegative(minGames);
+    double scoreAtLeast = minScore == null || minScore.isEmpty() ? 0 : nonNegative(minScore);
+    List<Map<String, Object>> rows = users.values().stream()
+        .filter(user -> user.registrationDate < before && user.registrationDate >= after)
+        .map(user -> type == null ? user.summary() : user.summary(type))
+        .filter(row -> row != null && ((Number) row.get("gamesPlayed")).doubleValue() >= gamesAtLeast
+            && ((Number) row.get("totalScore")).doubleValue() >= scoreAtLeast)
+        .collect(Collectors.toList());
+    Comparator<Map<String, Object>> comparator = Comparator.comparing(row -> comparable(row.get(sort)));
+    if ("desc".equals(order)) {
+      comparator = comparator.reversed();
+    }
+    List<Map<String, Object>> page = rows.stream().sorted(comparator).skip(offset).limit(limit)
+        .collect(Collectors.toList());
+
+    Map<String, Object> pagination = new LinkedHashMap<>();
+    pagination.put("total", rows.size());
+    pagination.put("limit", limit);
+    pagination.put("offset", offset);
+    pagination.put("hasMore", offset + page.size() < rows.size());
+    return Reply.json(Map.of("users", page, "pagination", pagination));
+  }
+
+  // A number >= 0, or -1 when isNaN(Number(value)) || Number(value) < 0 would reject it
+  private static double nonNegative(String value) {
+    if (value.isBlank()) {
+      return 0;
+    }
+    try {
+      double number = Double.parseDouble(value.trim());
+      return number >= 0 ? number : -1;
+    } catch (NumberFormatException e) {
+      return -1;
+    }
+  }
+
+  // Epoch millis of a yyyy-mm-dd or yyyy-mm-ddTHH:MM:SS(.sss)Z date, as isValidDateString accepts, or -1
+  private static long dateMillis(String value) {
+    try {
+      if (DATE.matcher(value).matches()) {
+        return LocalDate.parse(value).atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli();
+      }
+      if (DATE_TIME.matcher(value).matches()) {
+        return Instant.parse(value).toEpochMilli();
+      }
+    } catch (DateTimeException e) {
+      return -1;
+    }
+    return -1;
+  }
+
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  private static Comparable<Object> comparable(Object value) {
+    return (Comparable) (value instanceof Number ? Double.valueOf(((Number) value).doubleValue()) : String.valueOf(value));
+  }
+
+  private Reply updateStatistics(MockRequest request) {
+    User user = users.get(request.user());
+    if (user == null) {
+      return Reply.error(404, "statistics.errors.userNotFound");
+    }
+    JsonNode body = request.json();
+    synchronized (user) {
+      user.gamesPlayed += body.path("gamesPlayed").asLong(0);
+      user.questionsAnswered += body.path("questionsAnswered").asLong(0);
+      user.correctAnswers += body.path("correctAnswers").asLong(0);
+    }
+    Map<String, Object> summary = user.summary();
+    Map<String, Object> reply = new LinkedHashMap<>();
+    reply.put("gamesPlayed", summary.get("gamesPlayed"));
+    reply.put("questionsAnswered", summary.get("questionsAnswered"));
+    reply.put("correctAnswers", summary.get("correctAnswers"));
+    reply.put("incorrectAnswers", summary.get("incorrectAnswers"));
+    return Reply.json(reply);
+  }
+
+  private Reply recordGame(MockRequest request) {
+    User user = users.get(request.user());
+    if (user == null) {
+      return Reply.error(404, "statistics.errors.userNotFound");
+    }
+    JsonNode game = request.json();
+    user.record(game.path("gameType").asText("classical"), game.path("questionsAnswered").asLong(0),
+        game.path("correctAnswers").asLong(0), game.path("score").asLong(0));
+    return Reply.json(Map.of("message", "Game recorded successfully"));
+  }
+
+  private Question newQuestion(String type) {
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    List<String> images = new ArrayList<>(ANSWERS_PER_QUESTION);
+    List<String> labels = new ArrayList<>(ANSWERS_PER_QUESTION);
+    for (int i = 0; i < ANSWERS_PER_QUESTION; i++) {
+      int item = random.nextInt(200);
+      labels.add(type + " item " + item);
+      images.add("http://commons.wikimedia.org/wiki/Special:FilePath/Mock%20" + type + "%20" + item + ".svg");
+    }
+    int chosen = random.nextInt(ANSWERS_PER_QUESTION);
+    Question question = new Question(nextId(), type, labels.get(chosen), images, images.get(chosen));
+    questions.put(question.id, question);
+    return question;
+  }
+
+  // quest-service.js sets a new one at 02:00 Europe/Madrid, so its day starts then
+  private Question currentQuestionOfTheDay() {
+    LocalDate today = ZonedDateTime.now(QOD_ZONE).minusHours(QOD_HOUR).toLocalDate();
+    Question question = questionOfTheDay;
+    if (question == null || !today.equals(qodDay)) {
+      synchronized (this) {
+        if (questionOfTheDay == null || !today.equals(qodDay)) {
+          questionOfTheDay = newQuestion(randomType());
+          qodDay = today;
+        }
+        question = questionOfTheDay;
+      }
+    }
+    return question;
+  }
+
+  /**
+   * What the questionservice's cron does at 02:00, on demand, so rollover tests need not wait for it.
+   */
+  private synchronized Question rollOverQuestionOfTheDay() {
+    currentQuestionOfTheDay();
+    questionOfTheDay = newQuestion(randomType());
+    return questionOfTheDay;
+  }
+
+  private static String randomType() {
+    return QUESTION_TYPES[ThreadLocalRandom.current().nextInt(QUESTION_TYPES.length)];
+  }
+
+  // 24 hex digits, shaped like the Mongo ObjectIds the real services return
+  private String nextId() {
+    return String.format("%024x", ids.incrementAndGet());
+  }
+
+  private static String valueOr(String value, String fallback) {
+    return value == null || value.isEmpty() ? fallback : value;
+  }
+}
@@ -0,0 +1,371 @@
+package io.gatling.demo.mock;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import com.typesafe.config.Config;
+
+/**
+ * Stand-in for the LLM APIs the llmservice calls: Gemini's {@code generateContent}, as {@code GeminiController}
+ * sends it, and the OpenAI-style chat completions of Empathy, as {@code EmpathyController} does. Point the real
+ * llmservice at it with {@code GEMINI_API_URL=http://<host>:8020} and {@code EMPATHY_API_URL=http://<host>:8020}
+ * (the API keys can be anything), or run the mock's gateway through it with {@link MockWiChat#startLlm(Path)}.
+ *
+ * <p>Configured by {@code mock.llm}. A request over the quota of {@code rateLimit.requestsPerMinute}, or picked at
+ * random by {@code rateLimit.errorRate}, gets a 429 at once, as the providers send it. Of the others, a share of
+ * {@code timeout.rate} never gets an answer: they are held for {@code timeout.after} and get a 504. The rest wait
+ * for one of the {@code maxConcurrent} generations in order of arrival, then get the status and headers after the
+ * time to first byte {@code ttfb}, and the {@code tokens} of the text streamed at {@code tokensPerSecond}. Whoever
+ * calls it holds the request for all of that. With a samples file, the requests waiting, generating and held, and
+ * the counts of requests, 429s, 504s and answers so far are appended to it every {@code sampleMillis}.
+ *
+ * <p>It can also be run on its own with {@code mvnw exec:java -Dexec.mainClass=io.gatling.demo.mock.MockLlm}.
+ */
+public final class MockLlm {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(MockLlm.class);
+
+  public static final String SAMPLES_HEADER = "timestamp,waiting,generating,held,requests,rateLimited,timedOut,answered";
+
+  // Tokens are written in batches of about this period, not one by one
+  private static final long TICK_MILLIS = 50;
+
+  private static final String[] WORDS = {"think", "about", "where", "you", "would", "usually", "find", "it", "the",
+      "colours", "shape", "and", "size", "of", "what", "is", "shown", "may", "help", "narrow", "down", "answer",
+      "look", "closely", "at", "each", "image", "before", "choosing", "one"};
+
+  /**
+   * The {@code mock.llm} block.
+   */
+  public static final class Settings {
+    final int port;
+    final Latency ttfb;
+    final double tokensPerSecond;
+    final int minTokens;
+    final int maxTokens;
+    final int maxConcurrent;
+    final int requestsPerMinute;
+    final double rateLimitErrorRate;
+    final Duration retryAfter;
+    final double timeoutRate;
+    final Duration timeoutAfter;
+    final long sampleMillis;
+
+    /**
+     * @param latencyEnabled false to answer at once, whatever the time to first byte and token rate
+     */
+    Settings(Config config, boolean latencyEnabled) {
+      this.port = config.getInt("port");
+      this.ttfb = latencyEnabled ? Latency.fromConfig(config.getConfig("ttfb")) : Latency.NONE;
+      this.tokensPerSecond = latencyEnabled ? config.getDouble("tokensPerSecond") : 0;
+      this.minTokens = config.getInt("tokens.min");
+      this.maxTokens = Math.max(minTokens, config.getInt("tokens.max"));
+      this.maxConcurrent = config.getInt("maxConcurrent");
+      this.requestsPerMinute = config.getInt("rateLimit.requestsPerMinute");
+      this.rateLimitErrorRate = config.getDouble("rateLimit.errorRate");
+      this.retryAfter = config.getDuration("rateLimit.retryAfter");
+      this.timeoutRate = config.getDouble("timeout.rate");
+      this.timeoutAfter = config.getDuration("timeout.after");
+      this.sampleMillis = config.getDuration("sampleMillis", TimeUnit.MILLISECONDS);
+    }
+
+    public int port() {
+      return port;
+    }
+  }
+
+  // The two APIs, by the body they wrap the text in
+  private enum Api {
+    GEMINI("{\"candidates\":[{\"content\":{\"parts\":[{\"text\":\"",
+        "\"}],\"role\":\"model\"},\"finishReason\":\"STOP\",\"index\":0}]}",
+        "{\"error\":{\"code\":%d,\"message\":\"%s\",\"status\":\"%s\"}}"),
+    OPENAI("{\"id\":\"chatcmpl-mock\",\"object\":\"chat.completion\",\"choices\":[{\"index\":0,"
+        + "\"message\":{\"role\":\"assistant\",\"content\":\"", "\"},\"finish_reason\":\"stop\"}]}",
+        "{\"error\":{\"code\":%d,\"message\":\"%s\",\"type\":\"%s\"}}");
+
+    final byte[] prefix;
+    final byte[] suffix;
+    final String error;
+
+    Api(String prefix, String suffix, String error) {
+      this.prefix = prefix.getBytes(StandardCharsets.UTF_8);
+      this.suffix = suffix.getBytes(StandardCharsets.UTF_8);
+      this.error = error;
+    }
+
+    byte[] error(int status, String message, String kind) {
+      return String.format(error, status, message, kind).getBytes(StandardCharsets.UTF_8);
+    }
+  }
+
+  private final Settings settings;
+  private final AtomicLong requests = new AtomicLong();
+  private final AtomicLong rateLimited = new AtomicLong();
+  private final AtomicLong timedOut = new AtomicLong();
+  private final AtomicLong answered = new AtomicLong();
+  private final AtomicInteger generating = new AtomicInteger();
+  private final AtomicInteger held = new AtomicInteger();
+  // Requests waiting for a generation, and the quota window; guarded by this
+  private final Deque<Runnable> waiting = new ArrayDeque<>();
+  private long windowStart;
+  private int windowRequests;
+
+  private HttpServer server;
+  private ExecutorService workers;
+  private ScheduledExecutorService scheduler;
+  private Path samplesFile;
+  private BufferedWriter samples;
+
+  public MockLlm(Settings settings) {
+    this.settings = settings;
+  }
+
+  /**
+   * Appends a sample to {@code file} every {@code sampleMillis} from the next {@link #start()}.
+   */
+  public MockLlm samples(Path file) {
+    this.samplesFile = file;
+    return this;
+  }
+
+  public synchronized void start() throws IOException {
+    if (server != null) {
+      return;
+    }
+    workers = Executors.newCachedThreadPool(threadFactory("worker"));
+    scheduler = Executors.newScheduledThreadPool(4, threadFactory("stream"));
+    if (samplesFile != null) {
+      if (samplesFile.getParent() != null) {
+        Files.createDirectories(samplesFile.getParent());
+      }
+      samples = Files.newBufferedWriter(samplesFile);
+      samples.write(SAMPLES_HEADER);
+      samples.newLine();
+      scheduler.scheduleAtFixedRate(this::sample, 0, settings.sampleMillis, TimeUnit.MILLISECONDS);
+    }
+    server = HttpServer.create(new InetSocketAddress(settings.port), 1024);
+    server.setExecutor(workers);
+    server.createContext("/", this::handle);
+    server.start();
+    LOGGER.info("LLM stand-in listening on http://localhost:{}", settings.port);
+  }
+
+  public synchronized void stop() {
+    if (server == null) {
+      return;
+    }
+    server.stop(0);
+    scheduler.shutdownNow();
+    workers.shutdownNow();
+    if (samples != null) {
+      sample();
+      try {
+        samples.close();
+      } catch (IOException e) {
+        LOGGER.warn("Could not close {}", samplesFile, e);
+      }
+      samples = null;
+    }
+    server = null;
+  }
+
+  public String url() {
+    return "http://localhost:" + settings.port;
+  }
+
+  private void handle(HttpExchange exchange) {
+    try (InputStream in = exchange.getRequestBody()) {
+      in.readAllBytes();
+    } catch (IOException e) {
+      exchange.close();
+      return;
+    }
+    String path = exchange.getRequestURI().getPath();
+    Api api;
+    if (path.startsWith("/v1beta/models/") && path.endsWith(":generateContent")) {
+      api = Api.GEMINI;
+    } else if (path.equals("/v1/chat/completions")) {
+      api = Api.OPENAI;
+    } else {
+      reply(exchange, 404, Api.GEMINI.error(404, "Not found", "NOT_FOUND"));
+      return;
+    }
+    if (!"POST".equals(exchange.getRequestMethod())) {
+      reply(exchange, 405, api.error(405, "Method not allowed", "INVALID_ARGUMENT"));
+      return;
+    }
+    requests.incrementAndGet();
+    Random random = ThreadLocalRandom.current();
+    if (overQuota() || (settings.rateLimitErrorRate > 0 && random.nextDouble() < settings.rateLimitErrorRate)) {
+      rateLimited.incrementAndGet();
+      exchange.getResponseHeaders().set("Retry-After", Long.toString(settings.retryAfter.getSeconds()));
+      reply(exchange, 429, api.error(429, "Resource has been exhausted (e.g. check quota).", "RESOURCE_EXHAUSTED"));
+      return;
+    }
+    held.incrementAndGet();
+    if (settings.timeoutRate > 0 && random.nextDouble() < settings.timeoutRate) {
+      scheduler.schedule(() -> {
+        timedOut.incrementAndGet();
+        held.decrementAndGet();
+        reply(exchange, 504, api.error(504, "Deadline exceeded", "DEADLINE_EXCEEDED"));
+      }, settings.timeoutAfter.toMillis(), TimeUnit.MILLISECONDS);
+      return;
+    }
+    Runnable generation = () -> generate(exchange, api);
+    synchronized (this) {
+      if (settings.maxConcurrent > 0 && generating.get() >= settings.maxConcurrent) {
+        waiting.add(generation);
+        return;
+      }
+      generating.incrementAndGet();
+    }
+    generation.run();
+  }
+
+  // A fixed window of a minute, as the providers count requests per minute
+  private synchronized boolean overQuota() {
+    if (settings.requestsPerMinute <= 0) {
+      return false;
+    }
+    long now = System.currentTimeMillis();
+    if (now - windowStart >= 60_000) {
+      windowStart = now;
+      windowRequests = 0;
+    }
+    return ++windowRequests > settings.requestsPerMinute;
+  }
+
+  private void generate(HttpExchange exchange, Api api) {
+    Random random = ThreadLocalRandom.current();
+    long ttfb = settings.ttfb.sampleMillis(random);
+    int tokens = settings.minTokens + random.nextInt(settings.maxTokens - settings.minTokens + 1);
+    scheduler.schedule(() -> {
+      try {
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=UTF-8");
+        exchange.sendResponseHeaders(200, 0);
+        OutputStream out = exchange.getResponseBody();
+        out.write(api.prefix);
+        out.flush();
+        stream(exchange, out, api, tokens, true);
+      } catch (IOException e) {
+        finish(exchange, false);
+      }
+    }, ttfb, TimeUnit.MILLISECONDS);
+  }
+
+  private void stream(HttpExchange exchange, OutputStream out, Api api, int remaining, boolean first) {
+    try {
+      int batch = settings.tokensPerSecond <= 0 ? remaining
+          : (int) Math.max(1, Math.min(remaining, Math.round(settings.tokensPerSecond * TICK_MILLIS / 1000.0)));
+      StringBuilder text = new StringBuilder();
+      Random random = ThreadLocalRandom.current();
+      for (int i = 0; i < batch; i++) {
+        text.append(first && i == 0 ? "" : " ").append(WORDS[random.nextInt(WORDS.length)]);
+      }
+      int left = remaining - batch;
+      if (left == 0) {
+        text.append('.');
+      }
+      out.write(text.toString().getBytes(StandardCharsets.UTF_8));
+      out.flush();
+      if (left > 0) {
+        long delay = Math.round(batch * 1000 / settings.tokensPerSecond);
+        scheduler.schedule(() -> stream(exchange, out, api, left, false), delay, TimeUnit.MILLISECONDS);
+        return;
+      }
+      out.write(api.suffix);
+      out.close();
+      finish(exchange, true);
+    } catch (IOException e) {
+      finish(exchange, false);
+    }
+  }
+
+  // Frees the generation for the next request waiting
+  private void finish(HttpExchange exchange, boolean ok) {
+    exchange.close();
+    held.decrementAndGet();
+    if (ok) {
+      answered.incrementAndGet();
+    }
+    Runnable next;
+    synchronized (this) {
+      next = waiting.poll();
+      if (next == null) {
+        generating.decrementAndGet();
+      }
+    }
+    if (next != null) {
+      next.run();
+    }
+  }
+
+  private static void reply(HttpExchange exchange, int status, byte[] body) {
+    try {
+      exchange.getResponseHeaders().set("Content-Type", "application/json; charset=UTF-8");
+      exchange.sendResponseHeaders(status, body.length);
+      try (OutputStream out = exchange.getResponseBody()) {
+        out.write(body);
+      }
+    } catch (IOException e) {
+      LOGGER.debug("Client went away before the reply was sent", e);
+    } finally {
+      exchange.close();
+    }
+  }
+
+  private synchronized void sample() {
+    if (samples == null) {
+      return;
+    }
+    try {
+      samples.write(System.currentTimeMillis() + "," + waiting.size() + "," + generating.get() + "," + held.get() + ","
+          + requests.get() + "," + rateLimited.get() + "," + timedOut.get() + "," + answered.get());
+      samples.newLine();
+      samples.flush();
+    } catch (IOException e) {
+      LOGGER.debug("Could not write a sample to {}", samplesFile, e);
+    }
+  }
+
+  private ThreadFactory threadFactory(String role) {
+    AtomicInteger counter = new AtomicInteger();
+    return runnable -> {
+      Thread thread = new Thread(runnable, "mock-llm-" + role + "-" + counter.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    };
+  }
+
+  public static void main(String[] args) throws Exception {
+    MockLlm llm = new MockLlm(MockWiChat.settings().llm());
+    llm.start();
+    System.out.println("LLM stand-in running on " + llm.url() + ": start llmservice with GEMINI_API_URL="
+        + llm.url() + " and EMPATHY_API_URL=" + llm.url() + ". Press Ctrl+C to stop.");
+    Runtime.getRuntime().addShutdownHook(new Thread(llm::stop));
+    Thread.currentThread().join();
+  }
+}
@@ -0,0 +1,117 @@
+package io.gatling.demo.mock;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * What the llmservice does with {@code /ask} and {@code /simpleMessage}, calling an LLM API such as
+ * {@link MockLlm}, for the mock gateway to forward its {@code /askllm} and {@code /simplellm} to.
+ *
+ * <p>Like {@code llm-service.js}, it starts with {@code GeminiController} and keeps the current controller in one
+ * shared index. A hint races the controller against a 10 second timeout; on an error, a timeout or an empty answer
+ * it moves every caller on to the next controller, and answers a 500 once both have failed. The upstream call a
+ * timeout gave up on is not cancelled, as {@code Promise.race} does not cancel it either. A greeting goes to the
+ * current controller without a timeout, and the controllers swallow errors, so a failed one is a 200 with
+ * {@code {}}.
+ */
+final class MockLlmService {
+
+  static final Duration CONTROLLERS_TIMEOUT = Duration.ofSeconds(10);
+
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+  private static final String GEMINI = "/v1beta/models/gemini-2.0-flash:generateContent?key=mock";
+  private static final String EMPATHY = "/v1/chat/completions";
+  // LLM_CONTROLLERS = [empathyController, geminiController], currentControllerIndex = 1
+  private static final int CONTROLLERS = 2;
+
+  private final String upstream;
+  private final HttpClient client = HttpClient.newBuilder()
+      .version(HttpClient.Version.HTTP_1_1)
+      .connectTimeout(Duration.ofSeconds(5)).build();
+  private final AtomicInteger controller = new AtomicInteger(1);
+
+  MockLlmService(String upstream) {
+    this.upstream = upstream;
+  }
+
+  CompletableFuture<Reply> ask(String gameQuestion, String userQuestion) {
+    return attempt(gameQuestion, userQuestion, 0);
+  }
+
+  private CompletableFuture<Reply> attempt(String gameQuestion, String userQuestion, int attempts) {
+    int index = controller.get();
+    return send(index, "Hints about the hidden answer of: " + gameQuestion, userQuestion).copy()
+        .orTimeout(CONTROLLERS_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS)
+        .handle((text, error) -> text)
+        .thenCompose(text -> {
+          if (text != null) {
+            return CompletableFuture.completedFuture(Reply.json(Map.of("answer", text)));
+          }
+          controller.updateAndGet(current -> (current + 1) % CONTROLLERS);
+          if (attempts + 1 == CONTROLLERS) {
+            return CompletableFuture.completedFuture(
+                Reply.error(500, "An error occurred while processing the request."));
+          }
+          return attempt(gameQuestion, userQuestion, attempts + 1);
+        });
+  }
+
+  CompletableFuture<Reply> simpleMessage(String message) {
+    return send(controller.get(), null, message)
+        .handle((text, error) -> text == null ? Reply.json(Map.of()) : Reply.json(Map.of("response", text)));
+  }
+
+  // The text the controller gets back, or null when it would return undefined
+  private CompletableFuture<String> send(int index, String system, String user) {
+    boolean gemini = index == 1;
+    ObjectNode body = MAPPER.createObjectNode();
+    if (gemini) {
+      ArrayNode contents = body.putArray("contents");
+      if (system != null) {
+        contents.addObject().put("role", "model").putArray("parts").addObject().put("text", system);
+      }
+      contents.addObject().put("role", system == null ? "model" : "user").putArray("parts").addObject()
+          .put("text", user);
+      body.putObject("generationConfig").put("temperature", 0.5).put("responseMimeType", "text/plain");
+    } else {
+      body.put("model", "mistralai/Mistral-7B-Instruct-v0.3");
+      ArrayNode messages = body.putArray("messages");
+      if (system != null) {
+        messages.addObject().put("role", "system").put("content", system);
+      }
+      messages.addObject().put("role", "user").put("content", user);
+    }
+    HttpRequest request = HttpRequest.newBuilder(URI.create(upstream + (gemini ? GEMINI : EMPATHY)))
+        .header("Content-Type", "application/json")
+        .header("Authorization", "Bearer mock")
+        .POST(HttpRequest.BodyPublishers.ofString(body.toString()))
+        .build();
+    return client.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray()).thenApply(response -> {
+      if (response.statusCode() / 100 != 2) {
+        return null;
+      }
+      try {
+        JsonNode json = MAPPER.readTree(response.body());
+        JsonNode text = gemini
+            ? json.path("candidates").path(0).path("content").path("parts").path(0).path("text")
+            : json.path("choices").path(0).path("message").path("content");
+        return text.isTextual() ? text.asText() : null;
+      } catch (IOException e) {
+        return null;
+      }
+    });
+  }
+}
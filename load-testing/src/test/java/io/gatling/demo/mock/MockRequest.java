@@ -0,0 +1,105 @@
+package io.gatling.demo.mock;
+
+import java.io.IOException;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.Headers;
+
+/**
+ * An incoming request as seen by a {@link MockServer.Handler}.
+ */
+public final class MockRequest {
+
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+
+  private final String method;
+  private final String path;
+  private final Map<String, String> pathParams;
+  private final Map<String, String> query;
+  private final Headers headers;
+  private final byte[] body;
+  private String user;
+
+  MockRequest(String method, String path, Map<String, String> pathParams, String rawQuery, Headers headers, byte[] body) {
+    this.method = method;
+    this.path = path;
+    this.pathParams = pathParams;
+    this.query = parseQuery(rawQuery);
+    this.headers = headers;
+    this.body = body;
+  }
+
+  public String method() {
+    return method;
+  }
+
+  public String path() {
+    return path;
+  }
+
+  public String pathParam(String name) {
+    return pathParams.get(name);
+  }
+
+  public String query(String name) {
+    return query.get(name);
+  }
+
+  public Map<String, String> query() {
+    return Collections.unmodifiableMap(query);
+  }
+
+  public String header(String name) {
+    return headers.getFirst(name);
+  }
+
+  public byte[] body() {
+    return body;
+  }
+
+  /**
+   * Parses the body as JSON, returning an empty object for a missing or malformed body the way
+   * {@code express.json()} leaves {@code req.body} empty.
+   */
+  public JsonNode json() {
+    if (body.length == 0) {
+      return MAPPER.createObjectNode();
+    }
+    try {
+      return MAPPER.readTree(body);
+    } catch (IOException e) {
+      return MAPPER.createObjectNode();
+    }
+  }
+
+  /**
+   * The username attached by the mock's authentication check, or {@code null} on public routes.
+   */
+  public String user() {
+    return user;
+  }
+
+  void user(String user) {
+    this.user = user;
+  }
+
+  private static Map<String, String> parseQuery(String rawQuery) {
+    Map<String, String> params = new HashMap<>();
+    if (rawQuery == null || rawQuery.isEmpty()) {
+      return params;
+    }
+    for (String pair : rawQuery.split("&")) {
+      int eq = pair.indexOf('=');
+      String key = eq < 0 ? pair : pair.substring(0, eq);
+      String value = eq < 0 ? "" : pair.substring(eq + 1);
+      params.putIfAbsent(URLDecoder.decode(key, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+    }
+    return params;
+  }
+}
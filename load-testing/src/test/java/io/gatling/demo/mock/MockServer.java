@@ -0,0 +1,376 @@
+package io.gatling.demo.mock;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * A small routing HTTP server on top of the JDK's {@link HttpServer}.
+ *
+ * <p>Routes are declared express-style ({@code "/question/:questionType"}). Each one is looked up in a
+ * {@link RouteBehaviour} table by its {@code "METHOD pattern"} key, which decides the injected latency
+ * and error rate. Latency is applied by scheduling the reply rather than sleeping, so a slow route does
+ * not hold a worker thread. Request bodies are read whole and held until the reply is sent, as
+ * {@code express.json()} and multer's memory storage do; {@link #bufferedBytes()} tells how many are held.
+ * Client connections are told apart by their remote address, for {@link #connectionsOpened()} and
+ * {@link #activeConnections(long)}. With a {@link #requestLog(Path)}, each request is logged as the gateway's
+ * {@code logRequests} middleware does, the injected latency standing for the time spent downstream. A handler
+ * waiting on an upstream call returns a {@link Reply#later(java.util.concurrent.CompletionStage)}, sent as soon as
+ * the call completes.
+ */
+public final class MockServer {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(MockServer.class);
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+
+  static {
+    // The JDK server writes a reply's headers and body apart: with Nagle's algorithm, the body of a reply on a
+    // reused connection waits for the client's delayed ACK, some 40 ms. Read once, before the first server.
+    if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+      System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+  }
+
+  @FunctionalInterface
+  public interface Handler {
+    Reply handle(MockRequest request) throws Exception;
+  }
+
+  private static final class Route {
+    final String method;
+    final String pattern;
+    final String[] segments;
+    final Handler handler;
+
+    Route(String method, String pattern, Handler handler) {
+      this.method = method;
+      this.pattern = pattern;
+      this.segments = pattern.substring(1).split("/", -1);
+      this.handler = handler;
+    }
+
+    Map<String, String> match(String method, String[] pathSegments) {
+      if (!this.method.equals(method) || segments.length != pathSegments.length) {
+        return null;
+      }
+      Map<String, String> params = new HashMap<>();
+      for (int i = 0; i < segments.length; i++) {
+        if (segments[i].startsWith(":")) {
+          params.put(segments[i].substring(1), pathSegments[i]);
+        } else if (!segments[i].equals(pathSegments[i])) {
+          return null;
+        }
+      }
+      return params;
+    }
+
+    String key() {
+      return method + " " + pattern;
+    }
+  }
+
+  private final String name;
+  private final int port;
+  private final int workerThreads;
+  private final Function<String, RouteBehaviour> behaviours;
+  private final List<Route> routes = new ArrayList<>();
+  private final AtomicLong bufferedBytes = new AtomicLong();
+  private final Map<InetSocketAddress, Long> clients = new ConcurrentHashMap<>();
+  private final AtomicLong connectionsOpened = new AtomicLong();
+  private Handler fallback = request -> Reply.error(404, "Not found");
+  private Path requestLogFile;
+  private volatile BufferedWriter requestLog;
+
+  private HttpServer server;
+  private ExecutorService workers;
+  private ScheduledExecutorService scheduler;
+
+  public MockServer(String name, int port, int workerThreads, Function<String, RouteBehaviour> behaviours) {
+    this.name = name;
+    this.port = port;
+    this.workerThreads = workerThreads;
+    this.behaviours = behaviours;
+  }
+
+  public MockServer route(String method, String pattern, Handler handler) {
+    routes.add(new Route(method, pattern, handler));
+    return this;
+  }
+
+  /**
+   * Handles requests no route matched. Its behaviour key is {@code "METHOD *"}.
+   */
+  public MockServer fallback(Handler handler) {
+    this.fallback = handler;
+    return this;
+  }
+
+  /**
+   * Logs every request to {@code file} from the next {@link #start()}, one JSON line each.
+   */
+  public MockServer requestLog(Path file) {
+    this.requestLogFile = file;
+    return this;
+  }
+
+  public synchronized void start() throws IOException {
+    if (server != null) {
+      return;
+    }
+    if (requestLogFile != null) {
+      if (requestLogFile.getParent() != null) {
+        Files.createDirectories(requestLogFile.getParent());
+      }
+      requestLog = Files.newBufferedWriter(requestLogFile);
+    }
+    workers = Executors.newFixedThreadPool(workerThreads, threadFactory("worker"));
+    scheduler = Executors.newScheduledThreadPool(Math.max(2, workerThreads / 4), threadFactory("delay"));
+    server = HttpServer.create(new InetSocketAddress(port), 1024);
+    server.setExecutor(workers);
+    server.createContext("/", this::handle);
+    server.start();
+    LOGGER.info("Mock {} listening on http://localhost:{}", name, port);
+  }
+
+  public synchronized void stop() {
+    if (server == null) {
+      return;
+    }
+    server.stop(0);
+    scheduler.shutdownNow();
+    workers.shutdownNow();
+    server = null;
+    if (requestLog != null) {
+      synchronized (requestLog) {
+        try {
+          requestLog.close();
+        } catch (IOException e) {
+          LOGGER.warn("Could not close the request log of mock {}", name, e);
+        }
+      }
+      requestLog = null;
+    }
+  }
+
+  public int port() {
+    return port;
+  }
+
+  /**
+   * Bytes of the request bodies read and not answered yet.
+   */
+  public long bufferedBytes() {
+    return bufferedBytes.get();
+  }
+
+  /**
+   * Client connections seen since the server started.
+   */
+  public long connectionsOpened() {
+    return connectionsOpened.get();
+  }
+
+  /**
+   * Client connections that sent a request in the last {@code millis}.
+   */
+  public int activeConnections(long millis) {
+    long now = System.currentTimeMillis();
+    // The JDK server closes connections idle for 30 s
+    clients.values().removeIf(seen -> seen < now - 60_000);
+    return (int) clients.values().stream().filter(seen -> seen >= now - millis).count();
+  }
+
+  private void handle(HttpExchange exchange) {
+    if (clients.put(exchange.getRemoteAddress(), System.currentTimeMillis()) == null) {
+      connectionsOpened.incrementAndGet();
+    }
+    Logged logged = requestLog == null ? null : new Logged(exchange);
+    long held = 0;
+    try {
+      byte[] body;
+      try (InputStream in = exchange.getRequestBody()) {
+        body = in.readAllBytes();
+      }
+      held = body.length;
+      bufferedBytes.addAndGet(held);
+      String method = exchange.getRequestMethod();
+      String path = exchange.getRequestURI().getPath();
+
+      if ("OPTIONS".equals(method)) {
+        send(exchange, preflight(exchange), held, logged);
+        return;
+      }
+
+      String[] pathSegments = path.substring(1).split("/", -1);
+      Handler handler = fallback;
+      String key = method + " *";
+      Map<String, String> params = Map.of();
+      for (Route route : routes) {
+        Map<String, String> match = route.match(method, pathSegments);
+        if (match != null) {
+          handler = route.handler;
+          key = route.key();
+          params = match;
+          break;
+        }
+      }
+
+      RouteBehaviour behaviour = behaviours.apply(key);
+      ThreadLocalRandom random = ThreadLocalRandom.current();
+      Reply reply;
+      if (behaviour.shouldFail(random)) {
+        reply = Reply.error(behaviour.errorStatus(), "Injected failure");
+      } else {
+        MockRequest request = new MockRequest(method, path, params, exchange.getRequestURI().getRawQuery(),
+            exchange.getRequestHeaders(), body);
+        reply = handler.handle(request);
+      }
+
+      long sent = held;
+      if (reply.later() != null) {
+        if (logged != null) {
+          logged.route = key.substring(key.indexOf(' ') + 1);
+        }
+        reply.later().whenComplete((later, error) -> {
+          if (logged != null) {
+            logged.downstreamMillis = (System.nanoTime() - logged.receivedNanos) / 1_000_000;
+          }
+          send(exchange, error == null ? later : Reply.error(500, "Internal server error"), sent, logged);
+        });
+        return;
+      }
+      long delay = behaviour.latency().sampleMillis(random);
+      if (logged != null) {
+        logged.route = key.substring(key.indexOf(' ') + 1);
+        logged.downstreamMillis = Math.max(0, delay);
+      }
+      if (delay <= 0) {
+        send(exchange, reply, sent, logged);
+      } else {
+        scheduler.schedule(() -> send(exchange, reply, sent, logged), delay, TimeUnit.MILLISECONDS);
+      }
+    } catch (Exception e) {
+      LOGGER.warn("Mock {} failed to handle {} {}", name, exchange.getRequestMethod(), exchange.getRequestURI(), e);
+      send(exchange, Reply.error(500, "Internal server error"), held, logged);
+    }
+  }
+
+  /**
+   * What the request log says of a request, filled in as it is handled.
+   */
+  private static final class Logged {
+    final long receivedAt = System.currentTimeMillis();
+    final long receivedNanos = System.nanoTime();
+    final String requestId;
+    final String method;
+    final String path;
+    String route;
+    long downstreamMillis;
+
+    Logged(HttpExchange exchange) {
+      this.requestId = exchange.getRequestHeaders().getFirst("X-Request-Id");
+      this.method = exchange.getRequestMethod();
+      this.path = exchange.getRequestURI().getPath();
+    }
+  }
+
+  private void log(Logged logged, int status) {
+    ObjectNode line = MAPPER.createObjectNode()
+        .put("event", "request")
+        .put("service", name)
+        .put("requestId", logged.requestId)
+        .put("method", logged.method)
+        .put("route", logged.route == null ? logged.path : logged.route)
+        .put("path", logged.path)
+        .put("status", status)
+        .put("receivedAt", logged.receivedAt)
+        .put("totalMs", (System.nanoTime() - logged.receivedNanos) / 1e6)
+        .put("downstreamMs", (double) logged.downstreamMillis);
+    if (logged.downstreamMillis > 0) {
+      line.putArray("downstream").addObject().put("service", "mock").put("ms", (double) logged.downstreamMillis);
+    }
+    BufferedWriter out = requestLog;
+    if (out == null) {
+      return;
+    }
+    synchronized (out) {
+      try {
+        out.write(line.toString());
+        out.newLine();
+      } catch (IOException e) {
+        LOGGER.debug("Could not log a request of mock {}", name, e);
+      }
+    }
+  }
+
+  // Mirrors the defaults of the cors() middleware the services use
+  private static Reply preflight(HttpExchange exchange) {
+    Reply reply = Reply.empty(204)
+        .header("Access-Control-Allow-Methods", "GET,HEAD,PUT,PATCH,POST,DELETE");
+    String requestedHeaders = exchange.getRequestHeaders().getFirst("Access-Control-Request-Headers");
+    if (requestedHeaders != null) {
+      reply.header("Access-Control-Allow-Headers", requestedHeaders);
+    }
+    return reply;
+  }
+
+  private void send(HttpExchange exchange, Reply reply, long held, Logged logged) {
+    try {
+      exchange.getResponseHeaders().set("Access-Control-Allow-Origin", "*");
+      if (reply.contentType() != null) {
+        exchange.getResponseHeaders().set("Content-Type", reply.contentType());
+      }
+      reply.headers().forEach((header, value) -> exchange.getResponseHeaders().set(header, value));
+      byte[] body = reply.body();
+      exchange.sendResponseHeaders(reply.status(), body.length == 0 ? -1 : body.length);
+      if (body.length > 0) {
+        try (OutputStream out = exchange.getResponseBody()) {
+          out.write(body);
+        }
+      }
+    } catch (IOException e) {
+      LOGGER.debug("Client went away before the reply was sent", e);
+    } finally {
+      bufferedBytes.addAndGet(-held);
+      exchange.close();
+      if (logged != null) {
+        log(logged, reply.status());
+      }
+    }
+  }
+
+  private ThreadFactory threadFactory(String role) {
+    AtomicInteger counter = new AtomicInteger();
+    return runnable -> {
+      Thread thread = new Thread(runnable, "mock-" + name + "-" + role + "-" + counter.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    };
+  }
+}
@@ -0,0 +1,205 @@
+package io.gatling.demo.mock;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.typesafe.config.Config;
+import com.typesafe.config.ConfigFactory;
+
+/**
+ * Settings of the embedded mock, read from {@code mock-wichat.conf}. Any key can be overridden with a
+ * system property, e.g. {@code -Dmock.gateway.port=18000}.
+ */
+public final class MockSettings {
+
+  public enum AuthMode {
+    /** Reject tokens with a bad signature or past their expiry, as the gateway's authMiddleware does. */
+    VERIFY,
+    /** Only require a well-formed token, so recorded sessions with stale tokens can be replayed. */
+    DECODE
+  }
+
+  /** The services behind the gateway, as named in {@code mock.services}. */
+  public static final String[] SERVICES = {"user", "auth", "llm", "question", "statistics"};
+
+  private final boolean enabled;
+  private final int webappPort;
+  private final int gatewayPort;
+  private final int workerThreads;
+  private final AuthMode authMode;
+  private final String jwtSecret;
+  private final Duration tokenTtl;
+  private final boolean acceptUnknownUsers;
+  private final int sparqlPort;
+  private final int sparqlItems;
+  private final int sparqlPopulation;
+  private final boolean questionPoolWarm;
+  private final boolean questionPoolHourly;
+  private final int statisticsSeedUsers;
+  private final String requestLog;
+  private final Map<String, Integer> servicePorts = new LinkedHashMap<>();
+  private final Latency proxyLatency;
+  private final MockLlm.Settings llm;
+  private final RouteBehaviour defaultBehaviour;
+  private final Map<String, RouteBehaviour> routes = new HashMap<>();
+  private final Map<String, RouteBehaviour> directRoutes = new ConcurrentHashMap<>();
+
+  MockSettings(Config root) {
+    Config config = root.getConfig("mock");
+    this.enabled = config.getBoolean("enabled");
+    this.webappPort = config.getInt("webapp.port");
+    this.gatewayPort = config.getInt("gateway.port");
+    this.workerThreads = config.getInt("workerThreads");
+    this.authMode = AuthMode.valueOf(config.getString("auth.mode").toUpperCase());
+    this.jwtSecret = config.getString("auth.jwtSecret");
+    this.tokenTtl = config.getDuration("auth.tokenTtl");
+    this.acceptUnknownUsers = config.getBoolean("acceptUnknownUsers");
+    this.sparqlPort = config.getInt("sparql.port");
+    this.sparqlItems = config.getInt("sparql.items");
+    this.sparqlPopulation = config.getInt("sparql.population");
+    this.questionPoolWarm = config.getBoolean("questionPool.warm");
+    this.questionPoolHourly = config.getBoolean("questionPool.hourly");
+    this.statisticsSeedUsers = config.getInt("statistics.seedUsers");
+    this.requestLog = config.getString("requestLog");
+
+    for (String service : SERVICES) {
+      servicePorts.put(service, config.getInt("services." + service + ".port"));
+    }
+
+    boolean latencyEnabled = config.getBoolean("latency.enabled");
+    this.proxyLatency = latencyEnabled ? Latency.fromConfig(config.getConfig("services.proxy.latency")) : Latency.NONE;
+    this.llm = new MockLlm.Settings(config.getConfig("llm"), latencyEnabled);
+    Config defaults = config.getConfig("defaults");
+    this.defaultBehaviour = RouteBehaviour.fromConfig(defaults, latencyEnabled);
+    Config routeConfigs = config.getConfig("routes");
+    for (String route : routeConfigs.root().keySet()) {
+      Config routeConfig = routeConfigs.getObject("\"" + route + "\"").toConfig().withFallback(defaults);
+      routes.put(route, RouteBehaviour.fromConfig(routeConfig, latencyEnabled));
+    }
+  }
+
+  public static MockSettings load() {
+    return new MockSettings(ConfigFactory.load("mock-wichat"));
+  }
+
+  /**
+   * Whether simulations should start the mock and target it instead of the deployed stack.
+   */
+  public boolean enabled() {
+    return enabled;
+  }
+
+  public int webappPort() {
+    return webappPort;
+  }
+
+  public int gatewayPort() {
+    return gatewayPort;
+  }
+
+  public int workerThreads() {
+    return workerThreads;
+  }
+
+  public AuthMode authMode() {
+    return authMode;
+  }
+
+  public String jwtSecret() {
+    return jwtSecret;
+  }
+
+  public Duration tokenTtl() {
+    return tokenTtl;
+  }
+
+  public boolean acceptUnknownUsers() {
+    return acceptUnknownUsers;
+  }
+
+  public int sparqlPort() {
+    return sparqlPort;
+  }
+
+  /**
+   * Items the SPARQL stand-in returns per query, like the {@code LIMIT 200} of {@code questionTypes.js}.
+   */
+  public int sparqlItems() {
+    return sparqlItems;
+  }
+
+  /**
+   * Distinct items per question type the SPARQL stand-in draws from.
+   */
+  public int sparqlPopulation() {
+    return sparqlPopulation;
+  }
+
+  /**
+   * Whether the mock's question pool starts filled, as after earlier pre-saves, rather than empty.
+   */
+  public boolean questionPoolWarm() {
+    return questionPoolWarm;
+  }
+
+  /**
+   * Whether the mock re-runs the pre-save every hour on the hour, like the questionservice's cron.
+   */
+  public boolean questionPoolHourly() {
+    return questionPoolHourly;
+  }
+
+  /**
+   * Synthetic players with a game history the mock starts with, for the leaderboard queries.
+   */
+  public int statisticsSeedUsers() {
+    return statisticsSeedUsers;
+  }
+
+  /**
+   * File the gateway logs each request to, as the real gateway does, or empty for none.
+   */
+  public String requestLog() {
+    return requestLog;
+  }
+
+  /**
+   * Settings of the LLM stand-in, {@link MockLlm}.
+   */
+  public MockLlm.Settings llm() {
+    return llm;
+  }
+
+  /**
+   * Port of the stand-in for {@code service}, one of {@link #SERVICES}.
+   */
+  public int servicePort(String service) {
+    Integer port = servicePorts.get(service);
+    if (port == null) {
+      throw new IllegalArgumentException("Unknown service: " + service);
+    }
+    return port;
+  }
+
+  /**
+   * Behaviour of a service stand-in's route, given the key of the gateway route that forwards to it: the same
+   * errors, and the gateway route's latency less the gateway's own share, {@code mock.services.proxy.latency}.
+   */
+  public RouteBehaviour directBehaviour(String gatewayRoute) {
+    return directRoutes.computeIfAbsent(gatewayRoute, route -> {
+      RouteBehaviour behaviour = behaviour(route);
+      return behaviour.withLatency(behaviour.latency().minus(proxyLatency));
+    });
+  }
+
+  /**
+   * Returns the behaviour configured for a route key such as {@code "POST /login"} or
+   * {@code "GET /question/:questionType"}, falling back to the defaults.
+   */
+  public RouteBehaviour behaviour(String route) {
+    return routes.getOrDefault(route, defaultBehaviour);
+  }
+}
@@ -0,0 +1,80 @@
+package io.gatling.demo.mock;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Pattern;
+
+/**
+ * Stand-in for {@code query.wikidata.org/sparql}, the source of the questionservice's hourly pre-save job.
+ *
+ * <p>A query is recognised by the class its items belong to (the {@code wd:Q...} of each question type in
+ * {@code questionTypes.js}) and answered with {@code mock.sparql.items} random items out of
+ * {@code mock.sparql.population}, in the SPARQL JSON results format {@code getWikidataResults()} reads. Labels and
+ * image names share their words, so the game bot can still guess. Its latency is the {@code "GET /sparql"} route's.
+ * Point the real questionservice at it with {@code SPARQL_ENDPOINT=http://<host>:8010/sparql}.
+ */
+public final class MockSparql {
+
+  /** Class of the items of each question type, as matched in {@code questionTypes.js}. */
+  static final Map<String, String> TYPE_CLASSES = Map.of(
+      "foods", "Q746549",
+      "monuments", "Q4989906",
+      "animals", "Q7432",
+      "flags", "Q6256");
+
+  private MockSparql() {
+  }
+
+  static MockServer server(MockSettings settings) {
+    return new MockServer("sparql", settings.sparqlPort(), settings.workerThreads(), settings::behaviour)
+        .route("GET", "/sparql", request -> query(request, settings));
+  }
+
+  private static Reply query(MockRequest request, MockSettings settings) {
+    String query = request.query("query") == null ? "" : request.query("query");
+    String type = null;
+    for (Map.Entry<String, String> entry : TYPE_CLASSES.entrySet()) {
+      if (Pattern.compile("wd:" + entry.getValue() + "\\b").matcher(query).find()) {
+        type = entry.getKey();
+      }
+    }
+    if (type == null) {
+      return Reply.error(400, "No question type's class in the query");
+    }
+    List<Map<String, Object>> bindings = new ArrayList<>();
+    for (String[] item : sample(type, settings.sparqlItems(), settings.sparqlPopulation(), new Random())) {
+      Map<String, Object> binding = new LinkedHashMap<>();
+      binding.put("item", Map.of("type", "uri", "value", "http://www.wikidata.org/entity/" + item[0]));
+      binding.put("itemLabel", Map.of("type", "literal", "value", item[1], "xml:lang", "en"));
+      binding.put("image", Map.of("type", "uri", "value", item[2]));
+      bindings.add(binding);
+    }
+    Map<String, Object> results = new LinkedHashMap<>();
+    results.put("head", Map.of("vars", List.of("item", "itemLabel", "image")));
+    results.put("results", Map.of("bindings", bindings));
+    return Reply.json(results).header("Content-Type", "application/sparql-results+json; charset=utf-8");
+  }
+
+  /**
+   * {@code count} distinct items of {@code type} out of {@code population}, as wikidata id, label and image URL.
+   */
+  static List<String[]> sample(String type, int count, int population, Random random) {
+    Set<Integer> numbers = new TreeSet<>();
+    while (numbers.size() < Math.min(count, population)) {
+      numbers.add(random.nextInt(population));
+    }
+    int base = (Arrays.asList(MockGateway.QUESTION_TYPES).indexOf(type) + 1) * 1_000_000;
+    List<String[]> items = new ArrayList<>(numbers.size());
+    for (int number : numbers) {
+      items.add(new String[] {"Q" + (base + number), type + " item " + number,
+          "http://commons.wikimedia.org/wiki/Special:FilePath/Mock%20" + type + "%20" + number + ".svg"});
+    }
+    return items;
+  }
+}
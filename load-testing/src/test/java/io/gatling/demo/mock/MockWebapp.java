@@ -0,0 +1,40 @@
+package io.gatling.demo.mock;
+
+/**
+ * Stand-in for the React webapp served on port 3000: every GET gets a small static asset of the
+ * matching type, and unknown paths fall back to the SPA's {@code index.html}.
+ */
+final class MockWebapp {
+
+  private static final String INDEX = "<!doctype html><html lang=\"en\"><head><title>WiChat</title>"
+      + "<script defer src=\"/static/js/main.js\"></script><link href=\"/static/css/main.css\" rel=\"stylesheet\">"
+      + "</head><body><div id=\"root\"></div></body></html>";
+
+  private MockWebapp() {
+  }
+
+  static MockServer server(MockSettings settings) {
+    return new MockServer("webapp", settings.webappPort(), settings.workerThreads(), settings::behaviour)
+        .fallback(MockWebapp::asset);
+  }
+
+  private static Reply asset(MockRequest request) {
+    if (!"GET".equals(request.method()) && !"HEAD".equals(request.method())) {
+      return Reply.error(404, "Not found");
+    }
+    String path = request.path();
+    if (path.endsWith(".js")) {
+      return Reply.text("application/javascript; charset=utf-8", "(()=>{})();");
+    }
+    if (path.endsWith(".css")) {
+      return Reply.text("text/css; charset=utf-8", "body{margin:0}");
+    }
+    if (path.endsWith(".json")) {
+      return Reply.text("application/json; charset=utf-8", "{}");
+    }
+    if (path.endsWith(".png")) {
+      return Reply.bytes("image/png", MockGateway.PNG);
+    }
+    return Reply.text("text/html; charset=utf-8", INDEX);
+  }
+}
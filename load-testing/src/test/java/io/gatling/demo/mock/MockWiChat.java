@@ -0,0 +1,153 @@
+package io.gatling.demo.mock;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Embedded, offline stand-in for the deployed WiChat: the webapp on one port, the gateway API on
+ * another and the {@link MockSparql} endpoint the question pool is filled from on a third, configured by
+ * {@code mock-wichat.conf}. {@link #startServices()} adds stand-ins for the services behind the gateway, and
+ * {@link #startLlm(Path)} one for the LLM APIs behind them.
+ *
+ * <p>Simulations start it through {@code Targets.before()} when run with {@code -Dmock.enabled=true}. It can
+ * also be run on its own with
+ * {@code mvnw exec:java -Dexec.mainClass=io.gatling.demo.mock.MockWiChat}.
+ */
+public final class MockWiChat {
+
+  private static final MockSettings SETTINGS = MockSettings.load();
+
+  private static MockServer webapp;
+  private static MockServer gateway;
+  private static MockServer sparql;
+  private static MockGateway services;
+  private static final List<MockServer> SERVICE_SERVERS = new ArrayList<>();
+  private static MockLlm llm;
+
+  private MockWiChat() {
+  }
+
+  public static MockSettings settings() {
+    return SETTINGS;
+  }
+
+  /**
+   * Client connections the webapp and the gateway have seen since they started, and those that sent a request in
+   * the last {@code millis}; {@code null} when the mock is not running.
+   */
+  public static synchronized long[] connections(long millis) {
+    if (gateway == null) {
+      return null;
+    }
+    return new long[] {webapp.connectionsOpened() + gateway.connectionsOpened(),
+        webapp.activeConnections(millis) + gateway.activeConnections(millis)};
+  }
+
+  public static synchronized void start() {
+    if (gateway != null) {
+      return;
+    }
+    try {
+      webapp = MockWebapp.server(SETTINGS);
+      services = new MockGateway(SETTINGS);
+      gateway = services.server();
+      sparql = MockSparql.server(SETTINGS);
+      webapp.start();
+      sparql.start();
+      gateway.start();
+      services.start();
+    } catch (IOException e) {
+      stop();
+      throw new UncheckedIOException("Could not start the WiChat mock", e);
+    }
+  }
+
+  /**
+   * Starts the stand-ins for the services behind the gateway on their ports, after {@link #start()}. They are
+   * stopped with the rest.
+   */
+  public static synchronized void startServices() {
+    if (services == null) {
+      throw new IllegalStateException("The WiChat mock is not running");
+    }
+    if (!SERVICE_SERVERS.isEmpty()) {
+      return;
+    }
+    try {
+      for (MockServer server : services.serviceServers()) {
+        SERVICE_SERVERS.add(server);
+        server.start();
+      }
+    } catch (IOException e) {
+      stop();
+      throw new UncheckedIOException("Could not start the service stand-ins", e);
+    }
+  }
+
+  /**
+   * Starts the LLM stand-in, {@link MockLlm}, sampling into {@code samples} unless it is null. It does not need the
+   * rest of the mock, so that the real llmservice can be pointed at it; if the mock is running, its gateway's
+   * {@code /askllm} and {@code /simplellm} go through it from now on, as they would through the llmservice.
+   */
+  public static synchronized MockLlm startLlm(Path samples) {
+    if (llm == null) {
+      MockLlm started = new MockLlm(SETTINGS.llm());
+      if (samples != null) {
+        started.samples(samples);
+      }
+      try {
+        started.start();
+      } catch (IOException e) {
+        throw new UncheckedIOException("Could not start the LLM stand-in", e);
+      }
+      llm = started;
+    }
+    if (services != null) {
+      services.forwardLlm(llm.url());
+    }
+    return llm;
+  }
+
+  public static synchronized void stopLlm() {
+    if (llm != null) {
+      llm.stop();
+      llm = null;
+    }
+  }
+
+  public static synchronized void stop() {
+    stopLlm();
+    for (MockServer server : SERVICE_SERVERS) {
+      server.stop();
+    }
+    SERVICE_SERVERS.clear();
+    if (webapp != null) {
+      webapp.stop();
+    }
+    if (services != null) {
+      services.stop();
+    }
+    if (gateway != null) {
+      gateway.stop();
+    }
+    if (sparql != null) {
+      sparql.stop();
+    }
+    webapp = null;
+    gateway = null;
+    sparql = null;
+    services = null;
+  }
+
+  public static void main(String[] args) throws InterruptedException {
+    start();
+    System.out.println("WiChat mock running: webapp on http://localhost:" + SETTINGS.webappPort()
+        + ", gateway on http://localhost:" + SETTINGS.gatewayPort() + ", SPARQL on http://localhost:"
+        + SETTINGS.sparqlPort() + "/sparql. Press Ctrl+C to stop.");
+    Runtime.getRuntime().addShutdownHook(new Thread(MockWiChat::stop));
+    Thread.currentThread().join();
+  }
+}
@@ -0,0 +1,98 @@
+package io.gatling.demo.mock;
+
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletionStage;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * A response produced by a mocked route.
+ */
+public final class Reply {
+
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+
+  private final int status;
+  private final String contentType;
+  private final byte[] body;
+  private final Map<String, String> headers = new LinkedHashMap<>();
+  private CompletionStage<Reply> later;
+
+  private Reply(int status, String contentType, byte[] body) {
+    this.status = status;
+    this.contentType = contentType;
+    this.body = body;
+  }
+
+  public static Reply json(Object value) {
+    return json(200, value);
+  }
+
+  public static Reply json(int status, Object value) {
+    try {
+      return new Reply(status, "application/json; charset=utf-8", MAPPER.writeValueAsBytes(value));
+    } catch (JsonProcessingException e) {
+      throw new IllegalArgumentException(e);
+    }
+  }
+
+  /**
+   * An error body in the {@code { "error": ... }} shape every WiChat service uses.
+   */
+  public static Reply error(int status, String message) {
+    return json(status, Map.of("error", message));
+  }
+
+  public static Reply bytes(String contentType, byte[] body) {
+    return new Reply(200, contentType, body);
+  }
+
+  public static Reply text(String contentType, String body) {
+    return bytes(contentType, body.getBytes(StandardCharsets.UTF_8));
+  }
+
+  public static Reply empty(int status) {
+    return new Reply(status, null, new byte[0]);
+  }
+
+  /**
+   * A reply not known yet, such as one waiting on an upstream call. It is sent once {@code reply} completes,
+   * without the route's injected latency: the wait stands for it.
+   */
+  public static Reply later(CompletionStage<Reply> reply) {
+    Reply pending = new Reply(200, null, new byte[0]);
+    pending.later = reply;
+    return pending;
+  }
+
+  public Reply header(String name, String value) {
+    headers.put(name, value);
+    return this;
+  }
+
+  public int status() {
+    return status;
+  }
+
+  public String contentType() {
+    return contentType;
+  }
+
+  public byte[] body() {
+    return body;
+  }
+
+  public Map<String, String> headers() {
+    return headers;
+  }
+
+  /**
+   * The reply this one waits for, or null if it is known.
+   */
+  public CompletionStage<Reply> later() {
+    return later;
+  }
+}
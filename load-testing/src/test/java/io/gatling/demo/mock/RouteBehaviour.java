@@ -0,0 +1,51 @@
+package io.gatling.demo.mock;
+
+import java.util.Random;
+
+import com.typesafe.config.Config;
+
+/**
+ * How a mocked route misbehaves: the latency it adds and how often it fails.
+ */
+public final class RouteBehaviour {
+
+  private final Latency latency;
+  private final double errorRate;
+  private final int errorStatus;
+
+  public RouteBehaviour(Latency latency, double errorRate, int errorStatus) {
+    this.latency = latency;
+    this.errorRate = errorRate;
+    this.errorStatus = errorStatus;
+  }
+
+  /**
+   * @param latencyEnabled false to answer at once whatever the configured latency, so that only the injector's
+   *                       own overhead is measured
+   */
+  static RouteBehaviour fromConfig(Config config, boolean latencyEnabled) {
+    return new RouteBehaviour(
+        latencyEnabled ? Latency.fromConfig(config.getConfig("latency")) : Latency.NONE,
+        config.getDouble("errorRate"),
+        config.getInt("errorStatus"));
+  }
+
+  /**
+   * The same errors with another latency.
+   */
+  public RouteBehaviour withLatency(Latency latency) {
+    return new RouteBehaviour(latency, errorRate, errorStatus);
+  }
+
+  public Latency latency() {
+    return latency;
+  }
+
+  public int errorStatus() {
+    return errorStatus;
+  }
+
+  public boolean shouldFail(Random random) {
+    return errorRate > 0 && random.nextDouble() < errorRate;
+  }
+}
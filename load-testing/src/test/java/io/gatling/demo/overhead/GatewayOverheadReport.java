@@ -0,0 +1,264 @@
+package io.gatling.demo.overhead;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.gatling.demo.capacity.CapacityReport;
+import io.gatling.demo.stats.Reports;
+import io.gatling.demo.stats.RequestStats;
+import io.gatling.demo.stats.SimulationLog;
+
+/**
+ * Compares a run of {@code GatewayEndpointsSimulation} with one of {@code DirectEndpointsSimulation}, the same
+ * {@link ServiceEndpoints} workload through the gateway and straight to the services, to tell the gateway's own
+ * cost per endpoint.
+ *
+ * <p>The arguments are the gateway run and the direct run, directories or logs; by default the latest run of each.
+ * For each endpoint it gives the p50, p95 and p99 of both and the latency the gateway adds at each percentile, then
+ * their throughput: the mean and the peak requests per second, and the throughput ceiling. The ceiling is the
+ * maximum sustainable rate of the endpoint when the runs are capacity searches ({@code -Dcapacity.enabled=true})
+ * with a {@code capacity.json} from {@link CapacityReport}; every user sends each request once, so it is in requests
+ * per second. Otherwise the peak stands for it, which only tells the ceiling if the load reached it. The report is
+ * printed and written to {@value #FILE_NAME} in the results directory, or {@code -Doverhead.out}.
+ *
+ * <pre>
+ * mvnw exec:java -Dexec.mainClass=io.gatling.demo.overhead.GatewayOverheadReport -Dexec.classpathScope=test \
+ *     [-Dexec.args="target/gatling/&lt;gateway run&gt; target/gatling/&lt;direct run&gt;"]
+ * </pre>
+ */
+public final class GatewayOverheadReport {
+
+  public static final String FILE_NAME = "gateway-overhead.json";
+
+  static final String GATEWAY_SIMULATION = "GatewayEndpointsSimulation";
+  static final String DIRECT_SIMULATION = "DirectEndpointsSimulation";
+
+  private static final double[] PERCENTILES = {50, 95, 99};
+
+  /**
+   * The requests of one run, by name.
+   */
+  static final class Side implements SimulationLog.Listener {
+    final Path log;
+    final Map<String, Endpoint> endpoints = new LinkedHashMap<>();
+    final Endpoint all = new Endpoint();
+
+    Side(Path log) {
+      this.log = log;
+    }
+
+    @Override
+    public void request(List<String> groups, String name, long start, long end, boolean ok, String message) {
+      endpoints.computeIfAbsent(name, key -> new Endpoint()).record(start, end, ok);
+      all.record(start, end, ok);
+    }
+
+    Endpoint endpoint(String name) {
+      return name.equals(CapacityReport.ALL_REQUESTS) ? all : endpoints.get(name);
+    }
+  }
+
+  /**
+   * Latency and throughput of one request name in one run.
+   */
+  static final class Endpoint {
+    final RequestStats stats = new RequestStats();
+    // Requests ended in each second of the run
+    final Map<Long, Long> perSecond = new HashMap<>();
+    long first = Long.MAX_VALUE;
+    long last = Long.MIN_VALUE;
+    Double ceiling;
+
+    void record(long start, long end, boolean ok) {
+      stats.record(end - start, ok);
+      perSecond.merge(end / 1000, 1L, Long::sum);
+      first = Math.min(first, start);
+      last = Math.max(last, end);
+    }
+
+    long percentile(double percentile) {
+      return stats.histogram.percentile(percentile);
+    }
+
+    double meanThroughput() {
+      return last <= first ? 0 : stats.count() * 1000.0 / (last - first);
+    }
+
+    long peakThroughput() {
+      return perSecond.values().stream().mapToLong(Long::longValue).max().orElse(0);
+    }
+  }
+
+  private final Side gateway;
+  private final Side direct;
+
+  public GatewayOverheadReport(Path gatewayLog, Path directLog) throws IOException {
+    this.gateway = read(gatewayLog);
+    this.direct = read(directLog);
+  }
+
+  private static Side read(Path log) throws IOException {
+    Side side = new Side(log);
+    SimulationLog.read(log, side);
+    Path capacity = log.resolveSibling("capacity.json");
+    if (Files.exists(capacity)) {
+      JsonNode endpoints = new ObjectMapper().readTree(capacity.toFile()).path("endpoints");
+      endpoints.fields().forEachRemaining(entry -> {
+        Endpoint endpoint = side.endpoint(entry.getKey());
+        JsonNode rate = entry.getValue().path("maxSustainableRate");
+        if (endpoint != null && rate.isNumber()) {
+          endpoint.ceiling = rate.asDouble();
+        }
+      });
+    }
+    return side;
+  }
+
+  /**
+   * The request names of both runs, in the order of {@link ServiceEndpoints#SERVICES}, then all requests.
+   */
+  Set<String> names() {
+    Set<String> names = new LinkedHashSet<>();
+    for (String name : ServiceEndpoints.SERVICES.keySet()) {
+      if (gateway.endpoints.containsKey(name) || direct.endpoints.containsKey(name)) {
+        names.add(name);
+      }
+    }
+    names.addAll(gateway.endpoints.keySet());
+    names.addAll(direct.endpoints.keySet());
+    names.add(CapacityReport.ALL_REQUESTS);
+    return names;
+  }
+
+  public String text() {
+    StringBuilder out = new StringBuilder();
+    out.append("Gateway overhead, through the gateway vs. straight to the services\n\n");
+    out.append(String.format("  %-22s %-10s %7s %7s %7s %7s %7s %7s %7s %7s %7s %7s %7s%n", "endpoint", "service",
+        "count", "p50 gw", "direct", "added", "p95 gw", "direct", "added", "p99 gw", "direct", "added", "errors"));
+    for (String name : names()) {
+      Endpoint viaGateway = gateway.endpoint(name);
+      Endpoint directly = direct.endpoint(name);
+      if (viaGateway == null || directly == null) {
+        out.append(String.format("  %-22s %-10s   (only %s)%n", name, service(name),
+            viaGateway == null ? "direct" : "through the gateway"));
+        continue;
+      }
+      out.append(String.format("  %-22s %-10s %7d", name, service(name), viaGateway.stats.count()));
+      for (double percentile : PERCENTILES) {
+        long added = viaGateway.percentile(percentile) - directly.percentile(percentile);
+        out.append(String.format(" %7d %7d %+7d", viaGateway.percentile(percentile), directly.percentile(percentile),
+            added));
+      }
+      out.append(String.format(" %+6.2f%%%n", (viaGateway.stats.errorRate() - directly.stats.errorRate()) * 100));
+    }
+    out.append("\n  in ms; errors: the gateway's error rate less the direct one\n\n");
+    out.append("Throughput, in requests per second\n\n");
+    out.append(String.format("  %-22s %9s %9s %9s %9s %11s %11s %8s%n", "endpoint", "mean gw", "direct",
+        "peak gw", "direct", "ceiling gw", "direct", "ratio"));
+    for (String name : names()) {
+      Endpoint viaGateway = gateway.endpoint(name);
+      Endpoint directly = direct.endpoint(name);
+      if (viaGateway == null || directly == null) {
+        continue;
+      }
+      double gatewayCeiling = ceiling(viaGateway);
+      double directCeiling = ceiling(directly);
+      out.append(String.format("  %-22s %9.1f %9.1f %9d %9d %11s %11s %8s%n", name, viaGateway.meanThroughput(),
+          directly.meanThroughput(), viaGateway.peakThroughput(), directly.peakThroughput(),
+          format(gatewayCeiling, viaGateway.ceiling == null), format(directCeiling, directly.ceiling == null),
+          directCeiling == 0 ? "-" : String.format("%.2f", gatewayCeiling / directCeiling)));
+    }
+    out.append("\n  ceiling: max sustainable rate of a capacity search, or the peak (*) without one;"
+        + " ratio: gateway / direct\n");
+    return out.toString();
+  }
+
+  private static String service(String name) {
+    return ServiceEndpoints.SERVICES.getOrDefault(name, "");
+  }
+
+  private static double ceiling(Endpoint endpoint) {
+    return endpoint.ceiling != null ? endpoint.ceiling : endpoint.peakThroughput();
+  }
+
+  private static String format(double value, boolean peak) {
+    return (value == Math.rint(value) ? Long.toString((long) value) : String.format("%.1f", value)) + (peak ? "*" : "");
+  }
+
+  public ObjectNode json() {
+    ObjectMapper mapper = new ObjectMapper();
+    ObjectNode root = mapper.createObjectNode();
+    root.put("gatewayRun", gateway.log.toString());
+    root.put("directRun", direct.log.toString());
+    ArrayNode array = root.putArray("endpoints");
+    for (String name : names()) {
+      Endpoint viaGateway = gateway.endpoint(name);
+      Endpoint directly = direct.endpoint(name);
+      ObjectNode node = array.addObject().put("endpoint", name);
+      if (ServiceEndpoints.SERVICES.containsKey(name)) {
+        node.put("service", service(name));
+      }
+      if (viaGateway != null) {
+        write(node.putObject("gateway"), viaGateway);
+      }
+      if (directly != null) {
+        write(node.putObject("direct"), directly);
+      }
+      if (viaGateway != null && directly != null) {
+        ObjectNode added = node.putObject("addedMs");
+        for (double percentile : PERCENTILES) {
+          added.put("p" + (int) percentile, viaGateway.percentile(percentile) - directly.percentile(percentile));
+        }
+        if (ceiling(directly) > 0) {
+          node.put("ceilingRatio", ceiling(viaGateway) / ceiling(directly));
+        }
+      }
+    }
+    return root;
+  }
+
+  private static void write(ObjectNode node, Endpoint endpoint) {
+    node.put("count", endpoint.stats.count());
+    for (double percentile : PERCENTILES) {
+      node.put("p" + (int) percentile, endpoint.percentile(percentile));
+    }
+    node.put("errorRate", endpoint.stats.errorRate())
+        .put("meanThroughput", endpoint.meanThroughput())
+        .put("peakThroughput", endpoint.peakThroughput());
+    if (endpoint.ceiling != null) {
+      node.put("maxSustainableRate", endpoint.ceiling);
+    }
+  }
+
+  private static Path input(String[] args, int index, String simulation) throws IOException {
+    if (args.length > index) {
+      Path path = Paths.get(args[index]);
+      return Files.isDirectory(path) ? path.resolve(SimulationLog.FILE_NAME) : path;
+    }
+    Path run = SimulationLog.latestRun(simulation);
+    if (run == null) {
+      throw new IOException("No run of " + simulation + " in " + SimulationLog.resultsDirectory().toAbsolutePath());
+    }
+    return run.resolve(SimulationLog.FILE_NAME);
+  }
+
+  public static void main(String[] args) throws IOException {
+    GatewayOverheadReport report = new GatewayOverheadReport(input(args, 0, GATEWAY_SIMULATION),
+        input(args, 1, DIRECT_SIMULATION));
+    Path json = Paths.get(System.getProperty("overhead.out",
+        SimulationLog.resultsDirectory().resolve(FILE_NAME).toString()));
+    Reports.write(json, report.text(), report.json());
+  }
+}
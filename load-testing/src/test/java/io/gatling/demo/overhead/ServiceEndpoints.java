@@ -0,0 +1,109 @@
+package io.gatling.demo.overhead;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import static io.gatling.javaapi.core.CoreDsl.ElFileBody;
+import static io.gatling.javaapi.core.CoreDsl.StringBody;
+import static io.gatling.javaapi.core.CoreDsl.exec;
+import static io.gatling.javaapi.core.CoreDsl.jsonPath;
+import io.gatling.demo.Targets;
+import io.gatling.demo.http.Headers;
+import io.gatling.javaapi.core.ChainBuilder;
+import static io.gatling.javaapi.http.HttpDsl.http;
+import static io.gatling.javaapi.http.HttpDsl.status;
+
+/**
+ * One pass over an endpoint of each service behind the gateway, sent either through the gateway or straight to the
+ * services on their compose ports, so that the two runs only differ by the gateway.
+ *
+ * <p>The requests are named the same both ways, after the gateway routes, for {@link GatewayOverheadReport} to pair
+ * them: {@code post login} (authservice), {@code get question random} and {@code post answer} (questionservice),
+ * {@code get profile} and {@code get statistics} (statisticservice), {@code get default image} (userservice) and
+ * {@code post simplellm} (llmservice). Through the gateway the user is authenticated with the token of its login,
+ * as the webapp does; directly, it is given in the {@code username} or {@code currentuser} header the gateway
+ * forwards. There are no preflights and no think times: the runs measure the endpoints, not the journeys. The
+ * chain feeds on {@code #{username}} and {@code #{password}}.
+ */
+public final class ServiceEndpoints {
+
+  /**
+   * How the endpoints are reached.
+   */
+  public enum Via {
+    GATEWAY, DIRECT
+  }
+
+  /** Service behind each request, in the order they are sent. */
+  public static final Map<String, String> SERVICES = new LinkedHashMap<>();
+
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+
+  static {
+    SERVICES.put("post login", "auth");
+    SERVICES.put("get question random", "question");
+    SERVICES.put("post answer", "question");
+    SERVICES.put("get profile", "statistics");
+    SERVICES.put("get statistics", "statistics");
+    SERVICES.put("get default image", "user");
+    SERVICES.put("post simplellm", "llm");
+  }
+
+  private ServiceEndpoints() {
+  }
+
+  public static ChainBuilder workload(Via via) {
+    boolean gateway = via == Via.GATEWAY;
+    return exec(
+        http("post login")
+            .post(gateway ? Targets.GATEWAY_URL + "/login" : Targets.serviceUrl("auth") + "/login")
+            .headers(Headers.API_JSON)
+            .body(ElFileBody("io/gatling/demo/loginsimulation/0013_request.json"))
+            .check(jsonPath("$.token").saveAs("token")))
+        .exitHereIfFailed()
+        .exec(
+            http("get question random")
+                .get(gateway ? Targets.GATEWAY_URL + "/question/random"
+                    : Targets.serviceUrl("question") + "/question/random")
+                .headers(identity(via, "username", false))
+                .check(
+                    jsonPath("$.id").saveAs("questionId"),
+                    jsonPath("$.images[0]").saveAs("answer")),
+            http("post answer")
+                .post(gateway ? Targets.GATEWAY_URL + "/answer" : Targets.serviceUrl("question") + "/answer")
+                .headers(identity(via, "username", true))
+                .body(StringBody(session -> MAPPER.createObjectNode()
+                    .put("questionId", session.getString("questionId"))
+                    .put("answer", session.getString("answer"))
+                    .toString())),
+            http("get profile")
+                .get(gateway ? Targets.GATEWAY_URL + "/profile/#{username}"
+                    : Targets.serviceUrl("statistics") + "/statistics/#{username}")
+                .headers(identity(via, "currentuser", false)),
+            http("get statistics")
+                .get((gateway ? Targets.GATEWAY_URL : Targets.serviceUrl("statistics"))
+                    + "/statistics?sort=totalScore&order=desc&limit=10")
+                .headers(gateway ? Headers.AUTHORIZED_API : Headers.API),
+            http("get default image")
+                .get(gateway ? Targets.GATEWAY_URL + "/default-images/image_1.png"
+                    : Targets.serviceUrl("user") + "/images/default/image_1.png")
+                .headers(Headers.IMAGE)
+                .check(status().is(200)),
+            http("post simplellm")
+                .post(gateway ? Targets.GATEWAY_URL + "/simplellm" : Targets.serviceUrl("llm") + "/simpleMessage")
+                .headers(Headers.API_JSON)
+                .body(ElFileBody("io/gatling/demo/loginsimulation/0020_request.json")));
+  }
+
+  // The token through the gateway, the header the gateway would set otherwise
+  private static Map<CharSequence, String> identity(Via via, String header, boolean json) {
+    if (via == Via.GATEWAY) {
+      return json ? Headers.AUTHORIZED_API_JSON : Headers.AUTHORIZED_API;
+    }
+    Map<CharSequence, String> headers = new HashMap<>(json ? Headers.API_JSON : Headers.API);
+    headers.put(header, "#{username}");
+    return headers;
+  }
+}
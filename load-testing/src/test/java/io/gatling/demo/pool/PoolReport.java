@@ -0,0 +1,102 @@
+package io.gatling.demo.pool;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Properties;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.gatling.demo.QuestionPoolSimulation;
+import io.gatling.demo.events.EventImpact;
+import io.gatling.demo.events.ServiceEvent;
+import io.gatling.demo.stats.Reports;
+import io.gatling.demo.stats.SimulationLog;
+
+/**
+ * Question serving latency and errors around the pool refill of a {@link QuestionPoolSimulation} run.
+ *
+ * <p>The refill is taken from {@code pool.properties}, or else from the refill scenario's user. Around it, the
+ * {@link EventImpact} of each {@code get question <type>} and of all of them together is reported in windows of
+ * {@code -Dpool.windowSeconds} (default 10). A window has not recovered while its p95 is above
+ * {@code -Dpool.recoveryFactor} (default 2) times the p95 before the refill, or its error rate more than
+ * {@code -Dpool.maxErrorRise} (default 0.01) above it. On a cold start the errors last until the first item types
+ * are saved; on an hourly refill any slowdown comes from the bulk writes competing with the reads. The result is
+ * printed and written to {@code pool.json} in the run directory.
+ *
+ * <pre>
+ * mvnw exec:java -Dexec.mainClass=io.gatling.demo.pool.PoolReport -Dexec.classpathScope=test \
+ *     [-Dexec.args=target/gatling/&lt;run&gt;] [-Dpool.windowSeconds=10 -Dpool.recoveryFactor=2]
+ * </pre>
+ */
+public final class PoolReport {
+
+  public static final String ALL_QUESTIONS = "All questions";
+  public static final String REFILL_SCENARIO = "pool refill";
+  private static final String REQUEST_PREFIX = "get question ";
+
+  private final long windowMillis;
+  private final Properties timeline;
+  private EventImpact impact;
+  private String simulation;
+
+  public PoolReport(long windowMillis, Properties timeline) {
+    this.windowMillis = windowMillis;
+    this.timeline = timeline;
+  }
+
+  public void read(Path log) throws IOException {
+    long firedAt = timeline == null ? 0 : Long.parseLong(timeline.getProperty("pool.firedAt", "0"));
+    if (firedAt == 0) {
+      firedAt = EventImpact.firstUser(log, REFILL_SCENARIO);
+    } else if (firedAt < SimulationLog.readRun(log).start) {
+      throw new IOException("The pool timeline predates " + log + "; pass the run's with -Dpool.timeline");
+    }
+    impact = new EventImpact(firedAt, windowMillis,
+        Double.parseDouble(System.getProperty("pool.recoveryFactor", "2")),
+        Double.parseDouble(System.getProperty("pool.maxErrorRise", "0.01")),
+        Integer.getInteger("pool.minSamples", 10));
+    impact.track(ALL_QUESTIONS);
+    for (String type : QuestionPool.QUESTION_TYPES) {
+      impact.track(REQUEST_PREFIX + type);
+    }
+    SimulationLog.Run run = SimulationLog.read(log, new SimulationLog.Listener() {
+      @Override
+      public void request(List<String> groups, String name, long start, long end, boolean ok, String message) {
+        if (name.startsWith(REQUEST_PREFIX)) {
+          impact.record(ALL_QUESTIONS, start, end, ok);
+          impact.record(SimulationLog.path(groups, name), start, end, ok);
+        }
+      }
+    });
+    simulation = run.simulationClassName;
+  }
+
+  public String text() {
+    StringBuilder out = new StringBuilder();
+    out.append("Question pool analysis of ").append(simulation).append(String.format(
+        ": %d s windows from the %srefill%n%n", windowMillis / 1000,
+        timeline != null && Boolean.parseBoolean(timeline.getProperty("pool.cold")) ? "cold " : ""));
+    impact.appendText(out);
+    return out.toString();
+  }
+
+  public ObjectNode json() {
+    ObjectNode root = new ObjectMapper().createObjectNode();
+    root.put("simulation", simulation);
+    root.put("cold", timeline != null && Boolean.parseBoolean(timeline.getProperty("pool.cold")));
+    impact.writeTo(root);
+    return root;
+  }
+
+  public static void main(String[] args) throws IOException {
+    Path log = SimulationLog.fromArgs(args);
+    Path timelineFile = Paths.get(System.getProperty("pool.timeline", QuestionPool.defaultFile().toString()));
+    PoolReport report = new PoolReport(Long.getLong("pool.windowSeconds", 10) * 1000,
+        Files.exists(timelineFile) ? ServiceEvent.load(timelineFile) : null);
+    report.read(log);
+    Reports.write(log, "pool.json", report.text(), report.json());
+  }
+}
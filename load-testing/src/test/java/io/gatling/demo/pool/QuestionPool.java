@@ -0,0 +1,46 @@
+package io.gatling.demo.pool;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+import java.util.Properties;
+
+import io.gatling.demo.events.ServiceEvent;
+import io.gatling.demo.stats.SimulationLog;
+
+/**
+ * The questionservice's pool of pre-saved Wikidata items, which every {@code /question} draws four items from, and
+ * the job that refills it.
+ *
+ * <p>The refill is the {@link #EVENT}: {@code POST /mock/presave} on the mock, a {@code -Dpool.command} such as a
+ * {@code docker restart} (whose {@code initialRun()} pre-saves), or the questionservice's own hourly cron. With
+ * {@code -Dpool.cold=true} the mock empties the pool first, as a fresh deployment with an empty
+ * {@code WikidataItemRepository}; against a real stack the command has to do that itself.
+ */
+public final class QuestionPool {
+
+  public static final boolean COLD = Boolean.getBoolean("pool.cold");
+
+  /** The {@code '0 * * * *'} cron calling {@code preSaveWikidataItems()}. */
+  public static final ServiceEvent EVENT = new ServiceEvent("pool", COLD ? "/mock/presave?cold=true" : "/mock/presave",
+      ChronoUnit.HOURS, Duration.ZERO);
+
+  /** What {@code /question/:questionType} accepts, {@code random} first. */
+  public static final String[] QUESTION_TYPES = {"random", "foods", "monuments", "animals", "flags"};
+
+  private QuestionPool() {
+  }
+
+  public static Path defaultFile() {
+    return SimulationLog.resultsDirectory().resolve("pool.properties");
+  }
+
+  /**
+   * Writes when the refill was triggered to {@code file}. Meant to be called from {@code Simulation.after()}.
+   */
+  public static void store(Path file) {
+    Properties properties = new Properties();
+    properties.setProperty("pool.cold", Boolean.toString(COLD));
+    EVENT.store(file, properties);
+  }
+}
@@ -0,0 +1,292 @@
+package io.gatling.demo.replay;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.zip.GZIPInputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.gatling.demo.distributed.Injector;
+
+/**
+ * Streaming reader for a gateway access log in JSON lines, one request per line:
+ *
+ * <pre>
+ * {"timestamp":"2026-10-17T02:00:00.125Z","method":"GET","path":"/question-of-the-day","user":"alice"}
+ * {"timestamp":1760666400250,"method":"POST","path":"/answer","user":"bob","bodyRef":"bodies/answer.json"}
+ * </pre>
+ *
+ * <p>{@code timestamp} is an ISO-8601 instant or epoch milliseconds; {@code user} and {@code bodyRef} are optional.
+ * Files ending in {@code .gz} are decompressed on the fly. Lines are read one at a time, so logs of any size are
+ * replayed in constant memory; blank and unreadable lines are skipped. The log is expected in roughly
+ * chronological order, as access logs are written. In a distributed run each {@link Injector} reads the requests
+ * of its own share of the logged users.
+ */
+public final class AccessLog {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(AccessLog.class);
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+
+  /**
+   * One logged request.
+   */
+  public static final class Entry {
+    public final long timestamp;
+    public final String method;
+    public final String path;
+    public final String user;
+    public final String bodyRef;
+
+    Entry(long timestamp, String method, String path, String user, String bodyRef) {
+      this.timestamp = timestamp;
+      this.method = method;
+      this.path = path;
+      this.user = user;
+      this.bodyRef = bodyRef;
+    }
+  }
+
+  /**
+   * Arrivals per bucket of replay time, from a first pass over the log.
+   */
+  public static final class Schedule {
+    /** Timestamp of the first request of the window, the origin of replay time on every injector. */
+    public final long origin;
+    public final long bucketMillis;
+    public final int[] arrivals;
+    public final long total;
+
+    Schedule(long origin, long bucketMillis, int[] arrivals, long total) {
+      this.origin = origin;
+      this.bucketMillis = bucketMillis;
+      this.arrivals = arrivals;
+      this.total = total;
+    }
+  }
+
+  private final Path file;
+  private final Instant from;
+  private final Instant to;
+
+  /**
+   * @param from first instant replayed, or null to start with the log
+   * @param to   instant the replay stops at (exclusive), or null to run to the end of the log
+   */
+  public AccessLog(Path file, Instant from, Instant to) {
+    this.file = file;
+    this.from = from;
+    this.to = to;
+  }
+
+  public Path file() {
+    return file;
+  }
+
+  /**
+   * Counts the requests of the window per {@code bucketMillis} of replay time, with the log's inter-arrival times
+   * divided by {@code compression}. Only the counts are kept, so the pass runs in memory proportional to the
+   * replayed duration, not to the size of the log.
+   */
+  public Schedule schedule(double compression, long bucketMillis) {
+    long origin = -1;
+    long total = 0;
+    int[] arrivals = new int[64];
+    try (Reader reader = new Reader()) {
+      while (reader.hasNext()) {
+        Entry entry = reader.next();
+        origin = reader.first;
+        int bucket = (int) (Math.max(0, replayMillis(entry.timestamp, origin, compression)) / bucketMillis);
+        if (bucket >= arrivals.length) {
+          int[] grown = new int[Math.max(arrivals.length * 2, bucket + 1)];
+          System.arraycopy(arrivals, 0, grown, 0, arrivals.length);
+          arrivals = grown;
+        }
+        arrivals[bucket]++;
+        total++;
+      }
+      if (total == 0) {
+        throw new IllegalStateException(file + " holds no requests in the replay window");
+      }
+      int used = arrivals.length;
+      while (arrivals[used - 1] == 0) {
+        used--;
+      }
+      int[] trimmed = new int[used];
+      System.arraycopy(arrivals, 0, trimmed, 0, used);
+      LOGGER.info("{} requests to replay from {} over {} s", total, file,
+          used * bucketMillis / 1000);
+      return new Schedule(origin, bucketMillis, trimmed, total);
+    }
+  }
+
+  /**
+   * Offset of {@code timestamp} from {@code origin} in replay time.
+   */
+  public static long replayMillis(long timestamp, long origin, double compression) {
+    return Math.round((timestamp - origin) / compression);
+  }
+
+  /**
+   * Entries of the window in log order. Close it to release the file.
+   */
+  public Reader reader() {
+    return new Reader();
+  }
+
+  /**
+   * Iterator over the entries of the window, reading the file as it goes.
+   */
+  public final class Reader implements Iterator<Entry>, AutoCloseable {
+
+    private final BufferedReader lines;
+    private long lineNumber;
+    private long skipped;
+    // Timestamp of the first entry of the window, owned by this injector or not
+    private long first = -1;
+    private Entry next;
+    private boolean done;
+
+    private Reader() {
+      try {
+        InputStream in = Files.newInputStream(file);
+        if (file.getFileName().toString().endsWith(".gz")) {
+          in = new GZIPInputStream(in, 1 << 16);
+        }
+        lines = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), 1 << 16);
+      } catch (IOException e) {
+        throw new UncheckedIOException("Could not open " + file, e);
+      }
+    }
+
+    @Override
+    public boolean hasNext() {
+      if (next == null && !done) {
+        next = advance();
+        done = next == null;
+      }
+      return next != null;
+    }
+
+    @Override
+    public Entry next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      Entry entry = next;
+      next = null;
+      return entry;
+    }
+
+    @Override
+    public void close() {
+      try {
+        lines.close();
+      } catch (IOException e) {
+        LOGGER.warn("Could not close {}: {}", file, e.getMessage());
+      }
+      if (skipped > 0) {
+        LOGGER.warn("Skipped {} unreadable lines of {}", skipped, file);
+      }
+    }
+
+    private Entry advance() {
+      try {
+        String line;
+        while ((line = lines.readLine()) != null) {
+          lineNumber++;
+          if (line.isBlank()) {
+            continue;
+          }
+          Entry entry = parse(line);
+          if (entry == null) {
+            skipped++;
+            continue;
+          }
+          if (from != null && entry.timestamp < from.toEpochMilli()) {
+            continue;
+          }
+          if (to != null && entry.timestamp >= to.toEpochMilli()) {
+            return null;
+          }
+          if (first < 0) {
+            first = entry.timestamp;
+          }
+          if (!Injector.owns(entry.user != null ? entry.user.hashCode() : lineNumber)) {
+            continue;
+          }
+          return entry;
+        }
+        return null;
+      } catch (IOException e) {
+        throw new UncheckedIOException("Could not read line " + (lineNumber + 1) + " of " + file, e);
+      }
+    }
+
+    private Entry parse(String line) {
+      try {
+        JsonNode json = MAPPER.readTree(line);
+        JsonNode timestamp = json.path("timestamp");
+        String method = json.path("method").asText(null);
+        String path = json.path("path").asText(null);
+        if (method == null || path == null || timestamp.isMissingNode()) {
+          return null;
+        }
+        return new Entry(timestamp.isNumber() ? timestamp.asLong() : Instant.parse(timestamp.asText()).toEpochMilli(),
+            method.toUpperCase(), path, text(json, "user"), text(json, "bodyRef"));
+      } catch (IOException | RuntimeException e) {
+        if (skipped == 0) {
+          LOGGER.warn("Skipping line {} of {}: {}", lineNumber, file, e.getMessage());
+        }
+        return null;
+      }
+    }
+  }
+
+  /**
+   * Gatling feeder records of the entries: {@code timestamp}, {@code method}, {@code path} and, when logged,
+   * {@code user} and {@code bodyRef}.
+   */
+  public static Iterator<Map<String, Object>> records(Reader reader) {
+    return new Iterator<Map<String, Object>>() {
+      @Override
+      public boolean hasNext() {
+        return reader.hasNext();
+      }
+
+      @Override
+      public Map<String, Object> next() {
+        Entry entry = reader.next();
+        Map<String, Object> record = new HashMap<>();
+        record.put("timestamp", entry.timestamp);
+        record.put("method", entry.method);
+        record.put("path", entry.path);
+        if (entry.user != null) {
+          record.put("user", entry.user);
+        }
+        if (entry.bodyRef != null) {
+          record.put("bodyRef", entry.bodyRef);
+        }
+        return record;
+      }
+    };
+  }
+
+  private static String text(JsonNode json, String field) {
+    JsonNode value = json.get(field);
+    return value == null || value.isNull() || value.asText().isEmpty() ? null : value.asText();
+  }
+}
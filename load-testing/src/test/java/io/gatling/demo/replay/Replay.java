@@ -0,0 +1,326 @@
+package io.gatling.demo.replay;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.gatling.demo.Targets;
+import io.gatling.demo.auth.Auth;
+import io.gatling.demo.http.Headers;
+import io.gatling.demo.users.Population;
+import io.gatling.javaapi.core.ChainBuilder;
+import io.gatling.javaapi.core.Choice;
+import static io.gatling.javaapi.core.CoreDsl.StringBody;
+import static io.gatling.javaapi.core.CoreDsl.atOnceUsers;
+import static io.gatling.javaapi.core.CoreDsl.doIf;
+import static io.gatling.javaapi.core.CoreDsl.doIfOrElse;
+import static io.gatling.javaapi.core.CoreDsl.doSwitchOrElse;
+import static io.gatling.javaapi.core.CoreDsl.exec;
+import static io.gatling.javaapi.core.CoreDsl.nothingFor;
+import static io.gatling.javaapi.core.CoreDsl.onCase;
+import io.gatling.javaapi.core.OpenInjectionStep;
+import io.gatling.javaapi.core.Session;
+import static io.gatling.javaapi.http.HttpDsl.http;
+import io.gatling.javaapi.http.HttpRequestActionBuilder;
+
+/**
+ * Replays a gateway {@link AccessLog} with its original inter-arrival times, divided by a compression factor.
+ *
+ * <p>A first pass over the log counts the arrivals of each bucket of replay time, and the injection profile
+ * starts exactly that many users at the start of each bucket. Each user then takes the next entry of the log
+ * from a streaming feeder and pauses until the entry is due, so requests go out at their logged offsets rather
+ * than at the bucket's average rate. Logged users are mapped onto the {@link Population}, always the same one
+ * for the same logged user. The logged username is rewritten in the path, and in JSON bodies the usernames are
+ * rewritten the same way, with the passwords next to them replaced by the population's, so that {@code /login} and
+ * {@code /adduser} act on the population's accounts. Requests are named after their method and path, with the
+ * usernames and ids templated out, e.g. {@code get /users/:username/image}.
+ *
+ * <ul>
+ *   <li>{@code -Dreplay.file} — the log, plain or gzipped (required)</li>
+ *   <li>{@code -Dreplay.compression} — how many times faster than logged to replay (default 1)</li>
+ *   <li>{@code -Dreplay.from}, {@code -Dreplay.to} — ISO-8601 instants delimiting the replayed window</li>
+ *   <li>{@code -Dreplay.bodies} — directory {@code bodyRef}s are resolved against, the log's by default</li>
+ *   <li>{@code -Dreplay.bucketMillis} — resolution of the injection profile (default 1000)</li>
+ * </ul>
+ */
+public final class Replay {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(Replay.class);
+
+  private static final List<String> METHODS = List.of("GET", "POST", "PUT", "PATCH", "DELETE", "OPTIONS");
+  private static final long LATE_MILLIS = 100;
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+
+  // Path segments that name a user: /users/:username/..., /profile/:username
+  private static final Set<String> USER_PARENTS = Set.of("users", "profile");
+  // Numbers, Mongo ObjectIds and UUIDs
+  private static final Pattern ID =
+      Pattern.compile("\\d+|[0-9a-fA-F]{24}|[0-9a-fA-F]{8}(-[0-9a-fA-F]{4}){3}-[0-9a-fA-F]{12}");
+  // JSON fields of the gateway's bodies that carry a username, and the passwords that go with it
+  private static final Set<String> USER_FIELDS = Set.of("username", "currentUser");
+  private static final Set<String> PASSWORD_FIELDS = Set.of("password", "confirmpassword");
+
+  private final AccessLog log;
+  private final double compression;
+  private final long bucketMillis;
+  private final Path bodies;
+  private final Map<String, String> bodyCache = new ConcurrentHashMap<>();
+  private final AtomicLong startNanos = new AtomicLong();
+  private final LongAdder late = new LongAdder();
+  private final LongAccumulator maxLateness = new LongAccumulator(Math::max, 0);
+  private AccessLog.Schedule schedule;
+  private AccessLog.Reader reader;
+  private List<String> users;
+
+  public Replay(AccessLog log, double compression, long bucketMillis, Path bodies) {
+    if (compression <= 0) {
+      throw new IllegalArgumentException("replay.compression must be positive: " + compression);
+    }
+    this.log = log;
+    this.compression = compression;
+    this.bucketMillis = bucketMillis;
+    this.bodies = bodies;
+  }
+
+  public static Replay fromSystemProperties() {
+    String file = System.getProperty("replay.file");
+    if (file == null) {
+      throw new IllegalArgumentException("Set -Dreplay.file to the access log to replay");
+    }
+    Path path = Paths.get(file).toAbsolutePath();
+    String bodies = System.getProperty("replay.bodies");
+    return new Replay(
+        new AccessLog(path, instant("replay.from"), instant("replay.to")),
+        Double.parseDouble(System.getProperty("replay.compression", "1")),
+        Long.getLong("replay.bucketMillis", 1000),
+        bodies != null ? Paths.get(bodies) : path.getParent());
+  }
+
+  /**
+   * One user per logged request, started at the beginning of the bucket its request falls in.
+   */
+  public synchronized List<OpenInjectionStep> injectionProfile() {
+    if (schedule == null) {
+      schedule = log.schedule(compression, bucketMillis);
+    }
+    List<OpenInjectionStep> steps = new ArrayList<>();
+    long idle = 0;
+    for (int arrivals : schedule.arrivals) {
+      if (arrivals > 0) {
+        if (idle > 0) {
+          steps.add(nothingFor(Duration.ofMillis(idle)));
+        }
+        steps.add(atOnceUsers(arrivals));
+        idle = 0;
+      }
+      idle += bucketMillis;
+    }
+    return steps;
+  }
+
+  /**
+   * Entries of the log, read as the users take them. Close it with {@link #close()}.
+   */
+  public synchronized Iterator<Map<String, Object>> feeder() {
+    if (reader == null) {
+      reader = log.reader();
+    }
+    return AccessLog.records(reader);
+  }
+
+  /**
+   * Waits until the fed entry is due, then sends it to the gateway.
+   */
+  public ChainBuilder chain() {
+    return exec(this::prepare)
+        .pause(session -> Duration.ofMillis(session.getLong("replayDelay")))
+        .exec(doIf("#{username.exists()}").then(Auth.attachToken()))
+        .exec(doIfOrElse("#{bodyRef.exists()}").then(send(true)).orElse(send(false)));
+  }
+
+  /**
+   * Releases the log and reports how closely the injector kept to the logged timing.
+   */
+  public synchronized void close() {
+    if (reader != null) {
+      reader.close();
+      reader = null;
+    }
+    if (late.sum() > 0) {
+      LOGGER.warn("{} requests went out more than {} ms late, up to {} ms: the injector could not keep up",
+          late.sum(), LATE_MILLIS, maxLateness.get());
+    }
+  }
+
+  private Session prepare(Session session) {
+    long now = System.nanoTime();
+    long due = AccessLog.replayMillis(session.getLong("timestamp"), schedule.origin, compression);
+    // The first user was started with its bucket, which may not be the first one on a distributed run
+    startNanos.compareAndSet(0, now - due / bucketMillis * bucketMillis * 1_000_000);
+    long delay = due - (now - startNanos.get()) / 1_000_000;
+    if (delay < -LATE_MILLIS) {
+      late.increment();
+      maxLateness.accumulate(-delay);
+    }
+    String path = session.getString("path");
+    String method = session.getString("method");
+    String logged = session.contains("user") ? session.getString("user") : null;
+    Session prepared = session
+        .set("replayDelay", Math.max(0, delay))
+        .set("replayName", method.toLowerCase() + " " + route(path, logged));
+    if (logged != null) {
+      String user = user(logged);
+      prepared = prepared.set("username", user).set("replayPath", rewrite(path, logged, user));
+    } else {
+      prepared = prepared.set("replayPath", path);
+    }
+    return prepared;
+  }
+
+  private ChainBuilder send(boolean withBody) {
+    return doIfOrElse("#{token.exists()}")
+        .then(send(withBody, true))
+        .orElse(send(withBody, false));
+  }
+
+  private ChainBuilder send(boolean withBody, boolean authorized) {
+    List<Choice.WithKey> cases = new ArrayList<>();
+    for (String method : METHODS) {
+      HttpRequestActionBuilder request = http("#{replayName}")
+          .httpRequest(method, Targets.GATEWAY_URL + "#{replayPath}")
+          .headers(authorized
+              ? (withBody ? Headers.AUTHORIZED_API_JSON : Headers.AUTHORIZED_API)
+              : (withBody ? Headers.API_JSON : Headers.API));
+      if (withBody) {
+        request = request.body(StringBody(this::body));
+      }
+      cases.add(onCase(method).then(exec(request)));
+    }
+    return doSwitchOrElse("#{method}").on(cases).orElse(exec(session -> {
+      LOGGER.warn("Not replaying {} {}: unsupported method", session.getString("method"),
+          session.getString("path"));
+      return session;
+    }));
+  }
+
+  // The logged body, with its users mapped onto the population
+  private String body(Session session) {
+    String body = body(session.getString("bodyRef"));
+    JsonNode json;
+    try {
+      json = MAPPER.readTree(body);
+    } catch (JsonProcessingException e) {
+      return body;
+    }
+    if (json == null || !json.isContainerNode()) {
+      return body;
+    }
+    JsonNode rewritten = json.deepCopy();
+    rewriteUsers(rewritten, session.contains("user") ? session.getString("user") : null);
+    return rewritten.toString();
+  }
+
+  private void rewriteUsers(JsonNode node, String logged) {
+    if (node.isArray()) {
+      node.forEach(element -> rewriteUsers(element, logged));
+      return;
+    }
+    if (!node.isObject()) {
+      return;
+    }
+    ObjectNode object = (ObjectNode) node;
+    String user = null;
+    List<String> fields = new ArrayList<>();
+    object.fieldNames().forEachRemaining(fields::add);
+    for (String field : fields) {
+      JsonNode value = object.get(field);
+      if (value.isTextual() && (USER_FIELDS.contains(field) || value.asText().equals(logged))) {
+        user = user(value.asText());
+        object.put(field, user);
+      } else {
+        rewriteUsers(value, logged);
+      }
+    }
+    if (user != null) {
+      String password = Population.credentials().get(user);
+      for (String field : PASSWORD_FIELDS) {
+        if (object.hasNonNull(field)) {
+          object.put(field, password);
+        }
+      }
+    }
+  }
+
+  private String body(String ref) {
+    return bodyCache.computeIfAbsent(ref, key -> {
+      try {
+        return Files.readString(bodies.resolve(key), StandardCharsets.UTF_8);
+      } catch (IOException e) {
+        throw new UncheckedIOException("Could not read body " + key + " under " + bodies, e);
+      }
+    });
+  }
+
+  // The same logged user always maps to the same member of the population
+  private synchronized String user(String logged) {
+    if (users == null) {
+      users = new ArrayList<>(Population.credentials().keySet());
+    }
+    return users.get(Math.floorMod(logged.hashCode(), users.size()));
+  }
+
+  // The path without its query, usernames and ids templated out, so that /profile/alice and /profile/bob share a
+  // request name but /users/alice/image and /users/alice/custom-image do not
+  private static String route(String path, String logged) {
+    int end = path.indexOf('?');
+    String[] segments = (end < 0 ? path : path.substring(0, end)).split("/", -1);
+    for (int i = 0; i < segments.length; i++) {
+      if (segments[i].isEmpty()) {
+        continue;
+      }
+      if (segments[i].equals(logged) || (i > 0 && USER_PARENTS.contains(segments[i - 1]))) {
+        segments[i] = ":username";
+      } else if (ID.matcher(segments[i]).matches()) {
+        segments[i] = ":id";
+      }
+    }
+    return String.join("/", segments);
+  }
+
+  private static String rewrite(String path, String logged, String user) {
+    String[] segments = path.split("/", -1);
+    for (int i = 0; i < segments.length; i++) {
+      if (segments[i].equals(logged)) {
+        segments[i] = user;
+      }
+    }
+    return String.join("/", segments);
+  }
+
+  private static Instant instant(String property) {
+    String value = System.getProperty(property);
+    return value != null ? Instant.parse(value) : null;
+  }
+}
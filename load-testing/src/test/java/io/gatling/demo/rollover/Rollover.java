@@ -0,0 +1,122 @@
+package io.gatling.demo.rollover;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+import java.util.Properties;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.gatling.demo.events.ServiceEvent;
+import io.gatling.demo.stats.SimulationLog;
+
+/**
+ * The question of the day changing under load, and what the watcher of a rollover run saw of it.
+ *
+ * <p>The new question comes from the {@link #EVENT}: {@code POST /mock/rollover} on the mock, a
+ * {@code -Drollover.command} such as a {@code docker exec} that calls {@code setQuestionOfTheDay()}, or the
+ * questionservice's own 02:00 Europe/Madrid cron. The moments are stored in {@link #defaultFile()} for
+ * {@link RolloverReport}.
+ */
+public final class Rollover {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(Rollover.class);
+
+  /** The questionservice's {@code '0 2 * * *'} cron calling {@code setQuestionOfTheDay()}. */
+  public static final ServiceEvent EVENT = new ServiceEvent("rollover", "/mock/rollover", ChronoUnit.DAYS,
+      Duration.ofHours(2));
+
+  private static volatile String previousId;
+  private static volatile String newId;
+  private static volatile long detectedAt;
+
+  private Rollover() {
+  }
+
+  public static Path defaultFile() {
+    return SimulationLog.resultsDirectory().resolve("rollover.properties");
+  }
+
+  /**
+   * Question of the day before the rollover, as the watcher fetched it.
+   */
+  public static void previous(String id) {
+    previousId = id;
+  }
+
+  public static String previousId() {
+    return previousId;
+  }
+
+  /**
+   * Replaces the question of the day, see {@link ServiceEvent#fire()}.
+   */
+  public static void trigger() {
+    EVENT.fire();
+  }
+
+  /**
+   * The watcher saw {@code id} replace the previous question.
+   */
+  public static void detected(String id) {
+    newId = id;
+    detectedAt = System.currentTimeMillis();
+    LOGGER.info("Question of the day {} replaced {} {} ms after the trigger", id, previousId,
+        detectedAt - EVENT.firedAt());
+  }
+
+  /**
+   * Whether a fetch sent at {@code sentAt} that returned {@code id} got the old question although the new one was
+   * already out.
+   */
+  public static boolean stale(String id, long sentAt) {
+    return detectedAt > 0 && sentAt > detectedAt && id.equals(previousId);
+  }
+
+  /**
+   * The moments of the rollover, as seen by this injector.
+   */
+  public static final class Timeline {
+    public final String previousId;
+    public final String newId;
+    public final long triggeredAt;
+    public final long detectedAt;
+
+    public Timeline(String previousId, String newId, long triggeredAt, long detectedAt) {
+      this.previousId = previousId;
+      this.newId = newId;
+      this.triggeredAt = triggeredAt;
+      this.detectedAt = detectedAt;
+    }
+
+    public boolean detected() {
+      return detectedAt > 0;
+    }
+
+    public static Timeline load(Path file) {
+      Properties properties = ServiceEvent.load(file);
+      return new Timeline(properties.getProperty("rollover.previousId"), properties.getProperty("rollover.newId"),
+          Long.parseLong(properties.getProperty("rollover.firedAt", "0")),
+          Long.parseLong(properties.getProperty("rollover.detectedAt", "0")));
+    }
+  }
+
+  /**
+   * Writes what this run saw to {@code file}. Meant to be called from {@code Simulation.after()}.
+   */
+  public static void store(Path file) {
+    if (detectedAt == 0) {
+      LOGGER.warn("The question of the day never changed from {}", previousId);
+    }
+    Properties properties = new Properties();
+    if (previousId != null) {
+      properties.setProperty("rollover.previousId", previousId);
+    }
+    if (newId != null) {
+      properties.setProperty("rollover.newId", newId);
+    }
+    properties.setProperty("rollover.detectedAt", Long.toString(detectedAt));
+    EVENT.store(file, properties);
+  }
+}
@@ -0,0 +1,151 @@
+package io.gatling.demo.rollover;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.gatling.demo.QODRolloverSimulation;
+import io.gatling.demo.events.EventImpact;
+import io.gatling.demo.stats.Reports;
+import io.gatling.demo.stats.SimulationLog;
+
+/**
+ * Latency spike, recovery and stale questions of a {@link QODRolloverSimulation} run.
+ *
+ * <p>The rollover is taken from {@code rollover.properties}, or else from the first burst user. Around it, the
+ * {@link EventImpact} of the question of the day fetches, the answers and all requests is reported in windows of
+ * {@code -Drollover.windowSeconds} (default 5). A window has not recovered while its p95 is above
+ * {@code -Drollover.recoveryFactor} (default 2) times the p95 before the rollover, or its error rate more than
+ * {@code -Drollover.maxErrorRise} (default 0.01) above it. Fetches failed as {@value #STALE} got the old question
+ * after the watcher had seen the new one; other failed fetches got no question at all. The verdict is printed and
+ * written to {@code rollover.json} in the run directory.
+ *
+ * <pre>
+ * mvnw exec:java -Dexec.mainClass=io.gatling.demo.rollover.RolloverReport -Dexec.classpathScope=test \
+ *     [-Dexec.args=target/gatling/&lt;run&gt;] [-Drollover.windowSeconds=5 -Drollover.recoveryFactor=2]
+ * </pre>
+ */
+public final class RolloverReport {
+
+  public static final String ALL_REQUESTS = "All requests";
+  public static final String FETCH_REQUEST = "get question-of-the-day";
+  public static final String ANSWER_REQUEST = "post answer";
+  /** The watcher's polling, left out of the other series. */
+  public static final String WATCH_REQUEST = "watch question-of-the-day";
+  public static final String BURST_SCENARIO = "rollover burst";
+  /** Start of the failure message of a fetch that got the previous question. */
+  public static final String STALE = "stale";
+
+  private final Rollover.Timeline timeline;
+  private final long windowMillis;
+  private EventImpact impact;
+  private String simulation;
+  private long stale;
+  private long missing;
+  private long answerErrors;
+
+  public RolloverReport(Rollover.Timeline timeline, long windowMillis) {
+    this.timeline = timeline;
+    this.windowMillis = windowMillis;
+  }
+
+  public void read(Path log) throws IOException {
+    long rolloverAt;
+    if (timeline == null || timeline.triggeredAt == 0) {
+      rolloverAt = EventImpact.firstUser(log, BURST_SCENARIO);
+    } else if (timeline.triggeredAt < SimulationLog.readRun(log).start) {
+      throw new IOException("The rollover timeline predates " + log + "; pass the run's with -Drollover.timeline");
+    } else {
+      rolloverAt = timeline.triggeredAt;
+    }
+    impact = new EventImpact(rolloverAt, windowMillis,
+        Double.parseDouble(System.getProperty("rollover.recoveryFactor", "2")),
+        Double.parseDouble(System.getProperty("rollover.maxErrorRise", "0.01")),
+        Integer.getInteger("rollover.minSamples", 10));
+    for (String name : List.of(FETCH_REQUEST, ANSWER_REQUEST, ALL_REQUESTS)) {
+      impact.track(name);
+    }
+    SimulationLog.Run run = SimulationLog.read(log, new SimulationLog.Listener() {
+      @Override
+      public void request(List<String> groups, String name, long start, long end, boolean ok, String message) {
+        if (name.equals(WATCH_REQUEST)) {
+          return;
+        }
+        impact.record(ALL_REQUESTS, start, end, ok);
+        String path = SimulationLog.path(groups, name);
+        if (path.equals(FETCH_REQUEST)) {
+          impact.record(FETCH_REQUEST, start, end, ok);
+          if (!ok && message != null && message.contains(STALE)) {
+            stale++;
+          } else if (!ok) {
+            missing++;
+          }
+        } else if (path.equals(ANSWER_REQUEST)) {
+          impact.record(ANSWER_REQUEST, start, end, ok);
+          if (!ok) {
+            answerErrors++;
+          }
+        }
+      }
+    });
+    simulation = run.simulationClassName;
+  }
+
+  /**
+   * Whether the new question showed, everyone got it once it had, and the fetches came back to the baseline.
+   */
+  public boolean passed() {
+    return (timeline == null || timeline.detected()) && stale == 0 && missing == 0
+        && impact.recoveryMillis(FETCH_REQUEST) >= 0;
+  }
+
+  public String text() {
+    StringBuilder out = new StringBuilder();
+    out.append("Rollover analysis of ").append(simulation).append(String.format(": %d s windows from the rollover%n",
+        windowMillis / 1000));
+    if (timeline == null) {
+      out.append("No rollover timeline, timed from the first burst user\n");
+    } else if (!timeline.detected()) {
+      out.append("The question of the day never changed from ").append(timeline.previousId).append('\n');
+    } else {
+      out.append(String.format("Question of the day %s replaced %s %d ms after the trigger%n", timeline.newId,
+          timeline.previousId, timeline.detectedAt - timeline.triggeredAt));
+    }
+    out.append('\n');
+    impact.appendText(out);
+    out.append(String.format("%nStale questions: %d, missing questions: %d, failed answers: %d%n", stale, missing,
+        answerErrors));
+    out.append(passed() ? "PASSED" : "FAILED").append('\n');
+    return out.toString();
+  }
+
+  public ObjectNode json() {
+    ObjectMapper mapper = new ObjectMapper();
+    ObjectNode root = mapper.createObjectNode();
+    root.put("simulation", simulation);
+    if (timeline != null) {
+      root.put("previousId", timeline.previousId);
+      root.put("newId", timeline.newId);
+      root.put("detectedAfterMs", timeline.detected() ? timeline.detectedAt - timeline.triggeredAt : -1);
+    }
+    root.put("stale", stale);
+    root.put("missing", missing);
+    root.put("failedAnswers", answerErrors);
+    root.put("passed", passed());
+    impact.writeTo(root);
+    return root;
+  }
+
+  public static void main(String[] args) throws IOException {
+    Path log = SimulationLog.fromArgs(args);
+    Path timelineFile = Paths.get(System.getProperty("rollover.timeline", Rollover.defaultFile().toString()));
+    Rollover.Timeline timeline = Files.exists(timelineFile) ? Rollover.Timeline.load(timelineFile) : null;
+    RolloverReport report = new RolloverReport(timeline, Long.getLong("rollover.windowSeconds", 5) * 1000);
+    report.read(log);
+    Reports.write(log, "rollover.json", report.text(), report.json());
+  }
+}
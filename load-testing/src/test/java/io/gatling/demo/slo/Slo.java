@@ -0,0 +1,155 @@
+package io.gatling.demo.slo;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.typesafe.config.Config;
+import com.typesafe.config.ConfigFactory;
+import static io.gatling.javaapi.core.CoreDsl.details;
+import static io.gatling.javaapi.core.CoreDsl.global;
+import io.gatling.demo.Load;
+import io.gatling.javaapi.core.Assertion;
+
+/**
+ * Service level objectives of the simulations, read from {@code slo.conf} (or the file given with
+ * {@code -Dslo.file}).
+ *
+ * <p>Each simulation passes {@link #assertions(Class)} to {@code setUp(...).assertions(...)}: the global
+ * targets, or its own ones, plus those of the requests listed for it. Gatling prints one line per target and fails
+ * {@code mvnw gatling:test} when any is missed.
+ */
+public final class Slo {
+
+  /**
+   * Targets of one request name, or of the whole run. Unset metrics are not checked.
+   */
+  public static final class Target {
+    private static final String[] PERCENTILES = {"p50", "p75", "p95", "p99", "p999"};
+    private static final double[] PERCENTILE_VALUES = {50, 75, 95, 99, 99.9};
+
+    final Map<Double, Long> percentilesMs = new LinkedHashMap<>();
+    final Long meanMs;
+    final Long maxMs;
+    final Double errorRate;
+
+    Target(Config config) {
+      for (int i = 0; i < PERCENTILES.length; i++) {
+        if (config.hasPath(PERCENTILES[i])) {
+          percentilesMs.put(PERCENTILE_VALUES[i], config.getDuration(PERCENTILES[i]).toMillis());
+        }
+      }
+      this.meanMs = config.hasPath("mean") ? config.getDuration("mean").toMillis() : null;
+      this.maxMs = config.hasPath("max") ? config.getDuration("max").toMillis() : null;
+      this.errorRate = config.hasPath("errorRate") ? config.getDouble("errorRate") : null;
+    }
+
+    /** Target percentiles, keyed by percentile (e.g. 99.0), in ms. */
+    public Map<Double, Long> percentilesMs() {
+      return Collections.unmodifiableMap(percentilesMs);
+    }
+
+    public Long meanMs() {
+      return meanMs;
+    }
+
+    public Long maxMs() {
+      return maxMs;
+    }
+
+    public Double errorRate() {
+      return errorRate;
+    }
+
+    List<Assertion> toAssertions(Assertion.WithPath path) {
+      List<Assertion> assertions = new ArrayList<>();
+      percentilesMs.forEach((percentile, ms) -> assertions.add(path.responseTime().percentile(percentile)
+          .lt(Math.toIntExact(ms))));
+      if (meanMs != null) {
+        assertions.add(path.responseTime().mean().lt(Math.toIntExact(meanMs)));
+      }
+      if (maxMs != null) {
+        assertions.add(path.responseTime().max().lt(Math.toIntExact(maxMs)));
+      }
+      if (errorRate != null) {
+        // Gatling counts failures in percent
+        assertions.add(path.failedRequests().percent().lt(errorRate * 100));
+      }
+      return assertions;
+    }
+  }
+
+  private final boolean enabled;
+  private final Target global;
+  private final Map<String, Target> globals = new LinkedHashMap<>();
+  private final Map<String, Target> requests = new LinkedHashMap<>();
+  private final Map<String, List<String>> simulations = new LinkedHashMap<>();
+
+  Slo(Config root) {
+    Config config = root.getConfig("slo");
+    this.enabled = config.getBoolean("enabled");
+    this.global = new Target(config.getConfig("global"));
+    if (config.hasPath("globalBySimulation")) {
+      Config globalConfigs = config.getConfig("globalBySimulation");
+      for (String simulation : globalConfigs.root().keySet()) {
+        globals.put(simulation, new Target(globalConfigs.getConfig("\"" + simulation + "\"")
+            .withFallback(config.getConfig("global"))));
+      }
+    }
+    Config requestConfigs = config.getConfig("requests");
+    for (String name : requestConfigs.root().keySet()) {
+      requests.put(name, new Target(requestConfigs.getObject("\"" + name + "\"").toConfig()));
+    }
+    Config simulationConfigs = config.getConfig("simulations");
+    for (String simulation : simulationConfigs.root().keySet()) {
+      List<String> names = simulationConfigs.getStringList("\"" + simulation + "\"");
+      for (String name : names) {
+        if (!requests.containsKey(name)) {
+          throw new IllegalArgumentException("slo.simulations." + simulation + " lists \"" + name
+              + "\", which has no entry in slo.requests");
+        }
+      }
+      simulations.put(simulation, names);
+    }
+  }
+
+  public static Slo load() {
+    String file = System.getProperty("slo.file");
+    Config config = file == null
+        ? ConfigFactory.load("slo")
+        : ConfigFactory.systemProperties().withFallback(ConfigFactory.parseFile(new File(file))).resolve();
+    return new Slo(config);
+  }
+
+  /**
+   * Gatling assertions of {@code simulation}: none when disabled or in a capacity search.
+   */
+  public static List<Assertion> assertions(Class<?> simulation) {
+    return load().assertionsOf(simulation.getSimpleName());
+  }
+
+  List<Assertion> assertionsOf(String simulation) {
+    if (!enabled || Load.CAPACITY) {
+      return Collections.emptyList();
+    }
+    List<Assertion> assertions = new ArrayList<>(globals.getOrDefault(simulation, global).toAssertions(global()));
+    for (String name : simulations.getOrDefault(simulation, Collections.emptyList())) {
+      assertions.addAll(requests.get(name).toAssertions(details(name)));
+    }
+    return assertions;
+  }
+
+  public Target globalTarget() {
+    return global;
+  }
+
+  /**
+   * Target of request {@code name}, or null if it has none.
+   */
+  public Target request(String name) {
+    return requests.get(name);
+  }
+}
@@ -0,0 +1,278 @@
+package io.gatling.demo.soak;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.gatling.demo.SoakSimulation;
+import io.gatling.demo.stats.Reports;
+import io.gatling.demo.stats.RequestStats;
+import io.gatling.demo.stats.SimulationLog;
+
+/**
+ * Looks for steady degradation in a long run, such as one of {@link SoakSimulation}.
+ *
+ * <p>After a warm-up, requests are bucketed into fixed windows by start time. For each window, overall, per request and
+ * for the health probe, it computes p50/p95/p99 and the error rate. A least-squares line through the windows gives each
+ * series' slope per hour. A series is flagged as degrading when the line rises by more than
+ * {@code -Dsoak.maxLatencyDrift} (default 0.2, i.e. 20%) in p95 or p99 latency, or by more than
+ * {@code -Dsoak.maxErrorDrift} (default 0.005) in error rate, over the run, and the line fits the windows well enough
+ * ({@code -Dsoak.minR2}, default 0.5) for the drift to be steady rather than noise. It is flagged even if every window
+ * still meets the SLO. Requests are told apart by their group path, as in Gatling's report, so
+ * {@code login / post login} and {@code customGame / post login} are two series. Windows that end after the last user
+ * arrived are left out. The verdict is printed and written to {@code soak.json} in the run directory.
+ *
+ * <pre>
+ * mvnw exec:java -Dexec.mainClass=io.gatling.demo.soak.SoakReport -Dexec.classpathScope=test \
+ *     [-Dexec.args=target/gatling/&lt;run&gt;] [-Dsoak.windowSeconds=600 -Dsoak.warmupSeconds=600]
+ * </pre>
+ */
+public final class SoakReport {
+
+  public static final String ALL_REQUESTS = "All requests";
+
+  /** Windows with fewer requests than this are left out of a series' trend. */
+  private static final int MIN_SAMPLES = Integer.getInteger("soak.minSamples", 10);
+  /** A drift is only steady, and flagged, when the line explains at least this share of the variance. */
+  private static final double MIN_R2 = Double.parseDouble(System.getProperty("soak.minR2", "0.5"));
+
+  /**
+   * Trends of one series and whether they amount to a degradation.
+   */
+  final class Verdict {
+    final Trend p50;
+    final Trend p95;
+    final Trend p99;
+    final Trend errors;
+    final double start;
+    final double hours;
+
+    Verdict(List<RequestStats> windows) {
+      List<double[]> points = new ArrayList<>();
+      for (int i = 0; i < windows.size(); i++) {
+        RequestStats window = windows.get(i);
+        if (window.count() >= MIN_SAMPLES) {
+          points.add(new double[] {hours(i), window.histogram.percentile(50), window.histogram.percentile(95),
+              window.histogram.percentile(99), window.errorRate()});
+        }
+      }
+      p50 = fit(points, 1);
+      p95 = fit(points, 2);
+      p99 = fit(points, 3);
+      errors = fit(points, 4);
+      start = points.isEmpty() ? 0 : points.get(0)[0];
+      hours = points.size() < 2 ? 0 : points.get(points.size() - 1)[0] - start;
+    }
+
+    /** Relative growth of the fitted line over the run. */
+    double drift(Trend trend) {
+      return trend.slope * hours / Math.max(1, trend.at(start));
+    }
+
+    double errorDrift() {
+      return errors.slope * hours;
+    }
+
+    List<String> reasons() {
+      List<String> reasons = new ArrayList<>();
+      if (p95.points < 3) {
+        return reasons;
+      }
+      if (drift(p95) > maxLatencyDrift && p95.r2 >= MIN_R2) {
+        reasons.add(String.format("p95 +%.0f%%", drift(p95) * 100));
+      }
+      if (drift(p99) > maxLatencyDrift && p99.r2 >= MIN_R2) {
+        reasons.add(String.format("p99 +%.0f%%", drift(p99) * 100));
+      }
+      if (errorDrift() > maxErrorDrift && errors.r2 >= MIN_R2) {
+        reasons.add(String.format("errors +%.2f pts", errorDrift() * 100));
+      }
+      return reasons;
+    }
+  }
+
+  private final long windowMillis;
+  private final long warmupMillis;
+  private final double maxLatencyDrift;
+  private final double maxErrorDrift;
+  private final Map<String, List<RequestStats>> series = new LinkedHashMap<>();
+  private String simulation;
+  private long injectionStart = -1;
+  private long injectionEnd;
+
+  public SoakReport(long windowMillis, long warmupMillis, double maxLatencyDrift, double maxErrorDrift) {
+    this.windowMillis = windowMillis;
+    this.warmupMillis = warmupMillis;
+    this.maxLatencyDrift = maxLatencyDrift;
+    this.maxErrorDrift = maxErrorDrift;
+    series.put(ALL_REQUESTS, new ArrayList<>());
+  }
+
+  public static SoakReport fromSystemProperties() {
+    return new SoakReport(Long.getLong("soak.windowSeconds", 600) * 1000,
+        Long.getLong("soak.warmupSeconds", 600) * 1000,
+        Double.parseDouble(System.getProperty("soak.maxLatencyDrift", "0.2")),
+        Double.parseDouble(System.getProperty("soak.maxErrorDrift", "0.005")));
+  }
+
+  public void read(Path log) throws IOException {
+    SimulationLog.Run run = SimulationLog.read(log, new SimulationLog.Listener() {
+      @Override
+      public void user(String scenario, boolean start, long timestamp) {
+        if (start && injectionStart < 0) {
+          injectionStart = timestamp;
+        }
+        if (start) {
+          injectionEnd = timestamp;
+        }
+      }
+
+      @Override
+      public void request(List<String> groups, String name, long start, long end, boolean ok, String message) {
+        long offset = injectionStart < 0 ? -1 : start - injectionStart - warmupMillis;
+        if (offset < 0) {
+          return;
+        }
+        int index = (int) (offset / windowMillis);
+        // The same request name in two flows is two series, as in Gatling's report
+        String path = SimulationLog.path(groups, name);
+        if (!path.equals(SoakSimulation.HEALTH_REQUEST)) {
+          window(ALL_REQUESTS, index).record(end - start, ok);
+        }
+        window(path, index).record(end - start, ok);
+      }
+    });
+    simulation = run.simulationClassName;
+    // The last window that ends before the injection does, as the run drains after it
+    long measured = injectionEnd - injectionStart - warmupMillis;
+    int complete = (int) Math.max(0, measured / windowMillis);
+    for (List<RequestStats> windows : series.values()) {
+      while (windows.size() > complete) {
+        windows.remove(windows.size() - 1);
+      }
+    }
+  }
+
+  private RequestStats window(String path, int index) {
+    List<RequestStats> windows = series.computeIfAbsent(path, key -> new ArrayList<>());
+    while (windows.size() <= index) {
+      windows.add(new RequestStats());
+    }
+    return windows.get(index);
+  }
+
+  // Middle of window i, in hours since the end of the warm-up
+  private double hours(int window) {
+    return (window + 0.5) * windowMillis / 3_600_000.0;
+  }
+
+  private static Trend fit(List<double[]> points, int column) {
+    double[] x = new double[points.size()];
+    double[] y = new double[points.size()];
+    for (int i = 0; i < points.size(); i++) {
+      x[i] = points.get(i)[0];
+      y[i] = points.get(i)[column];
+    }
+    return Trend.fit(x, y);
+  }
+
+  /**
+   * Whether any series is degrading.
+   */
+  public boolean degrading() {
+    return series.values().stream().anyMatch(windows -> !new Verdict(windows).reasons().isEmpty());
+  }
+
+  public String text() {
+    StringBuilder out = new StringBuilder();
+    out.append("Soak analysis of ").append(simulation).append(String.format(": %d s windows after a %d s warm-up%n",
+        windowMillis / 1000, warmupMillis / 1000));
+    out.append(String.format("Flagged when p95/p99 grow by more than %.0f%% or errors by more than %.2f pts%n%n",
+        maxLatencyDrift * 100, maxErrorDrift * 100));
+    for (String name : List.of(ALL_REQUESTS, SoakSimulation.HEALTH_REQUEST)) {
+      List<RequestStats> windows = series.get(name);
+      if (windows == null) {
+        continue;
+      }
+      out.append(name).append('\n');
+      out.append(String.format("  %8s %9s %7s %7s %7s %8s%n", "elapsed", "requests", "p50", "p95", "p99", "errors"));
+      for (int i = 0; i < windows.size(); i++) {
+        RequestStats window = windows.get(i);
+        long minutes = (warmupMillis + i * windowMillis) / 60_000;
+        out.append(String.format("  %5d:%02d %9d %7d %7d %7d %7.2f%%%n", minutes / 60, minutes % 60, window.count(),
+            window.histogram.percentile(50), window.histogram.percentile(95), window.histogram.percentile(99),
+            window.errorRate() * 100));
+      }
+      out.append('\n');
+    }
+    out.append(String.format("  %-45s %8s %10s %8s %8s %10s %5s  %s%n", "series", "windows", "p95 ms/h", "p95",
+        "p99", "errors", "r2", "verdict"));
+    series.forEach((name, windows) -> {
+      Verdict verdict = new Verdict(windows);
+      List<String> reasons = verdict.reasons();
+      out.append(String.format("  %-45s %8d %10.1f %+7.0f%% %+7.0f%% %+6.2f pts %5.2f  %s%n", name,
+          verdict.p95.points, verdict.p95.slope, verdict.drift(verdict.p95) * 100, verdict.drift(verdict.p99) * 100,
+          verdict.errorDrift() * 100, verdict.p95.r2,
+          verdict.p95.points < 3 ? "too few windows" : reasons.isEmpty() ? "stable" : "DEGRADING: "
+              + String.join(", ", reasons)));
+    });
+    return out.toString();
+  }
+
+  public ObjectNode json() {
+    ObjectMapper mapper = new ObjectMapper();
+    ObjectNode root = mapper.createObjectNode();
+    root.put("simulation", simulation);
+    root.put("windowSeconds", windowMillis / 1000);
+    root.put("warmupSeconds", warmupMillis / 1000);
+    root.put("maxLatencyDrift", maxLatencyDrift);
+    root.put("maxErrorDrift", maxErrorDrift);
+    root.put("degrading", degrading());
+    ObjectNode nodes = root.putObject("series");
+    series.forEach((name, windows) -> {
+      Verdict verdict = new Verdict(windows);
+      ObjectNode node = nodes.putObject(name);
+      node.put("degrading", !verdict.reasons().isEmpty());
+      ArrayNode reasons = node.putArray("reasons");
+      verdict.reasons().forEach(reasons::add);
+      trend(node.putObject("p50"), verdict, verdict.p50);
+      trend(node.putObject("p95"), verdict, verdict.p95);
+      trend(node.putObject("p99"), verdict, verdict.p99);
+      node.putObject("errorRate")
+          .put("slopePerHour", verdict.errors.slope)
+          .put("drift", verdict.errorDrift())
+          .put("r2", verdict.errors.r2);
+      ArrayNode windowNodes = node.putArray("windows");
+      for (int i = 0; i < windows.size(); i++) {
+        RequestStats window = windows.get(i);
+        windowNodes.addObject()
+            .put("hour", hours(i))
+            .put("requests", window.count())
+            .put("p50", window.histogram.percentile(50))
+            .put("p95", window.histogram.percentile(95))
+            .put("p99", window.histogram.percentile(99))
+            .put("errorRate", window.errorRate());
+      }
+    });
+    return root;
+  }
+
+  private static void trend(ObjectNode node, Verdict verdict, Trend trend) {
+    node.put("slopeMsPerHour", trend.slope)
+        .put("drift", verdict.drift(trend))
+        .put("r2", trend.r2);
+  }
+
+  public static void main(String[] args) throws IOException {
+    Path log = SimulationLog.fromArgs(args);
+    SoakReport report = fromSystemProperties();
+    report.read(log);
+    Reports.write(log, "soak.json", report.text(), report.json());
+  }
+}
@@ -0,0 +1,49 @@
+package io.gatling.demo.soak;
+
+/**
+ * Least-squares line through a series of (hours, value) points.
+ */
+final class Trend {
+
+  final int points;
+  /** Change of the value per hour. */
+  final double slope;
+  final double intercept;
+  /** Share of the variance the line explains, from 0 (noise) to 1 (perfectly linear). */
+  final double r2;
+
+  private Trend(int points, double slope, double intercept, double r2) {
+    this.points = points;
+    this.slope = slope;
+    this.intercept = intercept;
+    this.r2 = r2;
+  }
+
+  static Trend fit(double[] hours, double[] values) {
+    int n = hours.length;
+    if (n < 2) {
+      return new Trend(n, 0, n == 1 ? values[0] : 0, 0);
+    }
+    double meanX = 0;
+    double meanY = 0;
+    for (int i = 0; i < n; i++) {
+      meanX += hours[i] / n;
+      meanY += values[i] / n;
+    }
+    double sxx = 0;
+    double sxy = 0;
+    double syy = 0;
+    for (int i = 0; i < n; i++) {
+      sxx += (hours[i] - meanX) * (hours[i] - meanX);
+      sxy += (hours[i] - meanX) * (values[i] - meanY);
+      syy += (values[i] - meanY) * (values[i] - meanY);
+    }
+    double slope = sxx == 0 ? 0 : sxy / sxx;
+    double r2 = sxx == 0 || syy == 0 ? 0 : sxy * sxy / (sxx * syy);
+    return new Trend(n, slope, meanY - slope * meanX, r2);
+  }
+
+  double at(double hours) {
+    return intercept + slope * hours;
+  }
+}
@@ -0,0 +1,130 @@
+package io.gatling.demo.stats;
+
+import java.util.Arrays;
+
+/**
+ * Fixed-size log-linear histogram of millisecond latencies.
+ *
+ * <p>Values below 128 ms are counted exactly. Above that, every power of two is split into 64 buckets, so a
+ * reported percentile is never more than about 1.6% above the true value. Histograms merge by adding their
+ * counts. Percentiles of merged histograms are therefore exact aggregates, unlike averaging per-injector or
+ * per-window percentiles.
+ */
+public final class LatencyHistogram {
+
+  private static final int EXACT = 128;
+  private static final int SUB_BUCKETS = 64;
+  // Enough buckets for any non-negative int
+  static final int BUCKETS = EXACT + 25 * SUB_BUCKETS;
+
+  private final long[] counts = new long[BUCKETS];
+  private long total;
+  private long sum;
+  private long min = Long.MAX_VALUE;
+  private long max;
+
+  public void record(long millis) {
+    record(millis, 1);
+  }
+
+  public void record(long millis, long count) {
+    long value = Math.max(0, Math.min(millis, Integer.MAX_VALUE));
+    counts[index(value)] += count;
+    total += count;
+    sum += value * count;
+    min = Math.min(min, value);
+    max = Math.max(max, value);
+  }
+
+  public void merge(LatencyHistogram other) {
+    for (int i = 0; i < BUCKETS; i++) {
+      counts[i] += other.counts[i];
+    }
+    total += other.total;
+    sum += other.sum;
+    min = Math.min(min, other.min);
+    max = Math.max(max, other.max);
+  }
+
+  public void reset() {
+    Arrays.fill(counts, 0);
+    total = 0;
+    sum = 0;
+    min = Long.MAX_VALUE;
+    max = 0;
+  }
+
+  public long count() {
+    return total;
+  }
+
+  public long min() {
+    return total == 0 ? 0 : min;
+  }
+
+  public long max() {
+    return max;
+  }
+
+  public double mean() {
+    return total == 0 ? 0 : (double) sum / total;
+  }
+
+  /**
+   * Smallest recorded value such that {@code percentile}% of the recorded values are lower or equal, to
+   * bucket precision. Returns 0 when nothing was recorded.
+   */
+  public long percentile(double percentile) {
+    return valueAtRank((long) Math.ceil(percentile / 100 * total));
+  }
+
+  /**
+   * The {@code rank}-th smallest recorded value, from 1, to bucket precision. Returns 0 when nothing was recorded.
+   */
+  public long valueAtRank(long rank) {
+    if (total == 0) {
+      return 0;
+    }
+    rank = Math.max(1, Math.min(rank, total));
+    long seen = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      seen += counts[i];
+      if (seen >= rank) {
+        return Math.min(max, Math.max(min, highestEquivalentValue(i)));
+      }
+    }
+    return max;
+  }
+
+  /**
+   * Number of buckets, for callers that walk the raw distribution with {@link #countAt(int)}.
+   */
+  public static int buckets() {
+    return BUCKETS;
+  }
+
+  public long countAt(int bucket) {
+    return counts[bucket];
+  }
+
+  public static long lowestEquivalentValue(int bucket) {
+    if (bucket < EXACT) {
+      return bucket;
+    }
+    int shift = (bucket - EXACT) / SUB_BUCKETS + 1;
+    long mantissa = (bucket - EXACT) % SUB_BUCKETS + SUB_BUCKETS;
+    return mantissa << shift;
+  }
+
+  public static long highestEquivalentValue(int bucket) {
+    return bucket < EXACT ? bucket : lowestEquivalentValue(bucket + 1) - 1;
+  }
+
+  static int index(long value) {
+    if (value < EXACT) {
+      return (int) value;
+    }
+    int shift = 63 - Long.numberOfLeadingZeros(value) - 6;
+    return EXACT + (shift - 1) * SUB_BUCKETS + (int) ((value >>> shift) - SUB_BUCKETS);
+  }
+}
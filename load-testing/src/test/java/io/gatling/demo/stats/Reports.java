@@ -0,0 +1,34 @@
+package io.gatling.demo.stats;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * How the report mains hand over their result: the text on stdout, the JSON pretty-printed to a file.
+ */
+public final class Reports {
+
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+
+  private Reports() {
+  }
+
+  /**
+   * Prints {@code text} and writes {@code json} to {@code fileName} in the run directory of {@code log}.
+   */
+  public static void write(Path log, String fileName, String text, JsonNode json) throws IOException {
+    write(log.resolveSibling(fileName), text, json);
+  }
+
+  /**
+   * Prints {@code text} and writes {@code json} to {@code file}.
+   */
+  public static void write(Path file, String text, JsonNode json) throws IOException {
+    System.out.println(text);
+    MAPPER.writerWithDefaultPrettyPrinter().writeValue(file.toFile(), json);
+    System.out.println("Written to " + file.toAbsolutePath());
+  }
+}
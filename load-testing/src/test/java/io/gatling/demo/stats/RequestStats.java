@@ -0,0 +1,44 @@
+package io.gatling.demo.stats;
+
+/**
+ * Response times and failures of a set of requests, e.g. one request name over one window of a run.
+ */
+public final class RequestStats {
+
+  public final LatencyHistogram histogram = new LatencyHistogram();
+  private long ko;
+
+  /**
+   * Stats read back from a summary: {@code histogram}'s requests, {@code ko} of them failed.
+   */
+  public static RequestStats of(LatencyHistogram histogram, long ko) {
+    RequestStats stats = new RequestStats();
+    stats.histogram.merge(histogram);
+    stats.ko = ko;
+    return stats;
+  }
+
+  public void record(long responseTime, boolean ok) {
+    histogram.record(responseTime);
+    if (!ok) {
+      ko++;
+    }
+  }
+
+  public void merge(RequestStats other) {
+    histogram.merge(other.histogram);
+    ko += other.ko;
+  }
+
+  public long count() {
+    return histogram.count();
+  }
+
+  public long ko() {
+    return ko;
+  }
+
+  public double errorRate() {
+    return count() == 0 ? 0 : (double) ko / count();
+  }
+}
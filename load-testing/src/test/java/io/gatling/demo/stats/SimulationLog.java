@@ -0,0 +1,386 @@
+package io.gatling.demo.stats;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Stream;
+
+/**
+ * Streaming reader for the binary {@code simulation.log} Gatling writes in each run directory.
+ *
+ * <p>The format is Gatling's internal one (3.13): a run header followed by one record per user start/end,
+ * request, group and error, with timestamps stored as offsets from the run start and repeated strings
+ * replaced by back-references. Records are handed to a {@link Listener} as they are read, so logs of any
+ * size can be processed in constant memory.
+ */
+public final class SimulationLog {
+
+  public static final String FILE_NAME = "simulation.log";
+
+  static final byte RUN = 0;
+  static final byte REQUEST = 1;
+  static final byte USER = 2;
+  static final byte GROUP = 3;
+  static final byte ERROR = 4;
+
+  // String internals are dumped as is: LATIN1 bytes or UTF16 chars in native order
+  static final Charset UTF16 = ByteOrder.nativeOrder() == ByteOrder.LITTLE_ENDIAN
+      ? StandardCharsets.UTF_16LE
+      : StandardCharsets.UTF_16BE;
+
+  /**
+   * The run header.
+   */
+  public static final class Run {
+    public final String gatlingVersion;
+    public final String simulationClassName;
+    public final long start;
+    public final String runDescription;
+    public final List<String> scenarios;
+    public final List<byte[]> assertions;
+
+    public Run(String gatlingVersion, String simulationClassName, long start, String runDescription,
+        List<String> scenarios, List<byte[]> assertions) {
+      this.gatlingVersion = gatlingVersion;
+      this.simulationClassName = simulationClassName;
+      this.start = start;
+      this.runDescription = runDescription;
+      this.scenarios = scenarios;
+      this.assertions = assertions;
+    }
+  }
+
+  /**
+   * Receives the records of a log. Timestamps are absolute epoch milliseconds, names are shared instances
+   * so they can be used as map keys without copying.
+   */
+  public interface Listener {
+
+    default void run(Run run) {
+    }
+
+    default void user(String scenario, boolean start, long timestamp) {
+    }
+
+    default void request(List<String> groups, String name, long start, long end, boolean ok, String message) {
+    }
+
+    default void group(List<String> groups, long start, long end, int cumulatedResponseTime, boolean ok) {
+    }
+
+    default void error(String message, long timestamp) {
+    }
+  }
+
+  private final DataInputStream in;
+  private final Map<Integer, String> strings = new HashMap<>();
+  private Run run;
+
+  private SimulationLog(InputStream in) {
+    this.in = new DataInputStream(in);
+  }
+
+  /**
+   * Reads {@code file} to the end, or up to the last complete record if it is still being written.
+   */
+  public static Run read(Path file, Listener listener) throws IOException {
+    try (InputStream in = new BufferedInputStream(Files.newInputStream(file), 1 << 16)) {
+      return new SimulationLog(in).readAll(listener);
+    }
+  }
+
+  /**
+   * Reads {@code file} as it is written, waiting {@code pollMillis} for more whenever it reaches the end, until
+   * {@code stopped} is true and the end is reached again.
+   */
+  public static Run follow(Path file, Listener listener, BooleanSupplier stopped, long pollMillis)
+      throws IOException {
+    try (InputStream in = new BufferedInputStream(new Tail(file, stopped, pollMillis), 1 << 16)) {
+      return new SimulationLog(in).readAll(listener);
+    }
+  }
+
+  /**
+   * Only the run header of {@code file}.
+   */
+  public static Run readRun(Path file) throws IOException {
+    try (InputStream in = new BufferedInputStream(Files.newInputStream(file), 1 << 12)) {
+      SimulationLog log = new SimulationLog(in);
+      if (log.in.read() != RUN) {
+        throw new IOException(file + " does not start with a run header, not a Gatling 3.13 simulation.log?");
+      }
+      return log.readRun();
+    }
+  }
+
+  /**
+   * Name of a request qualified by its groups, as Gatling's report shows it, e.g. {@code login / post login}.
+   */
+  public static String path(List<String> groups, String name) {
+    return groups.isEmpty() ? name : String.join(" / ", groups) + " / " + name;
+  }
+
+  /**
+   * Directory Gatling writes its runs to, {@code target/gatling} unless {@code -Dresults.dir} says otherwise.
+   */
+  public static Path resultsDirectory() {
+    return Paths.get(System.getProperty("results.dir", "target/gatling"));
+  }
+
+  /**
+   * The most recent run directory holding a {@code simulation.log}.
+   */
+  public static Path latestRun() throws IOException {
+    Path results = resultsDirectory();
+    Path lastRun = results.resolve("lastRun.txt");
+    if (Files.exists(lastRun)) {
+      Path run = results.resolve(Files.readString(lastRun).trim());
+      if (Files.exists(run.resolve(FILE_NAME))) {
+        return run;
+      }
+    }
+    try (Stream<Path> runs = Files.list(results)) {
+      return runs
+          .filter(run -> Files.exists(run.resolve(FILE_NAME)))
+          .max((a, b) -> Long.compare(a.resolve(FILE_NAME).toFile().lastModified(),
+              b.resolve(FILE_NAME).toFile().lastModified()))
+          .orElseThrow(() -> new IOException("No run with a " + FILE_NAME + " in " + results.toAbsolutePath()));
+    }
+  }
+
+  /**
+   * The most recent run directory of {@code simulation}, given by its simple class name, or null if it has none.
+   * Gatling names run directories after the simulation in lower case.
+   */
+  public static Path latestRun(String simulation) throws IOException {
+    Path results = resultsDirectory();
+    if (!Files.isDirectory(results)) {
+      return null;
+    }
+    String prefix = simulation.toLowerCase() + "-";
+    try (Stream<Path> runs = Files.list(results)) {
+      return runs
+          .filter(run -> run.getFileName().toString().startsWith(prefix) && Files.exists(run.resolve(FILE_NAME)))
+          .max((a, b) -> Long.compare(a.resolve(FILE_NAME).toFile().lastModified(),
+              b.resolve(FILE_NAME).toFile().lastModified()))
+          .orElse(null);
+    }
+  }
+
+  /**
+   * The log of the run directory last written to since {@code sinceMillis}, or null if there is none yet. From
+   * within a run, the log of that run: Gatling only creates its directory once {@code before()} has returned.
+   */
+  public static Path logSince(long sinceMillis) throws IOException {
+    Path results = resultsDirectory();
+    if (!Files.isDirectory(results)) {
+      return null;
+    }
+    try (Stream<Path> runs = Files.list(results)) {
+      return runs.map(run -> run.resolve(FILE_NAME))
+          .filter(log -> Files.exists(log) && log.toFile().lastModified() >= sinceMillis - 1000)
+          .max(Comparator.comparingLong(log -> log.toFile().lastModified()))
+          .orElse(null);
+    }
+  }
+
+  /**
+   * Waits for {@link #logSince(long)} to find a log, polling every {@code pollMillis}, and returns null if
+   * {@code stopped} first. Gatling only creates the run directory once {@code before()} has returned.
+   */
+  public static Path awaitLog(long sinceMillis, BooleanSupplier stopped, long pollMillis) throws IOException {
+    while (!stopped.getAsBoolean()) {
+      Path log = logSince(sinceMillis);
+      if (log != null) {
+        return log;
+      }
+      try {
+        Thread.sleep(pollMillis);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return null;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * The log of the run directory given as the first argument, or of the latest run.
+   */
+  public static Path fromArgs(String[] args) throws IOException {
+    Path path = args.length > 0 ? Paths.get(args[0]) : latestRun();
+    return Files.isDirectory(path) ? path.resolve(FILE_NAME) : path;
+  }
+
+  /**
+   * A file that is still growing: at its end, reads wait for more bytes instead of returning -1, until stopped.
+   */
+  private static final class Tail extends InputStream {
+    private final FileChannel channel;
+    private final BooleanSupplier stopped;
+    private final long pollMillis;
+
+    Tail(Path file, BooleanSupplier stopped, long pollMillis) throws IOException {
+      this.channel = FileChannel.open(file, StandardOpenOption.READ);
+      this.stopped = stopped;
+      this.pollMillis = pollMillis;
+    }
+
+    @Override
+    public int read() throws IOException {
+      byte[] one = new byte[1];
+      return read(one, 0, 1) == -1 ? -1 : one[0] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] bytes, int offset, int length) throws IOException {
+      while (true) {
+        // Checked before reading, so that what was written before the stop is still read
+        boolean last = stopped.getAsBoolean();
+        int read = channel.read(ByteBuffer.wrap(bytes, offset, length));
+        if (read > 0 || last) {
+          return read > 0 ? read : -1;
+        }
+        try {
+          Thread.sleep(pollMillis);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new InterruptedIOException("Interrupted while following the log");
+        }
+      }
+    }
+
+    @Override
+    public void close() throws IOException {
+      channel.close();
+    }
+  }
+
+  private Run readAll(Listener listener) throws IOException {
+    int header;
+    while ((header = in.read()) != -1) {
+      try {
+        readRecord((byte) header, listener);
+      } catch (EOFException e) {
+        // Truncated last record of a log that is still being written
+        break;
+      }
+    }
+    return run;
+  }
+
+  private void readRecord(byte header, Listener listener) throws IOException {
+    switch (header) {
+      case RUN:
+        run = readRun();
+        listener.run(run);
+        break;
+      case USER: {
+        String scenario = run.scenarios.get(in.readInt());
+        boolean start = in.readBoolean();
+        listener.user(scenario, start, run.start + in.readInt());
+        break;
+      }
+      case REQUEST: {
+        List<String> groups = readGroups();
+        String name = readCachedString();
+        long start = run.start + in.readInt();
+        long end = run.start + in.readInt();
+        boolean ok = in.readBoolean();
+        listener.request(groups, name, start, end, ok, readCachedString());
+        break;
+      }
+      case GROUP: {
+        List<String> groups = readGroups();
+        long start = run.start + in.readInt();
+        long end = run.start + in.readInt();
+        int cumulatedResponseTime = in.readInt();
+        listener.group(groups, start, end, cumulatedResponseTime, in.readBoolean());
+        break;
+      }
+      case ERROR: {
+        String message = readCachedString();
+        listener.error(message, run.start + in.readInt());
+        break;
+      }
+      default:
+        throw new IOException("Unknown record header " + header + ", not a Gatling 3.13 simulation.log?");
+    }
+  }
+
+  private Run readRun() throws IOException {
+    String gatlingVersion = readString();
+    String simulationClassName = readString();
+    long start = in.readLong();
+    String runDescription = readString();
+    int scenarioCount = in.readInt();
+    List<String> scenarios = new ArrayList<>(scenarioCount);
+    for (int i = 0; i < scenarioCount; i++) {
+      scenarios.add(readString());
+    }
+    int assertionCount = in.readInt();
+    List<byte[]> assertions = new ArrayList<>(assertionCount);
+    for (int i = 0; i < assertionCount; i++) {
+      assertions.add(in.readNBytes(in.readInt()));
+    }
+    return new Run(gatlingVersion, simulationClassName, start, runDescription, scenarios, assertions);
+  }
+
+  private List<String> readGroups() throws IOException {
+    int count = in.readInt();
+    if (count == 0) {
+      return Collections.emptyList();
+    }
+    List<String> groups = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      groups.add(readCachedString());
+    }
+    return groups;
+  }
+
+  private String readString() throws IOException {
+    int length = in.readInt();
+    if (length == 0) {
+      return "";
+    }
+    byte[] bytes = in.readNBytes(length);
+    if (bytes.length < length) {
+      throw new EOFException();
+    }
+    byte coder = in.readByte();
+    return new String(bytes, coder == 0 ? StandardCharsets.ISO_8859_1 : UTF16);
+  }
+
+  private String readCachedString() throws IOException {
+    int index = in.readInt();
+    if (index >= 0) {
+      String value = readString();
+      strings.put(index, value);
+      return value;
+    }
+    String value = strings.get(-index);
+    if (value == null) {
+      throw new IOException("Dangling string reference " + index);
+    }
+    return value;
+  }
+}
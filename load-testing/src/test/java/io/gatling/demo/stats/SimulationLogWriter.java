@@ -0,0 +1,153 @@
+package io.gatling.demo.stats;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes a {@code simulation.log} in the format {@link SimulationLog} reads, so Gatling can build its report
+ * from records that were not produced by a single run, e.g. the merged logs of several injectors.
+ *
+ * <p>Timestamps are written as offsets from the start of the {@link SimulationLog.Run} passed to the
+ * constructor, so every record must be at or after it.
+ */
+public final class SimulationLogWriter implements SimulationLog.Listener, AutoCloseable {
+
+  private final DataOutputStream out;
+  private final long start;
+  private final Map<String, Integer> scenarios = new HashMap<>();
+  private final Map<String, Integer> strings = new HashMap<>();
+
+  public SimulationLogWriter(Path file, SimulationLog.Run run) throws IOException {
+    this.out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), 1 << 16));
+    this.start = run.start;
+    out.writeByte(SimulationLog.RUN);
+    writeString(run.gatlingVersion);
+    writeString(run.simulationClassName);
+    out.writeLong(run.start);
+    writeString(run.runDescription);
+    out.writeInt(run.scenarios.size());
+    for (String scenario : run.scenarios) {
+      scenarios.put(scenario, scenarios.size());
+      writeString(scenario);
+    }
+    out.writeInt(run.assertions.size());
+    for (byte[] assertion : run.assertions) {
+      out.writeInt(assertion.length);
+      out.write(assertion);
+    }
+  }
+
+  @Override
+  public void user(String scenario, boolean start, long timestamp) {
+    Integer index = scenarios.get(scenario);
+    if (index == null) {
+      throw new IllegalArgumentException("Scenario " + scenario + " is not in the run header");
+    }
+    write(() -> {
+      out.writeByte(SimulationLog.USER);
+      out.writeInt(index);
+      out.writeBoolean(start);
+      out.writeInt(offset(timestamp));
+    });
+  }
+
+  @Override
+  public void request(List<String> groups, String name, long start, long end, boolean ok, String message) {
+    write(() -> {
+      out.writeByte(SimulationLog.REQUEST);
+      writeGroups(groups);
+      writeCachedString(name);
+      out.writeInt(offset(start));
+      out.writeInt(offset(end));
+      out.writeBoolean(ok);
+      writeCachedString(message == null ? "" : message);
+    });
+  }
+
+  @Override
+  public void group(List<String> groups, long start, long end, int cumulatedResponseTime, boolean ok) {
+    write(() -> {
+      out.writeByte(SimulationLog.GROUP);
+      writeGroups(groups);
+      out.writeInt(offset(start));
+      out.writeInt(offset(end));
+      out.writeInt(cumulatedResponseTime);
+      out.writeBoolean(ok);
+    });
+  }
+
+  @Override
+  public void error(String message, long timestamp) {
+    write(() -> {
+      out.writeByte(SimulationLog.ERROR);
+      writeCachedString(message);
+      out.writeInt(offset(timestamp));
+    });
+  }
+
+  @Override
+  public void close() throws IOException {
+    out.close();
+  }
+
+  private interface Record {
+    void write() throws IOException;
+  }
+
+  // Listener methods cannot throw, so I/O errors surface unchecked
+  private void write(Record record) {
+    try {
+      record.write();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private int offset(long timestamp) {
+    long offset = timestamp - start;
+    if (offset < 0 || offset > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("Timestamp " + timestamp + " is outside the run starting at " + start);
+    }
+    return (int) offset;
+  }
+
+  private void writeGroups(List<String> groups) throws IOException {
+    out.writeInt(groups.size());
+    for (String group : groups) {
+      writeCachedString(group);
+    }
+  }
+
+  // Index 0 cannot be told apart from a back-reference to it, so indices start at 1
+  private void writeCachedString(String value) throws IOException {
+    Integer index = strings.get(value);
+    if (index != null) {
+      out.writeInt(-index);
+      return;
+    }
+    index = strings.size() + 1;
+    strings.put(value, index);
+    out.writeInt(index);
+    writeString(value);
+  }
+
+  private void writeString(String value) throws IOException {
+    if (value.isEmpty()) {
+      out.writeInt(0);
+      return;
+    }
+    boolean latin1 = value.chars().allMatch(c -> c <= 0xFF);
+    byte[] bytes = value.getBytes(latin1 ? StandardCharsets.ISO_8859_1 : SimulationLog.UTF16);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+    out.writeByte(latin1 ? 0 : 1);
+  }
+}
@@ -0,0 +1,615 @@
+package io.gatling.demo.stats;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import io.gatling.demo.baseline.BaselineDiff;
+import io.gatling.demo.baseline.RunSummary;
+import io.gatling.demo.capacity.CapacityPlan;
+import io.gatling.demo.distributed.LogMerge;
+import io.gatling.demo.game.GameBot;
+import io.gatling.demo.game.Scoring;
+import io.gatling.demo.hdr.HistogramLog;
+import io.gatling.demo.replay.AccessLog;
+import io.gatling.demo.think.ThinkTimeFit;
+
+/**
+ * Checks of the code whose wrong output would go unnoticed in a green run, which nothing else pins: the reading and
+ * writing of Gatling's internal {@code simulation.log} format, the bucketing of its latencies and the rules the
+ * virtual users play by. A Gatling upgrade that changes the format must fail here rather than in a merged report.
+ *
+ * <p>Bound to {@code mvnw test}. A log is written with {@link SimulationLogWriter}, read back with
+ * {@link SimulationLog} and merged with itself by {@link LogMerge}; records and percentiles must come back unchanged.
+ * When a real run is at hand (the latest one, or the one given as argument), its log is also written out again and must
+ * read back record for record. The bucket math of {@link LatencyHistogram} and of {@link CapacityPlan#levelAt(long)} is
+ * checked against values worked out by hand, and a latency histogram must read back from its {@link HistogramLog} with
+ * the same counts and percentiles. The {@link Scoring} of each game mode is checked against the webapp's
+ * {@code calculateScore}, and {@link GameBot#pickAnswer} against its accuracy. An {@link AccessLog}, plain and gzipped,
+ * must parse into the entries, window and schedule worked out by hand. The confidence intervals of {@link BaselineDiff}
+ * are checked against ranks worked out by hand, and its verdicts on either side of the significance and threshold
+ * limits. {@link ThinkTimeFit} must find back the log-normal its gaps are drawn from, and tell a bimodal one apart.
+ *
+ * <pre>
+ * mvnw exec:java -Dexec.mainClass=io.gatling.demo.stats.StatsCheck -Dexec.classpathScope=test \
+ *     [-Dexec.args=target/gatling/&lt;run&gt;]
+ * </pre>
+ */
+public final class StatsCheck {
+
+  private static final long START = 1_760_666_400_000L;
+
+  private int passed;
+
+  /**
+   * Every record as a line of text, for comparing logs record by record.
+   */
+  static final class Recorder implements SimulationLog.Listener {
+    final List<String> records = new ArrayList<>();
+
+    @Override
+    public void user(String scenario, boolean start, long timestamp) {
+      records.add("user " + scenario + " " + start + " " + timestamp);
+    }
+
+    @Override
+    public void request(List<String> groups, String name, long start, long end, boolean ok, String message) {
+      records.add("request " + groups + " " + name + " " + start + " " + end + " " + ok + " " + message);
+    }
+
+    @Override
+    public void group(List<String> groups, long start, long end, int cumulatedResponseTime, boolean ok) {
+      records.add("group " + groups + " " + start + " " + end + " " + cumulatedResponseTime + " " + ok);
+    }
+
+    @Override
+    public void error(String message, long timestamp) {
+      records.add("error " + message + " " + timestamp);
+    }
+  }
+
+  void check(boolean condition, String description) {
+    if (!condition) {
+      throw new AssertionError(description);
+    }
+    passed++;
+  }
+
+  void equal(Object expected, Object actual, String description) {
+    check(expected.equals(actual), description + ": expected " + expected + ", got " + actual);
+  }
+
+  void logRoundTrip(Path directory) throws IOException {
+    SimulationLog.Run run = new SimulationLog.Run("3.13.5", "io.gatling.demo.CheckSimulation", START, "round trip",
+        List.of("login", "café ☕"), List.of(new byte[] {1, 2, 3}));
+    Path log = directory.resolve(SimulationLog.FILE_NAME);
+    Recorder written = new Recorder();
+    LatencyHistogram expected = new LatencyHistogram();
+    try (SimulationLogWriter writer = new SimulationLogWriter(log, run)) {
+      SimulationLog.Listener both = new SimulationLog.Listener() {
+        @Override
+        public void user(String scenario, boolean start, long timestamp) {
+          writer.user(scenario, start, timestamp);
+          written.user(scenario, start, timestamp);
+        }
+
+        @Override
+        public void request(List<String> groups, String name, long start, long end, boolean ok, String message) {
+          writer.request(groups, name, start, end, ok, message);
+          written.request(groups, name, start, end, ok, message == null ? "" : message);
+          expected.record(end - start);
+        }
+
+        @Override
+        public void group(List<String> groups, long start, long end, int cumulatedResponseTime, boolean ok) {
+          writer.group(groups, start, end, cumulatedResponseTime, ok);
+          written.group(groups, start, end, cumulatedResponseTime, ok);
+        }
+
+        @Override
+        public void error(String message, long timestamp) {
+          writer.error(message, timestamp);
+          written.error(message, timestamp);
+        }
+      };
+      for (int i = 0; i < 1000; i++) {
+        long start = START + i * 10L;
+        both.user(i % 2 == 0 ? "login" : "café ☕", true, start);
+        both.request(List.of(), "post login", start, start + 1 + i * 7L % 3000, i % 100 != 0,
+            i % 100 != 0 ? null : "status.find.is(200), but actually found 500");
+        both.request(List.of("game", "round é"), "get question", start + 5, start + 5 + i % 200, true, null);
+        both.group(List.of("game"), start, start + 300, 250, true);
+        both.user(i % 2 == 0 ? "login" : "café ☕", false, start + 300);
+      }
+      both.error("j.n.ConnectException: Connection refused", START + 42);
+    }
+
+    Recorder read = new Recorder();
+    SimulationLog.Run readRun = SimulationLog.read(log, read);
+    equal(run.gatlingVersion, readRun.gatlingVersion, "Gatling version");
+    equal(run.simulationClassName, readRun.simulationClassName, "simulation class");
+    equal(run.start, readRun.start, "run start");
+    equal(run.runDescription, readRun.runDescription, "run description");
+    equal(run.scenarios, readRun.scenarios, "scenarios");
+    check(readRun.assertions.size() == 1 && Arrays.equals(run.assertions.get(0), readRun.assertions.get(0)),
+        "assertions are kept byte for byte");
+    equal(written.records.size(), read.records.size(), "record count");
+    for (int i = 0; i < written.records.size(); i++) {
+      equal(written.records.get(i), read.records.get(i), "record " + i);
+    }
+    equal(run.simulationClassName, SimulationLog.readRun(log).simulationClassName, "header-only read");
+
+    LatencyHistogram readBack = new LatencyHistogram();
+    SimulationLog.read(log, new SimulationLog.Listener() {
+      @Override
+      public void request(List<String> groups, String name, long start, long end, boolean ok, String message) {
+        readBack.record(end - start);
+      }
+    });
+    for (double percentile : new double[] {50, 75, 95, 99, 99.9, 100}) {
+      equal(expected.percentile(percentile), readBack.percentile(percentile), "p" + percentile + " read back");
+    }
+
+    Path mergedDirectory = directory.resolve("merged");
+    Path merged = new LogMerge(List.of(log, log)).mergeInto(mergedDirectory);
+    Recorder mergedRecords = new Recorder();
+    SimulationLog.Run mergedRun = SimulationLog.read(merged, mergedRecords);
+    equal(run.start, mergedRun.start, "merged run start");
+    equal(run.scenarios, mergedRun.scenarios, "merged scenarios");
+    equal(written.records.size() * 2, mergedRecords.records.size(), "merged record count");
+    LatencyHistogram doubled = new LatencyHistogram();
+    doubled.merge(expected);
+    doubled.merge(expected);
+    LatencyHistogram mergedHistogram = new LatencyHistogram();
+    SimulationLog.read(merged, new SimulationLog.Listener() {
+      @Override
+      public void request(List<String> groups, String name, long start, long end, boolean ok, String message) {
+        mergedHistogram.record(end - start);
+      }
+    });
+    equal(doubled.count(), mergedHistogram.count(), "merged request count");
+    for (double percentile : new double[] {50, 95, 99}) {
+      equal(expected.percentile(percentile), mergedHistogram.percentile(percentile),
+          "p" + percentile + " of a log merged with itself");
+    }
+  }
+
+  void histogram() {
+    for (int bucket = 0; bucket < LatencyHistogram.buckets() - 1; bucket++) {
+      long low = LatencyHistogram.lowestEquivalentValue(bucket);
+      long high = LatencyHistogram.highestEquivalentValue(bucket);
+      equal(high + 1, LatencyHistogram.lowestEquivalentValue(bucket + 1), "bucket " + bucket + " and the next touch");
+      equal(bucket, LatencyHistogram.index(low), "lowest value of bucket " + bucket);
+      equal(bucket, LatencyHistogram.index(high), "highest value of bucket " + bucket);
+      check((double) (high - low) / Math.max(1, low) <= 1.0 / 64, "bucket " + bucket + " is at most 1/64 wide");
+    }
+    check(LatencyHistogram.index(Integer.MAX_VALUE) < LatencyHistogram.buckets(), "any int fits");
+
+    LatencyHistogram exact = new LatencyHistogram();
+    for (int value = 1; value <= 100; value++) {
+      exact.record(value);
+    }
+    equal(50L, exact.percentile(50), "p50 of 1..100");
+    equal(95L, exact.percentile(95), "p95 of 1..100");
+    equal(100L, exact.percentile(100), "p100 of 1..100");
+    equal(1L, exact.min(), "min of 1..100");
+    equal(50.5, exact.mean(), "mean of 1..100");
+
+    LatencyHistogram slow = new LatencyHistogram();
+    slow.record(1000, 99);
+    slow.record(60_000);
+    check(slow.percentile(50) >= 1000 && slow.percentile(50) <= 1000 * 65 / 64, "p50 within a bucket of 1000 ms");
+    equal(60_000L, slow.percentile(100), "p100 is the max");
+
+    LatencyHistogram merged = new LatencyHistogram();
+    merged.merge(exact);
+    merged.merge(slow);
+    LatencyHistogram union = new LatencyHistogram();
+    for (int value = 1; value <= 100; value++) {
+      union.record(value);
+    }
+    union.record(1000, 99);
+    union.record(60_000);
+    for (double percentile : new double[] {25, 50, 75, 95, 99, 100}) {
+      equal(union.percentile(percentile), merged.percentile(percentile), "p" + percentile + " of a merge");
+    }
+    equal(union.count(), merged.count(), "count of a merge");
+    equal(0L, new LatencyHistogram().percentile(99), "percentile of an empty histogram");
+  }
+
+  void hdrHistogram(Path directory) throws IOException {
+    LatencyHistogram ramp = new LatencyHistogram();
+    for (int value = 1; value <= 100_000; value += 7) {
+      ramp.record(value % 5000 + value / 1000);
+    }
+    ramp.record(120_000);
+    LatencyHistogram exact = new LatencyHistogram();
+    for (int value = 0; value < 2000; value++) {
+      exact.record(value);
+    }
+
+    Path log = directory.resolve("round-trip.hlog");
+    try (Writer out = Files.newBufferedWriter(log)) {
+      HistogramLog.writeHeader(out, "round trip", START);
+      HistogramLog.writeInterval(out, START, null, START, 10_000, ramp);
+      HistogramLog.writeInterval(out, START, "post answer, 2", START + 10_000, 10_000, exact);
+    }
+    List<HistogramLog.Interval> intervals = new ArrayList<>();
+    HistogramLog.read(log, intervals::add);
+    equal(2, intervals.size(), "intervals read back");
+    check(intervals.get(0).tag == null, "untagged interval read back");
+    equal("post answer, 2", intervals.get(1).tag, "tag read back");
+    equal(START + 10_000, intervals.get(1).startMillis, "interval start read back");
+    equal(10_000L, intervals.get(1).lengthMillis, "interval length read back");
+    LatencyHistogram readRamp = intervals.get(0).histogram;
+    LatencyHistogram readExact = intervals.get(1).histogram;
+    equal(ramp.count(), readRamp.count(), "hdr count read back");
+    equal(120_000L, readRamp.max(), "hdr max read back");
+    for (double percentile : new double[] {0, 25, 50, 90, 99, 99.9, 99.99, 100}) {
+      equal(ramp.percentile(percentile), readRamp.percentile(percentile), "hdr p" + percentile + " read back");
+    }
+    for (int percentile = 1; percentile <= 100; percentile++) {
+      equal(exact.percentile(percentile), readExact.percentile(percentile), "hdr p" + percentile + " of 0..1999");
+    }
+    equal(0L, readExact.min(), "hdr min read back");
+
+    LatencyHistogram merged = new LatencyHistogram();
+    merged.merge(readRamp);
+    merged.merge(readExact);
+    LatencyHistogram expected = new LatencyHistogram();
+    expected.merge(ramp);
+    expected.merge(exact);
+    for (double percentile : new double[] {10, 50, 95, 99.9}) {
+      equal(expected.percentile(percentile), merged.percentile(percentile), "hdr p" + percentile + " of a merge");
+    }
+
+    // The HdrHistogram library writes the max in seconds of nanosecond values by default: it is no cap then
+    List<String> lines = Files.readAllLines(log);
+    String interval = lines.stream().filter(line -> line.startsWith("0.000,")).findFirst().orElseThrow();
+    Files.write(log, List.of(lines.get(0), interval.replace(",120000.000,", ",0.120,")));
+    intervals.clear();
+    HistogramLog.read(log, intervals::add);
+    long max = intervals.get(0).histogram.max();
+    check(max >= 120_000 && max <= 120_000 * 101 / 100, "hdr max of another unit ignored, got " + max);
+  }
+
+  void capacityLevels() {
+    // Plateaus of 10 s with the first 2 s left out, joined by 5 s ramps
+    CapacityPlan plan = new CapacityPlan(5, 5, 3, 10, 5, 2);
+    equal(-1, plan.levelAt(-1), "before the injection");
+    equal(-1, plan.levelAt(1_999), "settling into level 0");
+    equal(0, plan.levelAt(2_000), "measured start of level 0");
+    equal(0, plan.levelAt(9_999), "measured end of level 0");
+    equal(-1, plan.levelAt(10_000), "ramp to level 1");
+    equal(-1, plan.levelAt(16_999), "settling into level 1");
+    equal(1, plan.levelAt(17_000), "measured start of level 1");
+    equal(2, plan.levelAt(39_999), "measured end of level 2");
+    equal(-1, plan.levelAt(45_000), "after the last level");
+    equal(15.0, plan.rate(2), "rate of level 2");
+    equal(8, plan.measuredSeconds(), "measured seconds per level");
+  }
+
+  void scoring() {
+    // The inputs of the webapp's own calculateScore tests, with their results worked out by hand
+    equal(75, Scoring.custom().score(true, 30, 2, 0, 1), "custom, right");
+    equal(0, Scoring.custom().score(false, 0, 0, 0, 1), "custom, wrong");
+    // 1000 - 30 * 600 / 60 - 100 + (50 + 15)
+    equal(665, Scoring.classical().score(true, 30, 1, 4, 5), "classical, 30 s, a hint, fifth in a row");
+    equal(1000, Scoring.classical().score(true, 0, 0, 2, 3), "classical, no bonus below three in a row");
+    equal(0, Scoring.classical().score(true, 60, 5, 0, 1), "classical never goes below 0");
+    equal(0, Scoring.classical().score(false, 0, 0, 9, 1), "classical, wrong");
+    // 1050 - 10 * 650 / 30 - (100 + 50 / 3), floored
+    equal(716, Scoring.suddenDeath().score(true, 10, 1, 0, 2), "sudden death, round 2, 10 s, a hint");
+    equal(1000, Scoring.suddenDeath().score(true, 0, 0, 0, 1), "sudden death, first round at once");
+    equal(0, Scoring.suddenDeath().score(false, 0, 0, 0, 2), "sudden death, wrong");
+    // 1000 - 60 * 600 / 120 + 50; the webapp never passes the fast answer streak
+    equal(750, Scoring.timeTrial().score(true, 60, 0, 3, 4), "time trial, a minute in, third in a row");
+    equal(0, Scoring.timeTrial().score(true, 120, 5, 0, 9), "time trial never goes below 0");
+  }
+
+  void gameBot() {
+    String topic = "flag of Grenada";
+    List<String> images = List.of(
+        "http://commons.wikimedia.org/wiki/Special:FilePath/Flag%20of%20Spain.svg",
+        "http://commons.wikimedia.org/wiki/Special:FilePath/Flag%20of%20Grenada.svg",
+        "http://commons.wikimedia.org/wiki/Special:FilePath/Flag%20of%20Peru.svg",
+        "http://commons.wikimedia.org/wiki/Special:FilePath/Flag%20of%20Chad.svg");
+    String right = images.get(1);
+    Random random = new Random(42);
+    for (int i = 0; i < 100; i++) {
+      equal(right, GameBot.pickAnswer(topic, images, 1, random), "a perfect bot picks the file named after the topic");
+    }
+    List<String> wrongPicks = new ArrayList<>();
+    for (int i = 0; i < 1000; i++) {
+      String pick = GameBot.pickAnswer(topic, images, 0, random);
+      check(!pick.equals(right), "a bot that is always wrong never picks the right image");
+      if (!wrongPicks.contains(pick)) {
+        wrongPicks.add(pick);
+      }
+    }
+    equal(3, wrongPicks.size(), "a wrong pick can be any other image");
+    equal(right, GameBot.pickAnswer(topic, List.of(right), 0, random), "a single image is picked anyway");
+
+    int hits = 0;
+    for (int i = 0; i < 10_000; i++) {
+      if (GameBot.pickAnswer(topic, images, 0.7, random).equals(right)) {
+        hits++;
+      }
+    }
+    // 3 standard deviations of a binomial(10000, 0.7) are about 140
+    check(Math.abs(hits - 7000) < 140, "0.7 accuracy picks the right image " + hits + " times in 10000");
+  }
+
+  void accessLog(Path directory) throws IOException {
+    String lines = String.join("\n",
+        "{\"timestamp\":\"2026-10-17T02:00:00.000Z\",\"method\":\"get\",\"path\":\"/question-of-the-day\","
+            + "\"user\":\"alice\"}",
+        "",
+        "not json",
+        "{\"timestamp\":1792202400500,\"method\":\"GET\"}",
+        "{\"timestamp\":1792202401500,\"method\":\"POST\",\"path\":\"/answer\",\"user\":\"bob\","
+            + "\"bodyRef\":\"bodies/answer.json\"}",
+        "{\"timestamp\":\"2026-10-17T02:00:02.100Z\",\"method\":\"POST\",\"path\":\"/login\",\"user\":\"\"}",
+        "{\"timestamp\":1792202406000,\"method\":\"GET\",\"path\":\"/health\"}") + "\n";
+    Path plain = directory.resolve("access.jsonl");
+    Files.writeString(plain, lines);
+    Path gzipped = directory.resolve("access.jsonl.gz");
+    try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(gzipped))) {
+      out.write(lines.getBytes(StandardCharsets.UTF_8));
+    }
+    long origin = Instant.parse("2026-10-17T02:00:00Z").toEpochMilli();
+    for (Path file : List.of(plain, gzipped)) {
+      List<AccessLog.Entry> entries = new ArrayList<>();
+      try (AccessLog.Reader reader = new AccessLog(file, null, null).reader()) {
+        reader.forEachRemaining(entries::add);
+      }
+      equal(4, entries.size(), "entries of " + file.getFileName() + ", blank and unreadable lines skipped");
+      AccessLog.Entry first = entries.get(0);
+      equal(origin, first.timestamp, "ISO-8601 timestamp");
+      equal("GET", first.method, "method in upper case");
+      equal("/question-of-the-day", first.path, "path");
+      equal("alice", first.user, "user");
+      check(first.bodyRef == null, "no bodyRef");
+      equal(origin + 1500, entries.get(1).timestamp, "epoch millisecond timestamp");
+      equal("bodies/answer.json", entries.get(1).bodyRef, "bodyRef");
+      check(entries.get(2).user == null, "an empty user is no user");
+      check(entries.get(3).user == null, "a missing user is no user");
+
+      AccessLog.Schedule schedule = new AccessLog(file, null, null).schedule(2, 1000);
+      equal(origin, schedule.origin, "schedule origin");
+      equal(4L, schedule.total, "scheduled requests");
+      // Replayed at 0, 750, 1050 and 3000 ms
+      equal(List.of(2, 1, 0, 1), Arrays.stream(schedule.arrivals).boxed().collect(Collectors.toList()),
+          "arrivals per second at twice the speed");
+    }
+    AccessLog window = new AccessLog(plain, Instant.ofEpochMilli(origin + 1500),
+        Instant.ofEpochMilli(origin + 6000));
+    try (AccessLog.Reader reader = window.reader()) {
+      Iterator<Map<String, Object>> records = AccessLog.records(reader);
+      Map<String, Object> record = records.next();
+      equal(origin + 1500, record.get("timestamp"), "from is inclusive");
+      equal("bob", record.get("user"), "user of a feeder record");
+      equal("bodies/answer.json", record.get("bodyRef"), "bodyRef of a feeder record");
+      check(!records.next().containsKey("user"), "a feeder record without user has no user key");
+      check(!records.hasNext(), "to is exclusive");
+    }
+    equal(500L, AccessLog.replayMillis(origin + 5000, origin, 10), "replay offset at ten times the speed");
+  }
+
+  void baselineDiff() {
+    LatencyHistogram exact = new LatencyHistogram();
+    for (int value = 1; value <= 100; value++) {
+      exact.record(value);
+    }
+    // Ranks 50 -+ 1.96 * sqrt(100 * 0.5 * 0.5), i.e. 40 and 59.8 rounded up, plus one
+    equal(List.of(40L, 61L), interval(exact, 50), "interval of p50 of 1..100");
+    // 95 -+ 4.27, the upper rank past the max
+    equal(List.of(90L, 100L), interval(exact, 95), "interval of p95 of 1..100");
+    LatencyHistogram large = new LatencyHistogram();
+    for (int value = 0; value < 100; value++) {
+      large.record(value, 100);
+    }
+    // 5000 -+ 98 out of 10000
+    equal(List.of(49L, 50L), interval(large, 50), "interval of p50 narrows with the sample");
+
+    RunSummary baseline = new RunSummary();
+    RunSummary current = new RunSummary();
+    // Two-proportion z-test over 1000 requests each: 2% to 3.6% is z = 2.17, 2% to 3.3% is z = 1.81
+    baseline.requests.put("errors beyond chance", requests(1, 100, 10, 20));
+    current.requests.put("errors beyond chance", requests(1, 100, 10, 36));
+    baseline.requests.put("errors within chance", requests(1, 100, 10, 20));
+    current.requests.put("errors within chance", requests(1, 100, 10, 33));
+    baseline.requests.put("fewer errors", requests(1, 100, 10, 40));
+    current.requests.put("fewer errors", requests(1, 100, 10, 10));
+    // 0.8% to 1.6% over 10000 requests each: z = 5.2, but below the one point threshold
+    baseline.requests.put("errors below threshold", requests(1, 100, 100, 80));
+    current.requests.put("errors below threshold", requests(1, 100, 100, 160));
+    // p50 50 -> 70 ms, with intervals [47, 54] and [67, 74] over 1000 requests
+    baseline.requests.put("slower", requests(1, 100, 10, 0));
+    current.requests.put("slower", requests(21, 120, 10, 0));
+    // p50 20 -> 32 ms over 40 requests, with intervals [13, 28] and [25, 40] that overlap
+    baseline.requests.put("slower by chance", requests(1, 40, 1, 0));
+    current.requests.put("slower by chance", requests(13, 52, 1, 0));
+    baseline.requests.put("too few", requests(1, 29, 1, 0));
+    current.requests.put("too few", requests(101, 129, 1, 29));
+    current.requests.put("new", requests(1, 100, 10, 0));
+    BaselineDiff diff = new BaselineDiff("check", baseline, current, new double[] {50}, 0.2, 10, 0.01, 30);
+    JsonNode names = diff.json().path("requests");
+    equal("REGRESSED", status(names, "errors beyond chance", "errorRate"), "z above 1.96");
+    equal("UNCHANGED", status(names, "errors within chance", "errorRate"), "z below 1.96");
+    equal("IMPROVED", status(names, "fewer errors", "errorRate"), "error rate down beyond chance");
+    equal("UNCHANGED", status(names, "errors below threshold", "errorRate"), "error rate up by less than a point");
+    equal("REGRESSED", status(names, "slower", "p50"), "p50 up with disjoint intervals");
+    equal("UNCHANGED", status(names, "slower by chance", "p50"), "p50 up with overlapping intervals");
+    equal("TOO_FEW", status(names, "too few", null), "fewer requests than the minimum");
+    equal("NEW", status(names, "new", null), "request name not in the baseline");
+    check(diff.regressed(), "a regressed request name fails the diff");
+  }
+
+  void thinkTimeFit(Path directory) throws IOException {
+    // Per user: a question, its preflight, the answer after a log-normal gap, the next question after 1 s or 20 s
+    Random random = new Random(7);
+    List<String> lines = new ArrayList<>();
+    for (int user = 0; user < 1000; user++) {
+      long question = START + user * 100_000L;
+      long answer = question + Math.round(3000 * Math.exp(0.5 * random.nextGaussian()));
+      long next = answer + (user % 2 == 0 ? 1000 : 20_000);
+      lines.add(accessLine(question, "GET", "/question/flags?lang=en", "user" + user));
+      lines.add(accessLine(question + 1, "OPTIONS", "/answer", "user" + user));
+      lines.add(accessLine(answer, "POST", "/answer", "user" + user));
+      lines.add(accessLine(next, "GET", "/question/capitals", "user" + user));
+    }
+    // Past the session gap: a new session, no gap
+    lines.add(accessLine(START, "GET", "/question/flags", "sleepy"));
+    lines.add(accessLine(START + 7_200_000, "POST", "/answer", "sleepy"));
+    Path file = directory.resolve("think.jsonl");
+    Files.write(file, lines);
+
+    Map<String, String> transitions = new LinkedHashMap<>();
+    transitions.put("answer", "GET /question/:type -> POST /answer");
+    transitions.put("verdict", "POST /answer -> GET /question/:type");
+    transitions.put("profile", "GET /profile/:username -> GET /question/:type");
+    ThinkTimeFit fit = new ThinkTimeFit(transitions, 1_800_000);
+    fit.read(new AccessLog(file, null, null));
+    check(fit.text(30).startsWith("3002 requests of 1002 sessions, 2000 gaps between steps"),
+        "think time requests, sessions and gaps, without the preflights and the gap past the session gap");
+
+    ThinkTimeFit.Gaps answers = fit.gaps().get("answer");
+    equal(1000L, answers.count(), "think time gaps of a transition, whatever the query string and path parameters");
+    // The mean of 1000 logs has a standard error of 0.5 / sqrt(1000) = 0.016, about 50 ms around a 3 s median
+    check(Math.abs(answers.median() - 3000) < 150, "log-normal median found back, got " + answers.median());
+    check(Math.abs(answers.sigma() - 0.5) < 0.05, "log-normal sigma found back, got " + answers.sigma());
+    check(answers.ksDistance() < 0.06, "KS distance of log-normal gaps, got " + answers.ksDistance());
+
+    // Half at 1 s, half at 20 s: the geometric mean, half the log distance, and a fitted CDF of 0.16 at the p50
+    ThinkTimeFit.Gaps bimodal = fit.gaps().get("verdict");
+    equal(4472L, bimodal.median(), "log-normal median of bimodal gaps");
+    check(Math.abs(bimodal.sigma() - Math.log(20) / 2) < 1e-9, "log-normal sigma of bimodal gaps");
+    check(bimodal.ksDistance() > 0.3, "KS distance of bimodal gaps, got " + bimodal.ksDistance());
+    equal(List.of(1000L, 1007L, 1007L, 20_000L, 20_000L),
+        Arrays.stream(bimodal.quantiles(4)).boxed().collect(Collectors.toList()), "quantiles of bimodal gaps");
+    equal(0L, fit.gaps().get("profile").count(), "think time gaps of a transition not logged");
+
+    String conf = fit.conf(30, false, 20);
+    check(conf.contains("\"verdict\" { distribution = lognormal, median = 4472ms, sigma = "
+        + String.format(Locale.US, "%.3f", Math.log(20) / 2) + " }"), "log-normal step of the fitted conf");
+    check(!conf.contains("\"profile\""), "steps with too few gaps left out of the fitted conf");
+    check(fit.conf(30, true, 4).contains("\"verdict\" { distribution = empirical, quantiles = [1000ms, 1007ms, 1007ms, "
+        + "20000ms, 20000ms] }"), "empirical step of the fitted conf");
+  }
+
+  private static String accessLine(long timestamp, String method, String path, String user) {
+    return "{\"timestamp\":" + timestamp + ",\"method\":\"" + method + "\",\"path\":\"" + path
+        + "\",\"user\":\"" + user + "\"}";
+  }
+
+  private static List<Long> interval(LatencyHistogram histogram, double percentile) {
+    return Arrays.stream(BaselineDiff.interval(histogram, percentile)).boxed().collect(Collectors.toList());
+  }
+
+  // Each value of from..to recorded copies times, ko of them failed
+  private static RequestStats requests(int from, int to, int copies, long ko) {
+    LatencyHistogram histogram = new LatencyHistogram();
+    for (int value = from; value <= to; value++) {
+      histogram.record(value, copies);
+    }
+    return RequestStats.of(histogram, ko);
+  }
+
+  private static String status(JsonNode requests, String name, String metric) {
+    for (JsonNode request : requests) {
+      if (request.path("name").asText().equals(name)) {
+        return metric == null ? request.path("status").asText()
+            : request.path("metrics").path(metric).path("status").asText();
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Writes a real Gatling log out again: it must read back record for record.
+   */
+  void rewrite(Path log, Path directory) throws IOException {
+    Recorder original = new Recorder();
+    Path copy = directory.resolve("rewritten.log");
+    SimulationLog.Run run;
+    try (SimulationLogWriter writer = new SimulationLogWriter(copy, SimulationLog.readRun(log))) {
+      run = SimulationLog.read(log, new SimulationLog.Listener() {
+        @Override
+        public void user(String scenario, boolean start, long timestamp) {
+          writer.user(scenario, start, timestamp);
+          original.user(scenario, start, timestamp);
+        }
+
+        @Override
+        public void request(List<String> groups, String name, long start, long end, boolean ok, String message) {
+          writer.request(groups, name, start, end, ok, message);
+          original.request(groups, name, start, end, ok, message);
+        }
+
+        @Override
+        public void group(List<String> groups, long start, long end, int cumulatedResponseTime, boolean ok) {
+          writer.group(groups, start, end, cumulatedResponseTime, ok);
+          original.group(groups, start, end, cumulatedResponseTime, ok);
+        }
+
+        @Override
+        public void error(String message, long timestamp) {
+          writer.error(message, timestamp);
+          original.error(message, timestamp);
+        }
+      });
+    }
+    check(run != null && !original.records.isEmpty(), log + " holds records");
+    Recorder rewritten = new Recorder();
+    SimulationLog.read(copy, rewritten);
+    equal(original.records, rewritten.records, "records of " + log + " written out again");
+  }
+
+  public static void main(String[] args) throws IOException {
+    StatsCheck checks = new StatsCheck();
+    Path directory = Files.createTempDirectory("stats-check");
+    try {
+      checks.logRoundTrip(directory);
+      checks.histogram();
+      checks.hdrHistogram(directory);
+      checks.capacityLevels();
+      checks.scoring();
+      checks.gameBot();
+      checks.accessLog(directory);
+      checks.baselineDiff();
+      checks.thinkTimeFit(directory);
+      Path real = null;
+      try {
+        real = SimulationLog.fromArgs(args);
+      } catch (IOException e) {
+        System.out.println("No Gatling run to check against: " + e.getMessage());
+      }
+      if (real != null) {
+        checks.rewrite(real, directory);
+      }
+    } finally {
+      try (Stream<Path> files = Files.walk(directory)) {
+        files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+      }
+    }
+    System.out.println("Stats checks passed: " + checks.passed);
+  }
+}
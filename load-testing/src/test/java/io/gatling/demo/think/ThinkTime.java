@@ -0,0 +1,152 @@
+package io.gatling.demo.think;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import com.typesafe.config.Config;
+
+/**
+ * Distribution of the time a user spends between two steps of a journey, sampled once per pause.
+ *
+ * <p>Read from a block such as {@code { distribution = lognormal, median = 4s, sigma = 0.5 }}, or
+ * {@code { distribution = empirical, quantiles = [1.2s, 1.9s, ..., 41s] }} for the evenly spaced quantiles of a
+ * recorded distribution, from its minimum to its maximum, sampled by interpolating between them.
+ */
+public abstract class ThinkTime {
+
+  public static final ThinkTime NONE = constant(0);
+
+  /**
+   * Returns the time to pause, in milliseconds. Never negative.
+   */
+  public abstract long sampleMillis(Random random);
+
+  /**
+   * The median, the pause of every user when the think times are not sampled.
+   */
+  public abstract long medianMillis();
+
+  public Duration sample(Random random) {
+    return Duration.ofMillis(sampleMillis(random));
+  }
+
+  public static ThinkTime constant(long millis) {
+    return new ThinkTime() {
+      @Override
+      public long sampleMillis(Random random) {
+        return millis;
+      }
+
+      @Override
+      public long medianMillis() {
+        return millis;
+      }
+    };
+  }
+
+  public static ThinkTime uniform(long minMillis, long maxMillis) {
+    return new ThinkTime() {
+      @Override
+      public long sampleMillis(Random random) {
+        return minMillis + (long) (random.nextDouble() * (maxMillis - minMillis));
+      }
+
+      @Override
+      public long medianMillis() {
+        return (minMillis + maxMillis) / 2;
+      }
+    };
+  }
+
+  /**
+   * Log-normal distribution, the usual shape of human think times: a median plus a long right tail whose weight is
+   * controlled by {@code sigma}, the standard deviation of the logarithm.
+   */
+  public static ThinkTime logNormal(long medianMillis, double sigma) {
+    return new ThinkTime() {
+      @Override
+      public long sampleMillis(Random random) {
+        return Math.round(medianMillis * Math.exp(sigma * random.nextGaussian()));
+      }
+
+      @Override
+      public long medianMillis() {
+        return medianMillis;
+      }
+    };
+  }
+
+  /**
+   * Distribution given by its quantiles at even steps, {@code quantiles[0]} being the minimum and the last one the
+   * maximum.
+   */
+  public static ThinkTime empirical(long[] quantiles) {
+    if (quantiles.length < 2) {
+      throw new IllegalArgumentException("An empirical think time needs at least two quantiles");
+    }
+    long[] sorted = quantiles.clone();
+    Arrays.sort(sorted);
+    return new ThinkTime() {
+      @Override
+      public long sampleMillis(Random random) {
+        return at(random.nextDouble());
+      }
+
+      @Override
+      public long medianMillis() {
+        return at(0.5);
+      }
+
+      private long at(double quantile) {
+        double position = quantile * (sorted.length - 1);
+        int below = (int) position;
+        if (below >= sorted.length - 1) {
+          return sorted[sorted.length - 1];
+        }
+        return Math.round(sorted[below] + (position - below) * (sorted[below + 1] - sorted[below]));
+      }
+    };
+  }
+
+  /**
+   * The same distribution with every pause multiplied by {@code factor}.
+   */
+  public ThinkTime scaled(double factor) {
+    ThinkTime unscaled = this;
+    return factor == 1 ? this : new ThinkTime() {
+      @Override
+      public long sampleMillis(Random random) {
+        return Math.round(unscaled.sampleMillis(random) * factor);
+      }
+
+      @Override
+      public long medianMillis() {
+        return Math.round(unscaled.medianMillis() * factor);
+      }
+    };
+  }
+
+  /**
+   * Reads a think time block, see the class comment.
+   */
+  public static ThinkTime fromConfig(Config config) {
+    String distribution = config.getString("distribution");
+    switch (distribution) {
+      case "none":
+        return NONE;
+      case "constant":
+        return constant(config.getDuration("value").toMillis());
+      case "uniform":
+        return uniform(config.getDuration("min").toMillis(), config.getDuration("max").toMillis());
+      case "lognormal":
+        return logNormal(config.getDuration("median").toMillis(), config.getDouble("sigma"));
+      case "empirical":
+        List<Duration> quantiles = config.getDurationList("quantiles");
+        return empirical(quantiles.stream().mapToLong(Duration::toMillis).toArray());
+      default:
+        throw new IllegalArgumentException("Unknown think time distribution: " + distribution);
+    }
+  }
+}
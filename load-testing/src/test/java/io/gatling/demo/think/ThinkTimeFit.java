@@ -0,0 +1,308 @@
+package io.gatling.demo.think;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+import io.gatling.demo.replay.AccessLog;
+import io.gatling.demo.stats.LatencyHistogram;
+
+/**
+ * Fits the think time of each step of {@link ThinkTimes} that has a {@code transition} to the sessions of gateway
+ * access logs (see {@link AccessLog}), and writes the fitted steps as a file for {@code -Dthink.file}.
+ *
+ * <p>The requests of each logged user are taken in order, preflights left out, and every gap between two
+ * consecutive ones is counted for the steps whose transition they match. A gap over {@code -Dthink.sessionGapSeconds}
+ * (default 1800) starts a new session and is not counted. Gaps run from one request's arrival to the next, so they
+ * include the response time of the first: log a period of normal service. Each step with at least
+ * {@code -Dthink.minSamples} gaps (default 30) gets a log-normal fit, the mean and standard deviation of the
+ * logarithm of its gaps, or with {@code -Dthink.fit=empirical} its {@code -Dthink.quantiles} (default 20) evenly
+ * spaced quantiles. The table gives the Kolmogorov-Smirnov distance of the log-normal fit to the gaps: above 0.1 or
+ * so, the empirical distribution describes them better. The other steps keep their configured think time.
+ *
+ * <pre>
+ * mvnw exec:java -Dexec.mainClass=io.gatling.demo.think.ThinkTimeFit -Dexec.classpathScope=test \
+ *     -Dexec.args="access-2026-10-17.jsonl.gz" [-Dthink.out=think-times-fitted.conf] [-Dthink.fit=empirical]
+ * </pre>
+ */
+public final class ThinkTimeFit {
+
+  /**
+   * The gaps of one step.
+   */
+  public static final class Gaps {
+    final LatencyHistogram histogram = new LatencyHistogram();
+    long count;
+    double sumLog;
+    double sumLogSquares;
+
+    void add(long millis) {
+      long gap = Math.max(1, millis);
+      histogram.record(gap);
+      double log = Math.log(gap);
+      sumLog += log;
+      sumLogSquares += log * log;
+      count++;
+    }
+
+    public long count() {
+      return count;
+    }
+
+    public long percentile(double percentile) {
+      return histogram.percentile(percentile);
+    }
+
+    /** Median of the log-normal fit, in ms. */
+    public long median() {
+      return Math.round(Math.exp(sumLog / count));
+    }
+
+    /** Sigma of the log-normal fit. */
+    public double sigma() {
+      double mean = sumLog / count;
+      return Math.sqrt(Math.max(0, sumLogSquares / count - mean * mean));
+    }
+
+    /**
+     * Largest difference between the log-normal fit's CDF and the gaps', over their percentiles 1 to 99.
+     */
+    public double ksDistance() {
+      double mu = Math.log(median());
+      double sigma = Math.max(sigma(), 1e-9);
+      double distance = 0;
+      for (int percentile = 1; percentile < 100; percentile++) {
+        double fitted = normalCdf((Math.log(Math.max(1, percentile(percentile))) - mu) / sigma);
+        distance = Math.max(distance, Math.abs(fitted - percentile / 100.0));
+      }
+      return distance;
+    }
+
+    public long[] quantiles(int steps) {
+      long[] quantiles = new long[steps + 1];
+      quantiles[0] = histogram.min();
+      for (int i = 1; i < steps; i++) {
+        quantiles[i] = percentile(100.0 * i / steps);
+      }
+      quantiles[steps] = histogram.max();
+      return quantiles;
+    }
+  }
+
+  // A user's latest request
+  private static final class Last {
+    long timestamp;
+    String method;
+    String path;
+  }
+
+  private final Map<String, Transition> transitions = new LinkedHashMap<>();
+  private final Map<String, Gaps> gaps = new LinkedHashMap<>();
+  private final long sessionGapMillis;
+  private long requests;
+  private long counted;
+  private long sessions;
+
+  /**
+   * @param transitions transition of each step, as in {@link ThinkTimes#transitions()}
+   */
+  public ThinkTimeFit(Map<String, String> transitions, long sessionGapMillis) {
+    this.sessionGapMillis = sessionGapMillis;
+    transitions.forEach((step, transition) -> {
+      this.transitions.put(step, Transition.parse(transition));
+      gaps.put(step, new Gaps());
+    });
+  }
+
+  public void read(AccessLog log) {
+    Map<String, Last> users = new HashMap<>();
+    try (AccessLog.Reader reader = log.reader()) {
+      while (reader.hasNext()) {
+        AccessLog.Entry entry = reader.next();
+        if (entry.user == null || entry.method.equals("OPTIONS")) {
+          continue;
+        }
+        requests++;
+        String path = stripQuery(entry.path);
+        Last last = users.get(entry.user);
+        if (last == null) {
+          last = new Last();
+          users.put(entry.user, last);
+          sessions++;
+        } else {
+          long gap = entry.timestamp - last.timestamp;
+          if (gap > sessionGapMillis) {
+            sessions++;
+          } else if (gap >= 0) {
+            add(last.method, last.path, entry.method, path, gap);
+          }
+        }
+        last.timestamp = entry.timestamp;
+        last.method = entry.method;
+        last.path = path;
+      }
+    }
+  }
+
+  private void add(String fromMethod, String fromPath, String toMethod, String toPath, long gap) {
+    boolean matched = false;
+    for (Map.Entry<String, Transition> step : transitions.entrySet()) {
+      if (step.getValue().matches(fromMethod, fromPath, toMethod, toPath)) {
+        gaps.get(step.getKey()).add(gap);
+        matched = true;
+      }
+    }
+    if (matched) {
+      counted++;
+    }
+  }
+
+  private static String stripQuery(String path) {
+    int query = path.indexOf('?');
+    return query < 0 ? path : path.substring(0, query);
+  }
+
+  public Map<String, Gaps> gaps() {
+    return gaps;
+  }
+
+  public String text(int minSamples) {
+    int width = Math.max(4, transitions.keySet().stream().mapToInt(String::length).max().orElse(0));
+    StringBuilder out = new StringBuilder();
+    out.append(String.format("%d requests of %d sessions, %d gaps between steps, in milliseconds%n%n", requests,
+        sessions, counted));
+    out.append(String.format("  %-" + width + "s %8s %8s %8s %8s %8s %6s %6s%n", "step", "gaps", "p10", "p50", "p90",
+        "median", "sigma", "KS"));
+    gaps.forEach((step, stepGaps) -> {
+      if (stepGaps.count() == 0) {
+        out.append(String.format("  %-" + width + "s %8d   (%s not logged)%n", step, 0, transitions.get(step)));
+        return;
+      }
+      out.append(String.format(Locale.US, "  %-" + width + "s %8d %8d %8d %8d %8d %6.2f %6.3f%s%n", step,
+          stepGaps.count(), stepGaps.percentile(10), stepGaps.percentile(50), stepGaps.percentile(90),
+          stepGaps.median(), stepGaps.sigma(), stepGaps.ksDistance(),
+          stepGaps.count() < minSamples ? "  too few, kept" : ""));
+    });
+    return out.toString();
+  }
+
+  /**
+   * The fitted steps, as a {@code think-times.conf} to layer on the default one.
+   */
+  public String conf(int minSamples, boolean empirical, int quantiles) {
+    StringBuilder out = new StringBuilder();
+    out.append("# Fitted by ThinkTimeFit from ").append(requests).append(" requests of ").append(sessions)
+        .append(" sessions\n");
+    out.append("think.steps {\n");
+    gaps.forEach((step, stepGaps) -> {
+      if (stepGaps.count() < minSamples) {
+        return;
+      }
+      out.append(String.format(Locale.US, "  # %d gaps, log-normal KS distance %.3f%n", stepGaps.count(),
+          stepGaps.ksDistance()));
+      out.append("  \"").append(step).append("\" { ");
+      if (empirical) {
+        out.append("distribution = empirical, quantiles = [");
+        long[] values = stepGaps.quantiles(quantiles);
+        for (int i = 0; i < values.length; i++) {
+          out.append(i == 0 ? "" : ", ").append(values[i]).append("ms");
+        }
+        out.append("]");
+      } else {
+        out.append(String.format(Locale.US, "distribution = lognormal, median = %dms, sigma = %.3f", stepGaps.median(),
+            stepGaps.sigma()));
+      }
+      out.append(" }\n");
+    });
+    out.append("}\n");
+    return out.toString();
+  }
+
+  // Abramowitz and Stegun 7.1.26, within 1.5e-7
+  static double normalCdf(double z) {
+    double x = Math.abs(z) / Math.sqrt(2);
+    double t = 1 / (1 + 0.3275911 * x);
+    double erf = 1 - t * (0.254829592 + t * (-0.284496736 + t * (1.421413741 + t * (-1.453152027
+        + t * 1.061405429)))) * Math.exp(-x * x);
+    return z >= 0 ? (1 + erf) / 2 : (1 - erf) / 2;
+  }
+
+  /**
+   * Two requests, such as {@code GET /question/:type -> POST /answer}; a path segment starting with {@code :}
+   * matches any value.
+   */
+  static final class Transition {
+    final String text;
+    final String fromMethod;
+    final String[] fromPath;
+    final String toMethod;
+    final String[] toPath;
+
+    private Transition(String text, String fromMethod, String[] fromPath, String toMethod, String[] toPath) {
+      this.text = text;
+      this.fromMethod = fromMethod;
+      this.fromPath = fromPath;
+      this.toMethod = toMethod;
+      this.toPath = toPath;
+    }
+
+    static Transition parse(String transition) {
+      String[] ends = transition.split("->");
+      String[] from = ends[0].trim().split("\\s+");
+      String[] to = ends.length == 2 ? ends[1].trim().split("\\s+") : new String[0];
+      if (from.length != 2 || to.length != 2) {
+        throw new IllegalArgumentException("Not a transition, \"METHOD /path -> METHOD /path\": " + transition);
+      }
+      return new Transition(transition, from[0].toUpperCase(), stripQuery(from[1]).split("/"), to[0].toUpperCase(),
+          stripQuery(to[1]).split("/"));
+    }
+
+    boolean matches(String fromMethod, String fromPath, String toMethod, String toPath) {
+      return this.fromMethod.equals(fromMethod) && this.toMethod.equals(toMethod)
+          && matches(this.fromPath, fromPath) && matches(this.toPath, toPath);
+    }
+
+    @Override
+    public String toString() {
+      return text;
+    }
+
+    private static boolean matches(String[] pattern, String path) {
+      String[] segments = path.split("/");
+      if (segments.length != pattern.length) {
+        return false;
+      }
+      for (int i = 0; i < pattern.length; i++) {
+        if (!pattern[i].startsWith(":") && !pattern[i].equals(segments[i])) {
+          return false;
+        }
+      }
+      return true;
+    }
+  }
+
+  public static void main(String[] args) throws IOException {
+    if (args.length == 0) {
+      throw new IllegalArgumentException("Usage: ThinkTimeFit <access log>...");
+    }
+    int minSamples = Integer.getInteger("think.minSamples", 30);
+    ThinkTimeFit fit = new ThinkTimeFit(ThinkTimes.get().transitions(),
+        Long.getLong("think.sessionGapSeconds", 1800) * 1000);
+    for (String arg : args) {
+      fit.read(new AccessLog(Paths.get(arg), null, null));
+    }
+    System.out.println(fit.text(minSamples));
+    Path out = Paths.get(System.getProperty("think.out", "think-times-fitted.conf"));
+    try (Writer writer = Files.newBufferedWriter(out)) {
+      writer.write(fit.conf(minSamples, "empirical".equals(System.getProperty("think.fit")),
+          Integer.getInteger("think.quantiles", 20)));
+    }
+    System.out.println("Written to " + out.toAbsolutePath() + ", use it with -Dthink.file=" + out);
+  }
+}
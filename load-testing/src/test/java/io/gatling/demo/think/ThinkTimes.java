@@ -0,0 +1,139 @@
+package io.gatling.demo.think;
+
+import java.io.File;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+import com.typesafe.config.Config;
+import com.typesafe.config.ConfigFactory;
+import static io.gatling.javaapi.core.CoreDsl.exec;
+import static io.gatling.javaapi.core.CoreDsl.pace;
+import io.gatling.javaapi.core.ChainBuilder;
+import io.gatling.javaapi.core.CoreDsl;
+
+/**
+ * Think times of the journeys, per named step, and the pacing of their loops, read from {@code think-times.conf}
+ * (or the file given with {@code -Dthink.file}, on top of it, such as one written by {@link ThinkTimeFit}).
+ *
+ * <p>The chains pause with {@link #pause(String)} instead of a fixed {@code pause(4)}, so each user waits its own
+ * sample and a population does not move through the journey as one synchronized wave. {@code -Dthink.mode} is
+ * {@code sampled} (default), {@code median} for every user to wait each step's median, as the fixed pauses did, or
+ * {@code none} for no think time at all. {@code -Dthink.scale} multiplies every think time.
+ *
+ * <p>A loop wrapped in {@link #paced(String, ChainBuilder)} starts its iterations at {@code think.pacing.<loop>}
+ * per minute and per user, whatever the response times: the think times still apply, and the pacing waits out the
+ * rest of each period. An iteration longer than its period starts the next one right away.
+ */
+public final class ThinkTimes {
+
+  public enum Mode {
+    SAMPLED, MEDIAN, NONE
+  }
+
+  private static ThinkTimes loaded;
+
+  private final Mode mode;
+  private final Map<String, ThinkTime> steps = new TreeMap<>();
+  private final Map<String, String> transitions = new TreeMap<>();
+  private final Map<String, Double> pacing = new LinkedHashMap<>();
+
+  ThinkTimes(Config root) {
+    Config config = root.getConfig("think");
+    this.mode = Mode.valueOf(config.getString("mode").toUpperCase());
+    double scale = config.getDouble("scale");
+    Config stepConfigs = config.getConfig("steps");
+    for (String step : stepConfigs.root().keySet()) {
+      Config stepConfig = stepConfigs.getConfig("\"" + step + "\"");
+      steps.put(step, ThinkTime.fromConfig(stepConfig).scaled(scale));
+      if (stepConfig.hasPath("transition")) {
+        transitions.put(step, stepConfig.getString("transition"));
+      }
+    }
+    Config pacingConfig = config.getConfig("pacing");
+    for (String loop : pacingConfig.root().keySet()) {
+      pacing.put(loop, pacingConfig.getDouble("\"" + loop + "\""));
+    }
+  }
+
+  public static synchronized ThinkTimes get() {
+    if (loaded == null) {
+      String file = System.getProperty("think.file");
+      Config defaults = ConfigFactory.load("think-times");
+      loaded = new ThinkTimes(file == null ? defaults
+          : ConfigFactory.systemProperties().withFallback(ConfigFactory.parseFile(new File(file)))
+              .withFallback(defaults).resolve());
+    }
+    return loaded;
+  }
+
+  /**
+   * A pause of one think time of {@code step}.
+   */
+  public static ChainBuilder pause(String step) {
+    ThinkTimes model = get();
+    ThinkTime thinkTime = model.step(step);
+    if (model.mode == Mode.SAMPLED) {
+      return exec(CoreDsl.pause(session -> thinkTime.sample(ThreadLocalRandom.current())));
+    }
+    return exec(CoreDsl.pause(Duration.ofMillis(model.mode == Mode.NONE ? 0 : thinkTime.medianMillis())));
+  }
+
+  /**
+   * One think time of {@code step} in milliseconds, for chains that also need its value, such as a score that
+   * depends on how long the user took.
+   */
+  public static long sampleMillis(String step) {
+    return sampleMillis(get().step(step));
+  }
+
+  /**
+   * One think time of {@code thinkTime} in milliseconds, sampled or not as the model's mode says.
+   */
+  public static long sampleMillis(ThinkTime thinkTime) {
+    switch (get().mode) {
+      case NONE:
+        return 0;
+      case MEDIAN:
+        return thinkTime.medianMillis();
+      default:
+        return thinkTime.sampleMillis(ThreadLocalRandom.current());
+    }
+  }
+
+  /**
+   * {@code iteration} paced to {@code think.pacing.<loop>} iterations per minute, or as it is when unset or 0.
+   */
+  public static ChainBuilder paced(String loop, ChainBuilder iteration) {
+    double perMinute = get().pacing.getOrDefault(loop, 0.0);
+    if (perMinute <= 0) {
+      return iteration;
+    }
+    return exec(pace(Duration.ofMillis(Math.round(60_000 / perMinute)), "pacing." + loop)).exec(iteration);
+  }
+
+  public ThinkTime step(String step) {
+    ThinkTime thinkTime = steps.get(step);
+    if (thinkTime == null) {
+      throw new IllegalArgumentException("No think time for step \"" + step + "\" in think.steps");
+    }
+    return thinkTime;
+  }
+
+  public Mode mode() {
+    return mode;
+  }
+
+  public Map<String, ThinkTime> steps() {
+    return steps;
+  }
+
+  /**
+   * Request pairs of the access log each step lies between, e.g. {@code GET /question/:type -> POST /answer}.
+   */
+  public Map<String, String> transitions() {
+    return transitions;
+  }
+}
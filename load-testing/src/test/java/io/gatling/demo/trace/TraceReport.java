@@ -0,0 +1,313 @@
+package io.gatling.demo.trace;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.gatling.demo.http.Tracing;
+import io.gatling.demo.stats.LatencyHistogram;
+import io.gatling.demo.stats.Reports;
+import io.gatling.demo.stats.SimulationLog;
+
+/**
+ * Where the time of each gateway endpoint went, from {@code simulation.log}, the ids {@link Tracing} sent and the
+ * gateway's request log.
+ *
+ * <p>The gateway logs each request with its {@code X-Request-Id}, its total time and the time spent waiting on each
+ * downstream service. A logged id is matched to its {@link Tracing.Sent} line, then to the request in
+ * {@code simulation.log} with the same name, start and end. Ids logged and sent but with no such request, as when
+ * the log is of another run, are counted by request name as unmatched rather than given to a neighbour.
+ * For each endpoint ({@code METHOD route}) the report splits the response time Gatling saw into the client side
+ * (connecting, queueing and the network, what Gatling saw beyond the gateway's total), the gateway's own time, and
+ * each downstream service's, including their databases. It gives their p50 and p95 and their shares of the mean,
+ * then the same shares over the requests slower than the endpoint's p95, which tell where the slow ones lost their
+ * time. The result is printed and written to {@code traces.json} in the run directory.
+ *
+ * <pre>
+ * mvnw exec:java -Dexec.mainClass=io.gatling.demo.trace.TraceReport -Dexec.classpathScope=test \
+ *     [-Dexec.args=target/gatling/&lt;run&gt;] [-Dtrace.logs=target/gatling/gateway-requests.log] \
+ *     [-Dtrace.ids=target/gatling/trace-ids.csv]
+ * </pre>
+ */
+public final class TraceReport {
+
+  public static final String CLIENT = "client";
+  public static final String GATEWAY = "gateway";
+
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+
+  /**
+   * A request as the gateway logged it.
+   */
+  static final class Logged {
+    final String method;
+    final String route;
+    final double totalMs;
+    final Map<String, Double> downstream = new LinkedHashMap<>();
+
+    Logged(String method, String route, double totalMs) {
+      this.method = method;
+      this.route = route;
+      this.totalMs = totalMs;
+    }
+  }
+
+  private static final class Endpoint {
+    // Per matched request: the response time Gatling saw, then the part of each component
+    final List<double[]> requests = new ArrayList<>();
+  }
+
+  private final Map<String, Logged> logged = new HashMap<>();
+  private final Set<String> routes = new HashSet<>();
+  // Logged ids by request name, start and end; requests of one name and the same times are interchangeable
+  private final Map<String, Deque<Tracing.Sent>> sentByRequest = new HashMap<>();
+  private final Map<String, Endpoint> endpoints = new TreeMap<>();
+  // Components in column order: client, gateway, then the downstream services as they are first seen
+  private final List<String> components = new ArrayList<>(List.of(CLIENT, GATEWAY));
+  private final Map<String, Integer> unmatched = new TreeMap<>();
+  private int sent;
+  private int matched;
+  private String simulation;
+
+  /**
+   * Reads the request lines of a service log: JSON objects with {@code "event":"request"}, anything before the
+   * first brace, such as the prefix of {@code docker compose logs}, being ignored.
+   */
+  public void readServiceLog(Path file) throws IOException {
+    try (BufferedReader reader = Files.newBufferedReader(file)) {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        int brace = line.indexOf('{');
+        if (brace < 0) {
+          continue;
+        }
+        JsonNode node;
+        try {
+          node = MAPPER.readTree(line.substring(brace));
+        } catch (JsonProcessingException e) {
+          continue;
+        }
+        if (!"request".equals(node.path("event").asText()) || !node.hasNonNull("requestId")) {
+          continue;
+        }
+        Logged request = new Logged(node.path("method").asText(), node.path("route").asText(),
+            node.path("totalMs").asDouble());
+        if (request.route.contains(":")) {
+          routes.add(request.route);
+        }
+        for (JsonNode call : node.path("downstream")) {
+          request.downstream.merge(call.path("service").asText(), call.path("ms").asDouble(), Double::sum);
+        }
+        logged.put(node.path("requestId").asText(), request);
+      }
+    }
+  }
+
+  public void readSent(Path file) throws IOException {
+    for (Tracing.Sent line : Tracing.load(file)) {
+      sent++;
+      if (logged.containsKey(line.id)) {
+        sentByRequest.computeIfAbsent(key(line.name, line.start, line.end), key -> new ArrayDeque<>()).add(line);
+      }
+    }
+  }
+
+  private static String key(String name, long start, long end) {
+    return start + "," + end + "," + name;
+  }
+
+  public void read(Path log) throws IOException {
+    SimulationLog.Run run = SimulationLog.read(log, new SimulationLog.Listener() {
+      @Override
+      public void request(List<String> groups, String name, long start, long end, boolean ok, String message) {
+        Deque<Tracing.Sent> lines = sentByRequest.get(key(name, start, end));
+        if (lines != null && !lines.isEmpty()) {
+          record(logged.get(lines.poll().id), end - start);
+          matched++;
+        }
+      }
+    });
+    simulation = run.simulationClassName;
+    for (Deque<Tracing.Sent> lines : sentByRequest.values()) {
+      for (Tracing.Sent line : lines) {
+        unmatched.merge(line.name, 1, Integer::sum);
+      }
+    }
+  }
+
+  private void record(Logged request, long responseTime) {
+    double downstream = 0;
+    for (Map.Entry<String, Double> call : request.downstream.entrySet()) {
+      downstream += call.getValue();
+      if (!components.contains(call.getKey())) {
+        components.add(call.getKey());
+      }
+    }
+    double[] parts = new double[components.size() + 1];
+    parts[0] = responseTime;
+    parts[1 + components.indexOf(CLIENT)] = Math.max(0, responseTime - request.totalMs);
+    parts[1 + components.indexOf(GATEWAY)] = Math.max(0, request.totalMs - downstream);
+    request.downstream.forEach((service, ms) -> parts[1 + components.indexOf(service)] = ms);
+    endpoints.computeIfAbsent(request.method + " " + route(request.route), key -> new Endpoint()).requests
+        .add(parts);
+  }
+
+  // CORS preflights are answered before routing, so they are logged with their path: give them the route it matches
+  private String route(String path) {
+    if (path.contains(":")) {
+      return path;
+    }
+    String[] segments = path.split("/", -1);
+    for (String route : routes) {
+      String[] pattern = route.split("/", -1);
+      boolean matches = pattern.length == segments.length;
+      for (int i = 0; matches && i < pattern.length; i++) {
+        matches = pattern[i].startsWith(":") || pattern[i].equals(segments[i]);
+      }
+      if (matches) {
+        return route;
+      }
+    }
+    return path;
+  }
+
+  private static double part(double[] parts, int component) {
+    return 1 + component < parts.length ? parts[1 + component] : 0;
+  }
+
+  private LatencyHistogram histogram(Endpoint endpoint, int component) {
+    LatencyHistogram histogram = new LatencyHistogram();
+    for (double[] parts : endpoint.requests) {
+      histogram.record(Math.round(component < 0 ? parts[0] : part(parts, component)));
+    }
+    return histogram;
+  }
+
+  /**
+   * Share of each component in the total time of the requests at or above {@code fromMillis}.
+   */
+  private double[] shares(Endpoint endpoint, long fromMillis) {
+    double[] sums = new double[components.size()];
+    double total = 0;
+    for (double[] parts : endpoint.requests) {
+      if (parts[0] < fromMillis) {
+        continue;
+      }
+      for (int i = 0; i < sums.length; i++) {
+        sums[i] += part(parts, i);
+        total += part(parts, i);
+      }
+    }
+    for (int i = 0; i < sums.length; i++) {
+      sums[i] = total == 0 ? 0 : sums[i] / total;
+    }
+    return sums;
+  }
+
+  public String text() {
+    StringBuilder out = new StringBuilder();
+    out.append("Latency breakdown of ").append(simulation).append(": ").append(sent).append(" requests sent, ")
+        .append(logged.size()).append(" logged by the services, ").append(matched)
+        .append(" matched in simulation.log\n");
+    unmatched.forEach((name, count) -> out.append(String.format("  %s: %d logged but not in simulation.log%n", name,
+        count)));
+    endpoints.forEach((name, endpoint) -> {
+      LatencyHistogram total = histogram(endpoint, -1);
+      long slow = total.percentile(95);
+      double[] all = shares(endpoint, 0);
+      double[] tail = shares(endpoint, slow);
+      out.append(String.format("%n  %s, %d requests, p50 %d ms, p95 %d ms%n", name, total.count(),
+          total.percentile(50), slow));
+      out.append(String.format("    %-12s %7s %7s %8s %10s%n", "component", "p50", "p95", "share", "share >p95"));
+      for (int i = 0; i < components.size(); i++) {
+        LatencyHistogram histogram = histogram(endpoint, i);
+        if (histogram.max() == 0 && all[i] == 0) {
+          continue;
+        }
+        out.append(String.format("    %-12s %7d %7d %7.0f%% %9.0f%%%n", components.get(i), histogram.percentile(50),
+            histogram.percentile(95), all[i] * 100, tail[i] * 100));
+      }
+    });
+    return out.toString();
+  }
+
+  public ObjectNode json() {
+    ObjectNode root = MAPPER.createObjectNode();
+    root.put("simulation", simulation);
+    root.put("sent", sent);
+    root.put("logged", logged.size());
+    root.put("matched", matched);
+    ObjectNode notMatched = root.putObject("unmatched");
+    unmatched.forEach(notMatched::put);
+    ArrayNode list = root.putArray("endpoints");
+    endpoints.forEach((name, endpoint) -> {
+      LatencyHistogram total = histogram(endpoint, -1);
+      double[] all = shares(endpoint, 0);
+      double[] tail = shares(endpoint, total.percentile(95));
+      ObjectNode node = list.addObject();
+      node.put("endpoint", name);
+      node.put("requests", total.count());
+      node.put("p50", total.percentile(50));
+      node.put("p95", total.percentile(95));
+      ObjectNode parts = node.putObject("components");
+      for (int i = 0; i < components.size(); i++) {
+        LatencyHistogram histogram = histogram(endpoint, i);
+        ObjectNode part = parts.putObject(components.get(i));
+        part.put("p50", histogram.percentile(50));
+        part.put("p95", histogram.percentile(95));
+        part.put("share", all[i]);
+        part.put("shareAboveP95", tail[i]);
+      }
+    });
+    return root;
+  }
+
+  private static List<Path> paths(String property, String defaultValue) {
+    List<Path> paths = new ArrayList<>();
+    for (String path : System.getProperty(property, defaultValue).split(",")) {
+      if (!path.isBlank()) {
+        paths.add(Paths.get(path.trim()));
+      }
+    }
+    return paths;
+  }
+
+  public static void main(String[] args) throws IOException {
+    Path log = SimulationLog.fromArgs(args);
+    TraceReport report = new TraceReport();
+    for (Path file : paths("trace.logs", SimulationLog.resultsDirectory().resolve("gateway-requests.log").toString())) {
+      report.readServiceLog(file);
+    }
+    Set<Path> ids = new HashSet<>();
+    if (System.getProperty("trace.ids") != null) {
+      ids.addAll(paths("trace.ids", ""));
+    } else {
+      try (Stream<Path> files = Files.list(SimulationLog.resultsDirectory())) {
+        files.filter(file -> file.getFileName().toString().matches("trace-ids(-\\d+)?\\.csv")).forEach(ids::add);
+      }
+    }
+    for (Path file : ids) {
+      report.readSent(file);
+    }
+    report.read(log);
+    Reports.write(log, "traces.json", report.text(), report.json());
+  }
+}
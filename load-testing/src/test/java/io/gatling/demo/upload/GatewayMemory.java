@@ -0,0 +1,179 @@
+package io.gatling.demo.upload;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.gatling.demo.Targets;
+import io.gatling.demo.distributed.Injector;
+import io.gatling.demo.stats.SimulationLog;
+
+/**
+ * Memory of the gateway during a run, sampled from its Prometheus endpoint.
+ *
+ * <p>The gateway's multer keeps each upload in memory until it has been forwarded to the userservice, so its
+ * external memory grows with the uploads in flight. Every {@code -Dupload.sampleMillis} (default 500) the
+ * {@code process_resident_memory_bytes}, {@code nodejs_heap_size_used_bytes} and
+ * {@code nodejs_external_memory_bytes} gauges of {@code -Dupload.metricsUrl} (default the gateway's
+ * {@code /metrics}) are appended to {@link #defaultFile()}, -1 for a gauge it does not serve. Only the first
+ * {@link Injector} samples.
+ */
+public final class GatewayMemory {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(GatewayMemory.class);
+
+  static final String[] GAUGES = {"process_resident_memory_bytes", "nodejs_heap_size_used_bytes",
+      "nodejs_external_memory_bytes"};
+  static final String HEADER = "timestamp,rss,heapUsed,external";
+
+  private static ScheduledExecutorService sampler;
+  private static volatile BufferedWriter out;
+
+  private GatewayMemory() {
+  }
+
+  public static Path defaultFile() {
+    return SimulationLog.resultsDirectory().resolve("upload-memory.csv");
+  }
+
+  /**
+   * Starts sampling into {@code file}. Meant to be called from {@code Simulation.before()}.
+   */
+  public static synchronized void start(Path file) {
+    if (sampler != null || Injector.INDEX != 0) {
+      return;
+    }
+    URI metrics = URI.create(System.getProperty("upload.metricsUrl", Targets.GATEWAY_URL + "/metrics"));
+    long period = Long.getLong("upload.sampleMillis", 500);
+    HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(2)).build();
+    try {
+      Files.createDirectories(file.getParent());
+      out = Files.newBufferedWriter(file);
+      out.write(HEADER);
+      out.newLine();
+    } catch (IOException e) {
+      throw new UncheckedIOException("Could not write " + file, e);
+    }
+    sampler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "gateway-memory");
+      thread.setDaemon(true);
+      return thread;
+    });
+    boolean[] warned = {false};
+    sampler.scheduleAtFixedRate(() -> {
+      try {
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder(metrics)
+            .timeout(Duration.ofMillis(Math.max(period, 1000)))
+            .build(), HttpResponse.BodyHandlers.ofString());
+        long[] values = parse(response.body());
+        if (values[0] < 0 && !warned[0]) {
+          warned[0] = true;
+          LOGGER.warn("{} serves no process memory gauges; enable prom-client's default metrics", metrics);
+        }
+        write(System.currentTimeMillis(), values);
+      } catch (IOException e) {
+        if (!warned[0]) {
+          warned[0] = true;
+          LOGGER.warn("Could not sample {}", metrics, e);
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }, 0, period, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Stops sampling. Meant to be called from {@code Simulation.after()}.
+   */
+  public static void stop() {
+    ScheduledExecutorService stopped;
+    synchronized (GatewayMemory.class) {
+      stopped = sampler;
+      sampler = null;
+    }
+    if (stopped == null) {
+      return;
+    }
+    stopped.shutdownNow();
+    try {
+      stopped.awaitTermination(5, TimeUnit.SECONDS);
+      out.close();
+    } catch (IOException e) {
+      LOGGER.warn("Could not close the memory samples", e);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  // Only called from the sampler's single thread
+  private static void write(long timestamp, long[] values) throws IOException {
+    StringBuilder line = new StringBuilder().append(timestamp);
+    for (long value : values) {
+      line.append(',').append(value);
+    }
+    out.write(line.toString());
+    out.newLine();
+  }
+
+  /**
+   * The {@link #GAUGES} of a Prometheus text exposition, -1 for the ones missing.
+   */
+  static long[] parse(String exposition) {
+    long[] values = {-1, -1, -1};
+    for (String line : exposition.split("\n")) {
+      for (int i = 0; i < GAUGES.length; i++) {
+        if (line.startsWith(GAUGES[i] + " ") || line.startsWith(GAUGES[i] + "{")) {
+          // name{labels} value [timestamp]
+          String sample = line.substring(Math.max(line.lastIndexOf('}') + 1, GAUGES[i].length())).trim();
+          values[i] = (long) Double.parseDouble(sample.split("\\s+")[0]);
+        }
+      }
+    }
+    return values;
+  }
+
+  /**
+   * One sample of {@link #defaultFile()}.
+   */
+  public static final class Sample {
+    public final long timestamp;
+    public final long rss;
+    public final long heapUsed;
+    public final long external;
+
+    Sample(long timestamp, long rss, long heapUsed, long external) {
+      this.timestamp = timestamp;
+      this.rss = rss;
+      this.heapUsed = heapUsed;
+      this.external = external;
+    }
+  }
+
+  public static List<Sample> load(Path file) throws IOException {
+    List<Sample> samples = new ArrayList<>();
+    for (String line : Files.readAllLines(file)) {
+      if (line.isEmpty() || line.equals(HEADER)) {
+        continue;
+      }
+      String[] fields = line.split(",");
+      samples.add(new Sample(Long.parseLong(fields[0]), Long.parseLong(fields[1]), Long.parseLong(fields[2]),
+          Long.parseLong(fields[3])));
+    }
+    return samples;
+  }
+}
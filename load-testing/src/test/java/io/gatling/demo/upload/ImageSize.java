@@ -0,0 +1,110 @@
+package io.gatling.demo.upload;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import javax.imageio.ImageIO;
+
+/**
+ * A size of uploaded profile image, such as {@code 100k} or {@code 2m}, and a generated PNG of about that size.
+ *
+ * <p>The pixels are random, so the PNG does not compress and its size follows the pixel count. The same image is
+ * sent by every upload of a size: it is generated once, before the run, to keep the injector's CPU out of the
+ * measurement.
+ */
+public final class ImageSize {
+
+  /** The sizes of {@code -Dupload.sizes}, from 10 KB up to just under the gateway's 5 MiB multer limit. */
+  public static final String DEFAULT_SIZES = "10k,100k,500k,1m,2m,5m";
+
+  public final String label;
+  public final int targetBytes;
+  private byte[] png;
+
+  private ImageSize(String label, int targetBytes) {
+    this.label = label;
+    this.targetBytes = targetBytes;
+  }
+
+  /**
+   * Parses a size in bytes with an optional {@code k} (1000) or {@code m} (1000000) suffix.
+   */
+  public static ImageSize parse(String size) {
+    String label = size.trim().toLowerCase(Locale.ROOT);
+    long multiplier = 1;
+    String number = label;
+    if (label.endsWith("k")) {
+      multiplier = 1000;
+      number = label.substring(0, label.length() - 1);
+    } else if (label.endsWith("m")) {
+      multiplier = 1_000_000;
+      number = label.substring(0, label.length() - 1);
+    }
+    long bytes = Math.round(Double.parseDouble(number) * multiplier);
+    if (bytes < 100 || bytes > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("Image size out of range: " + size);
+    }
+    return new ImageSize(label, (int) bytes);
+  }
+
+  public static List<ImageSize> parseAll(String sizes) {
+    List<ImageSize> parsed = new ArrayList<>();
+    for (String size : sizes.split(",")) {
+      if (!size.isBlank()) {
+        parsed.add(parse(size));
+      }
+    }
+    return parsed;
+  }
+
+  /**
+   * The sizes of {@code -Dupload.sizes}.
+   */
+  public static List<ImageSize> fromSystemProperties() {
+    return parseAll(System.getProperty("upload.sizes", DEFAULT_SIZES));
+  }
+
+  /**
+   * The generated PNG, a few bytes over {@link #targetBytes} for the headers.
+   */
+  public synchronized byte[] png() {
+    if (png == null) {
+      png = generate(targetBytes, new Random(targetBytes));
+    }
+    return png;
+  }
+
+  public String fileName() {
+    return "profile-" + label + ".png";
+  }
+
+  // Each RGB row is 3 bytes a pixel plus its filter byte
+  private static byte[] generate(int targetBytes, Random random) {
+    int width = Math.max(8, (int) Math.sqrt(targetBytes / 3.0));
+    int height = Math.max(1, targetBytes / (1 + 3 * width));
+    BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+    for (int y = 0; y < height; y++) {
+      for (int x = 0; x < width; x++) {
+        image.setRGB(x, y, random.nextInt(0x1000000));
+      }
+    }
+    ByteArrayOutputStream out = new ByteArrayOutputStream(targetBytes + 1024);
+    try {
+      ImageIO.write(image, "png", out);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Could not generate a " + targetBytes + " bytes PNG", e);
+    }
+    return out.toByteArray();
+  }
+
+  @Override
+  public String toString() {
+    return label;
+  }
+}
@@ -0,0 +1,225 @@
+package io.gatling.demo.upload;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.gatling.demo.ImageUploadSweepSimulation;
+import io.gatling.demo.stats.Reports;
+import io.gatling.demo.stats.RequestStats;
+import io.gatling.demo.stats.SimulationLog;
+
+/**
+ * Throughput, latency and gateway memory for each image size of an {@link ImageUploadSweepSimulation} run.
+ *
+ * <p>A size's step lasts from its first upload to its last answer. Over that step the report gives the uploads and
+ * megabytes per second that went through, the latency of the uploads and of the fetches of the new image, and the
+ * peak resident and external memory of the gateway from {@link GatewayMemory}. The external memory is also divided by
+ * the bytes of the uploads in flight (throughput times mean latency, by Little's law): about one copy means the
+ * gateway holds each upload once while it forwards it, more means it is copied on the way. The result is printed and
+ * written to {@code upload.json} in the run directory.
+ *
+ * <pre>
+ * mvnw exec:java -Dexec.mainClass=io.gatling.demo.upload.UploadReport -Dexec.classpathScope=test \
+ *     [-Dexec.args=target/gatling/&lt;run&gt;] [-Dupload.memory=target/gatling/upload-memory.csv]
+ * </pre>
+ */
+public final class UploadReport {
+
+  public static final String UPLOAD_REQUEST = "post custom image";
+  public static final String FETCH_REQUEST = "get new profile image";
+
+  private static final double MB = 1_000_000.0;
+
+  private static final class Step {
+    final String label;
+    final long bytes;
+    final RequestStats uploads = new RequestStats();
+    final RequestStats fetches = new RequestStats();
+    long okBytes;
+    long from = Long.MAX_VALUE;
+    long to = Long.MIN_VALUE;
+    long peakRss = -1;
+    long peakExternal = -1;
+
+    Step(String label, long bytes) {
+      this.label = label;
+      this.bytes = bytes;
+    }
+
+    double seconds() {
+      return to > from ? (to - from) / 1000.0 : 0;
+    }
+
+    double uploadsPerSecond() {
+      return seconds() == 0 ? 0 : (uploads.count() - uploads.ko()) / seconds();
+    }
+
+    double megabytesPerSecond() {
+      return seconds() == 0 ? 0 : okBytes / MB / seconds();
+    }
+
+    /** Peak external memory over the bytes of the uploads in flight on average, -1 if unknown. */
+    double copies() {
+      double inFlight = uploadsPerSecond() * uploads.histogram.mean() / 1000.0 * bytes;
+      return peakExternal < 0 || inFlight == 0 ? -1 : peakExternal / inFlight;
+    }
+  }
+
+  private final Map<String, Step> steps = new LinkedHashMap<>();
+  private final List<GatewayMemory.Sample> samples;
+  private long idleRss = -1;
+  private String simulation;
+
+  public UploadReport(Properties sizes, List<GatewayMemory.Sample> samples) {
+    for (String label : sizes.getProperty("upload.sizes", "").split(",")) {
+      if (!label.isEmpty()) {
+        steps.put(label, new Step(label, Long.parseLong(sizes.getProperty("upload." + label + ".bytes"))));
+      }
+    }
+    this.samples = samples;
+  }
+
+  public static Path defaultFile() {
+    return SimulationLog.resultsDirectory().resolve("upload.properties");
+  }
+
+  /**
+   * Writes the sizes of the run, in order, with the bytes of their images. Meant to be called from
+   * {@code Simulation.before()}.
+   */
+  public static void storeSizes(List<ImageSize> sizes, Path file) {
+    Properties properties = new Properties();
+    List<String> labels = new ArrayList<>();
+    for (ImageSize size : sizes) {
+      labels.add(size.label);
+      properties.setProperty("upload." + size.label + ".bytes", Integer.toString(size.png().length));
+    }
+    properties.setProperty("upload.sizes", String.join(",", labels));
+    try {
+      Files.createDirectories(file.getParent());
+      try (Writer writer = Files.newBufferedWriter(file)) {
+        properties.store(writer, "The image sizes of the last run");
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException("Could not write " + file, e);
+    }
+  }
+
+  public static Properties loadSizes(Path file) throws IOException {
+    Properties properties = new Properties();
+    try (Reader reader = Files.newBufferedReader(file)) {
+      properties.load(reader);
+    }
+    return properties;
+  }
+
+  public void read(Path log) throws IOException {
+    SimulationLog.Run run = SimulationLog.read(log, new SimulationLog.Listener() {
+      @Override
+      public void request(List<String> groups, String name, long start, long end, boolean ok, String message) {
+        Step step = groups.size() == 1 ? steps.get(groups.get(0)) : null;
+        if (step == null) {
+          return;
+        }
+        if (name.equals(UPLOAD_REQUEST)) {
+          step.uploads.record(end - start, ok);
+          step.from = Math.min(step.from, start);
+          step.to = Math.max(step.to, end);
+          if (ok) {
+            step.okBytes += step.bytes;
+          }
+        } else if (name.equals(FETCH_REQUEST)) {
+          step.fetches.record(end - start, ok);
+        }
+      }
+    });
+    simulation = run.simulationClassName;
+    // Samples left by an earlier run
+    if (samples.isEmpty() || samples.get(samples.size() - 1).timestamp < run.start) {
+      return;
+    }
+    long firstUpload = steps.values().stream().mapToLong(step -> step.from).min().orElse(Long.MAX_VALUE);
+    for (GatewayMemory.Sample sample : samples) {
+      if (sample.timestamp < firstUpload && sample.rss >= 0) {
+        idleRss = sample.rss;
+      }
+      for (Step step : steps.values()) {
+        if (sample.timestamp >= step.from && sample.timestamp <= step.to) {
+          step.peakRss = Math.max(step.peakRss, sample.rss);
+          step.peakExternal = Math.max(step.peakExternal, sample.external);
+        }
+      }
+    }
+  }
+
+  public String text() {
+    StringBuilder out = new StringBuilder();
+    out.append("Upload sweep of ").append(simulation).append('\n');
+    out.append(idleRss < 0 ? "No gateway memory samples for this run\n"
+        : String.format("Gateway resident memory before the uploads: %.1f MB%n", idleRss / MB));
+    out.append('\n');
+    out.append(String.format("  %-6s %9s %8s %8s %7s %7s %7s %8s %9s %9s %9s %7s%n", "size", "bytes", "uploads",
+        "up/s", "MB/s", "p50", "p95", "errors", "fetch p95", "peak rss", "external", "copies"));
+    for (Step step : steps.values()) {
+      out.append(String.format("  %-6s %9d %8d %8.2f %7.2f %7d %7d %7.2f%% %9d %9s %9s %7s%n", step.label,
+          step.bytes, step.uploads.count(), step.uploadsPerSecond(), step.megabytesPerSecond(),
+          step.uploads.histogram.percentile(50), step.uploads.histogram.percentile(95),
+          step.uploads.errorRate() * 100, step.fetches.histogram.percentile(95), megabytes(step.peakRss),
+          megabytes(step.peakExternal), step.copies() < 0 ? "-" : String.format("%.1f", step.copies())));
+    }
+    return out.toString();
+  }
+
+  private static String megabytes(long bytes) {
+    return bytes < 0 ? "-" : String.format("%.1f MB", bytes / MB);
+  }
+
+  public ObjectNode json() {
+    ObjectMapper mapper = new ObjectMapper();
+    ObjectNode root = mapper.createObjectNode();
+    root.put("simulation", simulation);
+    root.put("idleRssBytes", idleRss);
+    ArrayNode sizes = root.putArray("sizes");
+    for (Step step : steps.values()) {
+      ObjectNode node = sizes.addObject();
+      node.put("size", step.label);
+      node.put("bytes", step.bytes);
+      node.put("uploads", step.uploads.count());
+      node.put("errors", step.uploads.ko());
+      node.put("uploadsPerSecond", step.uploadsPerSecond());
+      node.put("megabytesPerSecond", step.megabytesPerSecond());
+      node.put("p50", step.uploads.histogram.percentile(50));
+      node.put("p95", step.uploads.histogram.percentile(95));
+      node.put("p99", step.uploads.histogram.percentile(99));
+      node.put("fetchP95", step.fetches.histogram.percentile(95));
+      node.put("fetchErrors", step.fetches.ko());
+      node.put("peakRssBytes", step.peakRss);
+      node.put("peakExternalBytes", step.peakExternal);
+      node.put("copies", step.copies());
+    }
+    return root;
+  }
+
+  public static void main(String[] args) throws IOException {
+    Path log = SimulationLog.fromArgs(args);
+    Path sizesFile = Paths.get(System.getProperty("upload.plan", defaultFile().toString()));
+    Path memoryFile = Paths.get(System.getProperty("upload.memory", GatewayMemory.defaultFile().toString()));
+    UploadReport report = new UploadReport(loadSizes(sizesFile),
+        Files.exists(memoryFile) ? GatewayMemory.load(memoryFile) : List.of());
+    report.read(log);
+    Reports.write(log, "upload.json", report.text(), report.json());
+  }
+}
@@ -0,0 +1,110 @@
+package io.gatling.demo.users;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.gatling.demo.auth.Auth;
+import io.gatling.demo.auth.TokenPool;
+import io.gatling.demo.distributed.Injector;
+import static io.gatling.javaapi.core.CoreDsl.listFeeder;
+import io.gatling.javaapi.core.FeederBuilder;
+
+/**
+ * The users the simulations act as, read from the feeder file written by {@link UserRegistrar}.
+ *
+ * <p>Feed {@link #feeder()} at the start of a scenario to get {@code #{username}} and {@code #{password}}, and
+ * call {@link #provision()} from {@code Simulation.before()} so the token pool holds a token for each of them.
+ * Without a feeder file everything falls back to the single default user.
+ *
+ * <ul>
+ *   <li>{@code -Dusers.file} — feeder file, {@value #DEFAULT_FILE} by default</li>
+ *   <li>{@code -Dusers.limit} — how many users of the file take part in a run (default 1000); each one costs a
+ *       login before the run starts. In a distributed run the injectors split them between themselves</li>
+ *   <li>{@code -Dusers.strategy} — {@code circular} (default) or {@code random}</li>
+ * </ul>
+ */
+public final class Population {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(Population.class);
+
+  public static final String DEFAULT_FILE = "target/users.csv";
+  public static final String DEFAULT_PASSWORD = "LoadTest123$";
+
+  private static final Path FILE = Paths.get(System.getProperty("users.file", DEFAULT_FILE));
+  private static final int LIMIT = Integer.getInteger("users.limit", 1000);
+  private static final String STRATEGY = System.getProperty("users.strategy", "circular");
+
+  private static Map<String, String> credentials;
+
+  private Population() {
+  }
+
+  /**
+   * Username to password of the users taking part in the run, in file order.
+   */
+  public static synchronized Map<String, String> credentials() {
+    if (credentials == null) {
+      credentials = load();
+    }
+    return credentials;
+  }
+
+  public static TokenPool provision() {
+    return Auth.provision(credentials());
+  }
+
+  /**
+   * Feeder of {@code username}/{@code password} records, ordered by {@code -Dusers.strategy}.
+   */
+  public static FeederBuilder<Object> feeder() {
+    List<Map<String, Object>> records = new ArrayList<>();
+    credentials().forEach((username, password) -> records.add(Map.of("username", username, "password", password)));
+    FeederBuilder<Object> feeder = listFeeder(records);
+    switch (STRATEGY) {
+      case "circular":
+        return feeder.circular();
+      case "random":
+        return feeder.random();
+      default:
+        throw new IllegalArgumentException("Unknown users.strategy: " + STRATEGY);
+    }
+  }
+
+  private static Map<String, String> load() {
+    if (!Files.exists(FILE)) {
+      LOGGER.info("No user population at {}, acting as {}", FILE.toAbsolutePath(), Auth.DEFAULT_USERNAME);
+      return Map.of(Auth.DEFAULT_USERNAME, Auth.DEFAULT_PASSWORD);
+    }
+    Map<String, String> users = new LinkedHashMap<>();
+    try (BufferedReader reader = Files.newBufferedReader(FILE, StandardCharsets.UTF_8)) {
+      reader.readLine();
+      String line;
+      int row = 0;
+      while (row < LIMIT && (line = reader.readLine()) != null) {
+        int comma = line.indexOf(',');
+        if (comma > 0 && Injector.owns(row++)) {
+          users.put(line.substring(0, comma), line.substring(comma + 1));
+        }
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException("Could not read " + FILE, e);
+    }
+    if (users.isEmpty()) {
+      throw new IllegalStateException(FILE + " holds no users");
+    }
+    LOGGER.info("Acting as {} users from {}", users.size(), FILE.toAbsolutePath());
+    return users;
+  }
+}
@@ -0,0 +1,182 @@
+package io.gatling.demo.users;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.gatling.demo.Targets;
+
+/**
+ * Bulk-registers a synthetic user population through the gateway's {@code /adduser} and writes it to the
+ * feeder file read by {@link Population}.
+ *
+ * <p>Usernames are {@code <prefix><index>} and all users share one password, so a run can be resumed or
+ * extended: users that already exist are kept in the file instead of being counted as failures. The
+ * number of registrations in flight is capped because every one costs the user service a bcrypt hash.
+ *
+ * <pre>
+ * mvnw exec:java -Dexec.mainClass=io.gatling.demo.users.UserRegistrar -Dexec.classpathScope=test \
+ *     -Dusers.count=10000 -Dusers.parallelism=32
+ * </pre>
+ */
+public final class UserRegistrar {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(UserRegistrar.class);
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+
+  // Same rules as validateUsername/validatePassword in the user service
+  private static final Pattern USERNAME = Pattern.compile("^[a-zA-Z0-9_]{3,20}$");
+  private static final Pattern PASSWORD = Pattern.compile("^(?=.*[a-z])(?=.*[A-Z])(?=.*\\d)(?=.*[^A-Za-z0-9]).{8,}$");
+
+  private final String gatewayUrl;
+  private final String prefix;
+  private final String password;
+  private final int parallelism;
+  private final HttpClient client;
+
+  public UserRegistrar(String gatewayUrl, String prefix, String password, int parallelism) {
+    if (!PASSWORD.matcher(password).matches()) {
+      throw new IllegalArgumentException("The user service would reject password " + password);
+    }
+    this.gatewayUrl = gatewayUrl;
+    this.prefix = prefix;
+    this.password = password;
+    this.parallelism = parallelism;
+    this.client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10)).build();
+  }
+
+  /**
+   * Registers users {@code from} to {@code from + count - 1} and writes {@code username,password} lines to
+   * {@code file}, appending when it already exists.
+   *
+   * @return the number of users written, new or already registered
+   */
+  public int register(int from, int count, Path file) throws IOException, InterruptedException {
+    String widest = username(from + count - 1);
+    if (!USERNAME.matcher(widest).matches()) {
+      throw new IllegalArgumentException("The user service would reject username " + widest);
+    }
+    if (file.getParent() != null) {
+      Files.createDirectories(file.getParent());
+    }
+    boolean header = !Files.exists(file) || Files.size(file) == 0;
+
+    Semaphore inFlight = new Semaphore(parallelism);
+    AtomicInteger created = new AtomicInteger();
+    AtomicInteger existing = new AtomicInteger();
+    AtomicInteger failed = new AtomicInteger();
+    AtomicInteger done = new AtomicInteger();
+    int progressStep = Math.max(1, count / 20);
+    long start = System.nanoTime();
+
+    try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+        StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+      if (header) {
+        writer.write("username,password");
+        writer.newLine();
+      }
+      for (int i = from; i < from + count; i++) {
+        String username = username(i);
+        inFlight.acquire();
+        addUser(username).whenComplete((outcome, error) -> {
+          try {
+            if (error != null) {
+              failed.incrementAndGet();
+              LOGGER.warn("Could not register {}: {}", username, error.getMessage());
+            } else if (outcome == Outcome.FAILED) {
+              failed.incrementAndGet();
+            } else {
+              (outcome == Outcome.CREATED ? created : existing).incrementAndGet();
+              synchronized (writer) {
+                writer.write(username + "," + password);
+                writer.newLine();
+              }
+            }
+          } catch (IOException e) {
+            throw new UncheckedIOException(e);
+          } finally {
+            inFlight.release();
+            int n = done.incrementAndGet();
+            if (n % progressStep == 0 || n == count) {
+              LOGGER.info("{}/{} users processed", n, count);
+            }
+          }
+        });
+      }
+      inFlight.acquire(parallelism);
+    }
+
+    double seconds = (System.nanoTime() - start) / 1e9;
+    LOGGER.info("Registered {} new users, {} already existed, {} failed in {}s ({} users/s). Feeder: {}",
+        created.get(), existing.get(), failed.get(), Math.round(seconds), Math.round(count / seconds),
+        file.toAbsolutePath());
+    return created.get() + existing.get();
+  }
+
+  private enum Outcome {
+    CREATED, EXISTING, FAILED
+  }
+
+  private CompletableFuture<Outcome> addUser(String username) {
+    String body = MAPPER.createObjectNode()
+        .put("username", username)
+        .put("password", password)
+        .put("confirmpassword", password)
+        .toString();
+    HttpRequest request = HttpRequest.newBuilder(URI.create(gatewayUrl + "/adduser"))
+        .timeout(Duration.ofSeconds(60))
+        .header("Content-Type", "application/json")
+        .POST(HttpRequest.BodyPublishers.ofString(body))
+        .build();
+    return client.sendAsync(request, HttpResponse.BodyHandlers.ofString()).thenApply(response -> {
+      if (response.statusCode() == 200) {
+        return Outcome.CREATED;
+      }
+      if (response.body().contains("signUp.errors.duplicateUsername")) {
+        return Outcome.EXISTING;
+      }
+      LOGGER.warn("adduser {} returned {}: {}", username, response.statusCode(), response.body());
+      return Outcome.FAILED;
+    });
+  }
+
+  private String username(int index) {
+    return prefix + String.format("%07d", index);
+  }
+
+  public static void main(String[] args) throws Exception {
+    int count = Integer.getInteger("users.count", 10_000);
+    int from = Integer.getInteger("users.from", 1);
+    UserRegistrar registrar = new UserRegistrar(Targets.GATEWAY_URL,
+        System.getProperty("users.prefix", "lt_"),
+        System.getProperty("users.password", Population.DEFAULT_PASSWORD),
+        Integer.getInteger("users.parallelism", 32));
+    Targets.startMock();
+    try {
+      registrar.register(from, count, Paths.get(System.getProperty("users.file", Population.DEFAULT_FILE)));
+    } finally {
+      if (Targets.MOCK) {
+        LOGGER.info("The mock keeps users in memory only; they are gone once it stops");
+      }
+      Targets.stopMock();
+    }
+  }
+}
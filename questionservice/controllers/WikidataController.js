@@ -1,7 +1,8 @@
 const WBK = require('wikibase-sdk')
 const wbk = WBK({
     instance: 'https://www.wikidata.org',
-    sparqlEndpoint: 'https://query.wikidata.org/sparql' // Required to use `sparqlQuery` and `getReverseClaims` functions, optional otherwise
+    // SPARQL_ENDPOINT lets load tests point the pre-save at a local stand-in
+    sparqlEndpoint: process.env.SPARQL_ENDPOINT || 'https://query.wikidata.org/sparql' // Required to use `sparqlQuery` and `getReverseClaims` functions, optional otherwise
 })
 const questionTypes = require('./questionTypes');
 const axios = require('axios')